@@ -0,0 +1,185 @@
+package com.example.demo.benchmark;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.example.demo.domain.AudioData;
+import com.example.demo.domain.POI;
+import com.example.demo.domain.TTSAudio;
+import com.example.demo.domain.TTSAudioGroup;
+import com.example.demo.domain.User;
+import com.example.demo.domain.response.app.ResPOIDTO;
+
+/**
+ * Dữ liệu giả lập dùng chung cho benchmark: POI rải quanh 1 khu phố ẩm thực (~2km x 2km),
+ * mỗi POI 1 group thuyết minh với đủ 6 ngôn ngữ. Seed cố định để các lần chạy so sánh được.
+ */
+public final class BenchmarkFixtures {
+
+    public static final double CENTER_LAT = 10.7624;
+    public static final double CENTER_LNG = 106.6604;
+    /** ~1km theo mỗi chiều quanh tâm. */
+    public static final double SPREAD_DEGREES = 0.009;
+    public static final List<String> LANGUAGES = List.of("vi", "en", "zh", "ja", "ko", "fr");
+
+    private static final Instant CREATED_AT = Instant.parse("2024-01-01T00:00:00Z");
+
+    private BenchmarkFixtures() {
+    }
+
+    public static List<POI> pois(int count, long seed) {
+        Random random = new Random(seed);
+        User owner = owner();
+        List<POI> pois = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = i + 1L;
+            pois.add(POI.builder()
+                    .id(id)
+                    .user(owner)
+                    .foodName("Món " + id)
+                    .price(BigDecimal.valueOf(25_000 + random.nextInt(100) * 1_000L))
+                    .description("Mô tả món ăn số " + id + " — công thức gia truyền, phục vụ từ sáng tới khuya.")
+                    .imageUrl("/uploads/images/poi-" + id + ".jpg")
+                    .latitude(CENTER_LAT + (random.nextDouble() - 0.5) * 2 * SPREAD_DEGREES)
+                    .longitude(CENTER_LNG + (random.nextDouble() - 0.5) * 2 * SPREAD_DEGREES)
+                    .accuracy(5f)
+                    .triggerRadiusMeters(30f + random.nextInt(50))
+                    .priority(random.nextInt(5))
+                    .address(id + " Vĩnh Khánh, Quận 4")
+                    .category("street-food")
+                    .openHours("07:00-23:00")
+                    .phone("0900000" + String.format("%03d", id % 1000))
+                    .qrCode("POI-" + id)
+                    .createdAt(CREATED_AT)
+                    .updatedAt(CREATED_AT)
+                    .build());
+        }
+        return pois;
+    }
+
+    /** 1 group / POI, id group = id POI. */
+    public static List<TTSAudioGroup> groups(List<POI> pois) {
+        List<TTSAudioGroup> groups = new ArrayList<>(pois.size());
+        for (POI poi : pois) {
+            Map<String, AudioData> audioMap = new HashMap<>();
+            for (String lang : LANGUAGES) {
+                audioMap.put(lang, AudioData.builder()
+                        .fileName(lang + "-" + poi.getId() + ".mp3")
+                        .s3Url("/uploads/tts-audios/group-" + poi.getId() + "/" + lang + ".mp3")
+                        .fileSize(480_000L)
+                        .mimeType("audio/mpeg")
+                        .build());
+            }
+            groups.add(TTSAudioGroup.builder()
+                    .id(poi.getId())
+                    .groupKey("group-" + poi.getId())
+                    .foodName(poi.getFoodName())
+                    .poi(poi)
+                    .originalText("Chào mừng bạn đến với " + poi.getFoodName() + ". " + poi.getDescription())
+                    .originalVoice("hn-quynhanh")
+                    .originalSpeed(1.0f)
+                    .originalFormat(3)
+                    .originalWithoutFilter(false)
+                    .audioMap(audioMap)
+                    .createdBy("owner@example.com")
+                    .createdAt(CREATED_AT)
+                    .updatedAt(CREATED_AT)
+                    .build());
+        }
+        return groups;
+    }
+
+    /** Audio theo group id (giống kết quả {@code findByGroupIdIn} đã groupingBy). */
+    public static Map<Long, List<TTSAudio>> audiosByGroup(List<TTSAudioGroup> groups) {
+        Map<Long, List<TTSAudio>> result = new HashMap<>();
+        long id = 1;
+        for (TTSAudioGroup g : groups) {
+            List<TTSAudio> audios = new ArrayList<>(LANGUAGES.size());
+            for (String lang : LANGUAGES) {
+                AudioData data = g.getAudioMap().get(lang);
+                audios.add(TTSAudio.builder()
+                        .id(id++)
+                        .languageCode(lang)
+                        .voice("voice-" + lang)
+                        .speed(1.0f)
+                        .format(3)
+                        .withoutFilter(false)
+                        .fileName(data.getFileName())
+                        .s3Url(data.getS3Url())
+                        .fileSize(data.getFileSize())
+                        .mimeType(data.getMimeType())
+                        .group(g)
+                        .createdAt(CREATED_AT)
+                        .updatedAt(CREATED_AT)
+                        .build());
+            }
+            result.put(g.getId(), audios);
+        }
+        return result;
+    }
+
+    /** DTO như {@code GET /app/pois} trả về (không cần Spring context). */
+    public static List<ResPOIDTO> poiDtos(int count, long seed) {
+        List<POI> pois = pois(count, seed);
+        List<ResPOIDTO> result = new ArrayList<>(count);
+        long audioId = 1;
+        for (POI poi : pois) {
+            Map<String, ResPOIDTO.ResAudioInfoDTO> audios = new HashMap<>();
+            for (String lang : LANGUAGES) {
+                audios.put(lang, ResPOIDTO.ResAudioInfoDTO.builder()
+                        .audioId(audioId++)
+                        .languageCode(lang)
+                        .languageName(lang)
+                        .voice("voice-" + lang)
+                        .speed(1.0f)
+                        .format(3)
+                        .withoutFilter(false)
+                        .s3Url("/uploads/tts-audios/group-" + poi.getId() + "/" + lang + ".mp3")
+                        .fileSize(480_000L)
+                        .mimeType("audio/mpeg")
+                        .build());
+            }
+            result.add(ResPOIDTO.builder()
+                    .id(poi.getId())
+                    .groupId(poi.getId())
+                    .groupKey("group-" + poi.getId())
+                    .foodName(poi.getFoodName())
+                    .price(poi.getPrice())
+                    .description(poi.getDescription())
+                    .imageUrl(poi.getImageUrl())
+                    .latitude(poi.getLatitude())
+                    .longitude(poi.getLongitude())
+                    .accuracy(poi.getAccuracy())
+                    .triggerRadiusMeters(poi.getTriggerRadiusMeters())
+                    .priority(poi.getPriority())
+                    .address(poi.getAddress())
+                    .category(poi.getCategory())
+                    .openHours(poi.getOpenHours())
+                    .phone(poi.getPhone())
+                    .isActive(true)
+                    .viewCount(0L)
+                    .likeCount(0L)
+                    .qrCode(poi.getQrCode())
+                    .version(1)
+                    .audios(audios)
+                    .createdAt(poi.getCreatedAt())
+                    .updatedAt(poi.getUpdatedAt())
+                    .build());
+        }
+        return result;
+    }
+
+    private static User owner() {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("owner@example.com");
+        user.setFirstName("Chủ");
+        user.setLastName("Quán");
+        return user;
+    }
+}
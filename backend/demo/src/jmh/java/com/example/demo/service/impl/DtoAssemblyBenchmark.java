@@ -0,0 +1,65 @@
+package com.example.demo.service.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.example.demo.benchmark.BenchmarkFixtures;
+import com.example.demo.domain.POI;
+import com.example.demo.domain.TTSAudio;
+import com.example.demo.domain.TTSAudioGroup;
+import com.example.demo.domain.response.tts.ResTTSAudioGroupDTO;
+
+/**
+ * Dựng DTO từ entity đã nạp sẵn (không DB): {@link ResTTSAudioGroupDTO#fromEntity} và
+ * {@link POIDtoAssembler#buildPOIDTO} cho {@code poiCount} POI × 6 ngôn ngữ.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoAssemblyBenchmark {
+
+    @Param({ "1", "100", "1000" })
+    int poiCount;
+
+    private List<POI> pois;
+    private List<TTSAudioGroup> groups;
+    private Map<Long, List<TTSAudio>> audiosByGroup;
+
+    @Setup
+    public void setup() {
+        pois = BenchmarkFixtures.pois(poiCount, 42);
+        groups = BenchmarkFixtures.groups(pois);
+        audiosByGroup = BenchmarkFixtures.audiosByGroup(groups);
+    }
+
+    @Benchmark
+    public void audioGroupFromEntity(Blackhole bh) {
+        for (TTSAudioGroup g : groups) {
+            bh.consume(ResTTSAudioGroupDTO.fromEntity(g));
+        }
+    }
+
+    @Benchmark
+    public void buildPOIDTO(Blackhole bh) {
+        for (int i = 0; i < pois.size(); i++) {
+            bh.consume(POIDtoAssembler.buildPOIDTO(pois.get(i), List.of(groups.get(i)), audiosByGroup));
+        }
+    }
+}
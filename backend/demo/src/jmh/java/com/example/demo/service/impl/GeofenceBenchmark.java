@@ -0,0 +1,82 @@
+package com.example.demo.service.impl;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.benchmark.BenchmarkFixtures;
+import com.example.demo.domain.POI;
+import com.example.demo.service.GeofenceService.RankedPOI;
+
+/**
+ * {@link GeofenceServiceImpl#rankPOIs} (quét toàn bộ danh sách như khi không có spatial index)
+ * và {@link GeofenceServiceImpl#haversineDistance} trên 100–100k POI.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeofenceBenchmark {
+
+    private static final int POSITIONS = 1024;
+
+    @Param({ "100", "1000", "10000", "100000" })
+    int poiCount;
+
+    private final GeofenceServiceImpl geofenceService = new GeofenceServiceImpl();
+    private List<POI> pois;
+    private double[] lats;
+    private double[] lngs;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        pois = BenchmarkFixtures.pois(poiCount, 42);
+        Random random = new Random(7);
+        lats = new double[POSITIONS];
+        lngs = new double[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) {
+            lats[i] = BenchmarkFixtures.CENTER_LAT + (random.nextDouble() - 0.5) * 2 * BenchmarkFixtures.SPREAD_DEGREES;
+            lngs[i] = BenchmarkFixtures.CENTER_LNG + (random.nextDouble() - 0.5) * 2 * BenchmarkFixtures.SPREAD_DEGREES;
+        }
+    }
+
+    @Benchmark
+    public List<RankedPOI> rankPOIs() {
+        int i = next();
+        return geofenceService.rankPOIs(lats[i], lngs[i], pois);
+    }
+
+    /** Chỉ phần tính khoảng cách của 1 lần quét (không lọc / sắp xếp / cấp phát RankedPOI). */
+    @Benchmark
+    public double haversineScan() {
+        int i = next();
+        double lat = lats[i];
+        double lng = lngs[i];
+        double sum = 0;
+        for (POI poi : pois) {
+            sum += geofenceService.haversineDistance(lat, lng, poi.getLatitude(), poi.getLongitude());
+        }
+        return sum;
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = (i + 1) & (POSITIONS - 1);
+        return i;
+    }
+}
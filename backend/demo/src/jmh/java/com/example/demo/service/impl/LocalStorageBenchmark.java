@@ -0,0 +1,83 @@
+package com.example.demo.service.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Thông lượng đọc / ghi của {@link LocalStorageServiceImpl} trên thư mục tạm (ops/s; MB/s = ops/s × sizeBytes).
+ * 16KB ~ ảnh nhỏ, 512KB ~ 1 file thuyết minh mp3, 4MB ~ audio dài.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalStorageBenchmark {
+
+    @Param({ "16384", "524288", "4194304" })
+    int sizeBytes;
+
+    private Path baseDir;
+    private LocalStorageServiceImpl storage;
+    private byte[] payload;
+    private String existingUrl;
+
+    @Setup
+    public void setup() throws Exception {
+        baseDir = Files.createTempDirectory("jmh-storage");
+        storage = new LocalStorageServiceImpl(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(storage, "baseDir", baseDir.toString());
+        ReflectionTestUtils.setField(storage, "baseUrl", "/uploads");
+        storage.init();
+
+        payload = new byte[sizeBytes];
+        new Random(42).nextBytes(payload);
+        existingUrl = storage.uploadFile(new ByteArrayInputStream(payload), "tts-audios/bench/read.mp3",
+                "audio/mpeg", "");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(baseDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public String write() throws Exception {
+        return storage.uploadFile(new ByteArrayInputStream(payload), "tts-audios/bench/write.mp3",
+                "audio/mpeg", "");
+    }
+
+    @Benchmark
+    public long read() throws Exception {
+        try (InputStream in = storage.getFileInputStream(existingUrl)) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+}
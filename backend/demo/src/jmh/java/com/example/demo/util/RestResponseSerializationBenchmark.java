@@ -0,0 +1,85 @@
+package com.example.demo.util;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.demo.benchmark.BenchmarkFixtures;
+import com.example.demo.domain.response.app.ResPOIDTO;
+import com.example.demo.util.annotation.ApiMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Bọc {@link FormarRestResponse} + Jackson serialize danh sách {@link ResPOIDTO} (như {@code GET /app/pois}).
+ * ObjectMapper dựng bằng {@link Jackson2ObjectMapperBuilder} — cùng mặc định Spring Boot dùng.
+ * Request/response mock được tạo mỗi lần gọi nên {@code wrap} có thêm vài object nhỏ so với thực tế.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestResponseSerializationBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    int poiCount;
+
+    private final FormarRestResponse advice = new FormarRestResponse();
+    private ObjectMapper objectMapper;
+    private MethodParameter returnType;
+    private List<ResPOIDTO> body;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        returnType = new MethodParameter(Endpoint.class.getDeclaredMethod("getAllPOIs"), -1);
+        body = BenchmarkFixtures.poiDtos(poiCount, 42);
+    }
+
+    @Benchmark
+    public Object wrap() {
+        return advice.beforeBodyWrite(body, returnType, MediaType.APPLICATION_JSON,
+                MappingJackson2HttpMessageConverter.class,
+                new ServletServerHttpRequest(new MockHttpServletRequest("GET", "/api/v1/app/pois")),
+                new ServletServerHttpResponse(new MockHttpServletResponse()));
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    @Benchmark
+    public byte[] wrapAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(wrap());
+    }
+
+    /** Chỉ để lấy {@link MethodParameter} có {@link ApiMessage}. */
+    static class Endpoint {
+        @ApiMessage("Danh sách POI")
+        public List<ResPOIDTO> getAllPOIs() {
+            return List.of();
+        }
+    }
+}
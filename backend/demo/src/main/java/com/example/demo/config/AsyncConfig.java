@@ -0,0 +1,35 @@
+package com.example.demo.config;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    /**
+     * Pool cho các lời gọi dịch / TTS ra ngoài (I/O-bound). Giới hạn để không vượt quota API;
+     * hàng đợi đầy → chạy ngay trên thread gọi thay vì từ chối.
+     */
+    @Bean(name = "ttsExecutor")
+    public Executor ttsExecutor(
+            @Value("${app.tts.pool-size:6}") int poolSize,
+            @Value("${app.tts.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("tts-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
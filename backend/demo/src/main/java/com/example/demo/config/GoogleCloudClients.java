@@ -0,0 +1,166 @@
+package com.example.demo.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.util.MetricsUtil;
+import com.google.api.gax.core.FixedCredentialsProvider;
+import com.google.api.gax.grpc.ChannelPoolSettings;
+import com.google.api.gax.grpc.InstantiatingGrpcChannelProvider;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.texttospeech.v1.TextToSpeechClient;
+import com.google.cloud.texttospeech.v1.TextToSpeechSettings;
+import com.google.cloud.translate.v3.TranslationServiceClient;
+import com.google.cloud.translate.v3.TranslationServiceSettings;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Client Google Cloud (TTS, Translate) dùng chung cho cả ứng dụng.
+ * Credentials đọc 1 lần; {@link GoogleCredentials} tự cache access token và chỉ refresh khi sắp hết hạn.
+ * Mỗi client giữ 1 pool kênh gRPC cố định (thread-safe), tạo lười ở lần gọi đầu và đóng khi tắt ứng dụng.
+ */
+@Component
+public class GoogleCloudClients {
+
+    private static final Logger log = LoggerFactory.getLogger(GoogleCloudClients.class);
+    private static final List<String> SCOPES = List.of("https://www.googleapis.com/auth/cloud-platform");
+
+    @Value("${google.cloud.credentials.json:}")
+    private String credentialsJson;
+
+    @Value("${google.cloud.credentials.path:}")
+    private String credentialsPath;
+
+    @Value("${app.google.channel-pool-size:2}")
+    private int channelPoolSize;
+
+    private final MeterRegistry meterRegistry;
+
+    private volatile GoogleCredentials credentials;
+    private volatile TextToSpeechClient ttsClient;
+    private volatile TranslationServiceClient translationClient;
+
+    public GoogleCloudClients(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public TextToSpeechClient tts() throws IOException {
+        TextToSpeechClient c = ttsClient;
+        if (c == null) {
+            synchronized (this) {
+                c = ttsClient;
+                if (c == null) {
+                    TextToSpeechSettings settings = TextToSpeechSettings.newBuilder()
+                            .setCredentialsProvider(FixedCredentialsProvider.create(credentials()))
+                            .setTransportChannelProvider(pooledChannel(
+                                    TextToSpeechSettings.defaultGrpcTransportProviderBuilder()))
+                            .build();
+                    c = TextToSpeechClient.create(settings);
+                    ttsClient = c;
+                    log.info("Google TTS client created ({} channel(s))", channelPoolSize);
+                }
+            }
+        }
+        return c;
+    }
+
+    public TranslationServiceClient translation() throws IOException {
+        TranslationServiceClient c = translationClient;
+        if (c == null) {
+            synchronized (this) {
+                c = translationClient;
+                if (c == null) {
+                    TranslationServiceSettings settings = TranslationServiceSettings.newBuilder()
+                            .setCredentialsProvider(FixedCredentialsProvider.create(credentials()))
+                            .setTransportChannelProvider(pooledChannel(
+                                    TranslationServiceSettings.defaultGrpcTransportProviderBuilder()))
+                            .build();
+                    c = TranslationServiceClient.create(settings);
+                    translationClient = c;
+                    log.info("Google Translate client created ({} channel(s))", channelPoolSize);
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Đo thời gian 1 lời gọi API ({@code google.cloud.call}, tag {@code api}, {@code outcome}).
+     */
+    public <T> T timed(String api, GoogleCall<T> call) throws IOException {
+        return MetricsUtil.timed(meterRegistry, "google.cloud.call", call::run, "api", api);
+    }
+
+    @FunctionalInterface
+    public interface GoogleCall<T> {
+        T run() throws IOException;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (ttsClient != null) {
+            ttsClient.shutdown();
+        }
+        if (translationClient != null) {
+            translationClient.shutdown();
+        }
+        try {
+            if (ttsClient != null) {
+                ttsClient.awaitTermination(5, TimeUnit.SECONDS);
+            }
+            if (translationClient != null) {
+                translationClient.awaitTermination(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            ttsClient = null;
+            translationClient = null;
+        }
+    }
+
+    private InstantiatingGrpcChannelProvider pooledChannel(InstantiatingGrpcChannelProvider.Builder builder) {
+        return builder
+                .setChannelPoolSettings(ChannelPoolSettings.staticallySized(Math.max(1, channelPoolSize)))
+                .build();
+    }
+
+    private synchronized GoogleCredentials credentials() throws IOException {
+        if (credentials == null) {
+            credentials = loadCredentials();
+        }
+        return credentials;
+    }
+
+    private GoogleCredentials loadCredentials() throws IOException {
+        GoogleCredentials c;
+        // Ưu tiên: JSON string trong env var
+        if (credentialsJson != null && !credentialsJson.isBlank()) {
+            try (InputStream in = new ByteArrayInputStream(credentialsJson.getBytes(StandardCharsets.UTF_8))) {
+                c = GoogleCredentials.fromStream(in);
+            }
+        } else if (credentialsPath != null && !credentialsPath.isBlank()) {
+            // Ưu tiên 2: File path
+            try (InputStream in = new FileInputStream(credentialsPath)) {
+                c = GoogleCredentials.fromStream(in);
+            }
+        } else {
+            // Fallback: Application Default Credentials
+            log.warn("Google Cloud: no explicit credentials, using Application Default Credentials");
+            c = GoogleCredentials.getApplicationDefault();
+        }
+        return c.createScopedRequired() ? c.createScoped(SCOPES) : c;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.config;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.example.demo.repository.DeviceConfigRepository;
+import com.example.demo.service.ActiveNarrationRegistry;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+
+/**
+ * Metrics xuất qua {@code /actuator/prometheus}.
+ * <ul>
+ * <li>{@code http.server.requests} của {@code /api/v1/app/**}: histogram + p50/p95/p99 theo từng endpoint</li>
+ * <li>{@code narration.playing}: số phiên đang phát (registry trong RAM)</li>
+ * <li>{@code devices.active}: thiết bị gửi tín hiệu trong {@code active-device-window-seconds} gần nhất —
+ * đếm lại định kỳ, không query DB mỗi lần scrape</li>
+ * </ul>
+ * Hikari pool ({@code hikaricp.connections.*}) và JVM do Spring Boot tự gắn; timer provider / storage
+ * ở {@link com.example.demo.util.MetricsUtil}.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsConfiguration.class);
+    private static final String APP_API_PREFIX = "/api/v1/app/";
+
+    private final DeviceConfigRepository deviceConfigRepository;
+    private final long activeDeviceWindowSeconds;
+    private final AtomicLong activeDevices = new AtomicLong();
+
+    public MetricsConfiguration(
+            DeviceConfigRepository deviceConfigRepository,
+            @Value("${app.metrics.active-device-window-seconds:300}") long activeDeviceWindowSeconds) {
+        this.deviceConfigRepository = deviceConfigRepository;
+        this.activeDeviceWindowSeconds = Math.max(1, activeDeviceWindowSeconds);
+    }
+
+    @Bean
+    public MeterFilter appApiLatencyDistribution() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!"http.server.requests".equals(id.getName())) {
+                    return config;
+                }
+                String uri = id.getTag("uri");
+                if (uri == null || !uri.startsWith(APP_API_PREFIX)) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .percentiles(0.5, 0.95, 0.99)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder appGauges(ActiveNarrationRegistry activeNarrationRegistry) {
+        return registry -> {
+            Gauge.builder("narration.playing", activeNarrationRegistry, ActiveNarrationRegistry::totalPlaying)
+                    .description("Narrations currently PLAYING")
+                    .register(registry);
+            Gauge.builder("devices.active", activeDevices, AtomicLong::get)
+                    .description("Devices seen within the active window")
+                    .register(registry);
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${app.metrics.active-devices-refresh-ms:30000}", initialDelay = 5000)
+    public void refreshActiveDevices() {
+        try {
+            activeDevices.set(deviceConfigRepository.countActiveDevices(
+                    Instant.now().minusSeconds(activeDeviceWindowSeconds)));
+        } catch (RuntimeException e) {
+            log.warn("Active device count refresh failed: {}", e.getMessage());
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package com.example.demo.config;
 
+import java.util.Arrays;
+import java.util.List;
+
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -18,8 +22,11 @@ import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.DefaultBearerTokenResolver;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 
 import com.example.demo.util.SecurityUtil;
 import com.nimbusds.jose.jwk.source.ImmutableSecret;
@@ -29,9 +36,15 @@ import com.nimbusds.jose.util.Base64;
 @EnableMethodSecurity(securedEnabled = true) // để xem người dùng có quyền hạn hay không
 public class SecurityConfiguration {
 
+    private static final String DASHBOARD_STREAM_PATH = "/api/v1/admin/dashboard/stream";
+
     @Value("${hoidanit.jwt.base64-secret}")
     private String jwtKey;
 
+    /** Dải IP được scrape {@code /actuator/prometheus} (Prometheus / agent nội bộ), phân tách bằng dấu phẩy. */
+    @Value("${app.metrics.allowed-cidrs:127.0.0.1/32,::1/128}")
+    private String[] metricsAllowedCidrs;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -42,6 +55,12 @@ public class SecurityConfiguration {
             HttpSecurity http,
             CustomAuthenticationEntryPoint customAuthenticationEntryPoint) throws Exception {
 
+        List<IpAddressMatcher> metricsClients = Arrays.stream(metricsAllowedCidrs)
+                .map(String::trim)
+                .filter(c -> !c.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+
         String[] whiteList = {
                 "/",
                 "/storage/**",
@@ -69,6 +88,10 @@ public class SecurityConfiguration {
                 // 3. Cấu hình quyền truy cập cho các request
                 .authorizeHttpRequests(
                         authz -> authz
+                                // Metrics lộ tên endpoint, số request, trạng thái pool → chỉ dải IP cho phép
+                                .requestMatchers("/actuator/prometheus").access((authentication, context) ->
+                                        new AuthorizationDecision(metricsClients.stream()
+                                                .anyMatch(m -> m.matches(context.getRequest()))))
                                 .requestMatchers(whiteList).permitAll()
                                 // 3.1 Cho phép truy cập không cần xác thực cho trang chủ ("/") và trang đăng
                                 // nhập ("/login")
@@ -98,6 +121,23 @@ public class SecurityConfiguration {
         return jwtAuthenticationConverter;
     }
 
+    /**
+     * {@code ?access_token=} chỉ cho SSE dashboard — EventSource không đặt được header Authorization.
+     * Các route khác chỉ đọc header (token trên URL dễ lọt vào log / lịch sử trình duyệt).
+     */
+    @Bean
+    public BearerTokenResolver bearerTokenResolver() {
+        DefaultBearerTokenResolver headerOnly = new DefaultBearerTokenResolver();
+        DefaultBearerTokenResolver withQueryParameter = new DefaultBearerTokenResolver();
+        withQueryParameter.setAllowUriQueryParameter(true);
+        return request -> {
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+            return DASHBOARD_STREAM_PATH.equals(path)
+                    ? withQueryParameter.resolve(request)
+                    : headerOnly.resolve(request);
+        };
+    }
+
     @Bean
     public JwtDecoder jwtDecoder() {
         NimbusJwtDecoder jwtDecoder = NimbusJwtDecoder.withSecretKey(
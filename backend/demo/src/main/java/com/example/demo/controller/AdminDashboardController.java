@@ -4,13 +4,19 @@ import java.time.LocalDate;
 import java.util.List;
 
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.example.demo.domain.request.admin.ReqLoadTestDTO;
 import com.example.demo.domain.response.admin.ResDashboardDTO;
@@ -19,7 +25,13 @@ import com.example.demo.domain.response.admin.ResTopPOIDTO;
 import com.example.demo.domain.response.admin.ResTranslationStatsDTO;
 import com.example.demo.domain.response.app.ResActiveNarrationDTO;
 import com.example.demo.service.AdminDashboardService;
+import com.example.demo.service.DashboardStreamService;
+import com.example.demo.service.GeofenceDecisionLog;
+import com.example.demo.service.LoadTestService;
+import com.example.demo.util.SecurityUtil;
 import com.example.demo.util.annotation.ApiMessage;
+import com.example.demo.util.error.IdInvalidException;
+import com.example.demo.util.error.PermissionException;
 
 import jakarta.validation.Valid;
 
@@ -28,9 +40,18 @@ import jakarta.validation.Valid;
 public class AdminDashboardController {
 
     private final AdminDashboardService adminDashboardService;
-
-    public AdminDashboardController(AdminDashboardService adminDashboardService) {
+    private final DashboardStreamService dashboardStreamService;
+    private final LoadTestService loadTestService;
+    private final GeofenceDecisionLog geofenceDecisionLog;
+
+    public AdminDashboardController(AdminDashboardService adminDashboardService,
+            DashboardStreamService dashboardStreamService,
+            LoadTestService loadTestService,
+            GeofenceDecisionLog geofenceDecisionLog) {
         this.adminDashboardService = adminDashboardService;
+        this.dashboardStreamService = dashboardStreamService;
+        this.loadTestService = loadTestService;
+        this.geofenceDecisionLog = geofenceDecisionLog;
     }
 
     @GetMapping("/dashboard")
@@ -51,6 +72,56 @@ public class AdminDashboardController {
         return ResponseEntity.ok(adminDashboardService.getActiveNarrationsForAdmin());
     }
 
+    /**
+     * Server-Sent Events: delta dashboard (narration.started / narration.ended / payment.succeeded / device.seen).
+     * Chủ quán chỉ nhận sự kiện của POI mình. EventSource không gửi được header → có thể dùng {@code ?access_token=}.
+     * Bắt buộc đăng nhập; đủ số kết nối cho phép → 503.
+     */
+    @GetMapping(value = "/dashboard/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamDashboard() throws PermissionException {
+        Long scope = SecurityUtil.requirePoiOwnerScopeUserIdOrNull();
+        return dashboardStreamService.subscribe(SecurityUtil.getCurrentUserId().orElse(null), scope)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "30")
+                        .build());
+    }
+
+    /**
+     * Quyết định geofence gần nhất (đã lấy mẫu), mới → cũ. Bắt buộc đăng nhập; chủ quán chỉ thấy quyết định
+     * ở POI của mình.
+     *
+     * @param poiId Lọc theo POI được yêu cầu hoặc POI thắng
+     */
+    @GetMapping("/dashboard/geofence/decisions")
+    @ApiMessage("Nhật ký quyết định geofence")
+    public ResponseEntity<List<GeofenceDecisionLog.Decision>> getGeofenceDecisions(
+            @RequestParam(required = false) String deviceId,
+            @RequestParam(required = false) Long poiId,
+            @RequestParam(defaultValue = "100") int limit) throws PermissionException {
+        return ResponseEntity.ok(geofenceDecisionLog.recent(limit, deviceId, poiId,
+                SecurityUtil.requirePoiOwnerScopeUserIdOrNull()));
+    }
+
+    @GetMapping("/dashboard/geofence/sampling")
+    @ApiMessage("Quy tắc lấy mẫu geofence")
+    public ResponseEntity<GeofenceDecisionLog.SamplingRules> getGeofenceSampling() throws PermissionException {
+        SecurityUtil.requireJwt();
+        return ResponseEntity.ok(geofenceDecisionLog.getSamplingRules());
+    }
+
+    /**
+     * Đổi quy tắc lấy mẫu lúc chạy (vd. bật 100% cho 1 device đang bị báo lỗi). Chỉ full admin.
+     */
+    @PutMapping("/dashboard/geofence/sampling")
+    @ApiMessage("Cập nhật quy tắc lấy mẫu geofence")
+    public ResponseEntity<GeofenceDecisionLog.SamplingRules> updateGeofenceSampling(
+            @RequestBody GeofenceDecisionLog.SamplingRules rules) throws PermissionException {
+        SecurityUtil.requireFullAdmin();
+        geofenceDecisionLog.setSamplingRules(rules);
+        return ResponseEntity.ok(geofenceDecisionLog.getSamplingRules());
+    }
+
     /**
      * Top POIs được nghe nhiều nhất.
      *
@@ -67,20 +138,48 @@ public class AdminDashboardController {
         return ResponseEntity.ok(adminDashboardService.getTopPOIsByNarration(from, to, limit));
     }
 
+    /**
+     * Tính lại thống kê lượt nghe theo giờ / ngày từ log gốc (dữ liệu cũ, sau khi sửa log). Chạy nền → 202.
+     */
+    @PostMapping("/dashboard/rollups/backfill")
+    @ApiMessage("Tính lại thống kê lượt nghe")
+    public ResponseEntity<Void> backfillNarrationRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to)
+            throws IdInvalidException, PermissionException {
+        adminDashboardService.backfillNarrationRollups(from, to);
+        return ResponseEntity.accepted().build();
+    }
+
     @GetMapping("/translation/stats")
     @ApiMessage("Thống kê dịch thuật")
     public ResponseEntity<ResTranslationStatsDTO> getTranslationStats() {
         return ResponseEntity.ok(adminDashboardService.getTranslationStats());
     }
 
+    /**
+     * Chạy nền — trả 202 kèm testId (status RUNNING); theo dõi bằng {@code GET /load-test/{testId}}. Chỉ full admin.
+     */
     @PostMapping("/load-test/start")
     @ApiMessage("Bắt đầu load test")
-    public ResponseEntity<ResLoadTestResultDTO> startLoadTest(@Valid @RequestBody ReqLoadTestDTO req) {
-        return ResponseEntity.ok(adminDashboardService.startLoadTest(
+    public ResponseEntity<ResLoadTestResultDTO> startLoadTest(@Valid @RequestBody ReqLoadTestDTO req)
+            throws IdInvalidException, PermissionException {
+        SecurityUtil.requireFullAdmin();
+        return ResponseEntity.accepted().body(loadTestService.start(new LoadTestService.LoadTestPlan(
                 req.getConcurrentUsers(),
                 req.getDurationSeconds(),
                 req.getTriggerRadiusMeters() != null ? req.getTriggerRadiusMeters() : 50,
-                req.getPoiCount()));
+                req.getPoiCount(),
+                req.getArrivalRatePerSecond())));
+    }
+
+    @GetMapping("/load-test/{testId}")
+    @ApiMessage("Kết quả load test")
+    public ResponseEntity<ResLoadTestResultDTO> getLoadTest(@PathVariable String testId)
+            throws IdInvalidException, PermissionException {
+        SecurityUtil.requireFullAdmin();
+        return ResponseEntity.ok(loadTestService.get(testId)
+                .orElseThrow(() -> new IdInvalidException("Không tìm thấy load test: " + testId)));
     }
 
     @GetMapping("/device-configs")
@@ -1,7 +1,20 @@
 package com.example.demo.controller;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
 
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -13,6 +26,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.demo.domain.DeviceConfig.RunningMode;
+import com.example.demo.domain.request.app.ReqDeviceHeartbeatDTO;
 import com.example.demo.domain.request.app.ReqDeviceRegisterDTO;
 import com.example.demo.domain.request.app.ReqDeviceSyncDTO;
 import com.example.demo.domain.request.app.ReqNarrationEndDTO;
@@ -23,12 +37,21 @@ import com.example.demo.domain.request.app.ReqPaymentCreateDTO;
 import com.example.demo.domain.response.app.ResActiveNarrationDTO;
 import com.example.demo.domain.response.app.ResDeviceConfigDTO;
 import com.example.demo.domain.response.app.ResNearbyPOIDTO;
+import com.example.demo.domain.response.app.ResOfflineBundleDTO;
 import com.example.demo.domain.response.app.ResPOIDTO;
 import com.example.demo.domain.response.app.ResPaymentDTO;
 import com.example.demo.service.AppClientService;
+import com.example.demo.service.DeviceHeartbeatService;
+import com.example.demo.service.OfflineBundleService;
+import com.example.demo.service.POICatalogueService;
+import com.example.demo.service.POICatalogueService.CatalogueSnapshot;
+import com.example.demo.util.FileStreamUtil;
 import com.example.demo.util.annotation.ApiMessage;
 import com.example.demo.util.error.IdInvalidException;
+import com.example.demo.util.error.StorageException;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @RestController
@@ -36,9 +59,19 @@ import jakarta.validation.Valid;
 public class AppClientController {
 
     private final AppClientService appClientService;
+    private final POICatalogueService poiCatalogueService;
+    private final OfflineBundleService offlineBundleService;
+    private final DeviceHeartbeatService deviceHeartbeatService;
 
-    public AppClientController(AppClientService appClientService) {
+    public AppClientController(
+            AppClientService appClientService,
+            POICatalogueService poiCatalogueService,
+            OfflineBundleService offlineBundleService,
+            DeviceHeartbeatService deviceHeartbeatService) {
         this.appClientService = appClientService;
+        this.poiCatalogueService = poiCatalogueService;
+        this.offlineBundleService = offlineBundleService;
+        this.deviceHeartbeatService = deviceHeartbeatService;
     }
 
     // ============ Device ============
@@ -63,6 +96,7 @@ public class AppClientController {
     /**
      * Sync cấu hình thiết bị + vị trí.
      * Gọi định kỳ khi app chạy hoặc khi vào bán kính POI.
+     * Thiết bị OFFLINE nhận delta (POI mới/đổi/bị xóa) so với {@code downloadedVersions}.
      */
     @PostMapping("/device/sync")
     @ApiMessage("Sync thiết bị")
@@ -71,10 +105,27 @@ public class AppClientController {
                 req.getDeviceId(),
                 req.getLatitude(),
                 req.getLongitude(),
-                req.getDownloadedVersions());
+                req.getDownloadedVersions(),
+                req.getSyncCursor());
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Heartbeat vị trí: lô điểm GPS gom trên app (vd. mỗi vài giây 1 điểm, gửi mỗi 15-30s).
+     * Không đọc / ghi DB mỗi lần gọi — vị trí được ghi gộp định kỳ; điểm GPS dùng để xét vào / ra vùng POI.
+     */
+    @PostMapping("/device/heartbeat")
+    @ApiMessage("Heartbeat vị trí thiết bị")
+    public ResponseEntity<Void> heartbeat(@Valid @RequestBody ReqDeviceHeartbeatDTO req)
+            throws IdInvalidException {
+        List<DeviceHeartbeatService.Fix> fixes = req.getFixes().stream()
+                .map(f -> new DeviceHeartbeatService.Fix(f.getLatitude(), f.getLongitude(), f.getAccuracy(),
+                        Instant.ofEpochMilli(f.getTimestamp())))
+                .toList();
+        deviceHeartbeatService.accept(req.getDeviceId(), fixes);
+        return ResponseEntity.ok().build();
+    }
+
     /**
      * Lấy cấu hình thiết bị hiện tại.
      */
@@ -109,11 +160,36 @@ public class AppClientController {
 
     /**
      * Lấy tất cả POIs active (có GPS).
+     * Trả snapshot JSON tính sẵn (cùng format RestResponse); gửi {@code If-None-Match} → 304 nếu chưa đổi,
+     * {@code Accept-Encoding: gzip} → trả bản đã nén sẵn.
      */
     @GetMapping("/pois")
     @ApiMessage("Danh sách POIs")
-    public ResponseEntity<List<ResPOIDTO>> getAllPOIs() throws IdInvalidException {
-        return ResponseEntity.ok(appClientService.getAllPOIs());
+    public ResponseEntity<Resource> getAllPOIs(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CatalogueSnapshot snapshot = poiCatalogueService.getSnapshot();
+
+        if (etagMatches(ifNoneMatch, snapshot.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        byte[] body = gzip ? snapshot.gzip() : snapshot.json();
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(body.length);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(new ByteArrayResource(body));
     }
 
     /**
@@ -149,6 +225,51 @@ public class AppClientController {
         return ResponseEntity.ok(appClientService.getNearbyPOIs(lat, lng, radiusKm));
     }
 
+    // ============ Offline bundle ============
+
+    /**
+     * Chuẩn bị gói offline (zip: POI + audio) cho vùng quanh vị trí.
+     * 200 = gói sẵn sàng; 202 = đang dựng nền, gọi lại cùng tham số sau ít giây; 503 = hàng đợi dựng đầy.
+     * @param radiusKm Bán kính (0, {@code app.offline-bundle.max-radius-km}]
+     * @param langs Danh sách mã ngôn ngữ, phân tách bằng dấu phẩy (vd: vi,en). Bỏ trống → tất cả.
+     */
+    @GetMapping("/offline-bundles")
+    @ApiMessage("Gói offline theo vùng")
+    public ResponseEntity<ResOfflineBundleDTO> prepareOfflineBundle(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "2.0") double radiusKm,
+            @RequestParam(required = false) String langs) throws IdInvalidException, StorageException {
+        List<String> languages = langs == null ? List.of() : Arrays.asList(langs.split(","));
+        ResOfflineBundleDTO bundle = offlineBundleService.prepareBundle(lat, lng, radiusKm, languages);
+        return switch (bundle.getStatus()) {
+            case ResOfflineBundleDTO.READY -> ResponseEntity.ok(bundle);
+            case ResOfflineBundleDTO.BUILDING -> ResponseEntity.accepted()
+                    .header(HttpHeaders.RETRY_AFTER, "3")
+                    .body(bundle);
+            default -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(bundle);
+        };
+    }
+
+    /**
+     * Tải file zip của gói offline. Hỗ trợ {@code Range} / {@code If-Range} để tải tiếp khi rớt mạng.
+     */
+    @GetMapping("/offline-bundles/{bundleId}")
+    public void downloadOfflineBundle(
+            @PathVariable String bundleId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IdInvalidException, IOException {
+        Path file = offlineBundleService.getBundleFile(bundleId);
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        // bundleId sinh từ nội dung → file không đổi, cache lâu dài được
+        FileStreamUtil.serve(request, response, file, attrs.size(), attrs.lastModifiedTime().toMillis(),
+                "\"" + bundleId + "\"", "application/zip",
+                "attachment; filename=\"offline-" + bundleId + ".zip\"",
+                CacheControl.maxAge(Duration.ofDays(30)).cachePrivate().immutable().getHeaderValue());
+    }
+
     // ============ Narration ============
 
     /**
@@ -268,4 +389,17 @@ public class AppClientController {
         appClientService.handlePayOSWebhook(transactionId, status);
         return ResponseEntity.ok().build();
     }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = tag.trim();
+            if (t.equals("*") || t.equals(etag) || t.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
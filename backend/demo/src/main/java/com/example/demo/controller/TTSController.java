@@ -12,8 +12,6 @@ import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -27,20 +25,27 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.example.demo.domain.dto.ResultPaginationDTO;
+import com.example.demo.domain.request.tts.ReqBulkRegenerateDTO;
 import com.example.demo.domain.request.tts.ReqTTSDTO;
 import com.example.demo.domain.request.tts.ReqUpdateTTSAudioGroupDTO;
 import com.example.demo.domain.response.tts.ResAudioDataDTO;
 import com.example.demo.domain.response.tts.ResTTSAudioDTO;
 import com.example.demo.domain.response.tts.ResTTSAudioGroupDTO;
+import com.example.demo.domain.response.tts.ResTTSJobDTO;
 import com.example.demo.domain.response.tts.ResVoiceDTO;
 import com.example.demo.domain.response.tts.ResVoicesDTO;
 import com.example.demo.service.LocalStorageService;
 import com.example.demo.service.TTSAudioService;
+import com.example.demo.service.TTSAudioService.AudioFile;
+import com.example.demo.service.TTSJobService;
 import com.example.demo.service.TTSService;
+import com.example.demo.util.FileStreamUtil;
 import com.example.demo.util.SecurityUtil;
 import com.example.demo.util.annotation.ApiMessage;
 import com.example.demo.util.error.IdInvalidException;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @RestController
@@ -50,12 +55,14 @@ public class TTSController {
     private final TTSService ttsService;
     private final TTSAudioService ttsAudioService;
     private final LocalStorageService localStorageService;
+    private final TTSJobService ttsJobService;
 
     public TTSController(TTSService ttsService, TTSAudioService ttsAudioService,
-            LocalStorageService localStorageService) {
+            LocalStorageService localStorageService, TTSJobService ttsJobService) {
         this.ttsService = ttsService;
         this.ttsAudioService = ttsAudioService;
         this.localStorageService = localStorageService;
+        this.ttsJobService = ttsJobService;
     }
 
     // ============ TTS cơ bản ============
@@ -86,27 +93,14 @@ public class TTSController {
 
     @GetMapping("/audios/{id}/download")
     @ApiMessage("Tải xuống hoặc phát TTS audio theo ID")
-    public ResponseEntity<Resource> downloadTTSAudio(@PathVariable Long id) throws IdInvalidException {
+    public void downloadTTSAudio(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response)
+            throws IdInvalidException, IOException {
         ResTTSAudioDTO dto = ttsAudioService.getTTSAudioById(id);
         if (dto.getGroupKey() == null) {
             throw new IdInvalidException("Audio này không thuộc group nào");
         }
         String langCode = dto.getLanguageCode() != null ? dto.getLanguageCode() : "vi";
-        Resource resource = ttsAudioService.getAudioResource(dto.getGroupKey(), langCode);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("audio/mpeg"));
-        String fileName = langCode + ".mp3";
-        try {
-            String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replace("+", "%20");
-            String asciiFileName = fileName.replaceAll("[^a-zA-Z0-9._-]", "_");
-            String contentDisposition = String.format("inline; filename=\"%s\"; filename*=UTF-8''%s",
-                    asciiFileName, encodedFileName);
-            headers.set("Content-Disposition", contentDisposition);
-        } catch (Exception e) {
-            headers.setContentDispositionFormData("inline", fileName.replaceAll("[^a-zA-Z0-9._-]", "_"));
-        }
-        return ResponseEntity.ok().headers(headers).body(resource);
+        serveAudio(ttsAudioService.getAudioFile(dto.getGroupKey(), langCode), "inline", request, response);
     }
 
     @GetMapping("/audios")
@@ -131,15 +125,16 @@ public class TTSController {
 
     @GetMapping("/audios/{id}/stream")
     @ApiMessage("Phát audio theo audio ID + ngôn ngữ")
-    public ResponseEntity<Resource> streamAudio(
+    public void streamAudio(
             @PathVariable Long id,
-            @RequestParam String languageCode) throws IdInvalidException {
+            @RequestParam String languageCode,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IdInvalidException, IOException {
         ResTTSAudioDTO dto = ttsAudioService.getTTSAudioById(id);
         if (dto.getGroupKey() == null) {
             throw new IdInvalidException("Audio này không thuộc group nào");
         }
-        Resource resource = ttsAudioService.getAudioResource(dto.getGroupKey(), languageCode);
-        return ResponseEntity.ok(resource);
+        serveAudio(ttsAudioService.getAudioFile(dto.getGroupKey(), languageCode), null, request, response);
     }
 
     // ============ Group CRUD ============
@@ -158,6 +153,30 @@ public class TTSController {
         return ResponseEntity.ok(created);
     }
 
+    /**
+     * Tạo group rồi trả job ngay (202); audio đa ngôn ngữ được tạo nền — poll {@code GET /jobs/{id}}.
+     */
+    @PostMapping("/groups/async")
+    @ApiMessage("Tạo nhóm audio TTS, tạo audio đa ngôn ngữ chạy nền")
+    public ResponseEntity<ResTTSJobDTO> createGroupAsync(@Valid @RequestBody ReqTTSDTO request)
+            throws IdInvalidException {
+        request.setCreatedBy(SecurityUtil.getCurrentUserLogin().orElse("anonymous"));
+        return ResponseEntity.accepted().body(ttsJobService.createGroupAsync(request));
+    }
+
+    @PostMapping("/groups/regenerate-async")
+    @ApiMessage("Xếp job tạo lại audio cho nhiều group")
+    public ResponseEntity<List<ResTTSJobDTO>> regenerateGroupsAsync(
+            @Valid @RequestBody ReqBulkRegenerateDTO request) throws IdInvalidException {
+        return ResponseEntity.accepted().body(ttsJobService.regenerateAsync(request));
+    }
+
+    @GetMapping("/jobs/{id}")
+    @ApiMessage("Trạng thái job tạo audio")
+    public ResponseEntity<ResTTSJobDTO> getJob(@PathVariable Long id) throws IdInvalidException {
+        return ResponseEntity.ok(ttsJobService.getJob(id));
+    }
+
     @GetMapping("/groups/{id}")
     @ApiMessage("Lấy group audio theo ID")
     public ResponseEntity<ResTTSAudioGroupDTO> getGroupById(@PathVariable Long id) throws IdInvalidException {
@@ -212,34 +231,32 @@ public class TTSController {
 
     /**
      * Phát hoặc download audio theo groupKey + ngôn ngữ.
+     * Hỗ trợ Range (tua / tải tiếp), ETag / Last-Modified (304).
      */
     @GetMapping("/groups/{groupKey}/audio/{languageCode}")
     @ApiMessage("Phát/download audio theo groupKey và ngôn ngữ")
-    public ResponseEntity<Resource> getAudio(
+    public void getAudio(
             @PathVariable String groupKey,
             @PathVariable String languageCode,
-            @RequestParam(defaultValue = "inline") String disposition) throws IdInvalidException {
-
-        Resource resource = ttsAudioService.getAudioResource(groupKey, languageCode);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("audio/mpeg"));
+            @RequestParam(defaultValue = "inline") String disposition,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IdInvalidException, IOException {
+        serveAudio(ttsAudioService.getAudioFile(groupKey, languageCode), disposition, request, response);
+    }
 
-        String fileName = languageCode + ".mp3";
-        String encodedFileName;
-        try {
-            encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replace("+", "%20");
+    private static void serveAudio(AudioFile audio, String disposition, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        String contentDisposition = null;
+        if (disposition != null) {
+            String fileName = audio.fileName();
+            String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replace("+", "%20");
             String asciiFileName = fileName.replaceAll("[^a-zA-Z0-9._-]", "_");
-            String contentDisposition = String.format("%s; filename=\"%s\"; filename*=UTF-8''%s",
-                    disposition, asciiFileName, encodedFileName);
-            headers.set("Content-Disposition", contentDisposition);
-        } catch (Exception e) {
-            headers.setContentDispositionFormData("inline", fileName.replaceAll("[^a-zA-Z0-9._-]", "_"));
+            String type = "attachment".equalsIgnoreCase(disposition) ? "attachment" : "inline";
+            contentDisposition = String.format("%s; filename=\"%s\"; filename*=UTF-8''%s",
+                    type, asciiFileName, encodedFileName);
         }
-
-        return ResponseEntity.ok()
-                .headers(headers)
-                .body(resource);
+        FileStreamUtil.serve(request, response, audio.path(), audio.length(), audio.lastModified(),
+                audio.etag(), audio.mimeType(), contentDisposition, "public, max-age=86400");
     }
 
     /**
@@ -20,6 +20,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.example.demo.domain.TranslationTraining;
 import com.example.demo.domain.request.admin.ReqUpsertTranslationDTO;
 import com.example.demo.repository.TranslationTrainingRepository;
+import com.example.demo.service.TranslationMemoryService;
 import com.example.demo.util.annotation.ApiMessage;
 import com.example.demo.util.error.IdInvalidException;
 
@@ -30,9 +31,12 @@ import jakarta.validation.Valid;
 public class TranslationController {
 
     private final TranslationTrainingRepository repository;
+    private final TranslationMemoryService translationMemoryService;
 
-    public TranslationController(TranslationTrainingRepository repository) {
+    public TranslationController(TranslationTrainingRepository repository,
+            TranslationMemoryService translationMemoryService) {
         this.repository = repository;
+        this.translationMemoryService = translationMemoryService;
     }
 
     @GetMapping("/corpus")
@@ -79,6 +83,7 @@ public class TranslationController {
                 .build();
 
         training = repository.save(training);
+        evict(training);
         return ResponseEntity.ok(training);
     }
 
@@ -100,6 +105,7 @@ public class TranslationController {
         ).collect(Collectors.toList());
 
         List<TranslationTraining> saved = repository.saveAll(trainings);
+        saved.forEach(this::evict);
         return ResponseEntity.ok(saved);
     }
 
@@ -114,16 +120,25 @@ public class TranslationController {
 
         training.validate(req.getCorrectedText(), req.getValidatedBy());
         training = repository.save(training);
+        evict(training);
         return ResponseEntity.ok(training);
     }
 
     @DeleteMapping("/corpus/{id}")
     @ApiMessage("Xóa training data")
     public ResponseEntity<Void> deleteCorpus(@PathVariable Long id) {
-        repository.deleteById(id);
+        repository.findById(id).ifPresent(t -> {
+            repository.delete(t);
+            evict(t);
+        });
         return ResponseEntity.ok().build();
     }
 
+    /** Corpus đổi → bản dịch đang cache trong translation memory có thể không còn là bản tốt nhất. */
+    private void evict(TranslationTraining t) {
+        translationMemoryService.evict(t.getSourceText(), t.getSourceLang(), t.getTargetLang());
+    }
+
     @lombok.Data
     public static class ValidateRequest {
         String correctedText;
@@ -0,0 +1,70 @@
+package com.example.demo.domain;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Số lượt nghe đã gộp theo (mức gộp, đầu bucket, POI, ngôn ngữ) — dashboard đọc bảng này thay vì
+ * JOIN narration_logs → tts_audios → tts_audio_groups → pois.
+ * Chỉ đếm log {@code COMPLETED}/{@code SKIPPED}/không trạng thái (cùng tiêu chí Top POIs cũ).
+ * Bucket giờ / ngày căn theo múi giờ server, nên 1 ngày = đúng các bucket giờ của nó.
+ */
+@Entity
+@Table(name = "narration_rollups", indexes = {
+        @Index(name = "uk_narration_rollup_bucket",
+                columnList = "granularity, bucketStart, poiId, languageCode", unique = true),
+        @Index(name = "idx_narration_rollup_poi", columnList = "granularity, poiId, bucketStart")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class NarrationRollup {
+
+    public enum Granularity {
+        HOUR, DAY
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    Granularity granularity;
+
+    @Column(nullable = false)
+    Instant bucketStart;
+
+    /** Không FK — giữ số liệu lịch sử khi POI bị xóa */
+    @Column(nullable = false)
+    Long poiId;
+
+    @Column(nullable = false, length = 10)
+    String languageCode;
+
+    @Column(nullable = false)
+    long narrationCount;
+
+    @Column(nullable = false)
+    long durationSeconds;
+
+    @Column(nullable = false)
+    Instant updatedAt;
+}
@@ -0,0 +1,94 @@
+package com.example.demo.domain;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Job tạo audio TTS chạy nền (bền qua restart). Worker nhận job QUEUED đến hạn {@code nextRunAt},
+ * lỗi thì thử lại với backoff lũy thừa cho tới {@code maxAttempts}.
+ */
+@Entity
+@Table(name = "tts_generation_jobs", indexes = {
+        @Index(name = "idx_tts_jobs_status_next_run", columnList = "status, nextRunAt"),
+        @Index(name = "idx_tts_jobs_group", columnList = "groupId")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TTSGenerationJob {
+
+    public enum JobStatus {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Long id;
+
+    @Column(nullable = false)
+    Long groupId;
+
+    /**
+     * Ngôn ngữ còn phải tạo, phân tách bằng dấu phẩy (vd: "vi,en,zh").
+     * Sau mỗi lần chạy chỉ giữ lại ngôn ngữ lỗi → lần thử lại không tạo lại ngôn ngữ đã xong.
+     */
+    @Column(nullable = false, length = 100)
+    String pendingLanguages;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    JobStatus status = JobStatus.QUEUED;
+
+    @Builder.Default
+    Integer totalLanguages = 0;
+
+    @Builder.Default
+    Integer completedLanguages = 0;
+
+    @Builder.Default
+    Integer attempts = 0;
+
+    @Builder.Default
+    Integer maxAttempts = 5;
+
+    @Column(nullable = false)
+    Instant nextRunAt;
+
+    /** Instance/worker đang giữ job (RUNNING) */
+    @Column(length = 100)
+    String lockedBy;
+
+    Instant lockedAt;
+
+    @Column(length = 1000)
+    String lastError;
+
+    @Column(length = 100)
+    String requestedBy;
+
+    @Column(nullable = false)
+    @Builder.Default
+    Instant createdAt = Instant.now();
+
+    Instant startedAt;
+    Instant finishedAt;
+    Instant updatedAt;
+}
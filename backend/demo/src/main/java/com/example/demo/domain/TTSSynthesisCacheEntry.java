@@ -0,0 +1,68 @@
+package com.example.demo.domain;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Cache kết quả TTS: hash đầu vào synthesize (ngôn ngữ, text, giọng, tốc độ, định dạng, filter)
+ * → file audio lưu theo nội dung ({@code tts-audios/cas/xx/{sha256}.ext}).
+ * {@code refCount} = số bản ghi TTSAudio đang dùng file; về 0 quá thời gian ân hạn thì file bị dọn.
+ */
+@Entity
+@Table(name = "tts_synthesis_cache", indexes = {
+        @Index(name = "uk_tts_synthesis_key", columnList = "synthesisKey", unique = true),
+        @Index(name = "idx_tts_synthesis_file", columnList = "fileName")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TTSSynthesisCacheEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Long id;
+
+    /** SHA-256 (hex) của các tham số synthesize */
+    @Column(nullable = false, length = 64)
+    String synthesisKey;
+
+    @Column(length = 10)
+    String languageCode;
+
+    /** Đường dẫn tương đối trong storage */
+    @Column(nullable = false)
+    String fileName;
+
+    /** SHA-256 (hex) nội dung file */
+    @Column(nullable = false, length = 64)
+    String contentSha256;
+
+    @Column(nullable = false)
+    String mimeType;
+
+    @Column(nullable = false)
+    Long fileSize;
+
+    @Builder.Default
+    Integer refCount = 0;
+
+    @Builder.Default
+    Instant createdAt = Instant.now();
+
+    Instant lastUsedAt;
+}
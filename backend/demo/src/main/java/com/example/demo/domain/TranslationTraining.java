@@ -1,6 +1,11 @@
 package com.example.demo.domain;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
 import java.time.Instant;
+import java.util.HexFormat;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -9,6 +14,9 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
@@ -19,6 +27,7 @@ import lombok.experimental.FieldDefaults;
 
 @Entity
 // @Table(name = "translation_training")
+@Table(indexes = @Index(name = "idx_translation_lookup", columnList = "sourceHash, sourceLang, targetLang"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -29,7 +38,8 @@ public class TranslationTraining {
     public enum DataSource {
         MANUAL,       // Admin nhập tay
         CORPUS,       // Upload bilingual corpus
-        USER_FEEDBACK // Phản hồi từ user
+        USER_FEEDBACK, // Phản hồi từ user
+        MACHINE       // Kết quả Google Translate, ghi lại bởi translation memory
     }
 
     @Id
@@ -48,6 +58,13 @@ public class TranslationTraining {
     @Column(columnDefinition = "TEXT", nullable = false)
     String sourceText;
 
+    /**
+     * SHA-256 (hex) của {@code sourceText} đã chuẩn hóa — khóa tra cứu translation memory
+     * (cột TEXT không đánh index được).
+     */
+    @Column(length = 64)
+    String sourceHash;
+
     /**
      * Text đã dịch (model sinh ra).
      */
@@ -104,4 +121,37 @@ public class TranslationTraining {
         this.validatedBy = validatedBy;
         this.validatedAt = Instant.now();
     }
+
+    /**
+     * Text dùng cho bản dịch: bản đã sửa (nếu có) hơn bản model sinh ra.
+     */
+    public String effectiveText() {
+        return correctedText != null && !correctedText.isBlank() ? correctedText : targetText;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void computeSourceHash() {
+        this.sourceHash = hashSource(sourceText);
+    }
+
+    /**
+     * Chuẩn hóa text nguồn trước khi so khớp: Unicode NFC, bỏ khoảng trắng thừa (giữ hoa/thường).
+     */
+    public static String normalizeSource(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFC).strip().replaceAll("\\s+", " ");
+    }
+
+    public static String hashSource(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(normalizeSource(text).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
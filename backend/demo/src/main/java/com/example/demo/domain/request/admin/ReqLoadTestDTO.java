@@ -24,4 +24,10 @@ public class ReqLoadTestDTO {
      * Số POI tham gia test. Mặc định dùng tất cả.
      */
     Integer poiCount;
+
+    /**
+     * Open-loop: số lượt (vòng thao tác) bắt đầu mỗi giây, không phụ thuộc phản hồi.
+     * Bỏ trống → closed-loop: mỗi user chờ xong vòng trước rồi nghỉ 100–600ms.
+     */
+    Double arrivalRatePerSecond;
 }
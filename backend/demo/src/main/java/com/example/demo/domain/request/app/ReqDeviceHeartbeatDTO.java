@@ -0,0 +1,50 @@
+package com.example.demo.domain.request.app;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ReqDeviceHeartbeatDTO {
+
+    @NotBlank(message = "deviceId không được để trống")
+    String deviceId;
+
+    /**
+     * Các điểm GPS gom từ lần gửi trước (thứ tự bất kỳ).
+     */
+    @NotEmpty(message = "fixes không được để trống")
+    @Size(max = 200, message = "Tối đa 200 điểm GPS mỗi lần gửi")
+    @Valid
+    List<@NotNull Fix> fixes;
+
+    @Data
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Fix {
+
+        @NotNull
+        Double latitude;
+
+        @NotNull
+        Double longitude;
+
+        /**
+         * Độ chính xác (mét), optional.
+         */
+        Double accuracy;
+
+        /**
+         * Thời điểm lấy vị trí, epoch millis.
+         */
+        @NotNull
+        Long timestamp;
+    }
+}
@@ -20,4 +20,9 @@ public class ReqDeviceSyncDTO {
      * Gửi lên để server biết thiết bị đã có những version nào.
      */
     String downloadedVersions;
+
+    /**
+     * {@code syncCursor} nhận được ở lần sync trước (sau khi đã áp dụng xong delta). Bỏ trống → so sánh đầy đủ.
+     */
+    String syncCursor;
 }
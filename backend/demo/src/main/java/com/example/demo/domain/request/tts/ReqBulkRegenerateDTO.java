@@ -0,0 +1,21 @@
+package com.example.demo.domain.request.tts;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ReqBulkRegenerateDTO {
+
+    @NotEmpty(message = "groupIds không được để trống")
+    List<Long> groupIds;
+
+    /**
+     * true → chỉ tạo ngôn ngữ còn thiếu; false (mặc định) → tạo lại tất cả ngôn ngữ.
+     */
+    Boolean onlyMissing;
+}
@@ -14,15 +14,22 @@ import lombok.experimental.FieldDefaults;
 public class ResLoadTestResultDTO {
 
     String testId;
+    /** RUNNING, COMPLETED, FAILED */
+    String status;
+    /** OPEN (arrivalRatePerSecond) hoặc CLOSED (concurrentUsers) */
+    String mode;
     Instant startedAt;
     Instant completedAt;
     Long durationMs;
 
     int concurrentUsers;
     int durationSeconds;
+    Double arrivalRatePerSecond;
     int totalRequests;
     int successfulRequests;
     int failedRequests;
+    /** Open-loop: lượt bị bỏ vì hàng chờ vượt ngưỡng (server không theo kịp) */
+    int droppedIterations;
 
     // Latency (milliseconds)
     double latencyP50;
@@ -38,8 +45,15 @@ public class ResLoadTestResultDTO {
     // Error rate
     double errorRatePercent;
 
-    // DB stats
+    // DB stats (lấy mẫu Hikari pool trong lúc chạy)
+    /** Số connection active cao nhất */
     int dbConnectionsUsed;
+    int dbPoolSize;
+    /** Số luồng chờ connection cao nhất */
+    int dbThreadsAwaitingPeak;
+    /** % mẫu có luồng phải chờ connection */
+    double dbSaturatedPercent;
+    /** OK, SATURATED, UNKNOWN */
     String dbStatus;
 
     List<PhaseLatency> phaseLatencies;
@@ -48,10 +62,13 @@ public class ResLoadTestResultDTO {
     @Builder
     @FieldDefaults(level = AccessLevel.PRIVATE)
     public static class PhaseLatency {
-        String phase;       // "narration-check", "narration-log", "poi-fetch"
+        String phase;       // "poi-fetch", "narration-start", "narration-log", "narration-end", "device-sync"
         int count;
         double avgMs;
+        double p50Ms;
         double p95Ms;
+        double p99Ms;
+        double maxMs;
         double errorRate;
     }
 }
@@ -1,6 +1,7 @@
 package com.example.demo.domain.response.app;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 
 import com.example.demo.domain.DeviceConfig.RunningMode;
@@ -26,8 +27,25 @@ public class ResDeviceConfigDTO {
     Instant lastSeenAt;
 
     /**
-     * Danh sách POI cần sync (id → version mới nhất).
-     * App sẽ so sánh với bản local để download bundle cần thiết.
+     * Danh sách POI cần sync (id → version mới nhất): POI mới hoặc có version cao hơn bản
+     * trong {@code downloadedVersions} của thiết bị.
      */
     Map<Long, Integer> poisNeedingSync;
+
+    /**
+     * Dữ liệu đầy đủ (kèm URL audio) của các POI trong {@code poisNeedingSync}.
+     */
+    List<ResPOIDTO> changedPois;
+
+    /**
+     * POI thiết bị đang giữ nhưng đã bị xóa / ngừng active — app xóa khỏi bộ nhớ offline.
+     */
+    List<Long> removedPoiIds;
+
+    /**
+     * Watermark của lần sync này (watermark index + digest version vector sau khi áp dụng delta).
+     * App áp dụng xong delta thì gửi lại ở lần sync sau; khớp với {@code downloadedVersions} gửi lên
+     * và server chưa có thay đổi → delta rỗng. null khi thiết bị không ở chế độ OFFLINE.
+     */
+    String syncCursor;
 }
@@ -0,0 +1,51 @@
+package com.example.demo.domain.response.app;
+
+import java.time.Instant;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Thông tin gói offline (zip) của 1 vùng: manifest.json + audio đã khử trùng lặp theo SHA-256.
+ * {@code bundleId} sinh từ tập (POI id, version) + ngôn ngữ — dữ liệu đổi thì id đổi.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ResOfflineBundleDTO {
+
+    public static final String READY = "READY";
+    public static final String BUILDING = "BUILDING";
+    public static final String BUSY = "BUSY";
+
+    String bundleId;
+
+    /**
+     * READY: tải được qua {@code downloadUrl}; BUILDING: đang dựng nền, gọi lại sau ít giây;
+     * BUSY: hàng đợi dựng gói đầy, thử lại sau.
+     */
+    String status;
+
+    Integer formatVersion;
+    List<String> languages;
+    Integer poiCount;
+    Integer audioCount;
+
+    /** Kích thước file zip (bytes) */
+    Long sizeBytes;
+
+    /** SHA-256 của cả file zip — app kiểm tra sau khi tải (kể cả tải nối tiếp bằng Range). */
+    String sha256;
+
+    Instant createdAt;
+
+    /** Hỗ trợ {@code Range} / {@code If-Range} để tải tiếp khi rớt mạng */
+    String downloadUrl;
+}
@@ -0,0 +1,56 @@
+package com.example.demo.domain.response.tts;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.example.demo.domain.TTSGenerationJob;
+import com.example.demo.domain.TTSGenerationJob.JobStatus;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ResTTSJobDTO {
+
+    Long id;
+    Long groupId;
+    JobStatus status;
+    List<String> pendingLanguages;
+    Integer totalLanguages;
+    Integer completedLanguages;
+    Integer attempts;
+    Integer maxAttempts;
+    Instant nextRunAt;
+    String lastError;
+    Instant createdAt;
+    Instant startedAt;
+    Instant finishedAt;
+
+    public static ResTTSJobDTO fromEntity(TTSGenerationJob j) {
+        return ResTTSJobDTO.builder()
+                .id(j.getId())
+                .groupId(j.getGroupId())
+                .status(j.getStatus())
+                .pendingLanguages(j.getPendingLanguages() == null || j.getPendingLanguages().isBlank()
+                        ? List.of()
+                        : List.of(j.getPendingLanguages().split(",")))
+                .totalLanguages(j.getTotalLanguages())
+                .completedLanguages(j.getCompletedLanguages())
+                .attempts(j.getAttempts())
+                .maxAttempts(j.getMaxAttempts())
+                .nextRunAt(j.getNextRunAt())
+                .lastError(j.getLastError())
+                .createdAt(j.getCreatedAt())
+                .startedAt(j.getStartedAt())
+                .finishedAt(j.getFinishedAt())
+                .build();
+    }
+}
@@ -1,13 +1,17 @@
 package com.example.demo.repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.domain.ActiveNarration;
 import com.example.demo.domain.ActiveNarration.NarrationStatus;
@@ -30,11 +34,26 @@ public interface ActiveNarrationRepository extends JpaRepository<ActiveNarration
     @Query("SELECT a.poi.id, COUNT(a) FROM ActiveNarration a WHERE a.status = 'PLAYING' GROUP BY a.poi.id")
     List<Object[]> countPlayingByPoi();
 
-    @Query("SELECT a FROM ActiveNarration a WHERE a.status = 'PLAYING' AND a.estimatedEndAt < :now")
-    List<ActiveNarration> findExpiredPlaying(@Param("now") Instant now);
+    @Query("SELECT a.id FROM ActiveNarration a WHERE a.status = 'PLAYING' AND a.estimatedEndAt < :now ORDER BY a.id")
+    List<Long> findExpiredPlayingIds(@Param("now") Instant now, Pageable pageable);
+
+    /** EXPIRED có điều kiện — chạy trùng trên nhiều instance cũng không ghi đè trạng thái đã kết thúc. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ActiveNarration a SET a.status = com.example.demo.domain.ActiveNarration.NarrationStatus.EXPIRED "
+            + "WHERE a.id IN :ids AND a.status = com.example.demo.domain.ActiveNarration.NarrationStatus.PLAYING")
+    int expirePlaying(@Param("ids") Collection<Long> ids);
 
     List<ActiveNarration> findByDeviceId(String deviceId);
 
+    /** Kết thúc phiên PLAYING của thiết bị (ghi bất đồng bộ từ ActiveNarrationRegistry). */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ActiveNarration a SET a.status = :status, a.estimatedEndAt = :endAt "
+            + "WHERE a.deviceId = :deviceId AND a.status = com.example.demo.domain.ActiveNarration.NarrationStatus.PLAYING")
+    int endPlayingByDevice(@Param("deviceId") String deviceId, @Param("status") NarrationStatus status,
+            @Param("endAt") Instant endAt);
+
     @Query("SELECT COUNT(a) FROM ActiveNarration a WHERE a.status = 'PLAYING' AND a.poi.id = :poiId")
     int getActiveCountByPoiId(@Param("poiId") Long poiId);
 
@@ -16,6 +16,8 @@ public interface DeviceConfigRepository extends JpaRepository<DeviceConfig, Long
 
     Optional<DeviceConfig> findByDeviceId(String deviceId);
 
+    boolean existsByDeviceId(String deviceId);
+
     @Query("SELECT d FROM DeviceConfig d WHERE d.lastSeenAt >= :since")
     List<DeviceConfig> findActiveDevices(@Param("since") Instant since);
 
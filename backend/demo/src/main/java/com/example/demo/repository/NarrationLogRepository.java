@@ -44,6 +44,20 @@ public interface NarrationLogRepository extends JpaRepository<NarrationLog, Long
            "AND (n.status IS NULL OR n.status IN ('COMPLETED','SKIPPED'))")
     long countByPoiIdSince(@Param("poiId") Long poiId, @Param("since") Instant since);
 
+    /**
+     * Gộp log trong [from, to) cho bảng rollup: [poiId, languageCode, count, totalDurationSeconds].
+     * Cùng tiêu chí đếm với Top POIs.
+     */
+    @Query("SELECT p.id, a.languageCode, COUNT(n), COALESCE(SUM(n.durationSeconds), 0) FROM NarrationLog n " +
+           "JOIN n.ttsAudio a " +
+           "JOIN a.group g " +
+           "JOIN g.poi p " +
+           "WHERE n.playedAt >= :from " +
+           "AND n.playedAt < :to " +
+           "AND (n.status IS NULL OR n.status IN ('COMPLETED','SKIPPED')) " +
+           "GROUP BY p.id, a.languageCode")
+    List<Object[]> aggregateByPoiAndLanguage(@Param("from") Instant from, @Param("to") Instant to);
+
     /**
      * Top POIs — chỉ {@code COMPLETED}/{@code SKIPPED} để không nhân đôi với dòng {@code PLAYING} (web gửi cả hai).
      * {@code toExclusive}: bắt đầu ngày sau ngày kết thúc (để bao trọn cả ngày {@code to} theo calendar).
@@ -0,0 +1,54 @@
+package com.example.demo.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.domain.NarrationRollup;
+import com.example.demo.domain.NarrationRollup.Granularity;
+
+@Repository
+public interface NarrationRollupRepository extends JpaRepository<NarrationRollup, Long> {
+
+    @Modifying
+    @Query("DELETE FROM NarrationRollup r WHERE r.granularity = :granularity AND r.bucketStart = :bucketStart")
+    int deleteBucket(@Param("granularity") Granularity granularity, @Param("bucketStart") Instant bucketStart);
+
+    /** Gộp các bucket giờ trong [from, to) thành [poiId, languageCode, count, duration]. */
+    @Query("SELECT r.poiId, r.languageCode, SUM(r.narrationCount), SUM(r.durationSeconds) FROM NarrationRollup r "
+            + "WHERE r.granularity = com.example.demo.domain.NarrationRollup.Granularity.HOUR "
+            + "AND r.bucketStart >= :from AND r.bucketStart < :to "
+            + "GROUP BY r.poiId, r.languageCode")
+    List<Object[]> sumHourly(@Param("from") Instant from, @Param("to") Instant to);
+
+    /**
+     * Top POIs theo bucket ngày trong [from, toExclusive). {@code ownerUserId} null = mọi POI.
+     */
+    @Query("SELECT r.poiId, SUM(r.narrationCount) AS cnt FROM NarrationRollup r, POI p "
+            + "WHERE p.id = r.poiId "
+            + "AND r.granularity = com.example.demo.domain.NarrationRollup.Granularity.DAY "
+            + "AND r.bucketStart >= :from AND r.bucketStart < :toExclusive "
+            + "AND (:ownerUserId IS NULL OR p.user.id = :ownerUserId) "
+            + "GROUP BY r.poiId "
+            + "ORDER BY cnt DESC")
+    List<Object[]> findTopPois(@Param("from") Instant from, @Param("toExclusive") Instant toExclusive,
+            @Param("ownerUserId") Long ownerUserId, Pageable pageable);
+
+    /** [poiId, count] của 1 bucket ngày cho các POI cho trước. */
+    @Query("SELECT r.poiId, SUM(r.narrationCount) FROM NarrationRollup r "
+            + "WHERE r.granularity = com.example.demo.domain.NarrationRollup.Granularity.DAY "
+            + "AND r.bucketStart = :dayStart AND r.poiId IN :poiIds GROUP BY r.poiId")
+    List<Object[]> countForDayByPoi(@Param("dayStart") Instant dayStart, @Param("poiIds") Collection<Long> poiIds);
+
+    @Query("SELECT COALESCE(SUM(r.narrationCount), 0) FROM NarrationRollup r "
+            + "WHERE r.granularity = com.example.demo.domain.NarrationRollup.Granularity.DAY "
+            + "AND r.bucketStart = :dayStart")
+    long countForDay(@Param("dayStart") Instant dayStart);
+}
@@ -1,5 +1,6 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,6 +36,15 @@ public interface POIRepository extends JpaRepository<POI, Long> {
 
     Page<POI> findByIsActiveTrue(Pageable pageable);
 
+    /** POI active kèm restaurant (fetch join) — danh sách cho app, không lazy-load từng dòng. */
+    @EntityGraph(attributePaths = { "restaurant" })
+    @Query("SELECT p FROM POI p WHERE p.isActive = true ORDER BY p.id")
+    List<POI> findActiveWithRestaurant();
+
+    @EntityGraph(attributePaths = { "restaurant" })
+    @Query("SELECT p FROM POI p WHERE p.id IN :ids")
+    List<POI> findAllWithRestaurantByIdIn(@Param("ids") Collection<Long> ids);
+
     // GPS nằm ở POI, không còn ở group nữa
     @Query("SELECT p FROM POI p WHERE p.isActive = true AND p.latitude IS NOT NULL AND p.longitude IS NOT NULL")
     Page<POI> findAllActiveWithLocation(Pageable pageable);
@@ -44,4 +54,19 @@ public interface POIRepository extends JpaRepository<POI, Long> {
     List<POI> findNearby(@Param("lat") double lat, @Param("lng") double lng, @Param("radiusKm") double radiusKm);
 
     List<POI> findByRestaurantId(Long restaurantId);
+
+    /** Fingerprint rẻ của danh sách POI active — phát hiện thay đổi mà không load dữ liệu. */
+    @Query("SELECT COUNT(p), COALESCE(SUM(p.version), 0), MAX(p.updatedAt), MAX(p.id) FROM POI p WHERE p.isActive = true")
+    List<Object[]> catalogueFingerprint();
+
+    /** Danh sách POI gọn cho bộ đếm dashboard: [id, foodName, ownerUserId, restaurantId]. */
+    @Query("SELECT p.id, p.foodName, u.id, r.id FROM POI p LEFT JOIN p.user u LEFT JOIN p.restaurant r ORDER BY p.id")
+    List<Object[]> findCounterRows();
+
+    /**
+     * 1 query cho startNarration: [poiId, foodName, ownerUserId, audioFileSize]; rỗng nếu POI hoặc audio không tồn tại.
+     */
+    @Query("SELECT p.id, p.foodName, u.id, a.fileSize FROM POI p LEFT JOIN p.user u, TTSAudio a "
+            + "WHERE p.id = :poiId AND a.id = :audioId")
+    List<Object[]> findNarrationTarget(@Param("poiId") Long poiId, @Param("audioId") Long audioId);
 }
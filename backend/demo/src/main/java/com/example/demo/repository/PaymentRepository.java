@@ -37,6 +37,10 @@ public interface PaymentRepository extends JpaRepository<Payment, Long>, JpaSpec
     @Query("SELECT SUM(p.amount) FROM Payment p WHERE p.status = 'SUCCESS' AND p.restaurant.id = :restaurantId AND p.createdAt >= :since")
     Long sumRevenueByRestaurantToday(@Param("restaurantId") Long restaurantId, @Param("since") Instant since);
 
+    @Query("SELECT p.restaurant.id, SUM(p.amount) FROM Payment p WHERE p.status = 'SUCCESS' AND p.restaurant IS NOT NULL "
+            + "AND p.createdAt >= :since GROUP BY p.restaurant.id")
+    List<Object[]> sumRevenueByRestaurantSince(@Param("since") Instant since);
+
     List<Payment> findByPoiId(Long poiId);
 
     @Query("SELECT COUNT(p) FROM Payment p WHERE p.status = :status AND p.createdAt >= :since")
@@ -30,6 +30,9 @@ public interface QueueSessionRepository extends JpaRepository<QueueSession, Long
     @Query("SELECT COUNT(qs) FROM QueueSession qs WHERE qs.poi.id = :poiId AND qs.createdAt >= :since")
     long countTodayByPoiId(@Param("poiId") Long poiId, @Param("since") Instant since);
 
+    @Query("SELECT qs.poi.id, COUNT(qs) FROM QueueSession qs WHERE qs.createdAt >= :since GROUP BY qs.poi.id")
+    List<Object[]> countByPoiSince(@Param("since") Instant since);
+
     @Query("SELECT COUNT(qs) FROM QueueSession qs WHERE qs.createdAt >= :since")
     long countTodayTotal(@Param("since") Instant since);
 
@@ -1,5 +1,6 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,6 +12,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.demo.domain.AudioData;
 import com.example.demo.domain.TTSAudioGroup;
 
 @Repository
@@ -21,12 +23,23 @@ public interface TTSAudioGroupRepository extends JpaRepository<TTSAudioGroup, Lo
     @EntityGraph(attributePaths = { "poi", "poi.user" })
     Optional<TTSAudioGroup> findById(Long id);
 
+    /** Chỉ lấy 1 phần tử audioMap — không load group, POI hay cả collection. */
+    @Query("SELECT m FROM TTSAudioGroup g JOIN g.audioMap m WHERE g.groupKey = :groupKey AND KEY(m) = :lang")
+    Optional<AudioData> findAudioData(@Param("groupKey") String groupKey, @Param("lang") String languageCode);
+
     /** Rõ ràng theo khóa ngoại POI — tránh sai lệch khi Spring parse tên method derived. */
     @Query("SELECT g FROM TTSAudioGroup g WHERE g.poi.id = :poiId")
     List<TTSAudioGroup> findByPoiId(@Param("poiId") Long poiId);
 
+    /** Tất cả group của nhiều POI trong 1 query — dùng khi dựng DTO hàng loạt (tránh N+1). */
+    @Query("SELECT g FROM TTSAudioGroup g WHERE g.poi.id IN :poiIds ORDER BY g.id")
+    List<TTSAudioGroup> findByPoiIdIn(@Param("poiIds") Collection<Long> poiIds);
+
     List<TTSAudioGroup> findByFoodNameContainingIgnoreCase(String foodName);
 
+    @Query("SELECT COUNT(g), MAX(g.updatedAt), MAX(g.id) FROM TTSAudioGroup g")
+    List<Object[]> catalogueFingerprint();
+
     @EntityGraph(attributePaths = { "poi", "poi.user" })
     @Query("SELECT g FROM TTSAudioGroup g ORDER BY g.createdAt DESC")
     Page<TTSAudioGroup> findAllOrderByCreatedAtDesc(Pageable pageable);
@@ -1,5 +1,6 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +24,10 @@ public interface TTSAudioRepository extends JpaRepository<TTSAudio, Long>, JpaSp
 
     List<TTSAudio> findByGroup_Id(Long groupId);
 
+    /** Audio của nhiều group trong 1 query — dùng khi dựng DTO hàng loạt (tránh N+1). */
+    @Query("SELECT a FROM TTSAudio a WHERE a.group.id IN :groupIds ORDER BY a.id")
+    List<TTSAudio> findByGroupIdIn(@Param("groupIds") Collection<Long> groupIds);
+
     @EntityGraph(attributePaths = { "group", "group.poi", "group.poi.user" })
     @Query("SELECT a FROM TTSAudio a WHERE a.id = :id")
     Optional<TTSAudio> findByIdWithGroupPoiUser(@Param("id") Long id);
@@ -0,0 +1,79 @@
+package com.example.demo.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.domain.TTSGenerationJob;
+import com.example.demo.domain.TTSGenerationJob.JobStatus;
+
+@Repository
+public interface TTSGenerationJobRepository extends JpaRepository<TTSGenerationJob, Long> {
+
+    /** Id các job QUEUED đã đến hạn, cũ nhất trước. */
+    @Query("SELECT j.id FROM TTSGenerationJob j WHERE j.status = com.example.demo.domain.TTSGenerationJob.JobStatus.QUEUED "
+            + "AND j.nextRunAt <= :now ORDER BY j.nextRunAt, j.id")
+    List<Long> findDueIds(@Param("now") Instant now, Pageable pageable);
+
+    /**
+     * Nhận job (compare-and-set QUEUED → RUNNING). Trả 1 nếu thành công, 0 nếu instance/worker khác đã nhận.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TTSGenerationJob j SET j.status = com.example.demo.domain.TTSGenerationJob.JobStatus.RUNNING, "
+            + "j.lockedBy = :worker, j.lockedAt = :now, j.attempts = j.attempts + 1, "
+            + "j.startedAt = COALESCE(j.startedAt, :now), j.updatedAt = :now "
+            + "WHERE j.id = :id AND j.status = com.example.demo.domain.TTSGenerationJob.JobStatus.QUEUED")
+    int claim(@Param("id") Long id, @Param("worker") String worker, @Param("now") Instant now);
+
+    /**
+     * Tăng tiến độ và gia hạn khóa (lockedAt) để requeueStale không trả job đang chạy về hàng đợi.
+     * Trả 0 nếu worker đã mất job.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TTSGenerationJob j SET j.completedLanguages = j.completedLanguages + 1, "
+            + "j.lockedAt = :now, j.updatedAt = :now "
+            + "WHERE j.id = :id AND j.lockedBy = :worker")
+    int incrementProgress(@Param("id") Long id, @Param("worker") String worker, @Param("now") Instant now);
+
+    /**
+     * Kết thúc lượt chạy; chỉ ghi nếu job vẫn do {@code worker} giữ. Trả 0 nếu job đã bị worker khác nhận lại.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TTSGenerationJob j SET j.status = :status, j.pendingLanguages = :pending, j.lastError = :error, "
+            + "j.nextRunAt = COALESCE(:nextRunAt, j.nextRunAt), j.finishedAt = :finishedAt, "
+            + "j.lockedBy = NULL, j.lockedAt = NULL, j.updatedAt = :now "
+            + "WHERE j.id = :id AND j.lockedBy = :worker")
+    int finish(@Param("id") Long id, @Param("worker") String worker, @Param("status") JobStatus status,
+            @Param("pending") String pending, @Param("error") String error, @Param("nextRunAt") Instant nextRunAt,
+            @Param("finishedAt") Instant finishedAt, @Param("now") Instant now);
+
+    /** Thả các job đang được giữ chờ dịch trước (nextRunAt ở tương lai) → chạy ngay. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TTSGenerationJob j SET j.nextRunAt = :now, j.updatedAt = :now "
+            + "WHERE j.id IN :ids AND j.status = com.example.demo.domain.TTSGenerationJob.JobStatus.QUEUED "
+            + "AND j.nextRunAt > :now")
+    int releaseHeld(@Param("ids") List<Long> ids, @Param("now") Instant now);
+
+    /** Trả job RUNNING bị bỏ dở (instance chết giữa chừng) về hàng đợi. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TTSGenerationJob j SET j.status = com.example.demo.domain.TTSGenerationJob.JobStatus.QUEUED, "
+            + "j.lockedBy = NULL, j.nextRunAt = :now, j.updatedAt = :now "
+            + "WHERE j.status = com.example.demo.domain.TTSGenerationJob.JobStatus.RUNNING AND j.lockedAt < :staleBefore")
+    int requeueStale(@Param("staleBefore") Instant staleBefore, @Param("now") Instant now);
+
+    List<TTSGenerationJob> findByGroupIdOrderByIdDesc(Long groupId);
+
+    long countByStatus(JobStatus status);
+}
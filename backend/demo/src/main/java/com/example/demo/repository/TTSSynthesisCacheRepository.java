@@ -0,0 +1,58 @@
+package com.example.demo.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.domain.TTSSynthesisCacheEntry;
+
+@Repository
+public interface TTSSynthesisCacheRepository extends JpaRepository<TTSSynthesisCacheEntry, Long> {
+
+    Optional<TTSSynthesisCacheEntry> findBySynthesisKey(String synthesisKey);
+
+    /** Số entry (khác nhau) đang trỏ tới file — nhiều key có thể ra cùng nội dung. */
+    long countByFileName(String fileName);
+
+    @Query("SELECT COALESCE(MAX(e.refCount), 0) FROM TTSSynthesisCacheEntry e WHERE e.fileName = :fileName")
+    int maxRefCountByFileName(@Param("fileName") String fileName);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE TTSSynthesisCacheEntry e SET e.refCount = e.refCount + 1, e.lastUsedAt = :now "
+            + "WHERE e.fileName = :fileName")
+    int retain(@Param("fileName") String fileName, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE TTSSynthesisCacheEntry e SET e.refCount = e.refCount - 1, e.lastUsedAt = :now "
+            + "WHERE e.fileName = :fileName AND e.refCount > 0")
+    int release(@Param("fileName") String fileName, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE TTSSynthesisCacheEntry e SET e.lastUsedAt = :now WHERE e.id = :id")
+    int touch(@Param("id") Long id, @Param("now") Instant now);
+
+    @Query("SELECT e FROM TTSSynthesisCacheEntry e WHERE e.refCount <= 0 AND e.lastUsedAt < :before ORDER BY e.id")
+    List<TTSSynthesisCacheEntry> findUnreferencedBefore(@Param("before") Instant before, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TTSSynthesisCacheEntry e WHERE e.fileName = :fileName AND e.refCount <= 0")
+    int deleteUnreferencedByFileName(@Param("fileName") String fileName);
+
+    /** Xóa có điều kiện: bỏ qua nếu entry vừa được dùng lại. */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TTSSynthesisCacheEntry e WHERE e.id = :id AND e.refCount <= 0 AND e.lastUsedAt < :before")
+    int deleteIfUnreferenced(@Param("id") Long id, @Param("before") Instant before);
+}
@@ -1,5 +1,6 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
@@ -21,6 +22,17 @@ public interface TranslationTrainingRepository extends JpaRepository<Translation
 
     List<TranslationTraining> findBySource(DataSource source);
 
+    /** Tra cứu translation memory (index sourceHash, sourceLang, targetLang). */
+    List<TranslationTraining> findBySourceHashAndSourceLangAndTargetLang(String sourceHash, String sourceLang,
+            String targetLang);
+
+    List<TranslationTraining> findBySourceHashInAndSourceLangAndTargetLang(Collection<String> sourceHashes,
+            String sourceLang, String targetLang);
+
+    /** Bản ghi cũ chưa có sourceHash (tạo trước khi có cột). */
+    @Query("SELECT t FROM TranslationTraining t WHERE t.sourceHash IS NULL ORDER BY t.id")
+    List<TranslationTraining> findWithoutSourceHash(Pageable pageable);
+
     @Query("SELECT COUNT(t) FROM TranslationTraining t WHERE t.isValidated = true")
     long countValidated();
 
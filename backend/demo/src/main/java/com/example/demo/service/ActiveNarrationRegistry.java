@@ -0,0 +1,62 @@
+package com.example.demo.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.example.demo.domain.ActiveNarration.NarrationStatus;
+
+/**
+ * Danh sách thuyết minh đang phát, thường trú trong RAM: trạng thái theo thiết bị + bộ đếm người nghe theo POI.
+ * Đọc O(1), không query DB; bảng {@code active_narrations} được ghi bất đồng bộ (lịch sử / khôi phục khi khởi động).
+ */
+public interface ActiveNarrationRegistry {
+
+    /**
+     * Thiết bị bắt đầu phát; phiên đang phát trước đó của thiết bị (nếu có) bị EXPIRED.
+     * @return Phiên bị thay thế
+     */
+    Optional<Playing> start(Playing playing);
+
+    /**
+     * Kết thúc phiên đang phát của thiết bị.
+     * @return Phiên vừa kết thúc
+     */
+    Optional<Playing> endByDevice(String deviceId, NarrationStatus status);
+
+    /**
+     * Kết thúc phiên theo id bản ghi {@code active_narrations}.
+     * @return false nếu không tìm thấy phiên đang phát với id này (kể cả trong DB)
+     */
+    boolean endById(Long activeNarrationId, NarrationStatus status);
+
+    Optional<Playing> get(String deviceId);
+
+    int listenerCount(Long poiId);
+
+    /**
+     * Bản sao poiId → số người đang nghe (chỉ POI &gt; 0).
+     */
+    Map<Long, Integer> listenerCounts();
+
+    int totalPlaying();
+
+    /**
+     * @param ownerUserId null = mọi POI; non-null = chỉ POI do user đó tạo
+     */
+    List<Playing> playing(Long ownerUserId);
+
+    /**
+     * @param id              Id bản ghi DB (null tới khi ghi xong)
+     * @param poiOwnerUserId  Chủ POI — dùng để lọc theo quyền shop owner
+     */
+    record Playing(Long id, String deviceId, Long poiId, String poiName, Long poiOwnerUserId, Long audioId,
+            String languageCode, Instant startedAt, Instant estimatedEndAt, Double latitude, Double longitude) {
+
+        public Playing withId(Long newId) {
+            return new Playing(newId, deviceId, poiId, poiName, poiOwnerUserId, audioId, languageCode, startedAt,
+                    estimatedEndAt, latitude, longitude);
+        }
+    }
+}
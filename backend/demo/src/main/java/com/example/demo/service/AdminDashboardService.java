@@ -5,9 +5,10 @@ import java.util.List;
 
 import com.example.demo.domain.response.app.ResActiveNarrationDTO;
 import com.example.demo.domain.response.admin.ResDashboardDTO;
-import com.example.demo.domain.response.admin.ResLoadTestResultDTO;
 import com.example.demo.domain.response.admin.ResTopPOIDTO;
 import com.example.demo.domain.response.admin.ResTranslationStatsDTO;
+import com.example.demo.util.error.IdInvalidException;
+import com.example.demo.util.error.PermissionException;
 
 public interface AdminDashboardService {
 
@@ -36,15 +37,14 @@ public interface AdminDashboardService {
     List<ResTopPOIDTO> getTopPOIsByNarration(LocalDate from, LocalDate to, Integer limit);
 
     /**
-     * Thống kê dịch thuật.
+     * Tính lại bảng rollup lượt nghe cho các ngày [from, to] (chạy nền, tối đa 366 ngày). Chỉ full admin.
      */
-    ResTranslationStatsDTO getTranslationStats();
+    void backfillNarrationRollups(LocalDate from, LocalDate to) throws IdInvalidException, PermissionException;
 
     /**
-     * Bắt đầu load test.
+     * Thống kê dịch thuật.
      */
-    ResLoadTestResultDTO startLoadTest(int concurrentUsers, int durationSeconds,
-            int triggerRadiusMeters, Integer poiCount);
+    ResTranslationStatsDTO getTranslationStats();
 
     /**
      * Lấy log thiết bị quét QR theo page.
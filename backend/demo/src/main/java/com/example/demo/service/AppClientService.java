@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import java.util.Collection;
 import java.util.List;
 
 import com.example.demo.domain.DeviceConfig;
@@ -19,7 +20,8 @@ public interface AppClientService {
     ResDeviceConfigDTO registerDevice(String deviceId, String osVersion, String appVersion,
             Integer ramMB, Integer storageFreeMB, DeviceConfig.NetworkType networkType);
 
-    ResDeviceConfigDTO syncDevice(String deviceId, Double lat, Double lng, String downloadedVersions) throws IdInvalidException;
+    ResDeviceConfigDTO syncDevice(String deviceId, Double lat, Double lng, String downloadedVersions,
+            String syncCursor) throws IdInvalidException;
 
     ResDeviceConfigDTO getDeviceConfig(String deviceId) throws IdInvalidException;
 
@@ -32,6 +34,11 @@ public interface AppClientService {
 
     ResPOIDTO getPOIById(Long poiId) throws IdInvalidException;
 
+    /**
+     * DTO (kèm audio) của nhiều POI, sắp theo id. Id không tồn tại bị bỏ qua.
+     */
+    List<ResPOIDTO> getPOIsByIds(Collection<Long> poiIds);
+
     ResPOIDTO getPOIByQrCode(String qrCode) throws IdInvalidException;
 
     List<ResNearbyPOIDTO> getNearbyPOIs(double lat, double lng, double radiusKm);
@@ -0,0 +1,24 @@
+package com.example.demo.service;
+
+import java.util.Optional;
+
+import com.example.demo.service.TTSAudioService.AudioFile;
+
+/**
+ * Cache có giới hạn (LRU + TTL) cho metadata file audio theo (groupKey, ngôn ngữ):
+ * đường dẫn, kích thước, MIME, ETag. Tránh query group + audioMap ở mỗi lượt phát.
+ * {@code TTSAudioServiceImp} invalidate theo group sau khi tạo / sửa / xóa / tạo lại audio.
+ */
+public interface AudioMetadataCache {
+
+    Optional<AudioFile> get(String groupKey, String languageCode);
+
+    void put(String groupKey, String languageCode, AudioFile file);
+
+    /**
+     * Xóa mọi ngôn ngữ của group khỏi cache.
+     */
+    void invalidateGroup(String groupKey);
+
+    int size();
+}
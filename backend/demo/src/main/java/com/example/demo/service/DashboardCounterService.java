@@ -0,0 +1,36 @@
+package com.example.demo.service;
+
+import java.util.List;
+
+import com.example.demo.domain.Payment;
+import com.example.demo.domain.response.admin.ResDashboardDTO.POIQueueCount;
+
+/**
+ * Bộ đếm dashboard theo POI trong RAM: "đang phát" (từ {@link ActiveNarrationRegistry}), "phiên hôm nay",
+ * "doanh thu hôm nay". Cập nhật theo sự kiện, tự sang ngày mới lúc 0h (giờ server), dựng lại từ DB khi khởi động.
+ */
+public interface DashboardCounterService {
+
+    /**
+     * @param ownerScopeUserId null = mọi POI; non-null = chỉ POI do user đó tạo
+     */
+    List<POIQueueCount> snapshot(Long ownerScopeUserId);
+
+    /** Một QueueSession mới được tạo cho POI. */
+    void recordSession(Long poiId);
+
+    /**
+     * Payment vừa chuyển sang SUCCESS. Gọi trong transaction; chỉ cộng sau khi commit.
+     */
+    void recordPaymentSucceeded(Payment payment);
+
+    long sessionsToday();
+
+    long revenueToday();
+
+    /** POI được thêm / sửa / xóa — danh sách POI sẽ nạp lại ở lần đọc sau. */
+    void invalidatePois();
+
+    /** Dựng lại số liệu hôm nay từ DB ngay (vd. sau khi xóa dữ liệu load test), không chờ lượt định kỳ. */
+    void reconcile();
+}
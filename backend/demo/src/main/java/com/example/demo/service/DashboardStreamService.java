@@ -0,0 +1,83 @@
+package com.example.demo.service;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.demo.domain.DeviceConfig;
+import com.example.demo.domain.POI;
+import com.example.demo.domain.Payment;
+import com.example.demo.util.TransactionUtil;
+
+/**
+ * Kênh đẩy (SSE) các thay đổi nhỏ của dashboard thay cho polling:
+ * thuyết minh bắt đầu / kết thúc, thanh toán thành công, thiết bị online.
+ * Mỗi sự kiện được serialize 1 lần rồi gửi cho mọi subscriber có quyền xem.
+ */
+public interface DashboardStreamService {
+
+    /**
+     * @param userId           User đang đăng nhập (giới hạn số kết nối / user; null → chỉ tính giới hạn chung)
+     * @param ownerScopeUserId null = admin (mọi sự kiện); non-null = chỉ sự kiện của POI do user đó tạo
+     * @return empty nếu đã đủ số subscriber cho phép
+     */
+    Optional<SseEmitter> subscribe(Long userId, Long ownerScopeUserId);
+
+    /**
+     * Không chặn luồng gọi; hàng đợi đầy → bỏ sự kiện cũ nhất (client đồng bộ lại bằng REST khi cần).
+     */
+    void publish(DashboardEvent event);
+
+    int subscriberCount();
+
+    /**
+     * Gọi trong transaction (đọc quan hệ lazy của payment); chỉ gửi sau khi commit.
+     */
+    default void publishPaymentSucceeded(Payment payment) {
+        POI poi = payment.getPoi();
+        Long ownerUserId = poi != null && poi.getUser() != null ? poi.getUser().getId() : null;
+        DashboardEvent event = DashboardEvent.of("payment.succeeded", ownerUserId, new PaymentDelta(
+                payment.getId(), poi != null ? poi.getId() : null, poi != null ? poi.getFoodName() : null,
+                payment.getAmount(), payment.getQuantity(), payment.getPaidAt()));
+        TransactionUtil.afterCommit(() -> publish(event));
+    }
+
+    /**
+     * Thiết bị không thuộc chủ quán nào → chỉ admin nhận. Gửi sau khi commit.
+     */
+    default void publishDeviceSeen(DeviceConfig config) {
+        DashboardEvent event = DashboardEvent.of("device.seen", null, new DeviceDelta(config.getDeviceId(),
+                config.getRunningMode() != null ? config.getRunningMode().name() : null,
+                config.getNetworkType() != null ? config.getNetworkType().name() : null,
+                config.getAppVersion(), config.getLastSeenAt()));
+        TransactionUtil.afterCommit(() -> publish(event));
+    }
+
+    /**
+     * @param type           {@code narration.started}, {@code narration.ended}, {@code payment.succeeded},
+     *                       {@code device.seen}
+     * @param ownerUserId    Chủ POI liên quan; null = chỉ gửi cho admin
+     * @param data           Payload (serialize JSON)
+     */
+    record DashboardEvent(String type, Long ownerUserId, Object data, Instant at) {
+
+        public static DashboardEvent of(String type, Long ownerUserId, Object data) {
+            return new DashboardEvent(type, ownerUserId, data, Instant.now());
+        }
+    }
+
+    /** Payload của {@code narration.started} / {@code narration.ended}. */
+    record NarrationDelta(Long id, String deviceId, Long poiId, String poiName, Long audioId, String languageCode,
+            String status, Instant startedAt, Instant estimatedEndAt, int poiListenerCount) {
+    }
+
+    /** Payload của {@code payment.succeeded}. */
+    record PaymentDelta(Long paymentId, Long poiId, String poiName, Long amount, Integer quantity, Instant paidAt) {
+    }
+
+    /** Payload của {@code device.seen}. */
+    record DeviceDelta(String deviceId, String runningMode, String networkType, String appVersion,
+            Instant lastSeenAt) {
+    }
+}
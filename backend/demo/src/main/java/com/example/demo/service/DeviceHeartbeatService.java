@@ -0,0 +1,27 @@
+package com.example.demo.service;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.example.demo.util.error.IdInvalidException;
+
+/**
+ * Nhận heartbeat vị trí theo lô từ app. Vị trí mới nhất của mỗi thiết bị giữ trong RAM;
+ * {@code device_configs} chỉ được ghi tối đa 1 lần / {@code flush-interval-seconds} cho mỗi thiết bị.
+ * Các điểm GPS được đưa tiếp vào {@link VisitSessionTracker} để xét vào / ra vùng POI.
+ */
+public interface DeviceHeartbeatService {
+
+    /**
+     * @return Số điểm được nhận (bỏ điểm sai tọa độ / cũ hơn vị trí đã biết)
+     * @throws IdInvalidException Thiết bị chưa đăng ký
+     */
+    int accept(String deviceId, List<Fix> fixes) throws IdInvalidException;
+
+    /**
+     * @param accuracyMeters Độ chính xác (mét), null = không rõ
+     * @param at             Thời điểm lấy vị trí
+     */
+    record Fix(double lat, double lng, Double accuracyMeters, Instant at) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Nhật ký quyết định geofence (khi app bắt đầu thuyết minh): các POI ứng viên, khoảng cách, POI thắng.
+ * Chỉ ghi các quyết định được lấy mẫu; ghi qua hàng đợi có giới hạn (đầy → bỏ) nên không chặn request.
+ * N quyết định gần nhất ({@code app.geofence-log.buffer-size}) được giữ trong ring buffer cho admin xem lại.
+ */
+public interface GeofenceDecisionLog {
+
+    int DEFAULT_QUERY_LIMIT = 100;
+
+    /**
+     * Quyết định của device / POI này có được ghi không — gọi trước để khỏi tính ứng viên khi không cần.
+     */
+    boolean shouldSample(String deviceId, Long poiId);
+
+    /**
+     * Đưa vào hàng đợi ghi; không bao giờ chặn (hàng đợi đầy → bỏ, tăng {@code geofence.decision.dropped}).
+     */
+    void record(Decision decision);
+
+    /**
+     * Quyết định gần nhất trước (mới → cũ), lọc theo device / POI / chủ POI nếu khác null.
+     */
+    List<Decision> recent(int limit, String deviceId, Long poiId, Long ownerUserId);
+
+    SamplingRules getSamplingRules();
+
+    void setSamplingRules(SamplingRules rules);
+
+    /**
+     * @param defaultRate Tỉ lệ lấy mẫu chung (0..1)
+     * @param deviceIds   Device luôn được ghi (debug 1 máy cụ thể)
+     * @param poiIds      POI luôn được ghi (debug 1 quán cụ thể)
+     */
+    record SamplingRules(double defaultRate, Set<String> deviceIds, Set<Long> poiIds) {
+        public SamplingRules {
+            defaultRate = Math.max(0, Math.min(1, defaultRate));
+            deviceIds = deviceIds != null ? Set.copyOf(deviceIds) : Set.of();
+            poiIds = poiIds != null ? Set.copyOf(poiIds) : Set.of();
+        }
+    }
+
+    /**
+     * @param requestedPoiId POI app yêu cầu phát
+     * @param winnerPoiId    POI xếp hạng 1 theo geofence (null nếu không POI nào chứa vị trí)
+     * @param candidates     POI chứa vị trí, đã xếp hạng
+     */
+    record Decision(Instant at, String deviceId, double latitude, double longitude,
+            Long requestedPoiId, String requestedPoiName, Long ownerUserId, Long audioId, String languageCode,
+            Long winnerPoiId, List<Candidate> candidates) {
+
+        public boolean isRequestedWinner() {
+            return requestedPoiId != null && requestedPoiId.equals(winnerPoiId);
+        }
+    }
+
+    record Candidate(Long poiId, String name, double distanceMeters, double radiusMeters, int priority) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.service;
+
+import java.util.Optional;
+
+import com.example.demo.domain.response.admin.ResLoadTestResultDTO;
+import com.example.demo.util.error.IdInvalidException;
+
+/**
+ * Load test chạy trong process: gọi thẳng các thao tác thật của {@link AppClientService}
+ * (nearby, start/end narration, log, sync) trên POI đã cấu hình. Mỗi lần chạy là 1 job nền,
+ * tại một thời điểm chỉ có 1 job.
+ */
+public interface LoadTestService {
+
+    /**
+     * Đưa job vào chạy nền và trả ngay kết quả ban đầu (status RUNNING).
+     *
+     * @throws IdInvalidException tham số vượt giới hạn, không có POI, hoặc đang có job khác chạy
+     */
+    ResLoadTestResultDTO start(LoadTestPlan plan) throws IdInvalidException;
+
+    /**
+     * Kết quả hiện tại của job (đang chạy → số liệu tới thời điểm gọi).
+     */
+    Optional<ResLoadTestResultDTO> get(String testId);
+
+    /**
+     * @param concurrentUsers      Closed-loop: số user ảo; open-loop: số luồng worker tối đa
+     * @param durationSeconds      Thời gian phát tải
+     * @param triggerRadiusMeters  Vị trí giả lập rải trong bán kính này quanh POI
+     * @param poiCount             Số POI tham gia (null → tất cả)
+     * @param arrivalRatePerSecond Open-loop: số lượt bắt đầu mỗi giây (null → closed-loop)
+     */
+    record LoadTestPlan(int concurrentUsers, int durationSeconds, int triggerRadiusMeters,
+            Integer poiCount, Double arrivalRatePerSecond) {
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 
 import org.springframework.web.multipart.MultipartFile;
 
@@ -36,6 +37,13 @@ public interface LocalStorageService {
      */
     InputStream getFileInputStream(String fileName) throws Exception;
 
+    /**
+     * Đường dẫn thật trên đĩa của file (không kiểm tra tồn tại).
+     * @param fileName Tên file (có thể bao gồm path hoặc prefix base-url)
+     * @return Path tuyệt đối
+     */
+    Path resolvePath(String fileName);
+
     /**
      * Lấy đường dẫn URL để truy cập file.
      * @param fileName Tên file (có thể bao gồm path)
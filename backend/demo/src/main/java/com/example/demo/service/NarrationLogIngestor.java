@@ -0,0 +1,29 @@
+package com.example.demo.service;
+
+import java.time.Instant;
+
+import com.example.demo.util.error.IdInvalidException;
+
+/**
+ * Ghi narration log kiểu write-behind: sự kiện vào hàng đợi trong RAM, luồng nền gom lại và
+ * INSERT nhiều dòng một lần (theo số lượng hoặc theo thời gian). Dừng ứng dụng → ghi nốt phần còn lại.
+ */
+public interface NarrationLogIngestor {
+
+    /**
+     * Xếp hàng 1 log. Hàng đợi đầy → chờ 1 chút rồi tự ghi trên luồng gọi (backpressure, không mất log).
+     *
+     * @throws IdInvalidException audio không tồn tại
+     */
+    void submit(Entry entry) throws IdInvalidException;
+
+    int queueDepth();
+
+    /**
+     * @param playedAt  Thời điểm bắt đầu phát
+     * @param createdAt Thời điểm server nhận
+     */
+    record Entry(String deviceId, Long ttsAudioId, Instant playedAt, Integer durationSeconds, String status,
+            Instant createdAt) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Duy trì bảng {@code narration_rollups} (lượt nghe theo POI × ngôn ngữ × giờ / ngày).
+ * Bucket bị "bẩn" khi có log mới rơi vào nó (kể cả log đến muộn cho giờ cũ) và được tính lại định kỳ
+ * từ log gốc — tính lại cả bucket nên chạy lặp / chạy trên nhiều instance vẫn cho cùng kết quả.
+ */
+public interface NarrationRollupService {
+
+    /**
+     * Log có {@code playedAt} này vừa được ghi → bucket giờ (và ngày) chứa nó cần tính lại.
+     */
+    void markDirty(Instant playedAt);
+
+    /**
+     * Tính lại toàn bộ bucket giờ + ngày của các ngày [from, to] (giờ server) ở luồng nền.
+     */
+    void backfillAsync(LocalDate from, LocalDate to);
+}
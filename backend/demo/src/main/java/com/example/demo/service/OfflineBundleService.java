@@ -0,0 +1,29 @@
+package com.example.demo.service;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import com.example.demo.domain.response.app.ResOfflineBundleDTO;
+import com.example.demo.util.error.IdInvalidException;
+import com.example.demo.util.error.StorageException;
+
+/**
+ * Đóng gói POI + audio của 1 vùng thành 1 file zip để app offline tải 1 lần thay vì từng file audio.
+ * Gói được cache trên đĩa theo {@code bundleId}; cùng dữ liệu → dùng lại file cũ.
+ */
+public interface OfflineBundleService {
+
+    /**
+     * Gói của vùng tròn (lat, lng, radiusKm) với các ngôn ngữ chọn. Có sẵn trong cache → READY;
+     * chưa có → xếp hàng dựng nền và trả BUILDING (app gọi lại cùng tham số để lấy kết quả).
+     * @param languages Mã ngôn ngữ; rỗng → tất cả ngôn ngữ hỗ trợ
+     * @throws IdInvalidException Tọa độ / bán kính không hợp lệ
+     */
+    ResOfflineBundleDTO prepareBundle(double lat, double lng, double radiusKm, List<String> languages)
+            throws IdInvalidException, StorageException;
+
+    /**
+     * File zip của gói đã dựng.
+     */
+    Path getBundleFile(String bundleId) throws IdInvalidException;
+}
@@ -0,0 +1,31 @@
+package com.example.demo.service;
+
+import java.time.Instant;
+
+/**
+ * Snapshot bất biến của danh sách POI cho app ({@code GET /api/v1/app/pois}).
+ * JSON (đã bọc {@code RestResponse}) và bản gzip được tính sẵn 1 lần và giữ trong RAM,
+ * kèm ETag mạnh để app gửi {@code If-None-Match} → 304 khi không có gì thay đổi.
+ */
+public interface POICatalogueService {
+
+    /**
+     * Snapshot hiện tại; tự dựng lại nếu đã bị invalidate hoặc dữ liệu trong DB đã đổi.
+     */
+    CatalogueSnapshot getSnapshot();
+
+    /**
+     * Đánh dấu snapshot cũ (POI / TTSAudioGroup / nhà hàng thay đổi) — lần đọc sau sẽ dựng lại.
+     */
+    void invalidate();
+
+    /**
+     * @param json     JSON đầy đủ (đã bọc RestResponse)
+     * @param gzip     {@code json} đã nén gzip
+     * @param etag     ETag mạnh (có dấu nháy kép)
+     * @param poiCount Số POI trong snapshot
+     * @param builtAt  Thời điểm dựng
+     */
+    record CatalogueSnapshot(byte[] json, byte[] gzip, String etag, int poiCount, Instant builtAt) {
+    }
+}
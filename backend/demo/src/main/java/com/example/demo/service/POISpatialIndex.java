@@ -0,0 +1,86 @@
+package com.example.demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.example.demo.domain.POI;
+
+/**
+ * Spatial index thường trú trong RAM cho các POI đang active có GPS.
+ * Thay cho {@code POIRepository.findNearby} (acos trên toàn bảng) và việc load toàn bộ POI
+ * chỉ để xếp hạng geofence.
+ *
+ * POI trả về là bản sao "detached" chỉ chứa field scalar (id, tên, GPS, bán kính, priority, version)
+ * — không có quan hệ lazy, dùng được ngoài transaction.
+ */
+public interface POISpatialIndex {
+
+    /**
+     * Load lại toàn bộ index từ DB (gọi khi khởi động).
+     */
+    void rebuild();
+
+    /**
+     * Thêm/cập nhật POI. POI không active hoặc thiếu GPS sẽ bị gỡ khỏi index.
+     */
+    void upsert(POI poi);
+
+    /**
+     * Gỡ POI khỏi index (khi xóa).
+     */
+    void remove(Long poiId);
+
+    /**
+     * POI có tâm nằm trong bán kính {@code radiusMeters} quanh điểm, sắp xếp theo khoảng cách tăng dần.
+     */
+    List<NearbyHit> findWithinRadius(double lat, double lng, double radiusMeters);
+
+    /**
+     * POI mà bán kính kích hoạt (triggerRadiusMeters) chứa điểm (lat, lng) — ứng viên cho geofence.
+     */
+    List<POI> findContaining(double lat, double lng);
+
+    /**
+     * Số POI đang có trong index.
+     */
+    int size();
+
+    /**
+     * Bản đồ bất biến id → version của toàn bộ POI trong index (tập POI thiết bị offline cần có).
+     */
+    Map<Long, Integer> versionSnapshot();
+
+    /**
+     * Digest của {@link #versionSnapshot()} — dùng làm watermark cho delta sync.
+     * Chỉ phụ thuộc dữ liệu nên giống nhau giữa các instance có cùng dữ liệu.
+     */
+    String versionDigest();
+
+    /**
+     * Digest của 1 bản đồ id → version bất kỳ, cùng cách tính với {@link #versionDigest()}
+     * (SHA-256 rút gọn 16 byte của chuỗi "id:version;" sắp theo id).
+     */
+    static String digestOf(Map<Long, Integer> versions) {
+        StringBuilder sb = new StringBuilder(versions.size() * 12);
+        new TreeMap<>(versions).forEach((id, v) -> sb.append(id).append(':').append(v).append(';'));
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Kết quả tìm kiếm theo bán kính.
+     * @param poi POI (bản sao detached)
+     * @param distanceMeters Khoảng cách từ điểm truy vấn (mét)
+     */
+    record NearbyHit(POI poi, double distanceMeters) {
+    }
+}
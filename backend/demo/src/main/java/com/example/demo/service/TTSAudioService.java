@@ -1,7 +1,11 @@
 package com.example.demo.service;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
@@ -24,6 +28,11 @@ public interface TTSAudioService {
         // ============ Group CRUD ============
         ResTTSAudioGroupDTO createGroup(ReqTTSDTO request) throws IOException, IdInvalidException;
 
+        /**
+         * Chỉ tạo group (chưa có audio) — audio được tạo sau bởi job nền ({@code TTSJobService}).
+         */
+        ResTTSAudioGroupDTO createGroupWithoutAudio(ReqTTSDTO request) throws IdInvalidException;
+
         ResTTSAudioGroupDTO getGroupById(Long id) throws IdInvalidException;
 
         ResTTSAudioGroupDTO getGroupByKey(String groupKey) throws IdInvalidException;
@@ -35,12 +44,36 @@ public interface TTSAudioService {
         void deleteGroup(Long id) throws IOException, IdInvalidException;
 
         // ============ Audio File ============
-        Resource getAudioResource(String groupKey, String languageCode) throws IdInvalidException;
+        /**
+         * File audio trên đĩa (kèm MIME, kích thước, ETag) để controller trả trực tiếp, hỗ trợ Range.
+         */
+        AudioFile getAudioFile(String groupKey, String languageCode) throws IdInvalidException;
 
         Map<String, ResAudioDataDTO> generateMultilingualAudio(Long groupId) throws IOException, IdInvalidException;
 
+        /**
+         * Tạo (lại) audio cho các ngôn ngữ chỉ định và ghi kết quả — dùng cho worker job nền,
+         * không kiểm tra quyền (quyền đã kiểm tra lúc tạo job).
+         *
+         * @param onLanguageDone Gọi sau mỗi ngôn ngữ tạo thành công (có thể null)
+         * @return Ngôn ngữ tạo thất bại (rỗng nếu tất cả thành công)
+         */
+        List<String> generateAudiosForLanguages(Long groupId, Collection<String> languages,
+                        Consumer<String> onLanguageDone) throws IdInvalidException;
+
         // ============ Helpers ============
         void deleteAudioFile(String fileName) throws IOException;
 
         Resource getImageResource(String fileName) throws IOException;
+
+        /**
+         * @param path         Đường dẫn file trên đĩa
+         * @param fileName     Tên file gợi ý khi tải (vd: en.mp3)
+         * @param mimeType     Từ {@code AudioData.mimeType}
+         * @param length       Kích thước (bytes)
+         * @param lastModified Thời điểm sửa file (epoch millis)
+         * @param etag         ETag mạnh (có dấu nháy kép)
+         */
+        record AudioFile(Path path, String fileName, String mimeType, long length, long lastModified, String etag) {
+        }
 }
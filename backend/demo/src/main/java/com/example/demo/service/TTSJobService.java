@@ -0,0 +1,27 @@
+package com.example.demo.service;
+
+import java.util.List;
+
+import com.example.demo.domain.request.tts.ReqBulkRegenerateDTO;
+import com.example.demo.domain.request.tts.ReqTTSDTO;
+import com.example.demo.domain.response.tts.ResTTSJobDTO;
+import com.example.demo.util.error.IdInvalidException;
+
+/**
+ * Hàng đợi tạo audio TTS chạy nền: request chỉ ghi job rồi trả về ngay, worker xử lý dần
+ * (giới hạn số luồng, thử lại với backoff). Client poll {@link #getJob(Long)} để theo dõi tiến độ.
+ */
+public interface TTSJobService {
+
+    /**
+     * Tạo group (chưa có audio) rồi xếp job tạo audio tất cả ngôn ngữ.
+     */
+    ResTTSJobDTO createGroupAsync(ReqTTSDTO request) throws IdInvalidException;
+
+    /**
+     * Xếp job tạo lại audio cho nhiều group (1 job / group).
+     */
+    List<ResTTSJobDTO> regenerateAsync(ReqBulkRegenerateDTO request) throws IdInvalidException;
+
+    ResTTSJobDTO getJob(Long id) throws IdInvalidException;
+}
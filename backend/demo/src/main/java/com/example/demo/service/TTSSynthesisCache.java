@@ -0,0 +1,54 @@
+package com.example.demo.service;
+
+import java.util.Optional;
+
+/**
+ * Cache kết quả synthesize TTS theo nội dung đầu vào, file lưu 1 lần theo hash nội dung (dùng chung giữa các group).
+ * Vòng đời file theo số tham chiếu: {@link #retain} khi 1 bản ghi TTSAudio bắt đầu dùng file,
+ * {@link #release} khi bản ghi đổi sang file khác / bị xóa (gọi trong transaction ghi bản ghi đó).
+ */
+public interface TTSSynthesisCache {
+
+    /**
+     * Khóa cache cho 1 lần synthesize.
+     */
+    String key(String provider, String languageCode, String text, String voice, float speed, int format,
+            boolean withoutFilter);
+
+    /**
+     * File đã synthesize cho khóa (file phải còn trên đĩa).
+     */
+    Optional<CachedAudio> lookup(String key);
+
+    /**
+     * Lưu audio vừa synthesize theo hash nội dung và ghi entry cho khóa (refCount chưa tăng).
+     */
+    CachedAudio store(String key, String languageCode, byte[] audio, String mimeType, String extension)
+            throws Exception;
+
+    /**
+     * @return true nếu file do cache quản lý (tăng số tham chiếu)
+     */
+    boolean retain(String fileName);
+
+    /**
+     * @return true nếu file do cache quản lý (đã giảm số tham chiếu; file được dọn sau);
+     *         false → caller tự xóa file như trước
+     */
+    boolean release(String fileName);
+
+    /**
+     * File vừa {@link #store} nhưng không bản ghi nào {@link #retain} (vd. group bị xóa giữa lúc tạo audio):
+     * bỏ entry chưa có tham chiếu, xóa file nếu không còn entry nào trỏ tới.
+     *
+     * @return true nếu file do cache quản lý; false → caller tự xóa file
+     */
+    boolean discard(String fileName);
+
+    /**
+     * @param fileName Đường dẫn tương đối trong storage
+     * @param url      URL truy cập
+     */
+    record CachedAudio(String fileName, String url, long fileSize, String mimeType) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.service;
+
+/**
+ * Translation memory đặt trước {@link TranslationService}: tra cứu RAM → bảng TranslationTraining
+ * (ưu tiên bản đã validate / đã sửa) → Google Translate; kết quả API được ghi lại vào corpus.
+ */
+public interface TranslationMemoryService {
+
+    /**
+     * Bỏ bản dịch đã cache của 1 câu (sau khi corpus thay đổi: thêm / validate / xóa).
+     */
+    void evict(String sourceText, String sourceLang, String targetLang);
+
+    void clear();
+
+    int size();
+}
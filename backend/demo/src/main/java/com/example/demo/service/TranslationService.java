@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import java.util.List;
 import java.util.Map;
 
 public interface TranslationService {
@@ -8,6 +9,12 @@ public interface TranslationService {
      */
     String translate(String text, String targetLang);
 
+    /**
+     * Dịch nhiều đoạn sang cùng 1 ngôn ngữ target trong ít request nhất có thể.
+     * @return Bản dịch theo đúng thứ tự {@code texts} (đoạn rỗng giữ nguyên)
+     */
+    List<String> translateBatch(List<String> texts, String targetLang);
+
     /**
      * Dịch một đoạn text từ tiếng Việt sang nhiều ngôn ngữ.
      * @return Map&lt;languageCode, translatedText&gt;
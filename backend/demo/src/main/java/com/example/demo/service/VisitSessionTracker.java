@@ -0,0 +1,28 @@
+package com.example.demo.service;
+
+import java.time.Instant;
+
+/**
+ * Phiên ghé thăm POI ({@code queue_sessions}) theo dõi trong RAM: mỗi thiết bị tối đa 1 phiên mở,
+ * dựng từ sự kiện thuyết minh và vị trí. Phiên chỉ được ghi DB khi đã đóng (rời vùng / hết hạn), theo lô.
+ */
+public interface VisitSessionTracker {
+
+    /**
+     * Thiết bị bắt đầu nghe audio của POI — mở phiên mới nếu đang ở POI khác / chưa có phiên.
+     * @param estimatedEndAt Thời điểm audio dự kiến kết thúc (giới hạn thời gian nghe nếu không có sự kiện kết thúc)
+     */
+    void onNarrationStart(String deviceId, Long poiId, Instant startedAt, Instant estimatedEndAt);
+
+    /** Audio đang phát của thiết bị kết thúc (hoàn thành / bỏ qua). */
+    void onNarrationEnd(String deviceId, Instant endedAt);
+
+    /** Vị trí mới của thiết bị — xác định vào / ở lại / rời vùng POI. */
+    void onLocation(String deviceId, double lat, double lng, Instant at);
+
+    /** Số phiên đang mở (đã qua thời gian dừng tối thiểu). */
+    int activeCount();
+
+    /** Bỏ phiên đang mở / chưa ghi của các thiết bị có deviceId bắt đầu bằng {@code deviceIdPrefix} (load test). */
+    void discardDevices(String deviceIdPrefix);
+}
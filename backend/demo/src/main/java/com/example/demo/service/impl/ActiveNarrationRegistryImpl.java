@@ -0,0 +1,469 @@
+package com.example.demo.service.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.domain.ActiveNarration;
+import com.example.demo.domain.ActiveNarration.NarrationStatus;
+import com.example.demo.repository.ActiveNarrationRepository;
+import com.example.demo.repository.POIRepository;
+import com.example.demo.repository.TTSAudioRepository;
+import com.example.demo.service.ActiveNarrationRegistry;
+import com.example.demo.service.DashboardStreamService;
+import com.example.demo.service.DashboardStreamService.DashboardEvent;
+import com.example.demo.service.DashboardStreamService.NarrationDelta;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * {@code byDevice} là nguồn sự thật; mọi thay đổi của 1 thiết bị đi qua {@link ConcurrentHashMap#compute}
+ * nên bộ đếm theo POI (AtomicInteger, không khóa) luôn khớp với {@code byDevice}.
+ * Ghi DB trên 1 luồng riêng theo đúng thứ tự sự kiện; hàng đợi đầy → luồng gọi tự ghi (chậm lại thay vì mất dữ liệu).
+ * Mỗi instance chỉ biết các phiên bắt đầu trên chính nó (và các phiên PLAYING có trong DB lúc khởi động).
+ * <p>
+ * Hết hạn: mỗi phiên có 1 mốc {@code estimatedEndAt} trong {@link DelayQueue}; luồng {@code narration-expiry}
+ * lấy các mốc đã tới, gỡ khỏi RAM và ghi EXPIRED theo lô. Phiên bị thay / kết thúc sớm không cần gỡ khỏi hàng đợi —
+ * khi tới hạn sẽ bị bỏ qua vì không còn khớp. Bản ghi mồ côi (instance chết giữa chừng) do {@link #sweepExpired()}
+ * dọn; mọi UPDATE đều có điều kiện {@code status = PLAYING} nên nhiều instance chạy cùng lúc vẫn an toàn.
+ */
+@Service
+public class ActiveNarrationRegistryImpl implements ActiveNarrationRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ActiveNarrationRegistryImpl.class);
+
+    private final ActiveNarrationRepository activeNarrationRepository;
+    private final POIRepository poiRepository;
+    private final TTSAudioRepository ttsAudioRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final DashboardStreamService dashboardStreamService;
+
+    private final ConcurrentHashMap<String, Playing> byDevice = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, AtomicInteger> listenersByPoi = new ConcurrentHashMap<>();
+    /** id bản ghi DB → deviceId, cho endById */
+    private final ConcurrentHashMap<Long, String> deviceById = new ConcurrentHashMap<>();
+    private final AtomicInteger total = new AtomicInteger();
+
+    private final ExecutorService writer;
+
+    private final DelayQueue<Deadline> deadlines = new DelayQueue<>();
+    private final Thread expiryThread;
+    private final int expiryBatchSize;
+    private final long sweepGraceSeconds;
+    private volatile boolean running = true;
+
+    @Autowired
+    public ActiveNarrationRegistryImpl(
+            ActiveNarrationRepository activeNarrationRepository,
+            POIRepository poiRepository,
+            TTSAudioRepository ttsAudioRepository,
+            TransactionTemplate transactionTemplate,
+            DashboardStreamService dashboardStreamService,
+            @Value("${app.narration.persist-queue-capacity:10000}") int queueCapacity,
+            @Value("${app.narration.expiry-batch-size:500}") int expiryBatchSize,
+            @Value("${app.narration.expiry-sweep-grace-seconds:30}") long sweepGraceSeconds) {
+        this(activeNarrationRepository, poiRepository, ttsAudioRepository, transactionTemplate,
+                dashboardStreamService,
+                new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<>(Math.max(1, queueCapacity)),
+                        r -> {
+                            Thread t = new Thread(r, "narration-writer");
+                            t.setDaemon(true);
+                            return t;
+                        },
+                        new ThreadPoolExecutor.CallerRunsPolicy()),
+                expiryBatchSize, sweepGraceSeconds);
+    }
+
+    /** {@code writer} phải chạy tuần tự (1 luồng) để giữ đúng thứ tự ghi. */
+    ActiveNarrationRegistryImpl(
+            ActiveNarrationRepository activeNarrationRepository,
+            POIRepository poiRepository,
+            TTSAudioRepository ttsAudioRepository,
+            TransactionTemplate transactionTemplate,
+            DashboardStreamService dashboardStreamService,
+            ExecutorService writer,
+            int expiryBatchSize,
+            long sweepGraceSeconds) {
+        this.activeNarrationRepository = activeNarrationRepository;
+        this.poiRepository = poiRepository;
+        this.ttsAudioRepository = ttsAudioRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.dashboardStreamService = dashboardStreamService;
+        this.writer = writer;
+        this.expiryBatchSize = Math.max(1, expiryBatchSize);
+        this.sweepGraceSeconds = Math.max(0, sweepGraceSeconds);
+        this.expiryThread = new Thread(this::runExpiry, "narration-expiry");
+        this.expiryThread.setDaemon(true);
+    }
+
+    /**
+     * Nạp lại các phiên còn PLAYING trong DB (khởi động lại giữa chừng).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromDatabase() {
+        Map<String, Playing> latest = new HashMap<>();
+        transactionTemplate.executeWithoutResult(s -> {
+            for (ActiveNarration an : activeNarrationRepository.findPlayingWithPoiAndAudio(null)) {
+                Playing p = new Playing(an.getId(), an.getDeviceId(), an.getPoi().getId(), an.getPoi().getFoodName(),
+                        an.getPoi().getUser() != null ? an.getPoi().getUser().getId() : null,
+                        an.getAudio().getId(), an.getLanguageCode(), an.getStartedAt(), an.getEstimatedEndAt(),
+                        an.getLatitude(), an.getLongitude());
+                latest.merge(p.deviceId(), p, (a, b) -> a.startedAt().isAfter(b.startedAt()) ? a : b);
+            }
+        });
+        latest.values().forEach(p -> byDevice.compute(p.deviceId(), (k, prev) -> {
+            if (prev != null) {
+                return prev;
+            }
+            increment(p.poiId());
+            if (p.id() != null) {
+                deviceById.put(p.id(), k);
+            }
+            schedule(p);
+            return p;
+        }));
+        log.info("Active narration registry loaded: {} playing", total.get());
+        expiryThread.start();
+    }
+
+    /**
+     * Lưới an toàn cho bản ghi PLAYING không có trong RAM của instance nào (instance chết, ghi lỗi).
+     * Trễ {@code grace} để instance đang giữ phiên tự xử lý trước.
+     */
+    @Scheduled(fixedDelayString = "${app.narration.expiry-sweep-interval-ms:60000}", initialDelay = 60_000)
+    public void sweepExpired() {
+        Instant before = Instant.now().minusSeconds(sweepGraceSeconds);
+        int expired = 0;
+        try {
+            while (true) {
+                List<Long> ids = activeNarrationRepository.findExpiredPlayingIds(before,
+                        PageRequest.of(0, expiryBatchSize));
+                int updated = ids.isEmpty() ? 0 : activeNarrationRepository.expirePlaying(ids);
+                expired += updated;
+                if (ids.size() < expiryBatchSize || updated == 0) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Narration expiry sweep failed: {}", e.getMessage());
+        }
+        if (expired > 0) {
+            log.info("Narration expiry sweep: {} orphaned session(s) expired", expired);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        expiryThread.interrupt();
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Narration writer: {} pending write(s) dropped on shutdown", writer.shutdownNow().size());
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ============= Ghi =============
+
+    @Override
+    public Optional<Playing> start(Playing playing) {
+        Playing[] replaced = new Playing[1];
+        byDevice.compute(playing.deviceId(), (k, prev) -> {
+            if (prev != null) {
+                replaced[0] = prev;
+                forget(prev);
+            }
+            increment(playing.poiId());
+            return playing;
+        });
+        schedule(playing);
+        writer.execute(() -> persistStart(playing));
+        if (replaced[0] != null) {
+            announce("narration.ended", replaced[0], NarrationStatus.EXPIRED);
+        }
+        announce("narration.started", playing, NarrationStatus.PLAYING);
+        return Optional.ofNullable(replaced[0]);
+    }
+
+    @Override
+    public Optional<Playing> endByDevice(String deviceId, NarrationStatus status) {
+        if (deviceId == null) {
+            return Optional.empty();
+        }
+        Playing[] ended = new Playing[1];
+        byDevice.computeIfPresent(deviceId, (k, prev) -> {
+            ended[0] = prev;
+            forget(prev);
+            return null;
+        });
+        if (ended[0] == null) {
+            return Optional.empty();
+        }
+        Instant endAt = status == NarrationStatus.COMPLETED ? Instant.now() : ended[0].estimatedEndAt();
+        writer.execute(() -> safely("end " + deviceId,
+                () -> activeNarrationRepository.endPlayingByDevice(deviceId, status, endAt)));
+        announce("narration.ended", ended[0], status);
+        return Optional.of(ended[0]);
+    }
+
+    @Override
+    public boolean endById(Long activeNarrationId, NarrationStatus status) {
+        String deviceId = deviceById.get(activeNarrationId);
+        if (deviceId != null) {
+            Playing current = byDevice.get(deviceId);
+            if (current != null && activeNarrationId.equals(current.id())) {
+                endByDevice(deviceId, status);
+                return true;
+            }
+        }
+        // Không còn trong RAM (instance khác / đã kết thúc): cập nhật thẳng bản ghi như trước
+        return Boolean.TRUE.equals(transactionTemplate.execute(s -> activeNarrationRepository
+                .findById(activeNarrationId)
+                .map(an -> {
+                    if (status == NarrationStatus.COMPLETED) {
+                        an.complete();
+                    } else if (status == NarrationStatus.SKIPPED) {
+                        an.skip();
+                    } else {
+                        an.expire();
+                    }
+                    activeNarrationRepository.save(an);
+                    return true;
+                })
+                .orElse(false)));
+    }
+
+    // ============= Đọc =============
+
+    @Override
+    public Optional<Playing> get(String deviceId) {
+        return deviceId == null ? Optional.empty() : Optional.ofNullable(byDevice.get(deviceId));
+    }
+
+    @Override
+    public int listenerCount(Long poiId) {
+        AtomicInteger c = poiId != null ? listenersByPoi.get(poiId) : null;
+        return c != null ? Math.max(0, c.get()) : 0;
+    }
+
+    @Override
+    public Map<Long, Integer> listenerCounts() {
+        Map<Long, Integer> copy = new HashMap<>();
+        listenersByPoi.forEach((poiId, c) -> {
+            int v = c.get();
+            if (v > 0) {
+                copy.put(poiId, v);
+            }
+        });
+        return copy;
+    }
+
+    @Override
+    public int totalPlaying() {
+        return Math.max(0, total.get());
+    }
+
+    @Override
+    public List<Playing> playing(Long ownerUserId) {
+        List<Playing> result = new ArrayList<>();
+        for (Playing p : byDevice.values()) {
+            if (ownerUserId == null || ownerUserId.equals(p.poiOwnerUserId())) {
+                result.add(p);
+            }
+        }
+        result.sort(Comparator.comparing(Playing::startedAt).reversed());
+        return result;
+    }
+
+    // ============= Private =============
+
+    private void increment(Long poiId) {
+        listenersByPoi.computeIfAbsent(poiId, id -> new AtomicInteger()).incrementAndGet();
+        total.incrementAndGet();
+    }
+
+    /** Gỡ bộ đếm của phiên (gọi trong compute của thiết bị). */
+    private void forget(Playing p) {
+        AtomicInteger c = listenersByPoi.get(p.poiId());
+        if (c != null) {
+            c.decrementAndGet();
+        }
+        total.decrementAndGet();
+        if (p.id() != null) {
+            deviceById.remove(p.id());
+        }
+    }
+
+    /** Chạy trên narration-writer: EXPIRED phiên cũ của thiết bị rồi thêm phiên mới, trong 1 transaction. */
+    private void persistStart(Playing p) {
+        safely("start " + p.deviceId(), () -> {
+            Long id = transactionTemplate.execute(s -> {
+                activeNarrationRepository.endPlayingByDevice(p.deviceId(), NarrationStatus.EXPIRED, Instant.now());
+                ActiveNarration saved = activeNarrationRepository.save(ActiveNarration.builder()
+                        .deviceId(p.deviceId())
+                        .poi(poiRepository.getReferenceById(p.poiId()))
+                        .audio(ttsAudioRepository.getReferenceById(p.audioId()))
+                        .languageCode(p.languageCode())
+                        .startedAt(p.startedAt())
+                        .estimatedEndAt(p.estimatedEndAt())
+                        .latitude(p.latitude())
+                        .longitude(p.longitude())
+                        .status(NarrationStatus.PLAYING)
+                        .createdAt(Instant.now())
+                        .build());
+                return saved.getId();
+            });
+            // Gắn id nếu phiên vẫn còn đang phát (chưa bị thay / kết thúc trong lúc chờ ghi)
+            byDevice.computeIfPresent(p.deviceId(), (k, cur) -> {
+                if (cur != p) {
+                    return cur;
+                }
+                deviceById.put(id, k);
+                return cur.withId(id);
+            });
+        });
+    }
+
+    private void schedule(Playing p) {
+        if (p.estimatedEndAt() != null) {
+            deadlines.add(new Deadline(p));
+        }
+    }
+
+    private void runExpiry() {
+        List<Deadline> due = new ArrayList<>();
+        while (running) {
+            try {
+                Deadline first = deadlines.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                due.add(first);
+                deadlines.drainTo(due, expiryBatchSize - 1);
+                expireDue(due);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Narration expiry failed: {}", e.getMessage());
+            } finally {
+                due.clear();
+            }
+        }
+    }
+
+    /** Xử lý ngay các mốc đã tới hạn mà không chờ luồng narration-expiry. */
+    void expireDueNow() {
+        List<Deadline> due = new ArrayList<>();
+        deadlines.drainTo(due, expiryBatchSize);
+        expireDue(due);
+    }
+
+    /** Gỡ các phiên tới hạn khỏi RAM rồi đẩy 1 lệnh ghi lô cho narration-writer. */
+    private void expireDue(List<Deadline> due) {
+        List<Long> ids = new ArrayList<>();
+        List<Playing> unsaved = new ArrayList<>();
+        for (Deadline d : due) {
+            Playing[] expired = new Playing[1];
+            byDevice.computeIfPresent(d.playing.deviceId(), (k, cur) -> {
+                if (!sameSession(cur, d.playing)) {
+                    return cur;
+                }
+                expired[0] = cur;
+                forget(cur);
+                return null;
+            });
+            if (expired[0] == null) {
+                continue;
+            }
+            announce("narration.ended", expired[0], NarrationStatus.EXPIRED);
+            if (expired[0].id() != null) {
+                ids.add(expired[0].id());
+            } else {
+                unsaved.add(expired[0]);
+            }
+        }
+        if (ids.isEmpty() && unsaved.isEmpty()) {
+            return;
+        }
+        writer.execute(() -> {
+            if (!ids.isEmpty()) {
+                safely("expire " + ids.size(), () -> activeNarrationRepository.expirePlaying(ids));
+            }
+            // Chưa kịp có id: lệnh START đứng trước trong hàng ghi nên bản ghi PLAYING của thiết bị là phiên này
+            for (Playing p : unsaved) {
+                safely("expire " + p.deviceId(), () -> activeNarrationRepository
+                        .endPlayingByDevice(p.deviceId(), NarrationStatus.EXPIRED, p.estimatedEndAt()));
+            }
+        });
+    }
+
+    private void announce(String type, Playing p, NarrationStatus status) {
+        dashboardStreamService.publish(DashboardEvent.of(type, p.poiOwnerUserId(),
+                new NarrationDelta(p.id(), p.deviceId(), p.poiId(), p.poiName(), p.audioId(), p.languageCode(),
+                        status.name(), p.startedAt(), p.estimatedEndAt(), listenerCount(p.poiId()))));
+    }
+
+    /** withId() tạo record mới nên không so sánh tham chiếu được. */
+    private static boolean sameSession(Playing a, Playing b) {
+        return a.startedAt().equals(b.startedAt()) && a.poiId().equals(b.poiId())
+                && a.audioId().equals(b.audioId());
+    }
+
+    private void safely(String what, Runnable work) {
+        try {
+            work.run();
+        } catch (Exception e) {
+            log.warn("Narration write failed ({}): {}", what, e.getMessage());
+        }
+    }
+
+    private static final class Deadline implements Delayed {
+
+        final Playing playing;
+        final long dueAtMillis;
+
+        Deadline(Playing playing) {
+            this.playing = playing;
+            this.dueAtMillis = playing.estimatedEndAt().toEpochMilli();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAtMillis, ((Deadline) other).dueAtMillis);
+        }
+    }
+}
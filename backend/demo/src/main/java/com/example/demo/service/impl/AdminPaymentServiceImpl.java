@@ -26,6 +26,8 @@ import com.example.demo.domain.response.admin.ResAdminPaymentStatsDTO;
 import com.example.demo.domain.response.admin.ResAdminPaymentStatsDTO.DailyRevenuePoint;
 import com.example.demo.repository.PaymentRepository;
 import com.example.demo.service.AdminPaymentService;
+import com.example.demo.service.DashboardCounterService;
+import com.example.demo.service.DashboardStreamService;
 import com.example.demo.service.PayOSService;
 import com.example.demo.service.spec.PaymentSpecifications;
 import com.example.demo.util.error.IdInvalidException;
@@ -40,10 +42,15 @@ public class AdminPaymentServiceImpl implements AdminPaymentService {
 
     private final PaymentRepository paymentRepository;
     private final PayOSService payOSService;
+    private final DashboardStreamService dashboardStreamService;
+    private final DashboardCounterService dashboardCounterService;
 
-    public AdminPaymentServiceImpl(PaymentRepository paymentRepository, PayOSService payOSService) {
+    public AdminPaymentServiceImpl(PaymentRepository paymentRepository, PayOSService payOSService,
+            DashboardStreamService dashboardStreamService, DashboardCounterService dashboardCounterService) {
         this.paymentRepository = paymentRepository;
         this.payOSService = payOSService;
+        this.dashboardStreamService = dashboardStreamService;
+        this.dashboardCounterService = dashboardCounterService;
     }
 
     @Override
@@ -133,8 +140,13 @@ public class AdminPaymentServiceImpl implements AdminPaymentService {
             throw new IdInvalidException(
                     "Không gọi được PayOS (thiếu credential / mock / chưa có orderCode hoặc paymentLinkId).");
         }
+        PaymentStatus before = payment.getStatus();
         applyPayosLinkStatus(payment, linkOpt.get());
         payment = paymentRepository.save(payment);
+        if (before != PaymentStatus.SUCCESS && payment.getStatus() == PaymentStatus.SUCCESS) {
+            dashboardStreamService.publishPaymentSucceeded(payment);
+            dashboardCounterService.recordPaymentSucceeded(payment);
+        }
         return toDto(payment);
     }
 
@@ -1,77 +1,101 @@
 package com.example.demo.service.impl;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.example.demo.domain.ActiveNarration;
 import com.example.demo.domain.ActiveNarration.NarrationStatus;
 import com.example.demo.domain.DeviceConfig;
 import com.example.demo.domain.DeviceConfig.NetworkType;
 import com.example.demo.domain.DeviceConfig.RunningMode;
 import com.example.demo.domain.POI;
-import com.example.demo.domain.NarrationLog;
 import com.example.demo.domain.Payment;
 import com.example.demo.domain.Payment.PaymentStatus;
 import com.example.demo.domain.TTSAudio;
 import com.example.demo.domain.TTSAudioGroup;
-import com.example.demo.domain.dto.SupportedLanguage;
 import com.example.demo.domain.request.app.ReqNarrationLogDTO;
 import com.example.demo.domain.response.app.ResActiveNarrationDTO;
 import com.example.demo.domain.response.app.ResDeviceConfigDTO;
 import com.example.demo.domain.response.app.ResNearbyPOIDTO;
 import com.example.demo.domain.response.app.ResPOIDTO;
 import com.example.demo.domain.response.app.ResPaymentDTO;
-import com.example.demo.repository.ActiveNarrationRepository;
 import com.example.demo.repository.DeviceConfigRepository;
 import com.example.demo.repository.POIRepository;
 import com.example.demo.repository.PaymentRepository;
 import com.example.demo.repository.TTSAudioGroupRepository;
 import com.example.demo.repository.TTSAudioRepository;
+import com.example.demo.service.ActiveNarrationRegistry;
 import com.example.demo.service.AppClientService;
+import com.example.demo.service.DashboardCounterService;
+import com.example.demo.service.DashboardStreamService;
+import com.example.demo.service.GeofenceDecisionLog;
 import com.example.demo.service.GeofenceService;
-import com.example.demo.service.NarrationService;
+import com.example.demo.service.NarrationLogIngestor;
+import com.example.demo.service.POISpatialIndex;
 import com.example.demo.service.PayOSService;
+import com.example.demo.service.VisitSessionTracker;
 import com.example.demo.util.error.IdInvalidException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Service
 public class AppClientServiceImpl implements AppClientService {
 
+    private static final ObjectMapper VERSION_MAPPER = new ObjectMapper();
+
     private final POIRepository poiRepository;
     private final DeviceConfigRepository deviceConfigRepository;
-    private final ActiveNarrationRepository activeNarrationRepository;
     private final PaymentRepository paymentRepository;
     private final TTSAudioRepository ttsAudioRepository;
     private final TTSAudioGroupRepository ttsAudioGroupRepository;
     private final GeofenceService geofenceService;
-    private final NarrationService narrationService;
+    private final NarrationLogIngestor narrationLogIngestor;
     private final PayOSService payOSService;
+    private final POISpatialIndex poiSpatialIndex;
+    private final ActiveNarrationRegistry activeNarrationRegistry;
+    private final DashboardStreamService dashboardStreamService;
+    private final DashboardCounterService dashboardCounterService;
+    private final GeofenceDecisionLog geofenceDecisionLog;
+    private final VisitSessionTracker visitSessionTracker;
 
     public AppClientServiceImpl(
             POIRepository poiRepository,
             DeviceConfigRepository deviceConfigRepository,
-            ActiveNarrationRepository activeNarrationRepository,
             PaymentRepository paymentRepository,
             TTSAudioRepository ttsAudioRepository,
             TTSAudioGroupRepository ttsAudioGroupRepository,
             GeofenceService geofenceService,
-            NarrationService narrationService,
-            PayOSService payOSService) {
+            NarrationLogIngestor narrationLogIngestor,
+            PayOSService payOSService,
+            POISpatialIndex poiSpatialIndex,
+            ActiveNarrationRegistry activeNarrationRegistry,
+            DashboardStreamService dashboardStreamService,
+            DashboardCounterService dashboardCounterService,
+            GeofenceDecisionLog geofenceDecisionLog,
+            VisitSessionTracker visitSessionTracker) {
         this.poiRepository = poiRepository;
         this.deviceConfigRepository = deviceConfigRepository;
-        this.activeNarrationRepository = activeNarrationRepository;
         this.paymentRepository = paymentRepository;
         this.ttsAudioRepository = ttsAudioRepository;
         this.ttsAudioGroupRepository = ttsAudioGroupRepository;
         this.geofenceService = geofenceService;
-        this.narrationService = narrationService;
+        this.narrationLogIngestor = narrationLogIngestor;
         this.payOSService = payOSService;
+        this.poiSpatialIndex = poiSpatialIndex;
+        this.activeNarrationRegistry = activeNarrationRegistry;
+        this.dashboardStreamService = dashboardStreamService;
+        this.dashboardCounterService = dashboardCounterService;
+        this.geofenceDecisionLog = geofenceDecisionLog;
+        this.visitSessionTracker = visitSessionTracker;
     }
 
     // ============ Device ============
@@ -97,34 +121,52 @@ public class AppClientServiceImpl implements AppClientService {
         config.setLastSeenAt(Instant.now());
 
         config = deviceConfigRepository.save(config);
+        dashboardStreamService.publishDeviceSeen(config);
         return buildDeviceConfigDTO(config);
     }
 
     @Override
     @Transactional
-    public ResDeviceConfigDTO syncDevice(String deviceId, Double lat, Double lng, String downloadedVersions)
-            throws IdInvalidException {
+    public ResDeviceConfigDTO syncDevice(String deviceId, Double lat, Double lng, String downloadedVersions,
+            String syncCursor) throws IdInvalidException {
         DeviceConfig config = deviceConfigRepository.findByDeviceId(deviceId)
                 .orElseThrow(() -> new IdInvalidException("Thiết bị chưa đăng ký: " + deviceId));
 
         config.setLastLat(lat);
         config.setLastLng(lng);
-        config.setDownloadedVersions(downloadedVersions);
+        if (downloadedVersions != null) {
+            config.setDownloadedVersions(downloadedVersions);
+        }
         config.setLastSyncAt(Instant.now());
         config.setUpdatedAt(Instant.now());
         config.setLastSeenAt(Instant.now());
         config.setRunningMode(config.computeRunningMode());
 
         config = deviceConfigRepository.save(config);
+        dashboardStreamService.publishDeviceSeen(config);
+        if (lat != null && lng != null) {
+            visitSessionTracker.onLocation(deviceId, lat, lng, config.getLastSeenAt());
+        }
 
-        // Build pois needing sync
+        // Delta so với version vector của thiết bị (chỉ thiết bị OFFLINE cần giữ bản local)
+        String watermark = poiSpatialIndex.versionDigest();
         Map<Long, Integer> poisNeedingSync = new HashMap<>();
+        List<Long> removedPoiIds = new ArrayList<>();
+        List<ResPOIDTO> changedPois = List.of();
+        String nextCursor = null;
         if (config.getRunningMode() == RunningMode.OFFLINE) {
-            poiRepository.findAllActiveWithLocation(org.springframework.data.domain.Pageable.unpaged()).getContent()
-                    .forEach(poi -> {
-                        int currentVersion = poi.getVersion() != null ? poi.getVersion() : 1;
-                        poisNeedingSync.put(poi.getId(), currentVersion);
-                    });
+            Map<Long, Integer> local = parseDownloadedVersions(config.getDownloadedVersions());
+            if (!cursorFor(watermark, local).equals(syncCursor)) {
+                computeDelta(local, poisNeedingSync, removedPoiIds);
+                if (!poisNeedingSync.isEmpty()) {
+                    changedPois = buildPOIDTOs(poiRepository.findAllWithRestaurantByIdIn(poisNeedingSync.keySet()));
+                }
+            }
+            // Cursor theo version vector thiết bị sẽ có khi áp dụng xong delta — áp dụng dở thì lần sau không khớp
+            Map<Long, Integer> applied = new HashMap<>(local);
+            applied.putAll(poisNeedingSync);
+            removedPoiIds.forEach(applied::remove);
+            nextCursor = cursorFor(watermark, applied);
         }
 
         return ResDeviceConfigDTO.builder()
@@ -137,9 +179,62 @@ public class AppClientServiceImpl implements AppClientService {
                 .totalDownloadedMB(config.getTotalDownloadedMB())
                 .lastSeenAt(config.getLastSeenAt())
                 .poisNeedingSync(poisNeedingSync)
+                .changedPois(changedPois)
+                .removedPoiIds(removedPoiIds)
+                .syncCursor(nextCursor)
                 .build();
     }
 
+    /** POI thiết bị thiếu / cũ hơn index → {@code poisNeedingSync}; POI thiết bị giữ nhưng đã gỡ → {@code removedPoiIds}. */
+    private void computeDelta(Map<Long, Integer> local, Map<Long, Integer> poisNeedingSync,
+            List<Long> removedPoiIds) {
+        Map<Long, Integer> current = poiSpatialIndex.versionSnapshot();
+        current.forEach((poiId, version) -> {
+            Integer have = local.get(poiId);
+            if (have == null || have < version) {
+                poisNeedingSync.put(poiId, version);
+            }
+        });
+        for (Long poiId : local.keySet()) {
+            if (!current.containsKey(poiId)) {
+                removedPoiIds.add(poiId);
+            }
+        }
+    }
+
+    /** Watermark index + digest version vector của thiết bị. */
+    private static String cursorFor(String watermark, Map<Long, Integer> deviceVersions) {
+        return watermark + "." + POISpatialIndex.digestOf(deviceVersions);
+    }
+
+    /**
+     * {@code {"poiId": version, ...}} → map. JSON hỏng / trống → map rỗng (thiết bị sẽ nhận full sync).
+     */
+    private static Map<Long, Integer> parseDownloadedVersions(String json) {
+        Map<Long, Integer> result = new HashMap<>();
+        if (json == null || json.isBlank()) {
+            return result;
+        }
+        Map<String, Integer> raw;
+        try {
+            raw = VERSION_MAPPER.readValue(json, new TypeReference<Map<String, Integer>>() {
+            });
+        } catch (JsonProcessingException e) {
+            return result;
+        }
+        raw.forEach((key, version) -> {
+            if (version == null) {
+                return;
+            }
+            try {
+                result.put(Long.parseLong(key.trim()), version);
+            } catch (NumberFormatException ignored) {
+                // bỏ qua key không phải id
+            }
+        });
+        return result;
+    }
+
     @Override
     public ResDeviceConfigDTO getDeviceConfig(String deviceId) throws IdInvalidException {
         DeviceConfig config = deviceConfigRepository.findByDeviceId(deviceId)
@@ -176,6 +271,11 @@ public class AppClientServiceImpl implements AppClientService {
         config.setLastSeenAt(Instant.now());
 
         config = deviceConfigRepository.save(config);
+        dashboardStreamService.publishDeviceSeen(config);
+        if (req.getLatitude() != null && req.getLongitude() != null) {
+            visitSessionTracker.onLocation(req.getDeviceId(), req.getLatitude(), req.getLongitude(),
+                    config.getLastSeenAt());
+        }
         return buildDeviceConfigDTO(config);
     }
 
@@ -191,10 +291,7 @@ public class AppClientServiceImpl implements AppClientService {
     @Override
     @Transactional(readOnly = true)
     public List<ResPOIDTO> getAllPOIs() throws IdInvalidException {
-        return poiRepository.findByIsActiveTrue(org.springframework.data.domain.Pageable.unpaged())
-                .getContent().stream()
-                .map(this::buildPOIDTO)
-                .collect(Collectors.toList());
+        return buildPOIDTOs(poiRepository.findActiveWithRestaurant());
     }
 
     @Override
@@ -205,6 +302,17 @@ public class AppClientServiceImpl implements AppClientService {
         return buildPOIDTO(poi);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ResPOIDTO> getPOIsByIds(Collection<Long> poiIds) {
+        if (poiIds == null || poiIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<POI> pois = new ArrayList<>(poiRepository.findAllWithRestaurantByIdIn(poiIds));
+        pois.sort(Comparator.comparing(POI::getId));
+        return buildPOIDTOs(pois);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public ResPOIDTO getPOIByQrCode(String qrCode) throws IdInvalidException {
@@ -216,17 +324,19 @@ public class AppClientServiceImpl implements AppClientService {
     @Override
     @Transactional(readOnly = true)
     public List<ResNearbyPOIDTO> getNearbyPOIs(double lat, double lng, double radiusKm) {
-        List<POI> nearbyPOIs = poiRepository.findNearby(lat, lng, radiusKm);
-        Map<Long, Integer> activeCounts = activeNarrationRepository.countPlayingByPoi().stream()
-                .collect(Collectors.toMap(
-                        arr -> (Long) arr[0],
-                        arr -> ((Number) arr[1]).intValue()));
-
-        return nearbyPOIs.stream().map(poi -> {
-            double dist = geofenceService.haversineDistance(
-                    lat, lng,
-                    poi.getLatitude(), poi.getLongitude());
-            ResPOIDTO full = buildPOIDTO(poi);
+        // Lọc bán kính trên spatial index trong RAM, DB chỉ load theo khóa chính
+        List<POISpatialIndex.NearbyHit> hits = poiSpatialIndex.findWithinRadius(lat, lng, radiusKm * 1000);
+        if (hits.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<POI> pois = poiRepository.findAllWithRestaurantByIdIn(
+                hits.stream().map(h -> h.poi().getId()).collect(Collectors.toList()));
+        Map<Long, ResPOIDTO> dtoById = buildPOIDTOs(pois).stream()
+                .collect(Collectors.toMap(ResPOIDTO::getId, d -> d));
+
+        return hits.stream().filter(h -> dtoById.containsKey(h.poi().getId())).map(hit -> {
+            ResPOIDTO full = dtoById.get(hit.poi().getId());
+            double dist = hit.distanceMeters();
             return ResNearbyPOIDTO.builder()
                     .id(full.getId())
                     .groupId(full.getGroupId())
@@ -242,7 +352,7 @@ public class AppClientServiceImpl implements AppClientService {
                     .address(full.getAddress())
                     .audios(full.getAudios())
                     .distanceMeters((double) Math.round(dist))
-                    .activeListenerCount(activeCounts.getOrDefault(poi.getId(), 0))
+                    .activeListenerCount(activeNarrationRegistry.listenerCount(full.getId()))
                     .downloadedOffline(false)
                     .build();
         }).collect(Collectors.toList());
@@ -251,150 +361,108 @@ public class AppClientServiceImpl implements AppClientService {
     // ============ Narration ============
 
     @Override
-    @Transactional
     public void startNarration(String deviceId, Long poiId, Long audioId,
             String languageCode, Double lat, Double lng) throws IdInvalidException {
 
-        POI poi = poiRepository.findById(poiId)
-                .orElseThrow(() -> new IdInvalidException("Không tìm thấy POI: " + poiId));
-        TTSAudio audio = ttsAudioRepository.findById(audioId)
-                .orElseThrow(() -> new IdInvalidException("Không tìm thấy audio: " + audioId));
-
-        // ============================================================
-        // GEOFENCE DEBUG LOG — khi user vào POI, log tất cả POI trong vùng
-        // ============================================================
-        if (lat != null && lng != null) {
-            List<POI> allActivePOIs = poiRepository.findByIsActiveTrue(
-                    org.springframework.data.domain.Pageable.unpaged()).getContent();
-            List<GeofenceService.RankedPOI> ranked = geofenceService.rankPOIs(lat, lng, allActivePOIs);
-
-            System.out.println("========================================");
-            System.out.println("[GEOFENCE] User entering POI — deviceId=" + deviceId
-                    + " | lat=" + lat + " lng=" + lng);
-            System.out.println("[GEOFENCE] POIs in trigger radius (sorted):");
-            for (int i = 0; i < ranked.size(); i++) {
-                GeofenceService.RankedPOI rp = ranked.get(i);
-                POI p = rp.poi();
-                double radius = p.getTriggerRadiusMeters() != null ? p.getTriggerRadiusMeters() : 50.0;
-                String winner = (i == 0) ? " *** WINNER ***" : "";
-                System.out.printf(Locale.US,
-                        "  [%d] POI id=%d name=\"%s\" | dist=%.1fm radius=%.1fm priority=%d | isInside=%s%s%n",
-                        i + 1,
-                        p.getId(),
-                        p.getFoodName(),
-                        rp.distanceMeters(),
-                        radius,
-                        rp.priority(),
-                        rp.distanceMeters() <= radius,
-                        winner);
+        // 1 query thay cho findById(POI) + findById(audio); chỉ khi rỗng mới tra lại để báo đúng lỗi
+        List<Object[]> target = poiRepository.findNarrationTarget(poiId, audioId);
+        if (target.isEmpty()) {
+            if (!poiRepository.existsById(poiId)) {
+                throw new IdInvalidException("Không tìm thấy POI: " + poiId);
             }
-            if (ranked.isEmpty()) {
-                System.out.println("  (no POIs in trigger radius)");
-            }
-            System.out.println("[GEOFENCE] Selected POI: id=" + poiId + " name=\"" + poi.getFoodName() + "\"");
-            System.out.println("[GEOFENCE] Requested audio: id=" + audioId + " lang=" + languageCode);
-            System.out.println("========================================");
+            throw new IdInvalidException("Không tìm thấy audio: " + audioId);
+        }
+        Object[] row = target.get(0);
+        String poiName = (String) row[1];
+        Long ownerUserId = (Long) row[2];
+        Long fileSize = row[3] != null ? ((Number) row[3]).longValue() : null;
+
+        // Nhật ký geofence: chỉ tính ứng viên cho quyết định được lấy mẫu, ghi bất đồng bộ
+        if (lat != null && lng != null && geofenceDecisionLog.shouldSample(deviceId, poiId)) {
+            recordGeofenceDecision(deviceId, lat, lng, poiId, poiName, ownerUserId, audioId, languageCode);
         }
-        // ============================================================
-
-        // Đánh dấu active narration trước đó của device là EXPIRED
-        activeNarrationRepository.findByDeviceIdAndStatus(deviceId, NarrationStatus.PLAYING)
-                .ifPresent(an -> {
-                    an.expire();
-                    activeNarrationRepository.save(an);
-                });
-
-        // Tạo active narration mới
-        ActiveNarration active = ActiveNarration.builder()
-                .deviceId(deviceId)
-                .poi(poi)
-                .audio(audio)
-                .languageCode(languageCode)
-                .startedAt(Instant.now())
-                .latitude(lat)
-                .longitude(lng)
-                .status(NarrationStatus.PLAYING)
-                .build();
 
         // Ước tính thời gian kết thúc (giả định audio ~30-60s)
         long estimatedDuration = 30_000L; // 30s mặc định
-        if (audio.getFileSize() != null && audio.getFileSize() > 0) {
-            // Ước tính: ~16kbps cho mp3
-            estimatedDuration = (audio.getFileSize() * 8 / 16) * 1000;
+        if (fileSize != null && fileSize > 0) {
+            // Ước tính: ~16kbps cho mp3 → bits / 16 = ms
+            estimatedDuration = fileSize * 8 / 16;
         }
-        active.setEstimatedEndAt(Instant.now().plusMillis(estimatedDuration));
+        Instant now = Instant.now();
 
-        activeNarrationRepository.save(active);
+        // Phiên cũ của device (nếu có) bị EXPIRED trong registry; DB được ghi bất đồng bộ
+        Instant estimatedEnd = now.plusMillis(estimatedDuration);
+        activeNarrationRegistry.start(new ActiveNarrationRegistry.Playing(null, deviceId, poiId, poiName,
+                ownerUserId, audioId, languageCode, now, estimatedEnd, lat, lng));
+        visitSessionTracker.onNarrationStart(deviceId, poiId, now, estimatedEnd);
+    }
+
+    private void recordGeofenceDecision(String deviceId, double lat, double lng, Long poiId, String poiName,
+            Long ownerUserId, Long audioId, String languageCode) {
+        List<GeofenceService.RankedPOI> ranked = geofenceService.rankPOIs(lat, lng,
+                poiSpatialIndex.findContaining(lat, lng));
+        List<GeofenceDecisionLog.Candidate> candidates = new ArrayList<>(ranked.size());
+        for (GeofenceService.RankedPOI rp : ranked) {
+            POI p = rp.poi();
+            double radius = p.getTriggerRadiusMeters() != null ? p.getTriggerRadiusMeters() : 50.0;
+            candidates.add(new GeofenceDecisionLog.Candidate(p.getId(), p.getFoodName(), rp.distanceMeters(),
+                    radius, rp.priority()));
+        }
+        geofenceDecisionLog.record(new GeofenceDecisionLog.Decision(Instant.now(), deviceId, lat, lng,
+                poiId, poiName, ownerUserId, audioId, languageCode,
+                ranked.isEmpty() ? null : ranked.get(0).poi().getId(), candidates));
     }
 
     @Override
-    @Transactional
     public void endCurrentPlayingForDevice(String deviceId, String status) {
         if (deviceId == null || deviceId.isBlank()) {
             return;
         }
-        activeNarrationRepository.findByDeviceIdAndStatus(deviceId, NarrationStatus.PLAYING)
-                .ifPresent(an -> {
-                    applyEndStatus(an, status);
-                    activeNarrationRepository.save(an);
-                });
+        activeNarrationRegistry.endByDevice(deviceId, parseEndStatus(status));
+        visitSessionTracker.onNarrationEnd(deviceId, Instant.now());
     }
 
-    private void applyEndStatus(ActiveNarration an, String status) {
-        if (status == null || status.isBlank()) {
-            an.expire();
-            return;
-        }
+    /** null / không nhận ra → EXPIRED. */
+    private static NarrationStatus parseEndStatus(String status) {
         if ("COMPLETED".equalsIgnoreCase(status)) {
-            an.complete();
-        } else if ("SKIPPED".equalsIgnoreCase(status)) {
-            an.skip();
-        } else {
-            an.expire();
+            return NarrationStatus.COMPLETED;
+        }
+        if ("SKIPPED".equalsIgnoreCase(status)) {
+            return NarrationStatus.SKIPPED;
         }
+        return NarrationStatus.EXPIRED;
     }
 
     @Override
-    @Transactional
     public void logNarration(ReqNarrationLogDTO req) throws IdInvalidException {
-        TTSAudio audio = ttsAudioRepository.findById(req.getTtsAudioId())
-                .orElseThrow(() -> new IdInvalidException("Không tìm thấy audio: " + req.getTtsAudioId()));
-
-        NarrationLog log = NarrationLog.builder()
-                .deviceId(req.getDeviceId())
-                .ttsAudio(audio)
-                .playedAt(Instant.ofEpochMilli(req.getPlayedAt()))
-                .durationSeconds(req.getDurationSeconds())
-                .status(req.getStatus())
-                .build();
-
-        narrationService.logPlay(log);
+        // Write-behind: trả về ngay, log được INSERT theo lô ở luồng nền
+        narrationLogIngestor.submit(new NarrationLogIngestor.Entry(
+                req.getDeviceId(),
+                req.getTtsAudioId(),
+                Instant.ofEpochMilli(req.getPlayedAt()),
+                req.getDurationSeconds(),
+                req.getStatus(),
+                Instant.now()));
     }
 
     @Override
-    @Transactional
     public void endNarration(Long activeNarrationId, Integer durationSeconds, String status)
             throws IdInvalidException {
-        ActiveNarration active = activeNarrationRepository.findById(activeNarrationId)
-                .orElseThrow(() -> new IdInvalidException("Không tìm thấy active narration: " + activeNarrationId));
-
-        applyEndStatus(active, status);
-
-        activeNarrationRepository.save(active);
+        if (!activeNarrationRegistry.endById(activeNarrationId, parseEndStatus(status))) {
+            throw new IdInvalidException("Không tìm thấy active narration: " + activeNarrationId);
+        }
     }
 
     // ============ Dashboard ============
 
     @Override
-    @Transactional(readOnly = true)
     public List<ResActiveNarrationDTO> getActiveNarrations() {
         return getActiveNarrationsScoped(null);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<ResActiveNarrationDTO> getActiveNarrationsScoped(Long poiOwnerUserId) {
-        return activeNarrationRepository.findPlayingWithPoiAndAudio(poiOwnerUserId)
+        return activeNarrationRegistry.playing(poiOwnerUserId)
                 .stream()
                 .map(this::buildActiveNarrationDTO)
                 .collect(Collectors.toList());
@@ -402,9 +470,12 @@ public class AppClientServiceImpl implements AppClientService {
 
     @Override
     public long getActiveCountNearby(double lat, double lng, double radiusKm) {
-        List<POI> nearbyPOIs = poiRepository.findNearby(lat, lng, radiusKm);
-        return nearbyPOIs.stream()
-                .mapToLong(poi -> activeNarrationRepository.countPlayingByPoi(poi.getId()))
+        List<POISpatialIndex.NearbyHit> hits = poiSpatialIndex.findWithinRadius(lat, lng, radiusKm * 1000);
+        if (hits.isEmpty()) {
+            return 0L;
+        }
+        return hits.stream()
+                .mapToLong(h -> activeNarrationRegistry.listenerCount(h.poi().getId()))
                 .sum();
     }
 
@@ -477,7 +548,12 @@ public class AppClientServiceImpl implements AppClientService {
         if ("SUCCESS".equalsIgnoreCase(status)
                 || "COMPLETED".equalsIgnoreCase(status)
                 || "PAID".equalsIgnoreCase(status)) {
+            boolean newlyPaid = payment.getStatus() != PaymentStatus.SUCCESS;
             payment.markSuccess(transactionId);
+            if (newlyPaid) {
+                dashboardStreamService.publishPaymentSucceeded(payment);
+                dashboardCounterService.recordPaymentSucceeded(payment);
+            }
         } else if ("CANCELLED".equalsIgnoreCase(status)) {
             payment.markCancelled();
         } else {
@@ -501,101 +577,50 @@ public class AppClientServiceImpl implements AppClientService {
                 .build();
     }
 
+    private ResPOIDTO buildPOIDTO(POI poi) {
+        return buildPOIDTOs(List.of(poi)).get(0);
+    }
+
     /**
-     * URL để app tải file offline. Ưu tiên {@code s3Url} trên bản ghi TTSAudio
-     * (thường là {@code /uploads/...}).
-     * Nếu trống hoặc còn link S3/AWS cũ (file đã chuyển về local), fallback
-     * endpoint stream theo groupKey —
-     * cùng logic
-     * {@link com.example.demo.service.impl.TTSAudioServiceImp#getAudioResource}.
+     * Dựng DTO cho nhiều POI với số query cố định: 1 query group (theo tập POI id)
+     * + 1 query audio (theo tập group id), thay vì 1 + N + N·G query khi dựng từng POI.
+     * Giữ nguyên thứ tự của {@code pois}.
      */
-    private String resolveAppAudioUrl(TTSAudioGroup group, TTSAudio a) {
-        String raw = a.getS3Url();
-        if (raw != null && !raw.isBlank() && !isStaleCloudStorageUrl(raw)) {
-            return raw;
+    private List<ResPOIDTO> buildPOIDTOs(List<POI> pois) {
+        if (pois.isEmpty()) {
+            return new ArrayList<>();
         }
-        String lang = a.getLanguageCode();
-        return "/api/v1/tts/groups/" + group.getGroupKey() + "/audio/" + lang;
-    }
+        List<Long> poiIds = pois.stream().map(POI::getId).collect(Collectors.toList());
+        Map<Long, List<TTSAudioGroup>> groupsByPoi = ttsAudioGroupRepository.findByPoiIdIn(poiIds).stream()
+                .collect(Collectors.groupingBy(g -> g.getPoi().getId()));
 
-    private static boolean isStaleCloudStorageUrl(String url) {
-        String u = url.toLowerCase();
-        return u.contains("amazonaws.com") || u.startsWith("s3://");
-    }
-
-    private ResPOIDTO buildPOIDTO(POI poi) {
-        // Lấy tất cả TTSAudioGroup thuộc về POI này
-        List<TTSAudioGroup> groups = ttsAudioGroupRepository.findByPoiId(poi.getId());
-        TTSAudioGroup primaryGroup = !groups.isEmpty() ? groups.get(0) : null;
-
-        Map<String, ResPOIDTO.ResAudioInfoDTO> audioMap = new HashMap<>();
-        for (TTSAudioGroup g : groups) {
-            List<TTSAudio> groupAudios = ttsAudioRepository.findByGroup_Id(g.getId());
-            for (TTSAudio a : groupAudios) {
-                String lang = a.getLanguageCode();
-                audioMap.putIfAbsent(lang, ResPOIDTO.ResAudioInfoDTO.builder()
-                        .audioId(a.getId())
-                        .languageCode(lang)
-                        .languageName(SupportedLanguage.getName(lang))
-                        .voice(a.getVoice())
-                        .speed(a.getSpeed())
-                        .format(a.getFormat())
-                        .withoutFilter(a.getWithoutFilter())
-                        .s3Url(resolveAppAudioUrl(g, a))
-                        .fileSize(a.getFileSize())
-                        .mimeType(a.getMimeType())
-                        .build());
-            }
-        }
+        List<Long> groupIds = groupsByPoi.values().stream()
+                .flatMap(List::stream)
+                .map(TTSAudioGroup::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<TTSAudio>> audiosByGroup = groupIds.isEmpty()
+                ? new HashMap<>()
+                : ttsAudioRepository.findByGroupIdIn(groupIds).stream()
+                        .collect(Collectors.groupingBy(a -> a.getGroup().getId()));
 
-        return ResPOIDTO.builder()
-                .id(poi.getId())
-                .groupId(primaryGroup != null ? primaryGroup.getId() : null)
-                .groupKey(primaryGroup != null ? primaryGroup.getGroupKey() : null)
-                // Thông tin ẩm thực từ POI
-                .foodName(poi.getFoodName())
-                .price(poi.getPrice())
-                .description(poi.getDescription())
-                .imageUrl(poi.getImageUrl())
-                // GPS từ POI
-                .latitude(poi.getLatitude())
-                .longitude(poi.getLongitude())
-                .accuracy(poi.getAccuracy())
-                .triggerRadiusMeters(poi.getTriggerRadiusMeters())
-                .priority(poi.getPriority())
-                // Text/voice gốc từ primary group (nếu có)
-                .originalText(primaryGroup != null ? primaryGroup.getOriginalText() : null)
-                .originalVoice(primaryGroup != null ? primaryGroup.getOriginalVoice() : null)
-                .address(poi.getAddress())
-                .category(poi.getCategory())
-                .openHours(poi.getOpenHours())
-                .phone(poi.getPhone())
-                .isActive(poi.getIsActive())
-                .viewCount(poi.getViewCount())
-                .likeCount(poi.getLikeCount())
-                .qrCode(poi.getQrCode())
-                .version(poi.getVersion())
-                .restaurantName(poi.getRestaurant() != null ? poi.getRestaurant().getOwnerName() : null)
-                .restaurantVerified(poi.getRestaurant() != null ? poi.getRestaurant().getIsVerified() : false)
-                .audios(audioMap)
-                .createdAt(poi.getCreatedAt())
-                .updatedAt(poi.getUpdatedAt())
-                .build();
+        return pois.stream()
+                .map(poi -> POIDtoAssembler.buildPOIDTO(poi, groupsByPoi.getOrDefault(poi.getId(), List.of()), audiosByGroup))
+                .collect(Collectors.toList());
     }
 
-    private ResActiveNarrationDTO buildActiveNarrationDTO(ActiveNarration an) {
+    private ResActiveNarrationDTO buildActiveNarrationDTO(ActiveNarrationRegistry.Playing p) {
         return ResActiveNarrationDTO.builder()
-                .id(an.getId())
-                .deviceId(an.getDeviceId())
-                .poiId(an.getPoi().getId())
-                .poiName(an.getPoi().getFoodName())
-                .audioId(an.getAudio().getId())
-                .languageCode(an.getLanguageCode())
-                .startedAt(an.getStartedAt())
-                .estimatedEndAt(an.getEstimatedEndAt())
-                .status(an.getStatus().name())
-                .latitude(an.getLatitude())
-                .longitude(an.getLongitude())
+                .id(p.id())
+                .deviceId(p.deviceId())
+                .poiId(p.poiId())
+                .poiName(p.poiName())
+                .audioId(p.audioId())
+                .languageCode(p.languageCode())
+                .startedAt(p.startedAt())
+                .estimatedEndAt(p.estimatedEndAt())
+                .status(NarrationStatus.PLAYING.name())
+                .latitude(p.latitude())
+                .longitude(p.longitude())
                 .build();
     }
 
@@ -0,0 +1,52 @@
+package com.example.demo.service.impl;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.service.AudioMetadataCache;
+import com.example.demo.service.TTSAudioService.AudioFile;
+import com.example.demo.util.TtlLruCache;
+
+/**
+ * LRU trong RAM ({@link TtlLruCache}).
+ * TTL giới hạn thời gian dữ liệu cũ khi group bị sửa từ instance backend khác.
+ */
+@Service
+public class AudioMetadataCacheImpl implements AudioMetadataCache {
+
+    private final TtlLruCache<Key, AudioFile> entries;
+
+    public AudioMetadataCacheImpl(
+            @Value("${app.audio-cache.max-entries:5000}") int maxEntries,
+            @Value("${app.audio-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.entries = new TtlLruCache<>(maxEntries, ttlSeconds * 1000);
+    }
+
+    @Override
+    public Optional<AudioFile> get(String groupKey, String languageCode) {
+        return entries.get(new Key(groupKey, languageCode));
+    }
+
+    @Override
+    public void put(String groupKey, String languageCode, AudioFile file) {
+        entries.put(new Key(groupKey, languageCode), file);
+    }
+
+    @Override
+    public void invalidateGroup(String groupKey) {
+        if (groupKey == null) {
+            return;
+        }
+        entries.removeIf(k -> groupKey.equals(k.groupKey()));
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    private record Key(String groupKey, String languageCode) {
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.demo.service.impl;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.domain.Payment;
+import com.example.demo.domain.response.admin.ResDashboardDTO.POIQueueCount;
+import com.example.demo.repository.POIRepository;
+import com.example.demo.repository.PaymentRepository;
+import com.example.demo.repository.QueueSessionRepository;
+import com.example.demo.service.ActiveNarrationRegistry;
+import com.example.demo.service.DashboardCounterService;
+import com.example.demo.util.TransactionUtil;
+
+/**
+ * Bộ đếm của 1 ngày nằm trong {@link Day}; sang ngày mới thì thay cả object (không reset từng ô),
+ * nên sự kiện đến sát 0h không bị cộng lẫn sang ngày kia.
+ * Danh sách POI (tên, chủ, nhà hàng) cache riêng kèm phiên bản, nạp lại khi POI thay đổi.
+ * Mỗi instance đếm sự kiện của chính nó; dựng lại từ DB lúc khởi động, khi sang ngày và định kỳ
+ * ({@code app.dashboard-counters.reconcile-ms}) để gộp phiên nghe / thanh toán do instance khác xử lý.
+ */
+@Service
+public class DashboardCounterServiceImpl implements DashboardCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardCounterServiceImpl.class);
+
+    private final POIRepository poiRepository;
+    private final QueueSessionRepository queueSessionRepository;
+    private final PaymentRepository paymentRepository;
+    private final ActiveNarrationRegistry activeNarrationRegistry;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private volatile Day day;
+    /** Tăng mỗi lần POI đổi; snapshot nạp trước lần tăng gần nhất bị coi là cũ. */
+    private final AtomicLong poiVersion = new AtomicLong();
+    private volatile PoiSnapshot pois;
+
+    public DashboardCounterServiceImpl(
+            POIRepository poiRepository,
+            QueueSessionRepository queueSessionRepository,
+            PaymentRepository paymentRepository,
+            ActiveNarrationRegistry activeNarrationRegistry) {
+        this.poiRepository = poiRepository;
+        this.queueSessionRepository = queueSessionRepository;
+        this.paymentRepository = paymentRepository;
+        this.activeNarrationRegistry = activeNarrationRegistry;
+        this.day = new Day(LocalDate.now(zone));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        this.day = loadDay(LocalDate.now(zone));
+        log.info("Dashboard counters rebuilt for {}: sessions={} revenue={}", day.date, day.sessions.sum(),
+                day.revenue.sum());
+    }
+
+    /**
+     * Thay bộ đếm trong RAM bằng số liệu DB (gồm cả sự kiện của instance khác). Sự kiện ghi trong lúc nạp
+     * có thể chưa có mặt tới lượt sau, nhưng không bị đếm đôi.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.dashboard-counters.reconcile-ms:60000}", initialDelay = 60_000)
+    public void reconcile() {
+        LocalDate today = LocalDate.now(zone);
+        Day loaded = loadDay(today);
+        synchronized (this) {
+            if (day.date.equals(today)) {
+                day = loaded;
+            }
+        }
+    }
+
+    /** Sang ngày mới ngay cả khi không có sự kiện / lượt đọc nào. */
+    @Scheduled(cron = "0 0 0 * * *")
+    public void rollOver() {
+        currentDay();
+    }
+
+    // ============= Đọc =============
+
+    @Override
+    public List<POIQueueCount> snapshot(Long ownerScopeUserId) {
+        Day d = currentDay();
+        List<PoiRow> rows = poiRows();
+        List<POIQueueCount> result = new ArrayList<>(rows.size());
+        for (PoiRow row : rows) {
+            if (ownerScopeUserId != null && !ownerScopeUserId.equals(row.ownerUserId())) {
+                continue;
+            }
+            result.add(POIQueueCount.builder()
+                    .poiId(row.id())
+                    .poiName(row.name() != null ? row.name() : "POI #" + row.id())
+                    .activeCount(activeNarrationRegistry.listenerCount(row.id()))
+                    .todayCount(sum(d.sessionsByPoi.get(row.id())))
+                    .todayRevenue(row.restaurantId() != null
+                            ? sum(d.revenueByRestaurant.get(row.restaurantId()))
+                            : 0L)
+                    .build());
+        }
+        return result;
+    }
+
+    @Override
+    public long sessionsToday() {
+        return currentDay().sessions.sum();
+    }
+
+    @Override
+    public long revenueToday() {
+        return currentDay().revenue.sum();
+    }
+
+    // ============= Ghi =============
+
+    @Override
+    public void recordSession(Long poiId) {
+        if (poiId == null) {
+            return;
+        }
+        Day d = currentDay();
+        d.sessionsByPoi.computeIfAbsent(poiId, id -> new LongAdder()).increment();
+        d.sessions.increment();
+    }
+
+    @Override
+    public void recordPaymentSucceeded(Payment payment) {
+        long amount = payment.getAmount() != null ? payment.getAmount() : 0L;
+        Long restaurantId = payment.getRestaurant() != null ? payment.getRestaurant().getId() : null;
+        Instant createdAt = payment.getCreatedAt();
+        TransactionUtil.afterCommit(() -> {
+            Day d = currentDay();
+            // Cùng tiêu chí với sumRevenueToday: payment tạo trong ngày
+            if (amount == 0 || createdAt == null || createdAt.isBefore(d.start)) {
+                return;
+            }
+            d.revenue.add(amount);
+            if (restaurantId != null) {
+                d.revenueByRestaurant.computeIfAbsent(restaurantId, id -> new LongAdder()).add(amount);
+            }
+        });
+    }
+
+    @Override
+    public void invalidatePois() {
+        poiVersion.incrementAndGet();
+    }
+
+    // ============= Private =============
+
+    private Day currentDay() {
+        Day d = day;
+        LocalDate today = LocalDate.now(zone);
+        if (d.date.equals(today)) {
+            return d;
+        }
+        synchronized (this) {
+            if (!day.date.equals(today)) {
+                // Vừa qua 0h thì gần như chưa có gì; nạp lại để bắt cả sự kiện từ instance khác
+                day = loadDay(today);
+            }
+            return day;
+        }
+    }
+
+    private Day loadDay(LocalDate date) {
+        Day d = new Day(date);
+        for (Object[] row : queueSessionRepository.countByPoiSince(d.start)) {
+            long count = ((Number) row[1]).longValue();
+            d.sessionsByPoi.computeIfAbsent((Long) row[0], id -> new LongAdder()).add(count);
+            d.sessions.add(count);
+        }
+        for (Object[] row : paymentRepository.sumRevenueByRestaurantSince(d.start)) {
+            if (row[1] != null) {
+                d.revenueByRestaurant.computeIfAbsent((Long) row[0], id -> new LongAdder())
+                        .add(((Number) row[1]).longValue());
+            }
+        }
+        Long total = paymentRepository.sumRevenueToday(d.start);
+        d.revenue.add(total != null ? total : 0L);
+        return d;
+    }
+
+    private List<PoiRow> poiRows() {
+        long version = poiVersion.get();
+        PoiSnapshot snapshot = pois;
+        if (snapshot != null && snapshot.version() == version) {
+            return snapshot.rows();
+        }
+        // Đọc version trước khi query: invalidate xen giữa → snapshot này mang version cũ, lần đọc sau nạp lại
+        List<PoiRow> rows = new ArrayList<>();
+        for (Object[] r : poiRepository.findCounterRows()) {
+            rows.add(new PoiRow((Long) r[0], (String) r[1], (Long) r[2], (Long) r[3]));
+        }
+        rows = List.copyOf(rows);
+        pois = new PoiSnapshot(version, rows);
+        return rows;
+    }
+
+    private static long sum(LongAdder adder) {
+        return adder != null ? adder.sum() : 0L;
+    }
+
+    private final class Day {
+
+        final LocalDate date;
+        final Instant start;
+        final ConcurrentHashMap<Long, LongAdder> sessionsByPoi = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<Long, LongAdder> revenueByRestaurant = new ConcurrentHashMap<>();
+        final LongAdder sessions = new LongAdder();
+        final LongAdder revenue = new LongAdder();
+
+        Day(LocalDate date) {
+            this.date = date;
+            this.start = date.atStartOfDay(zone).toInstant();
+        }
+    }
+
+    private record PoiRow(Long id, String name, Long ownerUserId, Long restaurantId) {
+    }
+
+    private record PoiSnapshot(long version, List<PoiRow> rows) {
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.demo.service.impl;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.demo.service.DashboardStreamService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fan-out trên 1 luồng {@code dashboard-push}: publish() chỉ xếp hàng nên không làm chậm
+ * startNarration / webhook. Subscriber gửi lỗi (tab đóng, mạng rớt) bị gỡ ngay.
+ */
+@Service
+public class DashboardStreamServiceImpl implements DashboardStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardStreamServiceImpl.class);
+
+    private final ObjectMapper objectMapper;
+    private final long emitterTimeoutMs;
+    private final int maxSubscribers;
+    private final int maxPerUser;
+    private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ThreadPoolExecutor dispatcher;
+
+    public DashboardStreamServiceImpl(
+            ObjectMapper objectMapper,
+            @Value("${app.dashboard-stream.timeout-ms:1800000}") long emitterTimeoutMs,
+            @Value("${app.dashboard-stream.queue-capacity:1000}") int queueCapacity,
+            @Value("${app.dashboard-stream.max-subscribers:200}") int maxSubscribers,
+            @Value("${app.dashboard-stream.max-per-user:5}") int maxPerUser) {
+        this.objectMapper = objectMapper;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.maxSubscribers = Math.max(1, maxSubscribers);
+        this.maxPerUser = Math.max(1, maxPerUser);
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "dashboard-push");
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.DiscardOldestPolicy());
+    }
+
+    @Override
+    public Optional<SseEmitter> subscribe(Long userId, Long ownerScopeUserId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, userId, ownerScopeUserId);
+        // Khóa để 2 kết nối đồng thời không cùng lọt qua giới hạn
+        synchronized (subscribers) {
+            if (subscribers.size() >= maxSubscribers || (userId != null && subscribers.stream()
+                    .filter(s -> userId.equals(s.userId)).count() >= maxPerUser)) {
+                log.warn("Dashboard stream full ({} subscriber(s)), rejecting user {}", subscribers.size(), userId);
+                return Optional.empty();
+            }
+            subscribers.add(subscriber);
+        }
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        try {
+            // Báo client đã kết nối → tải snapshot REST 1 lần rồi chỉ áp delta
+            emitter.send(SseEmitter.event().name("ready").reconnectTime(3000).data("{}"));
+        } catch (IOException e) {
+            subscribers.remove(subscriber);
+            emitter.completeWithError(e);
+        }
+        return Optional.of(emitter);
+    }
+
+    @Override
+    public void publish(DashboardEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        dispatcher.execute(() -> dispatch(event));
+    }
+
+    @Override
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /** Giữ kết nối qua proxy / load balancer (đóng kết nối im lặng quá lâu). */
+    @Scheduled(fixedDelayString = "${app.dashboard-stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        dispatcher.execute(() -> {
+            for (Subscriber s : subscribers) {
+                send(s, SseEmitter.event().comment("ping"));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        for (Subscriber s : subscribers) {
+            s.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    // ============= Private =============
+
+    private void dispatch(DashboardEvent event) {
+        String json;
+        try {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("type", event.type());
+            body.put("at", event.at());
+            body.put("data", event.data());
+            json = objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            log.warn("Dashboard event {} not serializable: {}", event.type(), e.getMessage());
+            return;
+        }
+        String id = Long.toString(sequence.incrementAndGet());
+        for (Subscriber s : subscribers) {
+            if (s.ownerScopeUserId == null
+                    || (event.ownerUserId() != null && s.ownerScopeUserId.equals(event.ownerUserId()))) {
+                send(s, SseEmitter.event().id(id).name(event.type()).data(json));
+            }
+        }
+    }
+
+    private void send(Subscriber s, SseEmitter.SseEventBuilder event) {
+        try {
+            s.emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(s);
+            try {
+                s.emitter.complete();
+            } catch (Exception ignored) {
+                // đã đóng
+            }
+        }
+    }
+
+    private static final class Subscriber {
+
+        final SseEmitter emitter;
+        final Long userId;
+        final Long ownerScopeUserId;
+
+        Subscriber(SseEmitter emitter, Long userId, Long ownerScopeUserId) {
+            this.emitter = emitter;
+            this.userId = userId;
+            this.ownerScopeUserId = ownerScopeUserId;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.demo.service.impl;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.repository.DeviceConfigRepository;
+import com.example.demo.service.DeviceHeartbeatService;
+import com.example.demo.service.VisitSessionTracker;
+import com.example.demo.util.JdbcBatchUtil;
+import com.example.demo.util.error.IdInvalidException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bảng thiết bị trong RAM ({@code deviceId → vị trí mới nhất}), chỉ sửa trong {@code compute} của map.
+ * {@link #flush()} chạy mỗi {@code flush-check-ms}, gom các thiết bị có vị trí mới và đã quá
+ * {@code flush-interval-seconds} kể từ lần ghi trước, rồi ghi bằng 1 JDBC batch UPDATE.
+ * UPDATE chỉ áp dụng khi {@code last_seen_at} trong DB cũ hơn — không đè vị trí mới hơn do sync / quét QR ghi.
+ * Thiết bị im lặng quá {@code idle-evict-seconds} bị gỡ khỏi bảng (sau khi đã ghi).
+ * <p>
+ * Metrics: {@code device.heartbeat.fixes}, {@code device.heartbeat.rejected}, {@code device.heartbeat.flushed},
+ * {@code device.heartbeat.tracked}.
+ */
+@Service
+public class DeviceHeartbeatServiceImpl implements DeviceHeartbeatService {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceHeartbeatServiceImpl.class);
+
+    private static final String UPDATE_SQL = "UPDATE device_configs SET last_lat = ?, last_lng = ?, "
+            + "last_seen_at = ?, updated_at = ? WHERE device_id = ? AND (last_seen_at IS NULL OR last_seen_at < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DeviceConfigRepository deviceConfigRepository;
+    private final VisitSessionTracker visitSessionTracker;
+    private final Duration flushInterval;
+    private final Duration idleEvict;
+    private final double maxAccuracyMeters;
+    private final int batchSize;
+
+    private final ConcurrentHashMap<String, DeviceState> devices = new ConcurrentHashMap<>();
+
+    private final Counter fixesCounter;
+    private final Counter rejectedCounter;
+    private final Counter flushedCounter;
+
+    public DeviceHeartbeatServiceImpl(
+            JdbcTemplate jdbcTemplate,
+            DeviceConfigRepository deviceConfigRepository,
+            VisitSessionTracker visitSessionTracker,
+            MeterRegistry meterRegistry,
+            @Value("${app.heartbeat.flush-interval-seconds:30}") long flushIntervalSeconds,
+            @Value("${app.heartbeat.idle-evict-seconds:900}") long idleEvictSeconds,
+            @Value("${app.heartbeat.max-accuracy-meters:100}") double maxAccuracyMeters,
+            @Value("${app.heartbeat.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.deviceConfigRepository = deviceConfigRepository;
+        this.visitSessionTracker = visitSessionTracker;
+        this.flushInterval = Duration.ofSeconds(Math.max(1, flushIntervalSeconds));
+        this.idleEvict = Duration.ofSeconds(Math.max(flushIntervalSeconds, idleEvictSeconds));
+        this.maxAccuracyMeters = maxAccuracyMeters;
+        this.batchSize = Math.max(1, batchSize);
+
+        Gauge.builder("device.heartbeat.tracked", devices, ConcurrentHashMap::size).register(meterRegistry);
+        this.fixesCounter = Counter.builder("device.heartbeat.fixes").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("device.heartbeat.rejected").register(meterRegistry);
+        this.flushedCounter = Counter.builder("device.heartbeat.flushed").register(meterRegistry);
+    }
+
+    @Override
+    public int accept(String deviceId, List<Fix> fixes) throws IdInvalidException {
+        // Chỉ tra DB lần đầu thấy thiết bị (hoặc sau khi bị gỡ vì im lặng)
+        if (!devices.containsKey(deviceId) && !deviceConfigRepository.existsByDeviceId(deviceId)) {
+            throw new IdInvalidException("Thiết bị chưa đăng ký: " + deviceId);
+        }
+        Instant now = Instant.now();
+        List<Fix> sorted = new ArrayList<>(fixes.size());
+        for (Fix f : fixes) {
+            if (!validCoordinates(f.lat(), f.lng())) {
+                rejectedCounter.increment();
+                continue;
+            }
+            // Đồng hồ thiết bị chạy nhanh → không nhận thời điểm trong tương lai
+            sorted.add(f.at().isAfter(now) ? new Fix(f.lat(), f.lng(), f.accuracyMeters(), now) : f);
+        }
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        sorted.sort(Comparator.comparing(Fix::at));
+
+        List<Fix> accepted = new ArrayList<>(sorted.size());
+        devices.compute(deviceId, (id, state) -> {
+            DeviceState s = state != null ? state : new DeviceState();
+            for (Fix f : sorted) {
+                if (s.fixAt != null && !f.at().isAfter(s.fixAt)) {
+                    continue;
+                }
+                s.lat = f.lat();
+                s.lng = f.lng();
+                s.fixAt = f.at();
+                s.dirty = true;
+                accepted.add(f);
+            }
+            return s;
+        });
+        fixesCounter.increment(accepted.size());
+        rejectedCounter.increment(sorted.size() - accepted.size());
+
+        for (Fix f : accepted) {
+            // Điểm GPS sai số lớn vẫn cập nhật vị trí, nhưng không dùng để xét vào / ra vùng POI
+            if (f.accuracyMeters() == null || f.accuracyMeters() <= maxAccuracyMeters) {
+                visitSessionTracker.onLocation(deviceId, f.lat(), f.lng(), f.at());
+            }
+        }
+        return accepted.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.heartbeat.flush-check-ms:1000}", initialDelay = 5_000)
+    public void flush() {
+        flush(false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush(true);
+    }
+
+    // ============= Private =============
+
+    private void flush(boolean all) {
+        Instant now = Instant.now();
+        List<Row> rows = new ArrayList<>();
+        for (String deviceId : devices.keySet()) {
+            devices.computeIfPresent(deviceId, (id, s) -> {
+                if (s.dirty && (all || !now.isBefore(s.flushedAt.plus(flushInterval)))) {
+                    rows.add(new Row(id, s.lat, s.lng, s.fixAt));
+                    s.dirty = false;
+                    s.flushedAt = now;
+                    return s;
+                }
+                // Đã ghi xong và im lặng lâu → gỡ khỏi bảng
+                return !s.dirty && s.fixAt.plus(idleEvict).isBefore(now) ? null : s;
+            });
+        }
+        for (int i = 0; i < rows.size(); i += batchSize) {
+            write(rows.subList(i, Math.min(rows.size(), i + batchSize)), now);
+        }
+    }
+
+    private void write(List<Row> rows, Instant now) {
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, rows, rows.size(), (ps, r) -> {
+                Calendar utc = JdbcBatchUtil.utcCalendar();
+                Timestamp seenAt = Timestamp.from(r.fixAt());
+                ps.setDouble(1, r.lat());
+                ps.setDouble(2, r.lng());
+                ps.setTimestamp(3, seenAt, utc);
+                ps.setTimestamp(4, Timestamp.from(now), utc);
+                ps.setString(5, r.deviceId());
+                ps.setTimestamp(6, seenAt, utc);
+            });
+            flushedCounter.increment(rows.size());
+        } catch (Exception e) {
+            // Vị trí trong RAM vẫn đúng; lần heartbeat kế tiếp sẽ đánh dấu ghi lại
+            log.warn("Heartbeat flush of {} devices failed: {}", rows.size(), e.getMessage());
+        }
+    }
+
+    private static boolean validCoordinates(double lat, double lng) {
+        return lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180 && !(lat == 0 && lng == 0);
+    }
+
+    private static final class DeviceState {
+
+        double lat;
+        double lng;
+        Instant fixAt;
+        boolean dirty;
+        Instant flushedAt = Instant.EPOCH;
+    }
+
+    private record Row(String deviceId, double lat, double lng, Instant fixAt) {
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.demo.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.service.GeofenceDecisionLog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Luồng {@code geofence-log} lấy quyết định từ hàng đợi có giới hạn, ghi vào ring buffer
+ * và logger {@code geofence.decision} (1 dòng key=value / quyết định; tắt bằng
+ * {@code logging.level.geofence.decision=OFF}). Request thread chỉ {@code offer} — đầy thì bỏ.
+ */
+@Service
+public class GeofenceDecisionLogImpl implements GeofenceDecisionLog {
+
+    private static final Logger log = LoggerFactory.getLogger(GeofenceDecisionLogImpl.class);
+    private static final Logger decisionLog = LoggerFactory.getLogger("geofence.decision");
+
+    private final BlockingQueue<Decision> queue;
+    /** Chỉ luồng appender ghi; đọc / ghi đều khóa trên chính mảng. */
+    private final Decision[] ring;
+    private int next;
+    private volatile SamplingRules rules;
+
+    private final Thread appender;
+    private volatile boolean running = true;
+
+    private final Counter sampledCounter;
+    private final Counter droppedCounter;
+
+    public GeofenceDecisionLogImpl(
+            MeterRegistry meterRegistry,
+            @Value("${app.geofence-log.buffer-size:1000}") int bufferSize,
+            @Value("${app.geofence-log.queue-capacity:1000}") int queueCapacity,
+            @Value("${app.geofence-log.sample-rate:0.01}") double sampleRate,
+            @Value("${app.geofence-log.device-ids:}") String deviceIds,
+            @Value("${app.geofence-log.poi-ids:}") String poiIds) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.ring = new Decision[Math.max(1, bufferSize)];
+        this.rules = new SamplingRules(sampleRate, csv(deviceIds),
+                csv(poiIds).stream().map(Long::valueOf).collect(Collectors.toSet()));
+        this.sampledCounter = Counter.builder("geofence.decision.sampled").register(meterRegistry);
+        this.droppedCounter = Counter.builder("geofence.decision.dropped").register(meterRegistry);
+
+        this.appender = new Thread(this::runAppender, "geofence-log");
+        this.appender.setDaemon(true);
+        this.appender.start();
+    }
+
+    @Override
+    public boolean shouldSample(String deviceId, Long poiId) {
+        SamplingRules r = rules;
+        if (deviceId != null && r.deviceIds().contains(deviceId)) {
+            return true;
+        }
+        if (poiId != null && r.poiIds().contains(poiId)) {
+            return true;
+        }
+        double rate = r.defaultRate();
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    @Override
+    public void record(Decision decision) {
+        if (running && queue.offer(decision)) {
+            sampledCounter.increment();
+        } else {
+            droppedCounter.increment();
+        }
+    }
+
+    @Override
+    public List<Decision> recent(int limit, String deviceId, Long poiId, Long ownerUserId) {
+        int max = limit > 0 ? Math.min(limit, ring.length) : DEFAULT_QUERY_LIMIT;
+        List<Decision> result = new ArrayList<>(Math.min(max, 64));
+        synchronized (ring) {
+            for (int i = 1; i <= ring.length && result.size() < max; i++) {
+                Decision d = ring[Math.floorMod(next - i, ring.length)];
+                if (d == null) {
+                    break;
+                }
+                if ((deviceId == null || deviceId.equals(d.deviceId()))
+                        && (poiId == null || poiId.equals(d.requestedPoiId()) || poiId.equals(d.winnerPoiId()))
+                        && (ownerUserId == null || ownerUserId.equals(d.ownerUserId()))) {
+                    result.add(d);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public SamplingRules getSamplingRules() {
+        return rules;
+    }
+
+    @Override
+    public void setSamplingRules(SamplingRules rules) {
+        this.rules = Objects.requireNonNull(rules);
+        log.info("Geofence sampling rules: rate={} devices={} pois={}",
+                rules.defaultRate(), rules.deviceIds(), rules.poiIds());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            appender.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ============= Private =============
+
+    private void runAppender() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Decision d = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (d != null) {
+                    append(d);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Geofence decision append failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void append(Decision d) {
+        synchronized (ring) {
+            ring[next] = d;
+            next = (next + 1) % ring.length;
+        }
+        if (decisionLog.isInfoEnabled()) {
+            decisionLog.info(format(d));
+        }
+    }
+
+    private static String format(Decision d) {
+        StringBuilder sb = new StringBuilder(128 + d.candidates().size() * 32);
+        sb.append("device=").append(d.deviceId())
+                .append(String.format(Locale.US, " lat=%.6f lng=%.6f", d.latitude(), d.longitude()))
+                .append(" requested=").append(d.requestedPoiId())
+                .append(" winner=").append(d.winnerPoiId())
+                .append(" match=").append(d.isRequestedWinner())
+                .append(" audio=").append(d.audioId())
+                .append(" lang=").append(d.languageCode())
+                .append(" candidates=[");
+        for (int i = 0; i < d.candidates().size(); i++) {
+            Candidate c = d.candidates().get(i);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(c.poiId()).append(':')
+                    .append(String.format(Locale.US, "%.1f/%.1fm p%d", c.distanceMeters(), c.radiusMeters(),
+                            c.priority()));
+        }
+        return sb.append(']').toString();
+    }
+
+    private static Set<String> csv(String value) {
+        if (value == null || value.isBlank()) {
+            return Set.of();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toSet());
+    }
+}
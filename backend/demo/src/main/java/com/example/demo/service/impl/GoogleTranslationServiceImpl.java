@@ -1,118 +1,156 @@
 package com.example.demo.service.impl;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.example.demo.config.GoogleCloudClients;
 import com.example.demo.domain.dto.SupportedLanguage;
 import com.example.demo.service.TranslationService;
-import com.google.auth.oauth2.GoogleCredentials;
-import com.google.auth.oauth2.ServiceAccountCredentials;
 import com.google.cloud.translate.v3.TranslateTextRequest;
 import com.google.cloud.translate.v3.TranslateTextResponse;
-import com.google.cloud.translate.v3.TranslationServiceClient;
-import com.google.cloud.translate.v3.TranslationServiceSettings;
-import java.util.Arrays;
 
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Gọi Google Cloud Translation v3. Mỗi request gửi nhiều đoạn (giới hạn số đoạn + số ký tự);
+ * các lời {@link #translate} đồng thời cùng ngôn ngữ đích được gom lại trong cửa sổ ngắn.
+ */
 @Service
 public class GoogleTranslationServiceImpl implements TranslationService {
 
+    private static final Logger log = LoggerFactory.getLogger(GoogleTranslationServiceImpl.class);
+
+    /** Google khuyến nghị ≤ 30k code point / request; để dư cho an toàn. */
+    private static final int MAX_CHARS_PER_REQUEST = 25_000;
+
     @Value("${google.cloud.project-id:}")
     private String projectId;
 
-    @Value("${google.cloud.credentials.json:}")
-    private String credentialsJson;
+    private final GoogleCloudClients googleCloudClients;
+    private final int maxSegmentsPerRequest;
+    private final ScheduledExecutorService scheduler;
+    private final TranslationCoalescer coalescer;
+
+    public GoogleTranslationServiceImpl(
+            GoogleCloudClients googleCloudClients,
+            @Value("${app.translate.max-segments-per-request:128}") int maxSegmentsPerRequest,
+            @Value("${app.translate.coalesce-window-ms:25}") long coalesceWindowMs,
+            @Value("${app.translate.coalesce-threads:4}") int coalesceThreads) {
+        this.googleCloudClients = googleCloudClients;
+        this.maxSegmentsPerRequest = Math.max(1, maxSegmentsPerRequest);
+        AtomicInteger seq = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(Math.max(1, coalesceThreads), r -> {
+            Thread t = new Thread(r, "translate-batch-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.coalescer = new TranslationCoalescer(this::translateBatch, scheduler,
+                Math.max(0, coalesceWindowMs), this.maxSegmentsPerRequest);
+    }
 
-    @Value("${google.cloud.credentials.path:}")
-    private String credentialsPath;
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
 
-    private GoogleCredentials getCredentials() throws IOException {
-        System.out.println("🔍 [Translate] GCP Config - projectId: " + projectId + ", credentialsPath: " + credentialsPath + ", hasJson: " + (credentialsJson != null && !credentialsJson.isBlank()));
-        // Ưu tiên: JSON string trong env var
-        if (credentialsJson != null && !credentialsJson.isBlank()) {
-            InputStream credentialsStream = new ByteArrayInputStream(
-                    credentialsJson.getBytes(StandardCharsets.UTF_8));
-            ServiceAccountCredentials sac = ServiceAccountCredentials.fromStream(credentialsStream);
-            return sac.toBuilder().setScopes(Arrays.asList("https://www.googleapis.com/auth/cloud-platform")).build();
+    @Override
+    public String translate(String text, String targetLang) {
+        if (text == null || text.isBlank()) {
+            return text;
         }
-        // Ưu tiên 2: File path
-        if (credentialsPath != null && !credentialsPath.isBlank()) {
-            java.io.File f = new java.io.File(credentialsPath);
-            System.out.println("🔍 [Translate] Credentials file exists: " + f.exists() + ", absPath: " + f.getAbsolutePath());
-            ServiceAccountCredentials sac = ServiceAccountCredentials.fromStream(new java.io.FileInputStream(credentialsPath));
-            return sac.toBuilder().setScopes(Arrays.asList("https://www.googleapis.com/auth/cloud-platform")).build();
+        if (SupportedLanguage.VI.equals(targetLang)) {
+            return text;
         }
-        // Fallback: Application Default Credentials
-        System.out.println("⚠️ [Translate] Using Application Default Credentials (no explicit credentials found)");
-        return GoogleCredentials.getApplicationDefault();
-    }
-
-    private TranslationServiceClient createClient() throws IOException {
-        TranslationServiceSettings.Builder builder = TranslationServiceSettings.newBuilder();
-
-        GoogleCredentials credentials = getCredentials();
-        // Force refresh credentials to get valid access token
         try {
-            credentials.refresh();
-            if (credentials.getAccessToken() != null) {
-                System.out.println("🔍 [Translate] Credentials OK, accessToken: " + credentials.getAccessToken().getTokenValue().substring(0, 20) + "...");
-            } else {
-                System.out.println("⚠️ [Translate] Credentials refreshed but accessToken is NULL");
+            return coalescer.submit(text, targetLang).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException re) {
+                throw re;
             }
-        } catch (Exception ex) {
-            System.err.println("❌ [Translate] Credentials refresh FAILED: " + ex.getClass().getName() + " - " + ex.getMessage());
-            ex.printStackTrace();
+            throw new RuntimeException("Translation failed: " + cause.getMessage(), cause);
         }
-        builder.setCredentialsProvider(() -> credentials);
-
-        return TranslationServiceClient.create(builder.build());
     }
 
     @Override
-    public String translate(String text, String targetLang) {
-        if (text == null || text.isBlank()) {
-            return text;
+    public List<String> translateBatch(List<String> texts, String targetLang) {
+        if (texts == null || texts.isEmpty()) {
+            return List.of();
         }
         if (SupportedLanguage.VI.equals(targetLang)) {
-            return text;
+            return new ArrayList<>(texts);
         }
-        try (TranslationServiceClient client = createClient()) {
-            String parent = String.format("projects/%s/locations/global", projectId);
-
-            System.out.println("🔍 [Translate] Calling API - parent: " + parent + ", text: '" + text + "', target: " + targetLang);
-
-            TranslateTextRequest request = TranslateTextRequest.newBuilder()
-                    .setParent(parent)
-                    .addContents(text)
-                    .setSourceLanguageCode(SupportedLanguage.VI)
-                    .setTargetLanguageCode(targetLang)
-                    .build();
-
-            TranslateTextResponse response = client.translateText(request);
-            System.out.println("🔍 [Translate] Full response: " + response.toString());
-            if (response.getTranslationsCount() == 0) {
-                System.out.println("❌ [Translate] Empty response - check API enablement and IAM permissions");
-                throw new RuntimeException("Translation returned empty response");
+
+        // Bỏ đoạn rỗng + trùng; chỉ gửi mỗi text 1 lần
+        Map<String, String> translated = new LinkedHashMap<>();
+        for (String t : texts) {
+            if (t != null && !t.isBlank()) {
+                translated.putIfAbsent(t, null);
             }
-            return response.getTranslations(0).getTranslatedText();
-        } catch (Throwable e) {
-            System.err.println("❌ [Translate] " + e.getClass().getName() + ": " + e.getMessage());
-            Throwable cause = e.getCause();
-            if (cause != null) {
-                System.err.println("   Cause: " + cause.getClass().getName() + ": " + cause.getMessage());
-                if (cause.getCause() != null) {
-                    System.err.println("   RootCause: " + cause.getCause().getClass().getName() + ": " + cause.getCause().getMessage());
-                }
+        }
+
+        List<String> chunk = new ArrayList<>();
+        int chunkChars = 0;
+        for (String t : translated.keySet()) {
+            if (!chunk.isEmpty() && (chunk.size() >= maxSegmentsPerRequest
+                    || chunkChars + t.length() > MAX_CHARS_PER_REQUEST)) {
+                callApi(chunk, targetLang, translated);
+                chunk = new ArrayList<>();
+                chunkChars = 0;
             }
-            e.printStackTrace();
+            chunk.add(t);
+            chunkChars += t.length();
+        }
+        if (!chunk.isEmpty()) {
+            callApi(chunk, targetLang, translated);
+        }
+
+        List<String> results = new ArrayList<>(texts.size());
+        for (String t : texts) {
+            results.add(t == null || t.isBlank() ? t : translated.get(t));
+        }
+        return results;
+    }
+
+    private void callApi(List<String> chunk, String targetLang, Map<String, String> out) {
+        TranslateTextRequest request = TranslateTextRequest.newBuilder()
+                .setParent(String.format("projects/%s/locations/global", projectId))
+                .addAllContents(chunk)
+                .setMimeType("text/plain")
+                .setSourceLanguageCode(SupportedLanguage.VI)
+                .setTargetLanguageCode(targetLang)
+                .build();
+
+        TranslateTextResponse response;
+        try {
+            response = googleCloudClients.timed("translate",
+                    () -> googleCloudClients.translation().translateText(request));
+        } catch (Throwable e) {
+            log.error("[Translate] Gọi API sang {} thất bại ({} đoạn)", targetLang, chunk.size(), e);
             throw new RuntimeException("Translation failed: " + e.getMessage(), e);
         }
+        if (response.getTranslationsCount() != chunk.size()) {
+            RuntimeException e = new RuntimeException("Translation returned " + response.getTranslationsCount()
+                    + " of " + chunk.size() + " segments - check API enablement and IAM permissions");
+            log.error("[Translate] Kết quả sang {} thiếu đoạn", targetLang, e);
+            throw e;
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            out.put(chunk.get(i), response.getTranslations(i).getTranslatedText());
+        }
     }
 
     @Override
@@ -121,19 +159,23 @@ public class GoogleTranslationServiceImpl implements TranslationService {
             return new HashMap<>();
         }
 
+        // Mỗi ngôn ngữ đích là 1 request riêng (API chỉ nhận 1 target / request) → gửi song song qua coalescer
+        Map<String, CompletableFuture<String>> futures = new LinkedHashMap<>();
+        for (String lang : SupportedLanguage.ALL) {
+            if (!SupportedLanguage.VI.equals(lang)) {
+                futures.put(lang, coalescer.submit(text, lang));
+            }
+        }
         Map<String, String> results = new HashMap<>();
-        // Gọi tuần tự cho từng ngôn ngữ
-        String[] targetLangs = { SupportedLanguage.EN, SupportedLanguage.ZH,
-                SupportedLanguage.JA, SupportedLanguage.KO, SupportedLanguage.FR };
-
-        for (String lang : targetLangs) {
+        futures.forEach((lang, f) -> {
             try {
-                results.put(lang, translate(text, lang));
+                results.put(lang, f.join());
             } catch (Exception e) {
-                System.err.println("⚠️  Dịch thất bại sang " + lang + ": " + e.getMessage());
+                // Stack trace đã được log 1 lần ở callApi
+                log.warn("Dịch thất bại sang {}: {}", lang, e.getMessage());
                 results.put(lang, "");
             }
-        }
+        });
         return results;
     }
 }
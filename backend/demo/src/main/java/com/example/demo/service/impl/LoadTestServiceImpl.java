@@ -0,0 +1,569 @@
+package com.example.demo.service.impl;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sql.DataSource;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.domain.DeviceConfig.NetworkType;
+import com.example.demo.domain.request.app.ReqNarrationLogDTO;
+import com.example.demo.domain.response.admin.ResLoadTestResultDTO;
+import com.example.demo.domain.response.admin.ResLoadTestResultDTO.PhaseLatency;
+import com.example.demo.domain.response.app.ResPOIDTO;
+import com.example.demo.service.AppClientService;
+import com.example.demo.service.DashboardCounterService;
+import com.example.demo.service.LoadTestService;
+import com.example.demo.service.NarrationLogIngestor;
+import com.example.demo.service.NarrationRollupService;
+import com.example.demo.service.VisitSessionTracker;
+import com.example.demo.util.error.IdInvalidException;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Mỗi job đăng ký sẵn {@code concurrentUsers} thiết bị {@code load-test-...}; mỗi lượt (1 lần ghé POI) gọi
+ * poi-fetch → narration-start → narration-log → narration-end → device-sync trên {@link AppClientService} thật.
+ * <p>
+ * Closed-loop: {@code concurrentUsers} user ảo lặp lượt + nghỉ 100–600ms.
+ * Open-loop: luồng dispatcher phát lượt theo lịch cố định {@code arrivalRatePerSecond}; phase đầu đo từ
+ * thời điểm lẽ ra bắt đầu nên thời gian xếp hàng khi server không theo kịp vẫn hiện trong p99.
+ * Latency ghi vào HdrHistogram (micro giây) theo phase; Hikari pool được lấy mẫu mỗi 100ms.
+ * <p>
+ * Dữ liệu ghi ra là thật (device_configs, active_narrations, narration_logs, queue_sessions) với deviceId tiền tố
+ * {@code load-test-}; chạy xong (kể cả lỗi) bị xóa hết, rollup lượt nghe và bộ đếm dashboard được tính lại
+ * để thống kê thật không lẫn dữ liệu giả. Sự kiện SSE đã phát trong lúc chạy thì không thu hồi được.
+ */
+@Service
+public class LoadTestServiceImpl implements LoadTestService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestServiceImpl.class);
+
+    private static final List<String> PHASES =
+            List.of("poi-fetch", "narration-start", "narration-log", "narration-end", "device-sync");
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+    /** Giống mặc định của {@code GET /app/pois/nearby}. */
+    private static final double NEARBY_RADIUS_KM = 2.0;
+    private static final long POOL_SAMPLE_INTERVAL_MS = 100;
+    private static final long DRAIN_TIMEOUT_SECONDS = 30;
+    private static final double METERS_PER_DEGREE = 111_320.0;
+    private static final List<String> DEVICE_TABLES =
+            List.of("narration_logs", "active_narrations", "queue_sessions", "device_configs");
+
+    private final AppClientService appClientService;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final NarrationLogIngestor narrationLogIngestor;
+    private final VisitSessionTracker visitSessionTracker;
+    private final NarrationRollupService narrationRollupService;
+    private final DashboardCounterService dashboardCounterService;
+    private final long cleanupDelayMs;
+    private final int maxUsers;
+    private final int maxDurationSeconds;
+    private final double maxArrivalRate;
+    private final int maxBacklog;
+
+    private final ExecutorService runner;
+    private final ScheduledExecutorService sampler;
+    /** Kết quả các job gần nhất (cũ nhất bị bỏ). */
+    private final Map<String, Job> jobs;
+    private final AtomicReference<Job> current = new AtomicReference<>();
+
+    public LoadTestServiceImpl(
+            AppClientService appClientService,
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate,
+            NarrationLogIngestor narrationLogIngestor,
+            VisitSessionTracker visitSessionTracker,
+            NarrationRollupService narrationRollupService,
+            DashboardCounterService dashboardCounterService,
+            @Value("${app.load-test.cleanup-delay-ms:3000}") long cleanupDelayMs,
+            @Value("${app.load-test.max-users:500}") int maxUsers,
+            @Value("${app.load-test.max-duration-seconds:600}") int maxDurationSeconds,
+            @Value("${app.load-test.max-arrival-rate:2000}") double maxArrivalRate,
+            @Value("${app.load-test.max-backlog:10000}") int maxBacklog,
+            @Value("${app.load-test.keep-results:20}") int keepResults) {
+        this.appClientService = appClientService;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.narrationLogIngestor = narrationLogIngestor;
+        this.visitSessionTracker = visitSessionTracker;
+        this.narrationRollupService = narrationRollupService;
+        this.dashboardCounterService = dashboardCounterService;
+        this.cleanupDelayMs = Math.max(0, cleanupDelayMs);
+        this.maxUsers = Math.max(1, maxUsers);
+        this.maxDurationSeconds = Math.max(1, maxDurationSeconds);
+        this.maxArrivalRate = maxArrivalRate;
+        this.maxBacklog = Math.max(1, maxBacklog);
+        this.runner = Executors.newSingleThreadExecutor(daemonThreads("load-test-runner"));
+        this.sampler = Executors.newSingleThreadScheduledExecutor(daemonThreads("load-test-sampler"));
+        int keep = Math.max(1, keepResults);
+        this.jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Job> eldest) {
+                return size() > keep;
+            }
+        });
+    }
+
+    @Override
+    public ResLoadTestResultDTO start(LoadTestPlan plan) throws IdInvalidException {
+        validate(plan);
+        List<Target> targets = loadTargets(plan.poiCount());
+        if (targets.isEmpty()) {
+            throw new IdInvalidException("Không có POI có tọa độ để chạy load test");
+        }
+
+        Job job = new Job("load-test-" + System.currentTimeMillis(), plan, targets);
+        Job running = current.get();
+        if (running != null || !current.compareAndSet(null, job)) {
+            throw new IdInvalidException("Đang có load test chạy: "
+                    + (running != null ? running.testId : "khác"));
+        }
+        jobs.put(job.testId, job);
+        try {
+            runner.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            job.finish("FAILED");
+            current.compareAndSet(job, null);
+            throw new IdInvalidException("Không khởi chạy được load test");
+        }
+        return job.toResult();
+    }
+
+    @Override
+    public Optional<ResLoadTestResultDTO> get(String testId) {
+        return Optional.ofNullable(jobs.get(testId)).map(Job::toResult);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+        sampler.shutdownNow();
+    }
+
+    // ============= Job =============
+
+    private void run(Job job) {
+        ScheduledFuture<?> sampling = null;
+        try {
+            registerDevices(job);
+            sampling = sampler.scheduleAtFixedRate(job::samplePool, 0, POOL_SAMPLE_INTERVAL_MS,
+                    TimeUnit.MILLISECONDS);
+            if (job.plan.arrivalRatePerSecond() != null) {
+                runOpenLoop(job);
+            } else {
+                runClosedLoop(job);
+            }
+            job.finish("COMPLETED");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish("FAILED");
+        } catch (RuntimeException e) {
+            log.warn("Load test {} failed", job.testId, e);
+            job.finish("FAILED");
+        } finally {
+            if (sampling != null) {
+                sampling.cancel(false);
+            }
+            // Dọn trước khi nhả "current" → job sau không chạy chồng lên lúc đang xóa
+            cleanUp(job);
+            current.compareAndSet(job, null);
+            log.info("Load test {} {}: {} requests, {} failed", job.testId, job.status,
+                    job.overall.getTotalCount(), job.failedCount());
+        }
+    }
+
+    private void runClosedLoop(Job job) throws InterruptedException {
+        int users = job.plan.concurrentUsers();
+        ExecutorService workers = Executors.newFixedThreadPool(users, daemonThreads("load-test-user"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(job.plan.durationSeconds());
+        try {
+            for (String deviceId : job.deviceIds) {
+                workers.execute(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                        visit(job, deviceId, System.nanoTime());
+                        try {
+                            Thread.sleep(random.nextInt(100, 600));
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            }
+        } finally {
+            awaitWorkers(workers, job.plan.durationSeconds());
+        }
+    }
+
+    private void runOpenLoop(Job job) throws InterruptedException {
+        int threads = job.plan.concurrentUsers();
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(maxBacklog), daemonThreads("load-test-worker"),
+                new ThreadPoolExecutor.AbortPolicy());
+        long intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / job.plan.arrivalRatePerSecond()));
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(job.plan.durationSeconds());
+        try {
+            for (long n = 0;; n++) {
+                long intended = start + n * intervalNanos;
+                if (intended - deadline >= 0) {
+                    break;
+                }
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+                String deviceId = job.deviceIds.get((int) (n % job.deviceIds.size()));
+                try {
+                    workers.execute(() -> visit(job, deviceId, intended));
+                } catch (RejectedExecutionException e) {
+                    job.dropped.increment();
+                }
+            }
+        } finally {
+            awaitWorkers(workers, 0);
+        }
+    }
+
+    /**
+     * 1 lượt ghé POI. Phase đầu đo từ {@code scheduledAtNanos} (open-loop: thời điểm lẽ ra bắt đầu).
+     */
+    private void visit(Job job, String deviceId, long scheduledAtNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Target target = job.targets.get(random.nextInt(job.targets.size()));
+        double distance = Math.sqrt(random.nextDouble()) * job.plan.triggerRadiusMeters();
+        double bearing = random.nextDouble(2 * Math.PI);
+        double lat = target.latitude() + distance * Math.cos(bearing) / METERS_PER_DEGREE;
+        double lng = target.longitude() + distance * Math.sin(bearing)
+                / (METERS_PER_DEGREE * Math.cos(Math.toRadians(target.latitude())));
+
+        job.measure("poi-fetch", scheduledAtNanos,
+                () -> appClientService.getNearbyPOIs(lat, lng, NEARBY_RADIUS_KM));
+
+        if (!target.audios().isEmpty()) {
+            Audio audio = target.audios().get(random.nextInt(target.audios().size()));
+            long playedAt = System.currentTimeMillis();
+            job.measure("narration-start", System.nanoTime(),
+                    () -> appClientService.startNarration(deviceId, target.poiId(), audio.audioId(),
+                            audio.languageCode(), lat, lng));
+            job.measure("narration-log", System.nanoTime(), () -> {
+                ReqNarrationLogDTO req = new ReqNarrationLogDTO();
+                req.setDeviceId(deviceId);
+                req.setTtsAudioId(audio.audioId());
+                req.setPlayedAt(playedAt);
+                req.setDurationSeconds(random.nextInt(5, 60));
+                req.setStatus("COMPLETED");
+                appClientService.logNarration(req);
+            });
+            job.measure("narration-end", System.nanoTime(),
+                    () -> appClientService.endCurrentPlayingForDevice(deviceId, "COMPLETED"));
+        }
+
+        job.measure("device-sync", System.nanoTime(),
+                () -> appClientService.syncDevice(deviceId, lat, lng, null, null));
+    }
+
+    /**
+     * Xóa dữ liệu của các thiết bị {@code <testId>-device-*}. Chờ narration log (write-behind) và ghi
+     * active_narrations (luồng nền) xong trước, bỏ phiên ghé thăm còn trong RAM, rồi tính lại rollup các giờ
+     * của lần chạy và bộ đếm dashboard.
+     */
+    private void cleanUp(Job job) {
+        String prefix = job.testId + "-device-";
+        try {
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(DRAIN_TIMEOUT_SECONDS);
+            while (narrationLogIngestor.queueDepth() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            // Batch flusher đã lấy khỏi hàng đợi nhưng chưa commit
+            Thread.sleep(cleanupDelayMs);
+
+            visitSessionTracker.discardDevices(prefix);
+            Map<String, Integer> deleted = new LinkedHashMap<>();
+            for (String table : DEVICE_TABLES) {
+                deleted.put(table, jdbcTemplate.update("DELETE FROM " + table + " WHERE device_id LIKE ?",
+                        prefix + "%"));
+            }
+
+            Instant end = Instant.now();
+            for (Instant t = job.startedAt; t.isBefore(end); t = t.plus(1, ChronoUnit.HOURS)) {
+                narrationRollupService.markDirty(t);
+            }
+            narrationRollupService.markDirty(end);
+            dashboardCounterService.reconcile();
+            log.info("Load test {} data removed: {}", job.testId, deleted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Load test {} cleanup interrupted; rows with device prefix {} remain", job.testId, prefix);
+        } catch (RuntimeException e) {
+            log.warn("Load test {} cleanup failed (device prefix {}): {}", job.testId, prefix, e.getMessage());
+        }
+    }
+
+    // ============= Private =============
+
+    private void validate(LoadTestPlan plan) throws IdInvalidException {
+        if (plan.concurrentUsers() < 1 || plan.concurrentUsers() > maxUsers) {
+            throw new IdInvalidException("concurrentUsers phải trong khoảng 1.." + maxUsers);
+        }
+        if (plan.durationSeconds() < 1 || plan.durationSeconds() > maxDurationSeconds) {
+            throw new IdInvalidException("durationSeconds phải trong khoảng 1.." + maxDurationSeconds);
+        }
+        if (plan.triggerRadiusMeters() < 0) {
+            throw new IdInvalidException("triggerRadiusMeters không hợp lệ");
+        }
+        Double rate = plan.arrivalRatePerSecond();
+        if (rate != null && (!(rate > 0) || rate > maxArrivalRate)) {
+            throw new IdInvalidException("arrivalRatePerSecond phải trong khoảng (0, " + maxArrivalRate + "]");
+        }
+    }
+
+    private List<Target> loadTargets(Integer poiCount) throws IdInvalidException {
+        List<ResPOIDTO> pois = appClientService.getAllPOIs();
+        List<Target> targets = new ArrayList<>();
+        for (ResPOIDTO poi : pois) {
+            if (poiCount != null && poiCount > 0 && targets.size() >= poiCount) {
+                break;
+            }
+            if (poi.getLatitude() == null || poi.getLongitude() == null) {
+                continue;
+            }
+            List<Audio> audios = new ArrayList<>();
+            if (poi.getAudios() != null) {
+                poi.getAudios().values().stream()
+                        .filter(a -> a.getAudioId() != null)
+                        .forEach(a -> audios.add(new Audio(a.getAudioId(), a.getLanguageCode())));
+            }
+            targets.add(new Target(poi.getId(), poi.getLatitude(), poi.getLongitude(), List.copyOf(audios)));
+        }
+        return targets;
+    }
+
+    /** Thiết bị STREAMING (RAM/bộ nhớ thấp) như phần lớn máy thật — không kéo delta sync offline. */
+    private void registerDevices(Job job) {
+        for (String deviceId : job.deviceIds) {
+            appClientService.registerDevice(deviceId, "load-test", "load-test", 2048, 200,
+                    NetworkType.CELLULAR_4G);
+        }
+    }
+
+    private static void awaitWorkers(ExecutorService workers, int extraSeconds) throws InterruptedException {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(extraSeconds + DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            throw e;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private HikariPoolMXBean hikariPool() {
+        HikariDataSource hikari = hikariDataSource();
+        return hikari != null ? hikari.getHikariPoolMXBean() : null;
+    }
+
+    private HikariDataSource hikariDataSource() {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private record Target(Long poiId, double latitude, double longitude, List<Audio> audios) {
+    }
+
+    private record Audio(Long audioId, String languageCode) {
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        void run() throws Exception;
+    }
+
+    private static final class PhaseStats {
+        final Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final LongAdder errors = new LongAdder();
+    }
+
+    private final class Job {
+        final String testId;
+        final LoadTestPlan plan;
+        final List<Target> targets;
+        final List<String> deviceIds;
+        final Instant startedAt = Instant.now();
+        final Map<String, PhaseStats> phases = new ConcurrentHashMap<>();
+        final Histogram overall = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final LongAdder dropped = new LongAdder();
+        volatile String status = "RUNNING";
+        volatile Instant completedAt;
+
+        // Chỉ luồng sampler ghi
+        volatile int poolSize;
+        volatile int activePeak;
+        volatile int awaitingPeak;
+        volatile long samples;
+        volatile long saturatedSamples;
+
+        Job(String testId, LoadTestPlan plan, List<Target> targets) {
+            this.testId = testId;
+            this.plan = plan;
+            this.targets = targets;
+            List<String> ids = new ArrayList<>(plan.concurrentUsers());
+            for (int i = 0; i < plan.concurrentUsers(); i++) {
+                ids.add(testId + "-device-" + i);
+            }
+            this.deviceIds = List.copyOf(ids);
+            PHASES.forEach(p -> phases.put(p, new PhaseStats()));
+        }
+
+        void measure(String phase, long startNanos, Call call) {
+            PhaseStats stats = phases.get(phase);
+            try {
+                call.run();
+            } catch (Exception e) {
+                stats.errors.increment();
+                log.debug("Load test {} {} failed: {}", testId, phase, e.getMessage());
+            }
+            long micros = Math.min(HIGHEST_TRACKABLE_MICROS,
+                    Math.max(0L, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos)));
+            stats.histogram.recordValue(micros);
+            overall.recordValue(micros);
+        }
+
+        void samplePool() {
+            HikariPoolMXBean pool = hikariPool();
+            if (pool == null) {
+                return;
+            }
+            HikariDataSource hikari = hikariDataSource();
+            if (hikari != null) {
+                poolSize = hikari.getMaximumPoolSize();
+            }
+            int active = pool.getActiveConnections();
+            int awaiting = pool.getThreadsAwaitingConnection();
+            activePeak = Math.max(activePeak, active);
+            awaitingPeak = Math.max(awaitingPeak, awaiting);
+            samples++;
+            if (awaiting > 0) {
+                saturatedSamples++;
+            }
+        }
+
+        void finish(String finalStatus) {
+            completedAt = Instant.now();
+            status = finalStatus;
+        }
+
+        long failedCount() {
+            return phases.values().stream().mapToLong(s -> s.errors.sum()).sum();
+        }
+
+        ResLoadTestResultDTO toResult() {
+            Histogram all = overall.copy();
+            int total = (int) all.getTotalCount();
+            int failed = (int) failedCount();
+            Instant end = completedAt != null ? completedAt : Instant.now();
+            long durationMs = end.toEpochMilli() - startedAt.toEpochMilli();
+            long sampleCount = samples;
+
+            List<PhaseLatency> phaseResults = new ArrayList<>();
+            for (String phase : PHASES) {
+                PhaseStats stats = phases.get(phase);
+                Histogram h = stats.histogram.copy();
+                long count = h.getTotalCount();
+                phaseResults.add(PhaseLatency.builder()
+                        .phase(phase)
+                        .count((int) count)
+                        .avgMs(count > 0 ? h.getMean() / 1000.0 : 0)
+                        .p50Ms(millis(h.getValueAtPercentile(50.0)))
+                        .p95Ms(millis(h.getValueAtPercentile(95.0)))
+                        .p99Ms(millis(h.getValueAtPercentile(99.0)))
+                        .maxMs(millis(h.getMaxValue()))
+                        .errorRate(count > 0 ? stats.errors.sum() * 100.0 / count : 0)
+                        .build());
+            }
+
+            return ResLoadTestResultDTO.builder()
+                    .testId(testId)
+                    .status(status)
+                    .mode(plan.arrivalRatePerSecond() != null ? "OPEN" : "CLOSED")
+                    .startedAt(startedAt)
+                    .completedAt(completedAt)
+                    .durationMs(durationMs)
+                    .concurrentUsers(plan.concurrentUsers())
+                    .durationSeconds(plan.durationSeconds())
+                    .arrivalRatePerSecond(plan.arrivalRatePerSecond())
+                    .totalRequests(total)
+                    .successfulRequests(total - failed)
+                    .failedRequests(failed)
+                    .droppedIterations((int) dropped.sum())
+                    .latencyP50(millis(all.getValueAtPercentile(50.0)))
+                    .latencyP95(millis(all.getValueAtPercentile(95.0)))
+                    .latencyP99(millis(all.getValueAtPercentile(99.0)))
+                    .avgLatencyMs(total > 0 ? all.getMean() / 1000.0 : 0)
+                    .minLatencyMs(total > 0 ? millis(all.getMinValue()) : 0)
+                    .maxLatencyMs(millis(all.getMaxValue()))
+                    .throughputPerSecond(total * 1000.0 / Math.max(durationMs, 1))
+                    .errorRatePercent(total > 0 ? failed * 100.0 / total : 0.0)
+                    .dbConnectionsUsed(activePeak)
+                    .dbPoolSize(poolSize)
+                    .dbThreadsAwaitingPeak(awaitingPeak)
+                    .dbSaturatedPercent(sampleCount > 0 ? saturatedSamples * 100.0 / sampleCount : 0)
+                    .dbStatus(sampleCount == 0 ? "UNKNOWN" : saturatedSamples > 0 ? "SATURATED" : "OK")
+                    .phaseLatencies(phaseResults)
+                    .build();
+        }
+    }
+}
@@ -15,18 +15,35 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.example.demo.service.LocalStorageService;
+import com.example.demo.util.MetricsUtil;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 
 import jakarta.annotation.PostConstruct;
 
 @Service
 public class LocalStorageServiceImpl implements LocalStorageService {
 
+    private static final String STORAGE_CALL = "storage.operation";
+
     @Value("${storage.local.base-dir:uploads}")
     private String baseDir;
 
     @Value("${storage.local.base-url:/uploads}")
     private String baseUrl;
 
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary writtenBytes;
+
+    public LocalStorageServiceImpl(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.writtenBytes = DistributionSummary.builder("storage.write.bytes")
+                .baseUnit("bytes")
+                .tag("backend", "local")
+                .register(meterRegistry);
+    }
+
     @PostConstruct
     public void init() {
         try {
@@ -40,6 +57,14 @@ public class LocalStorageServiceImpl implements LocalStorageService {
         }
     }
 
+    /** Ghi file (thay thế nếu đã có), đo thời gian + số byte. */
+    private void write(InputStream in, Path target) throws IOException {
+        long bytes = MetricsUtil.timed(meterRegistry, STORAGE_CALL,
+                () -> Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING),
+                "backend", "local", "operation", "write");
+        writtenBytes.record(bytes);
+    }
+
     private Path resolve(String... parts) {
         return Paths.get(baseDir, parts);
     }
@@ -78,7 +103,7 @@ public class LocalStorageServiceImpl implements LocalStorageService {
         Files.createDirectories(targetPath.getParent());
 
         // Copy file
-        Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+        write(file.getInputStream(), targetPath);
 
         return getFileUrl(relativePath);
     }
@@ -121,7 +146,7 @@ public class LocalStorageServiceImpl implements LocalStorageService {
         Files.createDirectories(targetPath.getParent());
 
         // Copy file
-        Files.copy(inputStream, targetPath, StandardCopyOption.REPLACE_EXISTING);
+        write(inputStream, targetPath);
 
         return getFileUrl(relativePath);
     }
@@ -139,9 +164,8 @@ public class LocalStorageServiceImpl implements LocalStorageService {
         }
 
         Path path = resolveFile(relative);
-        if (Files.exists(path)) {
-            Files.delete(path);
-        }
+        MetricsUtil.timed(meterRegistry, STORAGE_CALL, () -> Files.deleteIfExists(path),
+                "backend", "local", "operation", "delete");
     }
 
     @Override
@@ -162,7 +186,22 @@ public class LocalStorageServiceImpl implements LocalStorageService {
             throw new IOException("File not found: " + fileName);
         }
 
-        return Files.newInputStream(path);
+        return MetricsUtil.timed(meterRegistry, STORAGE_CALL, () -> Files.newInputStream(path),
+                "backend", "local", "operation", "open");
+    }
+
+    @Override
+    public Path resolvePath(String fileName) {
+        if (fileName == null || fileName.isEmpty()) {
+            throw new IllegalArgumentException("File name is null or empty");
+        }
+
+        String relative = fileName;
+        if (fileName.startsWith(baseUrl + "/")) {
+            relative = fileName.substring(baseUrl.length() + 1);
+        }
+
+        return resolveFile(relative).toAbsolutePath().normalize();
     }
 
     @Override
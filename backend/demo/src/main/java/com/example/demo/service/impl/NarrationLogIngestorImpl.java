@@ -0,0 +1,216 @@
+package com.example.demo.service.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.repository.TTSAudioRepository;
+import com.example.demo.service.NarrationLogIngestor;
+import com.example.demo.service.NarrationRollupService;
+import com.example.demo.util.JdbcBatchUtil;
+import com.example.demo.util.error.IdInvalidException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 1 luồng {@code narration-log-flusher} gom tối đa {@code batch-size} log hoặc chờ tối đa {@code flush-interval-ms}
+ * rồi ghi bằng 1 câu {@code INSERT ... VALUES (...), (...)} qua JDBC — bỏ qua JPA vì id IDENTITY
+ * khiến Hibernate không batch được. Lô lỗi (vd. audio vừa bị xóa) được ghi lại từng dòng để chỉ bỏ dòng hỏng.
+ * <p>
+ * Metrics: {@code narration.log.queue.depth}, {@code narration.log.flush} (thời gian + số lần),
+ * {@code narration.log.written}, {@code narration.log.dropped}.
+ */
+@Service
+public class NarrationLogIngestorImpl implements NarrationLogIngestor {
+
+    private static final Logger log = LoggerFactory.getLogger(NarrationLogIngestorImpl.class);
+
+    private static final String TABLE = "narration_logs";
+    private static final String[] COLUMNS = { "device_id", "tts_audio_id", "played_at", "duration_seconds", "status",
+            "created_at" };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TTSAudioRepository ttsAudioRepository;
+    private final NarrationRollupService narrationRollupService;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+
+    private final BlockingQueue<Entry> queue;
+    /** Audio đã kiểm tra tồn tại — tránh 1 query / log. */
+    private final Set<Long> knownAudioIds = ConcurrentHashMap.newKeySet();
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private final Timer flushTimer;
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+
+    public NarrationLogIngestorImpl(
+            JdbcTemplate jdbcTemplate,
+            TTSAudioRepository ttsAudioRepository,
+            NarrationRollupService narrationRollupService,
+            MeterRegistry meterRegistry,
+            @Value("${app.narration-log.queue-capacity:50000}") int queueCapacity,
+            @Value("${app.narration-log.batch-size:500}") int batchSize,
+            @Value("${app.narration-log.flush-interval-ms:1000}") long flushIntervalMs,
+            @Value("${app.narration-log.offer-timeout-ms:200}") long offerTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttsAudioRepository = ttsAudioRepository;
+        this.narrationRollupService = narrationRollupService;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = Math.max(10, flushIntervalMs);
+        this.offerTimeoutMs = Math.max(0, offerTimeoutMs);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+
+        Gauge.builder("narration.log.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        this.flushTimer = Timer.builder("narration.log.flush").register(meterRegistry);
+        this.writtenCounter = Counter.builder("narration.log.written").register(meterRegistry);
+        this.droppedCounter = Counter.builder("narration.log.dropped").register(meterRegistry);
+
+        this.flusher = new Thread(this::runFlusher, "narration-log-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    @Override
+    public void submit(Entry entry) throws IdInvalidException {
+        Long audioId = entry.ttsAudioId();
+        if (!knownAudioIds.contains(audioId)) {
+            if (!ttsAudioRepository.existsById(audioId)) {
+                throw new IdInvalidException("Không tìm thấy audio: " + audioId);
+            }
+            knownAudioIds.add(audioId);
+        }
+        boolean queued;
+        try {
+            queued = running && queue.offer(entry, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            // Quá tải / đang dừng: ghi ngay trên luồng gọi → producer chậm lại thay vì làm tràn RAM
+            flush(List.of(entry));
+        }
+    }
+
+    @Override
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Phòng khi flusher chưa kịp dọn hết
+        List<Entry> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (int i = 0; i < rest.size(); i += batchSize) {
+            flush(rest.subList(i, Math.min(rest.size(), i + batchSize)));
+        }
+        if (!rest.isEmpty()) {
+            log.info("Narration logs flushed on shutdown: {}", rest.size());
+        }
+    }
+
+    // ============= Private =============
+
+    private void runFlusher() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + flushIntervalMs;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || wait <= 0 || !running) {
+                        break;
+                    }
+                    Entry next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                flush(batch);
+                return;
+            } catch (Exception e) {
+                log.warn("Narration log flusher error: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Entry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            JdbcBatchUtil.insertOrRetryRows(jdbcTemplate, TABLE, COLUMNS, batch, NarrationLogIngestorImpl::bind,
+                    rows -> {
+                        writtenCounter.increment(rows.size());
+                        rows.forEach(e -> narrationRollupService.markDirty(e.playedAt()));
+                    },
+                    (entry, e) -> {
+                        droppedCounter.increment();
+                        knownAudioIds.remove(entry.ttsAudioId());
+                        log.warn("Narration log dropped (device={}, audio={}): {}", entry.deviceId(),
+                                entry.ttsAudioId(), e.getMessage());
+                    });
+        } finally {
+            sample.stop(flushTimer);
+        }
+    }
+
+    private static void bind(PreparedStatement ps, int p, Entry e, Calendar utc) throws SQLException {
+        ps.setString(p++, e.deviceId());
+        ps.setLong(p++, e.ttsAudioId());
+        ps.setTimestamp(p++, Timestamp.from(e.playedAt()), utc);
+        setNullableInt(ps, p++, e.durationSeconds());
+        ps.setString(p++, e.status());
+        ps.setTimestamp(p, Timestamp.from(e.createdAt()), utc);
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+}
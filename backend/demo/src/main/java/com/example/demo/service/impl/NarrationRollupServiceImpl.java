@@ -0,0 +1,181 @@
+package com.example.demo.service.impl;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.domain.NarrationRollup;
+import com.example.demo.domain.NarrationRollup.Granularity;
+import com.example.demo.repository.NarrationLogRepository;
+import com.example.demo.repository.NarrationRollupRepository;
+import com.example.demo.service.NarrationRollupService;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Giờ bẩn do {@link NarrationLogIngestorImpl} báo sau mỗi lần ghi; {@link #refresh()} tính lại từng giờ
+ * (DELETE bucket + INSERT từ GROUP BY log của đúng giờ đó, dùng index played_at) rồi cộng các giờ thành ngày.
+ * Khởi động: đánh dấu bẩn {@code startup-lookback-hours} giờ gần nhất để bù phần chưa kịp tính trước khi dừng.
+ * Lỗi (vd. 2 instance cùng ghi 1 bucket) → giờ đó được đánh dấu lại và thử ở lượt sau.
+ */
+@Service
+public class NarrationRollupServiceImpl implements NarrationRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(NarrationRollupServiceImpl.class);
+
+    /** Audio không có mã ngôn ngữ (ISO 639-2 "undetermined") */
+    private static final String UNKNOWN_LANGUAGE = "und";
+
+    private final NarrationLogRepository narrationLogRepository;
+    private final NarrationRollupRepository narrationRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final int startupLookbackHours;
+
+    private final Set<Instant> dirtyHours = ConcurrentHashMap.newKeySet();
+    private final ExecutorService backfillExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "narration-rollup-backfill");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public NarrationRollupServiceImpl(
+            NarrationLogRepository narrationLogRepository,
+            NarrationRollupRepository narrationRollupRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.narration-rollup.startup-lookback-hours:48}") int startupLookbackHours) {
+        this.narrationLogRepository = narrationLogRepository;
+        this.narrationRollupRepository = narrationRollupRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.startupLookbackHours = Math.max(0, startupLookbackHours);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void markRecentDirty() {
+        Instant hour = hourStart(Instant.now());
+        for (int i = 0; i <= startupLookbackHours; i++) {
+            dirtyHours.add(hour.minus(i, ChronoUnit.HOURS));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExecutor.shutdownNow();
+    }
+
+    @Override
+    public void markDirty(Instant playedAt) {
+        if (playedAt != null) {
+            dirtyHours.add(hourStart(playedAt));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.narration-rollup.refresh-ms:30000}", initialDelay = 30_000)
+    public void refresh() {
+        if (dirtyHours.isEmpty()) {
+            return;
+        }
+        List<Instant> hours = new ArrayList<>(dirtyHours);
+        hours.forEach(dirtyHours::remove);
+        Set<LocalDate> days = new TreeSet<>();
+        for (Instant hour : hours) {
+            if (recomputeHour(hour)) {
+                days.add(hour.atZone(zone).toLocalDate());
+            }
+        }
+        days.forEach(this::recomputeDay);
+    }
+
+    @Override
+    public void backfillAsync(LocalDate from, LocalDate to) {
+        backfillExecutor.execute(() -> {
+            long started = System.currentTimeMillis();
+            int hours = 0;
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                ZonedDateTime end = day.plusDays(1).atStartOfDay(zone);
+                for (ZonedDateTime h = day.atStartOfDay(zone); h.isBefore(end); h = h.plusHours(1)) {
+                    recomputeHour(h.toInstant());
+                    hours++;
+                }
+                recomputeDay(day);
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+            log.info("Narration rollup backfill {}..{} done: {} hour bucket(s) in {} ms", from, to, hours,
+                    System.currentTimeMillis() - started);
+        });
+    }
+
+    // ============= Private =============
+
+    private Instant hourStart(Instant t) {
+        return t.atZone(zone).truncatedTo(ChronoUnit.HOURS).toInstant();
+    }
+
+    private boolean recomputeHour(Instant hour) {
+        Instant end = hour.atZone(zone).plusHours(1).toInstant();
+        try {
+            transactionTemplate.executeWithoutResult(s -> replaceBucket(Granularity.HOUR, hour,
+                    narrationLogRepository.aggregateByPoiAndLanguage(hour, end)));
+            return true;
+        } catch (Exception e) {
+            dirtyHours.add(hour);
+            log.warn("Narration rollup for hour {} failed, will retry: {}", hour, e.getMessage());
+            return false;
+        }
+    }
+
+    private void recomputeDay(LocalDate day) {
+        Instant start = day.atStartOfDay(zone).toInstant();
+        Instant end = day.plusDays(1).atStartOfDay(zone).toInstant();
+        try {
+            transactionTemplate.executeWithoutResult(s -> replaceBucket(Granularity.DAY, start,
+                    narrationRollupRepository.sumHourly(start, end)));
+        } catch (Exception e) {
+            // Ngày được tính lại cùng giờ bẩn kế tiếp của nó
+            dirtyHours.add(start);
+            log.warn("Narration rollup for day {} failed, will retry: {}", day, e.getMessage());
+        }
+    }
+
+    /** rows: [poiId, languageCode, count, durationSeconds] */
+    private void replaceBucket(Granularity granularity, Instant bucketStart, List<Object[]> rows) {
+        narrationRollupRepository.deleteBucket(granularity, bucketStart);
+        if (rows.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<NarrationRollup> rollups = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            rollups.add(NarrationRollup.builder()
+                    .granularity(granularity)
+                    .bucketStart(bucketStart)
+                    .poiId(((Number) row[0]).longValue())
+                    .languageCode(row[1] != null ? (String) row[1] : UNKNOWN_LANGUAGE)
+                    .narrationCount(((Number) row[2]).longValue())
+                    .durationSeconds(row[3] != null ? ((Number) row[3]).longValue() : 0L)
+                    .updatedAt(now)
+                    .build());
+        }
+        narrationRollupRepository.saveAll(rollups);
+    }
+}
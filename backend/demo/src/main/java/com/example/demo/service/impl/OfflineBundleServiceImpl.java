@@ -0,0 +1,407 @@
+package com.example.demo.service.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.domain.TTSAudio;
+import com.example.demo.domain.dto.SupportedLanguage;
+import com.example.demo.domain.response.app.ResOfflineBundleDTO;
+import com.example.demo.domain.response.app.ResPOIDTO;
+import com.example.demo.repository.TTSAudioRepository;
+import com.example.demo.service.AppClientService;
+import com.example.demo.service.LocalStorageService;
+import com.example.demo.service.OfflineBundleService;
+import com.example.demo.service.POISpatialIndex;
+import com.example.demo.service.POISpatialIndex.NearbyHit;
+import com.example.demo.util.error.IdInvalidException;
+import com.example.demo.util.error.StorageException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Cấu trúc zip:
+ * <pre>
+ * manifest.json                 — POI (cùng format /pois) + bảng audioId → entry
+ * audio/{sha256}.{ext}          — mỗi nội dung audio chỉ lưu 1 lần (STORED, mp3/wav đã nén sẵn)
+ * </pre>
+ * Gói nằm ở {@code {storage}/offline-bundles/{bundleId}.zip} kèm {@code {bundleId}.json} (thông tin gói);
+ * giữ tối đa {@code app.offline-bundle.max-cached} gói dùng gần nhất.
+ * Gói chưa có được dựng trên luồng {@code offline-bundle-builder} (không chiếm luồng request), hàng đợi giới hạn
+ * {@code app.offline-bundle.max-pending}; bán kính tối đa {@code app.offline-bundle.max-radius-km}.
+ */
+@Service
+public class OfflineBundleServiceImpl implements OfflineBundleService {
+
+    private static final Logger log = LoggerFactory.getLogger(OfflineBundleServiceImpl.class);
+
+    static final int FORMAT_VERSION = 1;
+    private static final String BUNDLE_DIR = "offline-bundles";
+    private static final Pattern BUNDLE_ID = Pattern.compile("[0-9a-f]{32}");
+
+    private final POISpatialIndex poiSpatialIndex;
+    private final AppClientService appClientService;
+    private final TTSAudioRepository ttsAudioRepository;
+    private final LocalStorageService localStorageService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.offline-bundle.max-cached:50}")
+    private int maxCached;
+
+    private final double maxRadiusKm;
+    /** bundleId đang chờ / đang dựng — chỉ gỡ sau khi gói đã được publish (hoặc lỗi). */
+    private final Set<String> building = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor builder;
+
+    public OfflineBundleServiceImpl(
+            POISpatialIndex poiSpatialIndex,
+            AppClientService appClientService,
+            TTSAudioRepository ttsAudioRepository,
+            LocalStorageService localStorageService,
+            ObjectMapper objectMapper,
+            @Value("${app.offline-bundle.max-radius-km:5}") double maxRadiusKm,
+            @Value("${app.offline-bundle.max-pending:8}") int maxPending) {
+        this.poiSpatialIndex = poiSpatialIndex;
+        this.appClientService = appClientService;
+        this.ttsAudioRepository = ttsAudioRepository;
+        this.localStorageService = localStorageService;
+        this.objectMapper = objectMapper;
+        this.maxRadiusKm = maxRadiusKm;
+        this.builder = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxPending)), r -> {
+                    Thread t = new Thread(r, "offline-bundle-builder");
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    @Override
+    public ResOfflineBundleDTO prepareBundle(double lat, double lng, double radiusKm, List<String> languages)
+            throws IdInvalidException, StorageException {
+        if (!(lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180)) {
+            throw new IdInvalidException("Tọa độ không hợp lệ");
+        }
+        // !(> 0) để chặn cả NaN
+        if (!(radiusKm > 0) || radiusKm > maxRadiusKm) {
+            throw new IdInvalidException("radiusKm phải trong khoảng (0, " + maxRadiusKm + "]");
+        }
+        List<String> langs = normalizeLanguages(languages);
+
+        Map<Long, Integer> versions = new TreeMap<>();
+        for (NearbyHit hit : poiSpatialIndex.findWithinRadius(lat, lng, radiusKm * 1000)) {
+            versions.put(hit.poi().getId(), hit.poi().getVersion() != null ? hit.poi().getVersion() : 1);
+        }
+        String bundleId = bundleId(versions, langs);
+
+        try {
+            ResOfflineBundleDTO ready = readReady(bundleId);
+            if (ready != null) {
+                return ready;
+            }
+        } catch (IOException e) {
+            throw new StorageException("Không đọc được gói offline: " + e.getMessage());
+        }
+        if (building.add(bundleId)) {
+            try {
+                builder.execute(() -> buildInBackground(bundleId, versions, langs));
+            } catch (RejectedExecutionException e) {
+                building.remove(bundleId);
+                return pending(bundleId, ResOfflineBundleDTO.BUSY);
+            }
+        }
+        return pending(bundleId, ResOfflineBundleDTO.BUILDING);
+    }
+
+    @Override
+    public Path getBundleFile(String bundleId) throws IdInvalidException {
+        if (bundleId == null || !BUNDLE_ID.matcher(bundleId).matches()) {
+            throw new IdInvalidException("Mã gói offline không hợp lệ: " + bundleId);
+        }
+        Path zip = localStorageService.resolvePath(BUNDLE_DIR).resolve(bundleId + ".zip");
+        if (!Files.isRegularFile(zip)) {
+            throw new IdInvalidException("Không tìm thấy gói offline: " + bundleId);
+        }
+        return zip;
+    }
+
+    /** Gói đã dựng (có cả zip + info) → đánh dấu vừa dùng và trả info; chưa có → null. */
+    private ResOfflineBundleDTO readReady(String bundleId) throws IOException {
+        Path dir = bundleDir();
+        Path zip = dir.resolve(bundleId + ".zip");
+        Path info = dir.resolve(bundleId + ".json");
+        if (!Files.exists(zip) || !Files.exists(info)) {
+            return null;
+        }
+        Files.setLastModifiedTime(zip, FileTime.from(Instant.now()));
+        ResOfflineBundleDTO dto = objectMapper.readValue(info.toFile(), ResOfflineBundleDTO.class);
+        dto.setStatus(ResOfflineBundleDTO.READY);
+        return dto;
+    }
+
+    private void buildInBackground(String bundleId, Map<Long, Integer> versions, List<String> langs) {
+        try {
+            // Request trước có thể vừa publish xong giữa lúc kiểm tra cache và xếp hàng
+            if (readReady(bundleId) != null) {
+                return;
+            }
+            Path dir = bundleDir();
+            ResOfflineBundleDTO built = build(bundleId, versions, langs, dir, dir.resolve(bundleId + ".zip"));
+            built.setStatus(ResOfflineBundleDTO.READY);
+            writeAtomically(dir, dir.resolve(bundleId + ".json"), objectMapper.writeValueAsBytes(built));
+            evictOldBundles(dir);
+        } catch (Exception e) {
+            log.warn("Offline bundle {} build failed: {}", bundleId, e.getMessage());
+        } finally {
+            building.remove(bundleId);
+        }
+    }
+
+    private static ResOfflineBundleDTO pending(String bundleId, String status) {
+        return ResOfflineBundleDTO.builder()
+                .bundleId(bundleId)
+                .status(status)
+                .formatVersion(FORMAT_VERSION)
+                .build();
+    }
+
+    private ResOfflineBundleDTO build(String bundleId, Map<Long, Integer> versions, List<String> langs,
+            Path dir, Path zip) throws IOException {
+        long started = System.currentTimeMillis();
+
+        List<ResPOIDTO> pois = appClientService.getPOIsByIds(versions.keySet());
+        List<Long> audioIds = new ArrayList<>();
+        for (ResPOIDTO poi : pois) {
+            Map<String, ResPOIDTO.ResAudioInfoDTO> selected = new HashMap<>();
+            if (poi.getAudios() != null) {
+                poi.getAudios().forEach((lang, audio) -> {
+                    if (langs.contains(lang)) {
+                        selected.put(lang, audio);
+                        audioIds.add(audio.getAudioId());
+                    }
+                });
+            }
+            poi.setAudios(selected);
+        }
+
+        // Pass 1: băm nội dung → khử trùng lặp
+        Map<Long, AudioEntry> entries = new TreeMap<>();
+        Map<String, Blob> blobs = new LinkedHashMap<>();
+        for (TTSAudio audio : ttsAudioRepository.findAllById(audioIds)) {
+            String fileName = audio.getFileName();
+            if (fileName == null || !localStorageService.fileExists(fileName)) {
+                continue; // app fallback về URL online trong ResAudioInfoDTO.s3Url
+            }
+            Path source = localStorageService.resolvePath(fileName);
+            FileDigest digest = digest(source);
+            String entryName = "audio/" + digest.sha256() + extensionOf(fileName);
+            blobs.putIfAbsent(entryName, new Blob(source, digest));
+            entries.put(audio.getId(), new AudioEntry(entryName, digest.sha256(), digest.size(), audio.getMimeType()));
+        }
+
+        Instant createdAt = Instant.now();
+        Manifest manifest = new Manifest(FORMAT_VERSION, bundleId, createdAt, langs, pois, entries);
+
+        // Pass 2: ghi zip ra file tạm rồi move → reader không bao giờ thấy file dở dang
+        Path tmp = Files.createTempFile(dir, bundleId, ".tmp");
+        try {
+            try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.putNextEntry(new ZipEntry("manifest.json"));
+                out.write(objectMapper.writeValueAsBytes(manifest));
+                out.closeEntry();
+
+                for (Map.Entry<String, Blob> e : blobs.entrySet()) {
+                    FileDigest d = e.getValue().digest();
+                    ZipEntry entry = new ZipEntry(e.getKey());
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(d.size());
+                    entry.setCompressedSize(d.size());
+                    entry.setCrc(d.crc32());
+                    out.putNextEntry(entry);
+                    Files.copy(e.getValue().source(), out);
+                    out.closeEntry();
+                }
+            }
+            String zipSha256 = digest(tmp).sha256();
+            long size = Files.size(tmp);
+            move(tmp, zip);
+
+            log.info("Offline bundle {} built: {} POIs, {} audios ({} unique), {} bytes in {} ms",
+                    bundleId, pois.size(), entries.size(), blobs.size(), size,
+                    System.currentTimeMillis() - started);
+
+            return ResOfflineBundleDTO.builder()
+                    .bundleId(bundleId)
+                    .formatVersion(FORMAT_VERSION)
+                    .languages(langs)
+                    .poiCount(pois.size())
+                    .audioCount(entries.size())
+                    .sizeBytes(size)
+                    .sha256(zipSha256)
+                    .createdAt(createdAt)
+                    .downloadUrl("/api/v1/app/offline-bundles/" + bundleId)
+                    .build();
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private Path bundleDir() throws IOException {
+        Path dir = localStorageService.resolvePath(BUNDLE_DIR);
+        Files.createDirectories(dir);
+        return dir;
+    }
+
+    /** Giữ {@code maxCached} gói mới dùng gần nhất (theo lastModified), xóa phần còn lại. */
+    private void evictOldBundles(Path dir) {
+        List<Path> zips;
+        try (Stream<Path> files = Files.list(dir)) {
+            zips = files.filter(p -> p.getFileName().toString().endsWith(".zip"))
+                    .sorted(Comparator.comparing(OfflineBundleServiceImpl::lastModified).reversed())
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            log.warn("Cannot list offline bundles: {}", e.getMessage());
+            return;
+        }
+        for (Path old : zips.subList(Math.min(maxCached, zips.size()), zips.size())) {
+            String name = old.getFileName().toString();
+            try {
+                Files.deleteIfExists(old);
+                Files.deleteIfExists(dir.resolve(name.substring(0, name.length() - 4) + ".json"));
+            } catch (IOException e) {
+                log.warn("Cannot evict offline bundle {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    private static FileTime lastModified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void writeAtomically(Path dir, Path target, byte[] data) throws IOException {
+        Path tmp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, data);
+            move(tmp, target);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static List<String> normalizeLanguages(List<String> languages) {
+        if (languages == null || languages.isEmpty()) {
+            return SupportedLanguage.ALL;
+        }
+        List<String> result = languages.stream()
+                .filter(l -> l != null && !l.isBlank())
+                .map(l -> l.trim().toLowerCase(Locale.ROOT))
+                .filter(SupportedLanguage.ALL::contains)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        return result.isEmpty() ? SupportedLanguage.ALL : result;
+    }
+
+    private static String bundleId(Map<Long, Integer> versions, List<String> langs) {
+        StringBuilder sb = new StringBuilder("v").append(FORMAT_VERSION).append('|');
+        sb.append(String.join(",", langs)).append('|');
+        versions.forEach((id, v) -> sb.append(id).append(':').append(v).append(';'));
+        return HexFormat.of().formatHex(sha256().digest(sb.toString().getBytes(StandardCharsets.UTF_8)), 0, 16);
+    }
+
+    private static FileDigest digest(Path file) throws IOException {
+        MessageDigest sha = sha256();
+        CRC32 crc = new CRC32();
+        long size = 0;
+        byte[] buf = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                sha.update(buf, 0, n);
+                crc.update(buf, 0, n);
+                size += n;
+            }
+        }
+        return new FileDigest(HexFormat.of().formatHex(sha.digest()), crc.getValue(), size);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String extensionOf(String fileName) {
+        int slash = fileName.lastIndexOf('/');
+        int dot = fileName.lastIndexOf('.');
+        return dot > slash ? fileName.substring(dot).toLowerCase(Locale.ROOT) : "";
+    }
+
+    private record FileDigest(String sha256, long crc32, long size) {
+    }
+
+    private record Blob(Path source, FileDigest digest) {
+    }
+
+    /** 1 audio trong manifest: đường dẫn entry trong zip + hash để app dùng lại file đã có. */
+    private record AudioEntry(String path, String sha256, long size, String mimeType) {
+    }
+
+    private record Manifest(int formatVersion, String bundleId, Instant createdAt, List<String> languages,
+            List<ResPOIDTO> pois, Map<Long, AudioEntry> audios) {
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.demo.service.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.domain.response.RestResponse;
+import com.example.demo.domain.response.app.ResPOIDTO;
+import com.example.demo.repository.POIRepository;
+import com.example.demo.repository.TTSAudioGroupRepository;
+import com.example.demo.service.AppClientService;
+import com.example.demo.service.POICatalogueService;
+import com.example.demo.util.error.IdInvalidException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Dựng snapshot lười (lazy) khi có request đầu tiên sau invalidate.
+ * Ngoài invalidate chủ động, mỗi {@code app.catalogue.recheck-seconds} giây snapshot được so với
+ * fingerprint rẻ trong DB (count / sum version / max updatedAt) — bắt được thay đổi từ instance backend khác.
+ */
+@Service
+public class POICatalogueServiceImpl implements POICatalogueService {
+
+    private static final Logger log = LoggerFactory.getLogger(POICatalogueServiceImpl.class);
+
+    /** Trùng {@code @ApiMessage} của AppClientController#getAllPOIs — giữ nguyên JSON cũ cho app. */
+    private static final String API_MESSAGE = "Danh sách POIs";
+
+    private final AppClientService appClientService;
+    private final POIRepository poiRepository;
+    private final TTSAudioGroupRepository ttsAudioGroupRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.catalogue.recheck-seconds:30}")
+    private long recheckSeconds;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final Object buildLock = new Object();
+    private volatile Holder current;
+
+    public POICatalogueServiceImpl(
+            AppClientService appClientService,
+            POIRepository poiRepository,
+            TTSAudioGroupRepository ttsAudioGroupRepository,
+            ObjectMapper objectMapper) {
+        this.appClientService = appClientService;
+        this.poiRepository = poiRepository;
+        this.ttsAudioGroupRepository = ttsAudioGroupRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public CatalogueSnapshot getSnapshot() {
+        Holder h = current;
+        if (h != null && h.generation() == generation.get() && !isRecheckDue(h)) {
+            return h.snapshot();
+        }
+        synchronized (buildLock) {
+            h = current;
+            long gen = generation.get();
+            String fingerprint = fingerprint();
+            if (h != null && h.generation() == gen) {
+                if (!isRecheckDue(h)) {
+                    return h.snapshot();
+                }
+                if (fingerprint.equals(h.fingerprint())) {
+                    current = new Holder(h.snapshot(), fingerprint, gen, Instant.now());
+                    return h.snapshot();
+                }
+            }
+            CatalogueSnapshot snapshot = build();
+            current = new Holder(snapshot, fingerprint, gen, Instant.now());
+            log.info("POI catalogue rebuilt: {} POIs, {} bytes ({} gzip), etag {}",
+                    snapshot.poiCount(), snapshot.json().length, snapshot.gzip().length, snapshot.etag());
+            return snapshot;
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    private boolean isRecheckDue(Holder h) {
+        return Duration.between(h.checkedAt(), Instant.now()).getSeconds() >= recheckSeconds;
+    }
+
+    private String fingerprint() {
+        List<Object[]> poiRows = poiRepository.catalogueFingerprint();
+        List<Object[]> groupRows = ttsAudioGroupRepository.catalogueFingerprint();
+        return (poiRows.isEmpty() ? "" : Arrays.toString(poiRows.get(0)))
+                + "|" + (groupRows.isEmpty() ? "" : Arrays.toString(groupRows.get(0)));
+    }
+
+    private CatalogueSnapshot build() {
+        List<ResPOIDTO> pois;
+        try {
+            pois = appClientService.getAllPOIs();
+        } catch (IdInvalidException e) {
+            throw new IllegalStateException("Không dựng được danh sách POI: " + e.getMessage(), e);
+        }
+
+        RestResponse<Object> res = new RestResponse<>();
+        res.setStatusCode(200);
+        res.setMessage(API_MESSAGE);
+        res.setData(pois);
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(res);
+            return new CatalogueSnapshot(json, gzip(json), strongEtag(json), pois.size(), Instant.now());
+        } catch (IOException e) {
+            throw new IllegalStateException("Không serialize được danh sách POI: " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(data.length / 4, 64));
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static String strongEtag(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Holder(CatalogueSnapshot snapshot, String fingerprint, long generation, Instant checkedAt) {
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.service.impl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.demo.domain.POI;
+import com.example.demo.domain.TTSAudio;
+import com.example.demo.domain.TTSAudioGroup;
+import com.example.demo.domain.dto.SupportedLanguage;
+import com.example.demo.domain.response.app.ResPOIDTO;
+
+/**
+ * Dựng {@link ResPOIDTO} từ entity đã nạp sẵn — thuần, không query DB / không phụ thuộc bean nào.
+ */
+final class POIDtoAssembler {
+
+    private POIDtoAssembler() {
+    }
+
+    static ResPOIDTO buildPOIDTO(POI poi, List<TTSAudioGroup> groups, Map<Long, List<TTSAudio>> audiosByGroup) {
+        TTSAudioGroup primaryGroup = !groups.isEmpty() ? groups.get(0) : null;
+
+        Map<String, ResPOIDTO.ResAudioInfoDTO> audioMap = new HashMap<>();
+        for (TTSAudioGroup g : groups) {
+            List<TTSAudio> groupAudios = audiosByGroup.getOrDefault(g.getId(), List.of());
+            for (TTSAudio a : groupAudios) {
+                String lang = a.getLanguageCode();
+                audioMap.putIfAbsent(lang, ResPOIDTO.ResAudioInfoDTO.builder()
+                        .audioId(a.getId())
+                        .languageCode(lang)
+                        .languageName(SupportedLanguage.getName(lang))
+                        .voice(a.getVoice())
+                        .speed(a.getSpeed())
+                        .format(a.getFormat())
+                        .withoutFilter(a.getWithoutFilter())
+                        .s3Url(resolveAppAudioUrl(g, a))
+                        .fileSize(a.getFileSize())
+                        .mimeType(a.getMimeType())
+                        .build());
+            }
+        }
+
+        return ResPOIDTO.builder()
+                .id(poi.getId())
+                .groupId(primaryGroup != null ? primaryGroup.getId() : null)
+                .groupKey(primaryGroup != null ? primaryGroup.getGroupKey() : null)
+                // Thông tin ẩm thực từ POI
+                .foodName(poi.getFoodName())
+                .price(poi.getPrice())
+                .description(poi.getDescription())
+                .imageUrl(poi.getImageUrl())
+                // GPS từ POI
+                .latitude(poi.getLatitude())
+                .longitude(poi.getLongitude())
+                .accuracy(poi.getAccuracy())
+                .triggerRadiusMeters(poi.getTriggerRadiusMeters())
+                .priority(poi.getPriority())
+                // Text/voice gốc từ primary group (nếu có)
+                .originalText(primaryGroup != null ? primaryGroup.getOriginalText() : null)
+                .originalVoice(primaryGroup != null ? primaryGroup.getOriginalVoice() : null)
+                .address(poi.getAddress())
+                .category(poi.getCategory())
+                .openHours(poi.getOpenHours())
+                .phone(poi.getPhone())
+                .isActive(poi.getIsActive())
+                .viewCount(poi.getViewCount())
+                .likeCount(poi.getLikeCount())
+                .qrCode(poi.getQrCode())
+                .version(poi.getVersion())
+                .restaurantName(poi.getRestaurant() != null ? poi.getRestaurant().getOwnerName() : null)
+                .restaurantVerified(poi.getRestaurant() != null ? poi.getRestaurant().getIsVerified() : false)
+                .audios(audioMap)
+                .createdAt(poi.getCreatedAt())
+                .updatedAt(poi.getUpdatedAt())
+                .build();
+    }
+
+    /**
+     * URL để app tải file offline. Ưu tiên {@code s3Url} trên bản ghi TTSAudio
+     * (thường là {@code /uploads/...}).
+     * Nếu trống hoặc còn link S3/AWS cũ (file đã chuyển về local), fallback
+     * endpoint stream theo groupKey —
+     * cùng logic
+     * {@link com.example.demo.service.impl.TTSAudioServiceImp#getAudioFile}.
+     */
+    private static String resolveAppAudioUrl(TTSAudioGroup group, TTSAudio a) {
+        String raw = a.getS3Url();
+        if (raw != null && !raw.isBlank() && !isStaleCloudStorageUrl(raw)) {
+            return raw;
+        }
+        String lang = a.getLanguageCode();
+        return "/api/v1/tts/groups/" + group.getGroupKey() + "/audio/" + lang;
+    }
+
+    private static boolean isStaleCloudStorageUrl(String url) {
+        String u = url.toLowerCase();
+        return u.contains("amazonaws.com") || u.startsWith("s3://");
+    }
+}
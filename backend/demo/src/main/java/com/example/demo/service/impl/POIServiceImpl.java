@@ -17,8 +17,12 @@ import com.example.demo.domain.response.admin.ResAdminPOIDTO;
 import com.example.demo.repository.POIRepository;
 import com.example.demo.repository.RestaurantRepository;
 import com.example.demo.repository.UserServiceRepository;
+import com.example.demo.service.DashboardCounterService;
+import com.example.demo.service.POICatalogueService;
 import com.example.demo.service.POIService;
+import com.example.demo.service.POISpatialIndex;
 import com.example.demo.util.SecurityUtil;
+import com.example.demo.util.TransactionUtil;
 import com.example.demo.util.error.IdInvalidException;
 
 @Service
@@ -28,14 +32,23 @@ public class POIServiceImpl implements POIService {
     private final POIRepository poiRepository;
     private final RestaurantRepository restaurantRepository;
     private final UserServiceRepository userServiceRepository;
+    private final POISpatialIndex poiSpatialIndex;
+    private final POICatalogueService poiCatalogueService;
+    private final DashboardCounterService dashboardCounterService;
 
     public POIServiceImpl(
             POIRepository poiRepository,
             RestaurantRepository restaurantRepository,
-            UserServiceRepository userServiceRepository) {
+            UserServiceRepository userServiceRepository,
+            POISpatialIndex poiSpatialIndex,
+            POICatalogueService poiCatalogueService,
+            DashboardCounterService dashboardCounterService) {
         this.poiRepository = poiRepository;
         this.restaurantRepository = restaurantRepository;
         this.userServiceRepository = userServiceRepository;
+        this.poiSpatialIndex = poiSpatialIndex;
+        this.poiCatalogueService = poiCatalogueService;
+        this.dashboardCounterService = dashboardCounterService;
     }
 
     @Override
@@ -130,6 +143,9 @@ public class POIServiceImpl implements POIService {
         POI saved = poiRepository.save(poi);
         POI reloaded = poiRepository.findDetailForAdmin(saved.getId())
                 .orElseThrow(() -> new IdInvalidException("Không tìm thấy POI: " + saved.getId()));
+        TransactionUtil.afterCommit(() -> poiSpatialIndex.upsert(reloaded));
+        TransactionUtil.afterCommit(poiCatalogueService::invalidate);
+        TransactionUtil.afterCommit(dashboardCounterService::invalidatePois);
         return ResAdminPOIDTO.from(reloaded);
     }
 
@@ -155,7 +171,8 @@ public class POIServiceImpl implements POIService {
         poi.setAccuracy(req.getAccuracy());
         poi.setTriggerRadiusMeters(req.getTriggerRadiusMeters());
         poi.setPriority(req.getPriority());
-        poi.setUpdatedAt(Instant.now());
+        // Tăng version → thiết bị offline nhận POI này trong delta sync kế tiếp
+        poi.bumpVersion();
 
         if (req.getRestaurantId() != null) {
             restaurantRepository.findById(req.getRestaurantId())
@@ -167,6 +184,9 @@ public class POIServiceImpl implements POIService {
         POI saved = poiRepository.save(poi);
         POI reloaded = poiRepository.findDetailForAdmin(saved.getId())
                 .orElseThrow(() -> new IdInvalidException("Không tìm thấy POI: " + saved.getId()));
+        TransactionUtil.afterCommit(() -> poiSpatialIndex.upsert(reloaded));
+        TransactionUtil.afterCommit(poiCatalogueService::invalidate);
+        TransactionUtil.afterCommit(dashboardCounterService::invalidatePois);
         return ResAdminPOIDTO.from(reloaded);
     }
 
@@ -176,5 +196,8 @@ public class POIServiceImpl implements POIService {
                 .orElseThrow(() -> new IdInvalidException("Không tìm thấy POI: " + id));
         assertShopOwnerOrAdminAccess(poi);
         poiRepository.deleteById(id);
+        TransactionUtil.afterCommit(() -> poiSpatialIndex.remove(id));
+        TransactionUtil.afterCommit(poiCatalogueService::invalidate);
+        TransactionUtil.afterCommit(dashboardCounterService::invalidatePois);
     }
 }
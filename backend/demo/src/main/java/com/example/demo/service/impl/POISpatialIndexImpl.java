@@ -0,0 +1,267 @@
+package com.example.demo.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.domain.POI;
+import com.example.demo.repository.POIRepository;
+import com.example.demo.service.GeofenceService;
+import com.example.demo.service.POISpatialIndex;
+
+/**
+ * Grid index theo ô lat/lng cố định (~550m mỗi cạnh ở xích đạo).
+ * Copy-on-write: reader đọc snapshot {@code volatile} không cần lock, writer (admin sửa POI — hiếm)
+ * dựng lại snapshot mới dưới {@code synchronized}.
+ * Mỗi {@code app.poi-index.recheck-ms} so fingerprint rẻ trong DB (như catalogue) — POI sửa ở instance khác
+ * sẽ được nạp lại, version / watermark cho delta sync không bị cũ mãi.
+ */
+@Service
+public class POISpatialIndexImpl implements POISpatialIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(POISpatialIndexImpl.class);
+
+    private static final double CELL_DEG = 0.005;
+    private static final double METERS_PER_DEG_LAT = 111_320d;
+    private static final float DEFAULT_TRIGGER_RADIUS_M = 50f;
+
+    private final POIRepository poiRepository;
+    private final GeofenceService geofenceService;
+
+    private volatile Grid grid = Grid.EMPTY;
+    /** Fingerprint DB lúc dựng {@link #grid} (null = chưa nạp). */
+    private volatile String fingerprint;
+
+    public POISpatialIndexImpl(POIRepository poiRepository, GeofenceService geofenceService) {
+        this.poiRepository = poiRepository;
+        this.geofenceService = geofenceService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.poi-index.recheck-ms:30000}", initialDelay = 30_000)
+    public void reconcile() {
+        String current = fingerprint();
+        if (!current.equals(fingerprint)) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public synchronized void rebuild() {
+        // Đọc fingerprint trước khi nạp → thay đổi xen giữa sẽ bị bắt ở lần reconcile sau
+        String fp = fingerprint();
+        Map<Long, POI> byId = new HashMap<>();
+        for (POI p : poiRepository.findAllActiveWithLocation(Pageable.unpaged()).getContent()) {
+            byId.put(p.getId(), detach(p));
+        }
+        grid = Grid.of(byId);
+        fingerprint = fp;
+        log.info("POI spatial index loaded: {} POIs, {} cells", byId.size(), grid.cells.size());
+    }
+
+    @Override
+    public synchronized void upsert(POI poi) {
+        if (poi == null || poi.getId() == null) {
+            return;
+        }
+        if (!isIndexable(poi)) {
+            remove(poi.getId());
+            return;
+        }
+        Map<Long, POI> byId = new HashMap<>(grid.byId);
+        byId.put(poi.getId(), detach(poi));
+        grid = Grid.of(byId);
+    }
+
+    @Override
+    public synchronized void remove(Long poiId) {
+        if (poiId == null || !grid.byId.containsKey(poiId)) {
+            return;
+        }
+        Map<Long, POI> byId = new HashMap<>(grid.byId);
+        byId.remove(poiId);
+        grid = Grid.of(byId);
+    }
+
+    @Override
+    public List<NearbyHit> findWithinRadius(double lat, double lng, double radiusMeters) {
+        Grid g = grid;
+        if (g.byId.isEmpty() || radiusMeters < 0) {
+            return Collections.emptyList();
+        }
+        List<NearbyHit> hits = new ArrayList<>();
+        for (POI p : g.candidates(lat, lng, radiusMeters)) {
+            double dist = geofenceService.haversineDistance(lat, lng, p.getLatitude(), p.getLongitude());
+            if (dist <= radiusMeters) {
+                hits.add(new NearbyHit(p, dist));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(NearbyHit::distanceMeters)
+                .thenComparingLong(h -> h.poi().getId()));
+        return hits;
+    }
+
+    @Override
+    public List<POI> findContaining(double lat, double lng) {
+        Grid g = grid;
+        if (g.byId.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<POI> result = new ArrayList<>();
+        for (POI p : g.candidates(lat, lng, g.maxRadiusMeters)) {
+            double dist = geofenceService.haversineDistance(lat, lng, p.getLatitude(), p.getLongitude());
+            if (dist <= triggerRadius(p)) {
+                result.add(p);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return grid.byId.size();
+    }
+
+    @Override
+    public Map<Long, Integer> versionSnapshot() {
+        return grid.versions;
+    }
+
+    @Override
+    public String versionDigest() {
+        return grid.versionDigest;
+    }
+
+    private String fingerprint() {
+        List<Object[]> rows = poiRepository.catalogueFingerprint();
+        return rows.isEmpty() ? "" : Arrays.toString(rows.get(0));
+    }
+
+    private static boolean isIndexable(POI poi) {
+        return Boolean.TRUE.equals(poi.getIsActive())
+                && poi.getLatitude() != null
+                && poi.getLongitude() != null;
+    }
+
+    private static float triggerRadius(POI p) {
+        return p.getTriggerRadiusMeters() != null ? p.getTriggerRadiusMeters() : DEFAULT_TRIGGER_RADIUS_M;
+    }
+
+    /** Bản sao chỉ gồm field scalar — không giữ proxy lazy của Hibernate. */
+    private static POI detach(POI p) {
+        return POI.builder()
+                .id(p.getId())
+                .foodName(p.getFoodName())
+                .latitude(p.getLatitude())
+                .longitude(p.getLongitude())
+                .accuracy(p.getAccuracy())
+                .triggerRadiusMeters(p.getTriggerRadiusMeters())
+                .priority(p.getPriority())
+                .isActive(p.getIsActive())
+                .qrCode(p.getQrCode())
+                .version(p.getVersion())
+                .createdAt(p.getCreatedAt())
+                .updatedAt(p.getUpdatedAt())
+                .build();
+    }
+
+    private static long cellKey(long row, long col) {
+        return (row << 32) | (col & 0xffffffffL);
+    }
+
+    private static long row(double lat) {
+        return (long) Math.floor(lat / CELL_DEG);
+    }
+
+    private static long col(double lng) {
+        return (long) Math.floor(lng / CELL_DEG);
+    }
+
+    private static int versionOf(POI p) {
+        return p.getVersion() != null ? p.getVersion() : 1;
+    }
+
+    /** Snapshot bất biến của index. */
+    private static final class Grid {
+
+        static final Grid EMPTY = new Grid(Collections.emptyMap(), Collections.emptyMap(), 0d,
+                Collections.emptyMap(), POISpatialIndex.digestOf(Collections.emptyMap()));
+
+        final Map<Long, POI> byId;
+        final Map<Long, List<POI>> cells;
+        final double maxRadiusMeters;
+        final Map<Long, Integer> versions;
+        final String versionDigest;
+
+        private Grid(Map<Long, POI> byId, Map<Long, List<POI>> cells, double maxRadiusMeters,
+                Map<Long, Integer> versions, String versionDigest) {
+            this.byId = byId;
+            this.cells = cells;
+            this.maxRadiusMeters = maxRadiusMeters;
+            this.versions = versions;
+            this.versionDigest = versionDigest;
+        }
+
+        static Grid of(Map<Long, POI> byId) {
+            Map<Long, List<POI>> cells = new HashMap<>();
+            Map<Long, Integer> versions = new HashMap<>();
+            double maxRadius = 0d;
+            for (POI p : byId.values()) {
+                long key = cellKey(row(p.getLatitude()), col(p.getLongitude()));
+                cells.computeIfAbsent(key, k -> new ArrayList<>()).add(p);
+                maxRadius = Math.max(maxRadius, triggerRadius(p));
+                versions.put(p.getId(), versionOf(p));
+            }
+            return new Grid(Collections.unmodifiableMap(byId), Collections.unmodifiableMap(cells), maxRadius,
+                    Collections.unmodifiableMap(versions), POISpatialIndex.digestOf(versions));
+        }
+
+        /**
+         * POI nằm trong các ô phủ hình vuông bao quanh vòng tròn bán kính {@code radiusMeters}.
+         * Nếu số ô cần quét nhiều hơn số ô đang có dữ liệu → quét thẳng toàn bộ POI.
+         */
+        Collection<POI> candidates(double lat, double lng, double radiusMeters) {
+            double dLat = radiusMeters / METERS_PER_DEG_LAT;
+            double cosLat = Math.max(Math.cos(Math.toRadians(lat)), 0.01);
+            double dLng = radiusMeters / (METERS_PER_DEG_LAT * cosLat);
+
+            long rowMin = row(lat - dLat);
+            long rowMax = row(lat + dLat);
+            long colMin = col(lng - dLng);
+            long colMax = col(lng + dLng);
+
+            long cellCount = (rowMax - rowMin + 1) * (colMax - colMin + 1);
+            if (cellCount > cells.size()) {
+                return byId.values();
+            }
+
+            List<POI> result = new ArrayList<>();
+            for (long r = rowMin; r <= rowMax; r++) {
+                for (long c = colMin; c <= colMax; c++) {
+                    List<POI> bucket = cells.get(cellKey(r, c));
+                    if (bucket != null) {
+                        result.addAll(bucket);
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
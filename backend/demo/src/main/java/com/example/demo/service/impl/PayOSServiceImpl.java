@@ -17,7 +17,9 @@ import com.example.demo.domain.Payment;
 import com.example.demo.domain.POI;
 import com.example.demo.domain.Restaurant;
 import com.example.demo.service.PayOSService;
+import com.example.demo.util.MetricsUtil;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import vn.payos.PayOS;
 import vn.payos.core.ClientOptions;
 import vn.payos.model.v2.paymentRequests.CreatePaymentLinkRequest;
@@ -36,6 +38,7 @@ import vn.payos.model.v2.paymentRequests.PaymentLinkItem;
 public class PayOSServiceImpl implements PayOSService {
 
     private static final Logger log = LoggerFactory.getLogger(PayOSServiceImpl.class);
+    private static final String PAYOS_CALL = "payos.call";
 
     @Value("${PAYOS_CLIENT_ID:8bdecc99-302f-4f2a-ad92-09625534b531}")
     private String defaultClientId;
@@ -49,6 +52,12 @@ public class PayOSServiceImpl implements PayOSService {
     @Value("${app.frontend.url:http://localhost:3000}")
     private String frontendBaseUrl;
 
+    private final MeterRegistry meterRegistry;
+
+    public PayOSServiceImpl(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     private boolean isTripleConfigured(String clientId, String apiKey, String checksumKey) {
         return clientId != null && !clientId.isBlank()
                 && apiKey != null && !apiKey.isBlank()
@@ -171,7 +180,8 @@ public class PayOSServiceImpl implements PayOSService {
                 .build();
 
         try {
-            CreatePaymentLinkResponse data = payOS.paymentRequests().create(req);
+            CreatePaymentLinkResponse data = MetricsUtil.timed(meterRegistry, PAYOS_CALL,
+                    () -> payOS.paymentRequests().create(req), "api", "create-payment-link");
             String checkout = data.getCheckoutUrl() != null ? data.getCheckoutUrl() : "";
             result.put("paymentLink", checkout);
             result.put("qrCode", data.getQrCode() != null ? data.getQrCode() : "");
@@ -212,13 +222,17 @@ public class PayOSServiceImpl implements PayOSService {
             if (txn != null && !txn.isBlank() && !txn.startsWith("MOCK")) {
                 try {
                     long oc = Long.parseLong(txn.trim());
-                    return Optional.ofNullable(payOS.paymentRequests().get(oc));
+                    return Optional.ofNullable(MetricsUtil.timed(meterRegistry, PAYOS_CALL,
+                            () -> payOS.paymentRequests().get(oc), "api", "get-payment-link"));
                 } catch (NumberFormatException e) {
-                    return Optional.ofNullable(payOS.paymentRequests().get(txn.trim()));
+                    return Optional.ofNullable(MetricsUtil.timed(meterRegistry, PAYOS_CALL,
+                            () -> payOS.paymentRequests().get(txn.trim()), "api", "get-payment-link"));
                 }
             }
             if (payment.getPayosPaymentLinkId() != null && !payment.getPayosPaymentLinkId().isBlank()) {
-                return Optional.ofNullable(payOS.paymentRequests().get(payment.getPayosPaymentLinkId().trim()));
+                String linkId = payment.getPayosPaymentLinkId().trim();
+                return Optional.ofNullable(MetricsUtil.timed(meterRegistry, PAYOS_CALL,
+                        () -> payOS.paymentRequests().get(linkId), "api", "get-payment-link"));
             }
         } catch (Exception e) {
             log.warn("PayOS fetch payment link failed: {}", e.getMessage());
@@ -15,7 +15,10 @@ import com.example.demo.domain.Restaurant;
 import com.example.demo.domain.request.admin.ReqUpsertRestaurantDTO;
 import com.example.demo.domain.response.admin.ResAdminRestaurantDTO;
 import com.example.demo.repository.RestaurantRepository;
+import com.example.demo.service.DashboardCounterService;
+import com.example.demo.service.POICatalogueService;
 import com.example.demo.service.RestaurantService;
+import com.example.demo.util.TransactionUtil;
 import com.example.demo.util.SecurityUtil;
 import com.example.demo.util.error.IdInvalidException;
 
@@ -24,9 +27,14 @@ import com.example.demo.util.error.IdInvalidException;
 public class RestaurantServiceImpl implements RestaurantService {
 
     private final RestaurantRepository restaurantRepository;
+    private final POICatalogueService poiCatalogueService;
+    private final DashboardCounterService dashboardCounterService;
 
-    public RestaurantServiceImpl(RestaurantRepository restaurantRepository) {
+    public RestaurantServiceImpl(RestaurantRepository restaurantRepository, POICatalogueService poiCatalogueService,
+            DashboardCounterService dashboardCounterService) {
         this.restaurantRepository = restaurantRepository;
+        this.poiCatalogueService = poiCatalogueService;
+        this.dashboardCounterService = dashboardCounterService;
     }
 
     @Override
@@ -140,6 +148,8 @@ public class RestaurantServiceImpl implements RestaurantService {
         r.setUpdatedAt(Instant.now());
 
         r = restaurantRepository.save(r);
+        // Danh sách POI cho app nhúng thông tin nhà hàng
+        TransactionUtil.afterCommit(poiCatalogueService::invalidate);
         return ResAdminRestaurantDTO.from(r);
     }
 
@@ -149,5 +159,7 @@ public class RestaurantServiceImpl implements RestaurantService {
                 .orElseThrow(() -> new IdInvalidException("Không tìm thấy nhà hàng: " + id));
         assertRestaurantAccess(r);
         restaurantRepository.delete(r);
+        TransactionUtil.afterCommit(poiCatalogueService::invalidate);
+        TransactionUtil.afterCommit(dashboardCounterService::invalidatePois);
     }
 }
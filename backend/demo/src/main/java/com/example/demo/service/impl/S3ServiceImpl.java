@@ -9,6 +9,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.example.demo.service.S3Service;
+import com.example.demo.util.MetricsUtil;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
@@ -22,9 +25,14 @@ import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 @ConditionalOnBean(S3Client.class)
 public class S3ServiceImpl implements S3Service {
 
+    private static final String STORAGE_CALL = "storage.operation";
+
     @Autowired(required = false)
     private S3Client s3Client;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Value("${spring.aws.bucket-name:}")
     private String bucketName;
 
@@ -49,7 +57,9 @@ public class S3ServiceImpl implements S3Service {
                 .contentType(contentType)
                 .build();
 
-        s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(inputStream, inputStream.available()));
+        RequestBody body = RequestBody.fromInputStream(inputStream, inputStream.available());
+        MetricsUtil.timed(meterRegistry, STORAGE_CALL, () -> s3Client.putObject(putObjectRequest, body),
+                "backend", "s3", "operation", "write");
 
         return getFileUrl(fullFileName);
     }
@@ -61,7 +71,8 @@ public class S3ServiceImpl implements S3Service {
                 .key(fileName)
                 .build();
 
-        s3Client.deleteObject(deleteObjectRequest);
+        MetricsUtil.timed(meterRegistry, STORAGE_CALL, () -> s3Client.deleteObject(deleteObjectRequest),
+                "backend", "s3", "operation", "delete");
     }
 
     @Override
@@ -87,7 +98,8 @@ public class S3ServiceImpl implements S3Service {
                 .key(fileName)
                 .build();
 
-        ResponseInputStream<GetObjectResponse> response = s3Client.getObject(getObjectRequest);
+        ResponseInputStream<GetObjectResponse> response = MetricsUtil.timed(meterRegistry, STORAGE_CALL,
+                () -> s3Client.getObject(getObjectRequest), "backend", "s3", "operation", "open");
         return response;
     }
 }
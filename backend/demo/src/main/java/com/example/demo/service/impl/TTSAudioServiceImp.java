@@ -1,16 +1,28 @@
 package com.example.demo.service.impl;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
@@ -19,6 +31,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.example.demo.domain.AudioData;
 import com.example.demo.domain.POI;
@@ -33,17 +46,25 @@ import com.example.demo.domain.response.tts.ResTTSAudioGroupDTO;
 import com.example.demo.repository.POIRepository;
 import com.example.demo.repository.TTSAudioGroupRepository;
 import com.example.demo.repository.TTSAudioRepository;
+import com.example.demo.service.AudioMetadataCache;
 import com.example.demo.service.GoogleCloudTTSService;
 import com.example.demo.service.LocalStorageService;
+import com.example.demo.service.POICatalogueService;
+import com.example.demo.service.POISpatialIndex;
 import com.example.demo.service.TTSAudioService;
 import com.example.demo.service.TTSService;
+import com.example.demo.service.TTSSynthesisCache;
+import com.example.demo.service.TTSSynthesisCache.CachedAudio;
 import com.example.demo.service.TranslationService;
 import com.example.demo.util.SecurityUtil;
+import com.example.demo.util.TransactionUtil;
 import com.example.demo.util.error.IdInvalidException;
 
 @Service
 public class TTSAudioServiceImp implements TTSAudioService {
 
+    private static final Logger log = LoggerFactory.getLogger(TTSAudioServiceImp.class);
+
     @Autowired private TTSAudioRepository ttsAudioRepository;
     @Autowired private TTSAudioGroupRepository ttsAudioGroupRepository;
     @Autowired private POIRepository poiRepository;
@@ -51,6 +72,12 @@ public class TTSAudioServiceImp implements TTSAudioService {
     @Autowired(required = false) private GoogleCloudTTSService googleCloudTTSService;
     @Autowired(required = false) private TranslationService translationService;
     @Autowired private TTSService ttsService;
+    @Autowired private POICatalogueService poiCatalogueService;
+    @Autowired private POISpatialIndex poiSpatialIndex;
+    @Autowired private AudioMetadataCache audioMetadataCache;
+    @Autowired private TTSSynthesisCache ttsSynthesisCache;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired @Qualifier("ttsExecutor") private Executor ttsExecutor;
 
     // ============= TTSAudio READ =============
 
@@ -84,8 +111,33 @@ public class TTSAudioServiceImp implements TTSAudioService {
     // ============= Group CRUD =============
 
     @Override
-    @Transactional
     public ResTTSAudioGroupDTO createGroup(ReqTTSDTO req) throws IOException, IdInvalidException {
+        // 1. Transaction ngắn: tạo group (chưa có audio)
+        TTSAudioGroup created = inTransaction(() -> saveNewGroup(req));
+
+        // 2. Dịch + TTS song song, không giữ transaction / connection
+        List<LangAudio> audios = synthesizeLanguages(created.getGroupKey(), req.getText(), req.getVoice(),
+                req.getSpeed(), req.getTtsReturnOption(), req.getWithoutFilter(), SupportedLanguage.ALL, null);
+
+        // Không ngôn ngữ nào tạo được audio → không để lại group rỗng mà caller tưởng đã thành công
+        if (audios.isEmpty()) {
+            inTransaction(() -> {
+                ttsAudioGroupRepository.deleteById(created.getId());
+                return null;
+            });
+            throw new IOException("Không tạo được audio cho ngôn ngữ nào, group chưa được lưu");
+        }
+
+        // 3. Transaction ngắn: ghi kết quả
+        return persistOrDiscard(audios, () -> toGroupDTO(persistGeneratedAudios(created.getId(), audios)));
+    }
+
+    @Override
+    public ResTTSAudioGroupDTO createGroupWithoutAudio(ReqTTSDTO req) throws IdInvalidException {
+        return inTransaction(() -> toGroupDTO(saveNewGroup(req)));
+    }
+
+    private TTSAudioGroup saveNewGroup(ReqTTSDTO req) throws IdInvalidException {
         POI poi = poiRepository.findDetailForAdmin(req.getPoiId())
                 .orElseThrow(() -> new IdInvalidException("Không tìm thấy POI: " + req.getPoiId()));
         assertShopOwnerOrAdminAccessPoi(poi);
@@ -104,12 +156,7 @@ public class TTSAudioServiceImp implements TTSAudioService {
                 .createdAt(Instant.now())
                 .audioMap(new HashMap<>())
                 .build();
-        group = ttsAudioGroupRepository.save(group);
-
-        generateAudiosForGroup(group, req.getText(), req.getVoice(), req.getSpeed(), req.getTtsReturnOption(), req.getWithoutFilter());
-
-        group = ttsAudioGroupRepository.save(group);
-        return toGroupDTO(group);
+        return ttsAudioGroupRepository.save(group);
     }
 
     @Override
@@ -148,37 +195,38 @@ public class TTSAudioServiceImp implements TTSAudioService {
     }
 
     @Override
-    @Transactional
     public ResTTSAudioGroupDTO updateGroup(Long id, ReqUpdateTTSAudioGroupDTO req) throws IdInvalidException {
-        TTSAudioGroup group = ttsAudioGroupRepository.findById(id)
-                .orElseThrow(() -> new IdInvalidException("Không tìm thấy group: " + id));
-        assertShopOwnerOrAdminAccessGroup(group);
+        UpdateOutcome outcome = inTransaction(() -> {
+            TTSAudioGroup group = ttsAudioGroupRepository.findById(id)
+                    .orElseThrow(() -> new IdInvalidException("Không tìm thấy group: " + id));
+            assertShopOwnerOrAdminAccessGroup(group);
 
-        boolean needRegenerate = isOriginalTtsSettingsChanged(group, req);
+            boolean needRegenerate = isOriginalTtsSettingsChanged(group, req);
 
-        group.setOriginalText(req.getOriginalText());
-        group.setOriginalVoice(req.getOriginalVoice());
-        group.setOriginalSpeed(req.getOriginalSpeed());
-        group.setOriginalFormat(req.getOriginalFormat());
-        group.setOriginalWithoutFilter(req.getOriginalWithoutFilter() != null ? req.getOriginalWithoutFilter() : false);
-        group.setUpdatedAt(Instant.now());
+            group.setOriginalText(req.getOriginalText());
+            group.setOriginalVoice(req.getOriginalVoice());
+            group.setOriginalSpeed(req.getOriginalSpeed());
+            group.setOriginalFormat(req.getOriginalFormat());
+            group.setOriginalWithoutFilter(req.getOriginalWithoutFilter() != null ? req.getOriginalWithoutFilter() : false);
+            group.setUpdatedAt(Instant.now());
 
-        group = ttsAudioGroupRepository.save(group);
-
-        if (needRegenerate) {
-            if (group.getAudioMap() == null) {
-                group.setAudioMap(new HashMap<>());
-            }
-            try {
-                generateAudiosForGroup(group, req.getOriginalText(), req.getOriginalVoice(),
-                        req.getOriginalSpeed(), req.getOriginalFormat(), req.getOriginalWithoutFilter());
-            } catch (IOException e) {
-                throw new IdInvalidException("Không tạo lại audio: " + e.getMessage());
-            }
             group = ttsAudioGroupRepository.save(group);
+            if (needRegenerate) {
+                return new UpdateOutcome(group.getId(), group.getGroupKey(), true, null);
+            }
+            afterGroupChanged(group.getGroupKey());
+            return new UpdateOutcome(group.getId(), group.getGroupKey(), false, toGroupDTO(group));
+        });
+
+        if (!outcome.regenerate()) {
+            return outcome.dto();
         }
 
-        return toGroupDTO(group);
+        List<LangAudio> audios = synthesizeLanguages(outcome.groupKey(), req.getOriginalText(),
+                req.getOriginalVoice(), req.getOriginalSpeed(), req.getOriginalFormat(),
+                req.getOriginalWithoutFilter(), SupportedLanguage.ALL, null);
+
+        return persistOrDiscard(audios, () -> toGroupDTO(persistGeneratedAudios(outcome.groupId(), audios)));
     }
 
     /** So sánh trước khi ghi đè field — tránh gọi TTS khi không đổi. */
@@ -207,16 +255,10 @@ public class TTSAudioServiceImp implements TTSAudioService {
                 .orElseThrow(() -> new IdInvalidException("Không tìm thấy group: " + id));
         assertShopOwnerOrAdminAccessGroup(group);
 
-        // Xóa file trong storage
+        // Xóa file trong storage (file dùng chung chỉ giảm tham chiếu)
         if (group.getAudioMap() != null) {
             for (AudioData ad : group.getAudioMap().values()) {
-                if (ad.getFileName() != null) {
-                    try {
-                        localStorageService.deleteFile(ad.getFileName());
-                    } catch (Exception e) {
-                        System.err.println("⚠️ Không xóa được file: " + e.getMessage());
-                    }
-                }
+                releaseFile(ad.getFileName());
             }
         }
 
@@ -225,32 +267,28 @@ public class TTSAudioServiceImp implements TTSAudioService {
                 .filter(a -> a.getGroup() != null && a.getGroup().getId().equals(id))
                 .forEach(ttsAudioRepository::delete);
 
+        bumpPoiVersion(group);
         ttsAudioGroupRepository.delete(group);
+        afterGroupChanged(group.getGroupKey());
     }
 
     // ============= Audio Generation =============
 
     @Override
-    @Transactional
     public Map<String, ResAudioDataDTO> generateMultilingualAudio(Long groupId) throws IOException, IdInvalidException {
-        TTSAudioGroup group = ttsAudioGroupRepository.findById(groupId)
-                .orElseThrow(() -> new IdInvalidException("Không tìm thấy group: " + groupId));
-        assertShopOwnerOrAdminAccessGroup(group);
-
-        String text = group.getOriginalText();
-        float speed = group.getOriginalSpeed() != null ? group.getOriginalSpeed() : 1.0f;
-        boolean withoutFilter = group.getOriginalWithoutFilter() != null ? group.getOriginalWithoutFilter() : false;
-        int format = group.getOriginalFormat() != null ? group.getOriginalFormat() : 3;
-
-        if (group.getAudioMap() == null) {
-            group.setAudioMap(new HashMap<>());
-        }
-
         Map<String, ResAudioDataDTO> result = new HashMap<>();
-
-        for (String lang : SupportedLanguage.ALL) {
-            if (group.getAudioMap().containsKey(lang)) {
-                AudioData existing = group.getAudioMap().get(lang);
+        GenerationPlan plan = inTransaction(() -> {
+            TTSAudioGroup group = ttsAudioGroupRepository.findById(groupId)
+                    .orElseThrow(() -> new IdInvalidException("Không tìm thấy group: " + groupId));
+            assertShopOwnerOrAdminAccessGroup(group);
+
+            List<String> missing = new ArrayList<>();
+            for (String lang : SupportedLanguage.ALL) {
+                AudioData existing = group.getAudioMap() != null ? group.getAudioMap().get(lang) : null;
+                if (existing == null) {
+                    missing.add(lang);
+                    continue;
+                }
                 result.put(lang, ResAudioDataDTO.builder()
                         .fileName(existing.getFileName())
                         .s3Url(existing.getS3Url())
@@ -258,52 +296,113 @@ public class TTSAudioServiceImp implements TTSAudioService {
                         .mimeType(existing.getMimeType())
                         .build());
                 System.out.println("⏭️  Audio " + SupportedLanguage.getName(lang) + " đã tồn tại, bỏ qua.");
-                continue;
-            }
-
-            String textForLang = lang.equals(SupportedLanguage.VI)
-                    ? text
-                    : (translationService != null ? translationService.translate(text, lang) : null);
-
-            if (textForLang == null || textForLang.isBlank()) {
-                continue;
             }
+            return new GenerationPlan(group.getGroupKey(), group.getOriginalText(), group.getOriginalVoice(),
+                    group.getOriginalSpeed(), group.getOriginalFormat(), group.getOriginalWithoutFilter(), missing);
+        });
+
+        List<LangAudio> audios = plan.missing().isEmpty()
+                ? List.of()
+                : synthesizeLanguages(plan.groupKey(), plan.text(), plan.viVoice(), plan.speed(), plan.format(),
+                        plan.withoutFilter(), plan.missing(), null);
+
+        persistOrDiscard(audios, () -> persistGeneratedAudios(groupId, audios));
+        for (LangAudio a : audios) {
+            result.put(a.lang(), a.audio().toDTO());
+        }
+        return result;
+    }
 
-            AudioResult audio = synthesizeForLang(group.getGroupKey(), lang, textForLang,
-                    lang.equals(SupportedLanguage.VI) ? group.getOriginalVoice() : SupportedLanguage.getVoice(lang),
-                    speed, format, withoutFilter);
+    @Override
+    public List<String> generateAudiosForLanguages(Long groupId, Collection<String> languages,
+            Consumer<String> onLanguageDone) throws IdInvalidException {
+        GenerationPlan plan = inTransaction(() -> {
+            TTSAudioGroup group = ttsAudioGroupRepository.findById(groupId)
+                    .orElseThrow(() -> new IdInvalidException("Không tìm thấy group: " + groupId));
+            return new GenerationPlan(group.getGroupKey(), group.getOriginalText(), group.getOriginalVoice(),
+                    group.getOriginalSpeed(), group.getOriginalFormat(), group.getOriginalWithoutFilter(),
+                    new ArrayList<>(languages));
+        });
+
+        List<LangAudio> audios = synthesizeLanguages(plan.groupKey(), plan.text(), plan.viVoice(), plan.speed(),
+                plan.format(), plan.withoutFilter(), plan.missing(), onLanguageDone);
+        persistOrDiscard(audios, () -> persistGeneratedAudios(groupId, audios));
+
+        List<String> failed = new ArrayList<>(plan.missing());
+        for (LangAudio a : audios) {
+            failed.remove(a.lang());
+        }
+        return failed;
+    }
 
-            if (audio == null) {
-                continue;
-            }
+    /**
+     * Sau commit: dựng lại catalogue POI cho app và bỏ metadata audio cũ của group khỏi cache.
+     */
+    private void afterGroupChanged(String groupKey) {
+        TransactionUtil.afterCommit(() -> {
+            poiCatalogueService.invalidate();
+            audioMetadataCache.invalidateGroup(groupKey);
+        });
+    }
 
-            saveAudioRecord(group, lang, textForLang, audio);
-            group.getAudioMap().put(lang, audio.toAudioData());
-            result.put(lang, audio.toDTO());
+    /**
+     * Audio của POI thay đổi → tăng {@code POI.version} để thiết bị offline tải lại trong delta sync.
+     */
+    private void bumpPoiVersion(TTSAudioGroup group) {
+        POI poi = group.getPoi();
+        if (poi == null) {
+            return;
         }
-
-        ttsAudioGroupRepository.save(group);
-        return result;
+        poi.bumpVersion();
+        poiRepository.save(poi);
+        TransactionUtil.afterCommit(() -> poiSpatialIndex.upsert(poi));
     }
 
     // ============= Audio File =============
 
     @Override
-    public Resource getAudioResource(String groupKey, String languageCode) throws IdInvalidException {
-        TTSAudioGroup group = ttsAudioGroupRepository.findByGroupKey(groupKey)
-                .orElseThrow(() -> new IdInvalidException("Không tìm thấy group: " + groupKey));
+    public AudioFile getAudioFile(String groupKey, String languageCode) throws IdInvalidException {
+        Optional<AudioFile> cached = audioMetadataCache.get(groupKey, languageCode);
+        // stat rẻ hơn nhiều so với query; file có thể đã bị xóa bởi instance khác tạo lại audio
+        if (cached.isPresent() && Files.isRegularFile(cached.get().path())) {
+            return cached.get();
+        }
 
-        AudioData audioData = group.getAudioMap() != null ? group.getAudioMap().get(languageCode) : null;
-        if (audioData == null || audioData.getFileName() == null) {
+        AudioData audioData = ttsAudioGroupRepository.findAudioData(groupKey, languageCode)
+                .orElseThrow(() -> new IdInvalidException(
+                        "Không tìm thấy audio cho group " + groupKey + ", ngôn ngữ: " + languageCode));
+        if (audioData.getFileName() == null) {
             throw new IdInvalidException("Không tìm thấy audio cho ngôn ngữ: " + languageCode);
         }
 
+        Path path = localStorageService.resolvePath(audioData.getFileName());
+        BasicFileAttributes attrs;
         try {
-            InputStream inputStream = localStorageService.getFileInputStream(audioData.getFileName());
-            return new InputStreamResource(inputStream);
-        } catch (Exception e) {
-            throw new IdInvalidException("Không lấy được file audio: " + e.getMessage());
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new IdInvalidException("Không lấy được file audio: " + audioData.getFileName());
+        }
+        if (!attrs.isRegularFile()) {
+            throw new IdInvalidException("Không lấy được file audio: " + audioData.getFileName());
         }
+
+        String ext = audioExtension(audioData.getFileName());
+        String mimeType = audioData.getMimeType() != null && !audioData.getMimeType().isBlank()
+                ? audioData.getMimeType()
+                : (".wav".equals(ext) ? "audio/wav" : "audio/mpeg");
+        long length = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        // File audio không bị ghi đè (tên file kèm timestamp) → mtime + size đủ làm ETag mạnh
+        String etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+        AudioFile file = new AudioFile(path, languageCode + ext, mimeType, length, lastModified, etag);
+        audioMetadataCache.put(groupKey, languageCode, file);
+        return file;
+    }
+
+    private static String audioExtension(String fileName) {
+        int slash = fileName.lastIndexOf('/');
+        int dot = fileName.lastIndexOf('.');
+        return dot > slash ? fileName.substring(dot).toLowerCase() : ".mp3";
     }
 
     @Override
@@ -352,49 +451,162 @@ public class TTSAudioServiceImp implements TTSAudioService {
     }
 
     /**
-     * Tạo audio cho tất cả ngôn ngữ khi create group.
+     * Dịch + synthesize các ngôn ngữ song song trên {@code ttsExecutor} (ngoài transaction).
+     * Ngôn ngữ lỗi / bị bỏ qua không làm hỏng các ngôn ngữ khác; kết quả theo thứ tự {@code langs}.
+     *
+     * @param onLanguageDone Gọi sau mỗi ngôn ngữ thành công (null → bỏ qua)
      */
-    private void generateAudiosForGroup(TTSAudioGroup group, String text, String viVoice,
-            Float speed, Integer ttsReturnOption, Boolean withoutFilter) throws IOException {
+    private List<LangAudio> synthesizeLanguages(String groupKey, String text, String viVoice,
+            Float speed, Integer ttsReturnOption, Boolean withoutFilter, List<String> langs,
+            Consumer<String> onLanguageDone) {
         float s = speed != null ? speed : 1.0f;
         int fmt = ttsReturnOption != null ? ttsReturnOption : 3;
         boolean noFilter = withoutFilter != null ? withoutFilter : false;
 
-        for (String lang : SupportedLanguage.ALL) {
+        long started = System.currentTimeMillis();
+        AtomicInteger done = new AtomicInteger();
+        List<CompletableFuture<LangAudio>> futures = new ArrayList<>();
+        for (String lang : langs) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                LangAudio result = synthesizeLanguage(groupKey, lang, text, viVoice, s, fmt, noFilter);
+                log.info("TTS [{}/{}] {} {} — group {}", done.incrementAndGet(), langs.size(),
+                        SupportedLanguage.getName(lang), result != null ? "xong" : "bỏ qua/lỗi", groupKey);
+                if (result != null && onLanguageDone != null) {
+                    onLanguageDone.accept(lang);
+                }
+                return result;
+            }, ttsExecutor));
+        }
+
+        List<LangAudio> results = new ArrayList<>();
+        for (CompletableFuture<LangAudio> f : futures) {
+            LangAudio r = f.join();
+            if (r != null) {
+                results.add(r);
+            }
+        }
+        log.info("TTS: {}/{} audio cho group {} trong {} ms", results.size(), langs.size(), groupKey,
+                System.currentTimeMillis() - started);
+        return results;
+    }
+
+    private LangAudio synthesizeLanguage(String groupKey, String lang, String text, String viVoice,
+            float speed, int format, boolean withoutFilter) {
+        try {
             String textForLang = lang.equals(SupportedLanguage.VI)
                     ? text
                     : (translationService != null ? translationService.translate(text, lang) : null);
-
             if (textForLang == null || textForLang.isBlank()) {
-                continue;
+                return null;
             }
+            String voice = lang.equals(SupportedLanguage.VI) ? viVoice : SupportedLanguage.getVoice(lang);
+            AudioResult audio = synthesizeForLang(groupKey, lang, textForLang, voice, speed, format, withoutFilter);
+            return audio != null ? new LangAudio(lang, textForLang, audio) : null;
+        } catch (Exception e) {
+            log.warn("Không tạo được audio {}: {}", lang, e.getMessage());
+            return null;
+        }
+    }
 
-            String voice = lang.equals(SupportedLanguage.VI)
-                    ? viVoice
-                    : SupportedLanguage.getVoice(lang);
+    /**
+     * Ghi TTSAudio + audioMap cho các audio vừa tạo (gọi trong transaction ngắn).
+     */
+    private TTSAudioGroup persistGeneratedAudios(Long groupId, List<LangAudio> audios) throws IdInvalidException {
+        TTSAudioGroup group = ttsAudioGroupRepository.findById(groupId)
+                .orElseThrow(() -> new IdInvalidException("Group đã bị xóa trong lúc tạo audio: " + groupId));
+        if (group.getAudioMap() == null) {
+            group.setAudioMap(new HashMap<>());
+        }
+        for (LangAudio a : audios) {
+            saveOrUpdateAudioRecord(group, a.lang(), a.text(), a.audio());
+            group.getAudioMap().put(a.lang(), a.audio().toAudioData());
+        }
+        group = ttsAudioGroupRepository.save(group);
+        if (!audios.isEmpty()) {
+            bumpPoiVersion(group);
+        }
+        afterGroupChanged(group.getGroupKey());
+        return group;
+    }
 
-            AudioResult audio = synthesizeForLang(group.getGroupKey(), lang, textForLang, voice, s, fmt, noFilter);
-            if (audio == null) {
-                continue;
+    /**
+     * Ghi audio vừa tạo; group đã bị xóa giữa chừng → bỏ các file vừa synthesize (chưa bản ghi nào giữ) rồi ném lại.
+     */
+    private <T> T persistOrDiscard(List<LangAudio> audios, TransactionalWork<T> work) throws IdInvalidException {
+        try {
+            return inTransaction(work);
+        } catch (IdInvalidException e) {
+            for (LangAudio a : audios) {
+                discardFile(a.audio().fileName());
             }
+            throw e;
+        }
+    }
 
-            saveOrUpdateAudioRecord(group, lang, textForLang, audio);
-            group.getAudioMap().put(lang, audio.toAudioData());
+    /**
+     * Chạy {@code work} trong 1 transaction ngắn; {@link IdInvalidException} → rollback rồi ném lại.
+     */
+    private <T> T inTransaction(TransactionalWork<T> work) throws IdInvalidException {
+        IdInvalidException[] failure = new IdInvalidException[1];
+        T result = transactionTemplate.execute(status -> {
+            try {
+                return work.run();
+            } catch (IdInvalidException e) {
+                failure[0] = e;
+                status.setRollbackOnly();
+                return null;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
         }
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface TransactionalWork<T> {
+        T run() throws IdInvalidException;
+    }
+
+    /** Audio đã tạo xong cho 1 ngôn ngữ (file đã ghi, chưa có bản ghi DB). */
+    private record LangAudio(String lang, String text, AudioResult audio) {
+    }
+
+    private record UpdateOutcome(Long groupId, String groupKey, boolean regenerate, ResTTSAudioGroupDTO dto) {
+    }
+
+    private record GenerationPlan(String groupKey, String text, String viVoice, Float speed, Integer format,
+            Boolean withoutFilter, List<String> missing) {
     }
 
     /**
-     * Synthesize audio cho 1 ngôn ngữ cụ thể.
+     * Synthesize audio cho 1 ngôn ngữ cụ thể; cùng đầu vào đã synthesize trước đó (group khác / lần sửa trước)
+     * → dùng lại file trong {@link TTSSynthesisCache}, không gọi provider.
      * Trả về AudioResult hoặc null nếu service không khả dụng.
      */
     private AudioResult synthesizeForLang(String groupKey, String lang, String text, String voice,
             float speed, int format, boolean withoutFilter) {
         try {
+            boolean vi = lang.equals(SupportedLanguage.VI);
+            if (!vi && googleCloudTTSService == null) {
+                return null;
+            }
+            // Google tự chọn giọng theo ngôn ngữ, luôn trả MP3, không có filter → không đưa 3 tham số đó vào khóa
+            String key = vi
+                    ? ttsSynthesisCache.key("viettel", lang, text, voice, speed, format, withoutFilter)
+                    : ttsSynthesisCache.key("google", lang, text, null, speed, 3, false);
+            Optional<CachedAudio> cached = ttsSynthesisCache.lookup(key);
+            if (cached.isPresent()) {
+                CachedAudio c = cached.get();
+                log.debug("Dùng lại audio {} (group {}): {}", SupportedLanguage.getName(lang), groupKey, c.url());
+                return new AudioResult((int) c.fileSize(), c.url(), c.fileName(), c.mimeType());
+            }
+
             byte[] audioData;
             String mimeType;
             String fileExt;
 
-            if (lang.equals(SupportedLanguage.VI)) {
+            if (vi) {
                 ReqTTSDTO viReq = new ReqTTSDTO();
                 viReq.setText(text);
                 viReq.setVoice(voice);
@@ -404,21 +616,17 @@ public class TTSAudioServiceImp implements TTSAudioService {
                 audioData = ttsService.synthesizeViettelSpeechBytes(viReq);
                 mimeType = format == 2 ? "audio/wav" : "audio/mpeg";
                 fileExt = format == 2 ? "wav" : "mp3";
-            } else if (googleCloudTTSService != null) {
+            } else {
                 audioData = googleCloudTTSService.synthesize(text, lang, speed);
                 mimeType = "audio/mpeg";
                 fileExt = "mp3";
-            } else {
-                return null;
             }
 
-            String fileName = String.format("tts-audios/%s/%s-%d.%s",
-                    groupKey, lang, System.currentTimeMillis(), fileExt);
-            String s3Url = saveAudioFile(audioData, fileName, mimeType);
-
-            return new AudioResult(audioData.length, s3Url, fileName, mimeType);
+            CachedAudio stored = ttsSynthesisCache.store(key, lang, audioData, mimeType, fileExt);
+            log.debug("Lưu file: {}", stored.url());
+            return new AudioResult(audioData.length, stored.url(), stored.fileName(), stored.mimeType());
         } catch (Exception e) {
-            System.err.println("⚠️ Không tạo được audio " + lang + ": " + e.getMessage());
+            log.warn("Không tạo được audio {}: {}", lang, e.getMessage());
             return null;
         }
     }
@@ -431,12 +639,9 @@ public class TTSAudioServiceImp implements TTSAudioService {
         if (existingOpt.isPresent()) {
             TTSAudio t = existingOpt.get();
             String oldFile = t.getFileName();
-            if (oldFile != null && !oldFile.equals(audio.fileName())) {
-                try {
-                    localStorageService.deleteFile(oldFile);
-                } catch (Exception e) {
-                    System.err.println("⚠️ Không xóa được file cũ: " + oldFile + " — " + e.getMessage());
-                }
+            if (!audio.fileName().equals(oldFile)) {
+                ttsSynthesisCache.retain(audio.fileName());
+                releaseFile(oldFile);
             }
             t.setText(textForLang);
             t.setTranslatedText(textForLang);
@@ -480,18 +685,33 @@ public class TTSAudioServiceImp implements TTSAudioService {
                 .createdAt(Instant.now())
                 .build();
         ttsAudioRepository.save(ttsAudio);
+        ttsSynthesisCache.retain(audio.fileName());
         System.out.println("✅ Audio " + SupportedLanguage.getName(lang) + ": " + audio.s3Url());
     }
 
-    private String saveAudioFile(byte[] audioData, String fileName, String mimeType) {
+    /**
+     * Bản ghi không còn dùng file: file dùng chung (cache) → giảm tham chiếu; file cũ riêng của group → xóa ngay.
+     */
+    private void releaseFile(String fileName) {
+        if (fileName == null || ttsSynthesisCache.release(fileName)) {
+            return;
+        }
         try {
-            String s3Url = localStorageService.uploadFile(
-                    new ByteArrayInputStream(audioData), fileName, mimeType, "");
-            System.out.println("✅ Lưu file: " + s3Url);
-            return s3Url;
+            localStorageService.deleteFile(fileName);
         } catch (Exception e) {
-            System.err.println("❌ Lưu file thất bại: " + e.getMessage());
-            return null;
+            log.warn("Không xóa được file cũ: {} — {}", fileName, e.getMessage());
+        }
+    }
+
+    /** File vừa synthesize nhưng không được bản ghi nào dùng. */
+    private void discardFile(String fileName) {
+        if (fileName == null || ttsSynthesisCache.discard(fileName)) {
+            return;
+        }
+        try {
+            localStorageService.deleteFile(fileName);
+        } catch (Exception e) {
+            log.warn("Không xóa được file: {} — {}", fileName, e.getMessage());
         }
     }
 
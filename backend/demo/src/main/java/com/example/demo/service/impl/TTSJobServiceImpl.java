@@ -0,0 +1,375 @@
+package com.example.demo.service.impl;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.domain.TTSGenerationJob;
+import com.example.demo.domain.TTSGenerationJob.JobStatus;
+import com.example.demo.domain.dto.SupportedLanguage;
+import com.example.demo.domain.request.tts.ReqBulkRegenerateDTO;
+import com.example.demo.domain.request.tts.ReqTTSDTO;
+import com.example.demo.domain.response.tts.ResTTSAudioGroupDTO;
+import com.example.demo.domain.response.tts.ResTTSJobDTO;
+import com.example.demo.repository.TTSGenerationJobRepository;
+import com.example.demo.service.TTSAudioService;
+import com.example.demo.service.TTSJobService;
+import com.example.demo.service.TranslationService;
+import com.example.demo.util.SecurityUtil;
+import com.example.demo.util.TransactionUtil;
+import com.example.demo.util.error.IdInvalidException;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Worker chạy trên pool riêng (không dùng {@code ttsExecutor}: worker chờ các future dịch/TTS trên pool đó,
+ * dùng chung sẽ tự khóa khi pool đầy). Job được nhận bằng UPDATE có điều kiện nên an toàn khi chạy nhiều instance.
+ * Dịch trước theo lô cũng chạy trên thread riêng ({@code tts-prefetch}), không bao giờ trên thread HTTP.
+ */
+@Service
+public class TTSJobServiceImpl implements TTSJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(TTSJobServiceImpl.class);
+
+    private final TTSGenerationJobRepository jobRepository;
+    private final TTSAudioService ttsAudioService;
+    private final TranslationService translationService;
+
+    private final int workers;
+    private final int maxAttempts;
+    private final long pollIntervalMs;
+    private final long backoffBaseSeconds;
+    private final long backoffMaxSeconds;
+    private final Duration staleAfter;
+    private final Duration prefetchHold;
+    private final boolean enabled;
+
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName() + "-"
+            + UUID.randomUUID().toString().substring(0, 8);
+    private final Object wakeUp = new Object();
+    private final AtomicInteger workerSeq = new AtomicInteger();
+    private volatile boolean running;
+    private volatile Instant lastStaleCheck = Instant.EPOCH;
+    private ExecutorService pool;
+    private final ThreadPoolExecutor prefetcher;
+
+    public TTSJobServiceImpl(
+            TTSGenerationJobRepository jobRepository,
+            TTSAudioService ttsAudioService,
+            ObjectProvider<TranslationService> translationService,
+            @Value("${app.tts-jobs.enabled:true}") boolean enabled,
+            @Value("${app.tts-jobs.workers:2}") int workers,
+            @Value("${app.tts-jobs.max-attempts:5}") int maxAttempts,
+            @Value("${app.tts-jobs.poll-interval-ms:5000}") long pollIntervalMs,
+            @Value("${app.tts-jobs.backoff-base-seconds:10}") long backoffBaseSeconds,
+            @Value("${app.tts-jobs.backoff-max-seconds:900}") long backoffMaxSeconds,
+            @Value("${app.tts-jobs.stale-after-minutes:15}") long staleAfterMinutes,
+            @Value("${app.tts-jobs.prefetch-hold-seconds:300}") long prefetchHoldSeconds,
+            @Value("${app.tts-jobs.prefetch-max-pending:4}") int prefetchMaxPending) {
+        this.jobRepository = jobRepository;
+        this.ttsAudioService = ttsAudioService;
+        this.translationService = translationService.getIfAvailable();
+        this.enabled = enabled;
+        this.workers = Math.max(1, workers);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.pollIntervalMs = Math.max(100, pollIntervalMs);
+        this.backoffBaseSeconds = Math.max(1, backoffBaseSeconds);
+        this.backoffMaxSeconds = Math.max(this.backoffBaseSeconds, backoffMaxSeconds);
+        this.staleAfter = Duration.ofMinutes(Math.max(1, staleAfterMinutes));
+        this.prefetchHold = Duration.ofSeconds(Math.max(1, prefetchHoldSeconds));
+        this.prefetcher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, prefetchMaxPending)), r -> {
+                    Thread t = new Thread(r, "tts-prefetch");
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // ============= API =============
+
+    @Override
+    public ResTTSJobDTO createGroupAsync(ReqTTSDTO request) throws IdInvalidException {
+        ResTTSAudioGroupDTO group = ttsAudioService.createGroupWithoutAudio(request);
+        return ResTTSJobDTO.fromEntity(enqueue(group.getId(), SupportedLanguage.ALL, request.getCreatedBy(),
+                Instant.now()));
+    }
+
+    @Override
+    public List<ResTTSJobDTO> regenerateAsync(ReqBulkRegenerateDTO request) throws IdInvalidException {
+        boolean onlyMissing = Boolean.TRUE.equals(request.getOnlyMissing());
+        String requestedBy = SecurityUtil.getCurrentUserLogin().orElse("anonymous");
+
+        // Kiểm tra quyền + tồn tại của tất cả group trước khi xếp job nào
+        List<ResTTSAudioGroupDTO> groups = new ArrayList<>();
+        for (Long groupId : request.getGroupIds().stream().distinct().toList()) {
+            groups.add(ttsAudioService.getGroupById(groupId));
+        }
+
+        // Có dịch trước → job giữ lại (nextRunAt lùi xa) tới khi dịch xong, tránh worker gọi API trùng;
+        // instance chết giữa chừng thì job vẫn tự chạy khi hết thời gian giữ
+        List<String> texts = groups.stream().map(ResTTSAudioGroupDTO::getOriginalText).toList();
+        boolean prefetch = translationService != null && texts.size() >= 2;
+        Instant runAt = prefetch ? Instant.now().plus(prefetchHold) : Instant.now();
+
+        List<TTSGenerationJob> jobs = new ArrayList<>();
+        for (ResTTSAudioGroupDTO group : groups) {
+            List<String> langs = SupportedLanguage.ALL.stream()
+                    .filter(l -> !onlyMissing || group.getAudioMap() == null || !group.getAudioMap().containsKey(l))
+                    .toList();
+            if (langs.isEmpty()) {
+                continue;
+            }
+            jobs.add(enqueue(group.getId(), langs, requestedBy, runAt));
+        }
+        if (prefetch && !jobs.isEmpty()) {
+            prefetchThenRelease(texts, jobs.stream().map(TTSGenerationJob::getId).toList());
+        }
+        return jobs.stream().map(ResTTSJobDTO::fromEntity).toList();
+    }
+
+    /**
+     * Dịch trước text của cả lô theo batch (mỗi ngôn ngữ vài request thay vì 1 request / group / ngôn ngữ);
+     * kết quả nằm trong translation memory nên worker không phải gọi API nữa. Xong (kể cả lỗi) mới thả job;
+     * lỗi → worker tự dịch lại từng câu. Hàng đợi prefetch đầy → thả job ngay, bỏ qua dịch trước.
+     */
+    private void prefetchThenRelease(List<String> texts, List<Long> jobIds) {
+        try {
+            prefetcher.execute(() -> {
+                try {
+                    for (String lang : SupportedLanguage.FOREIGN) {
+                        try {
+                            translationService.translateBatch(texts, lang);
+                        } catch (Exception e) {
+                            log.warn("Batch translation prefetch ({}) failed: {}", lang, e.getMessage());
+                        }
+                    }
+                } finally {
+                    release(jobIds);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Translation prefetch queue full, releasing {} job(s) without prefetch", jobIds.size());
+            release(jobIds);
+        }
+    }
+
+    private void release(List<Long> jobIds) {
+        jobRepository.releaseHeld(jobIds, Instant.now());
+        signal();
+    }
+
+    @Override
+    public ResTTSJobDTO getJob(Long id) throws IdInvalidException {
+        TTSGenerationJob job = jobRepository.findById(id)
+                .orElseThrow(() -> new IdInvalidException("Không tìm thấy job: " + id));
+        // Cùng quy tắc quyền với group mà job thuộc về
+        ttsAudioService.getGroupById(job.getGroupId());
+        return ResTTSJobDTO.fromEntity(job);
+    }
+
+    private TTSGenerationJob enqueue(Long groupId, List<String> languages, String requestedBy, Instant runAt) {
+        Instant now = Instant.now();
+        TTSGenerationJob job = jobRepository.save(TTSGenerationJob.builder()
+                .groupId(groupId)
+                .pendingLanguages(String.join(",", languages))
+                .totalLanguages(languages.size())
+                .maxAttempts(maxAttempts)
+                .nextRunAt(runAt)
+                .requestedBy(requestedBy != null ? requestedBy : "anonymous")
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+        // Gọi ngoài transaction → đánh thức worker ngay; trong transaction → sau commit
+        TransactionUtil.afterCommit(this::signal);
+        return job;
+    }
+
+    // ============= Worker =============
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("TTS job workers disabled (app.tts-jobs.enabled=false)");
+            return;
+        }
+        running = true;
+        pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "tts-job-" + workerSeq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workers; i++) {
+            pool.submit(this::workerLoop);
+        }
+        log.info("TTS job workers started: {} worker(s), instance {}", workers, instanceId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        prefetcher.shutdownNow();
+        signal();
+        if (pool == null) {
+            return;
+        }
+        pool.shutdown();
+        try {
+            // Job đang chạy dở sẽ được instance khác / lần khởi động sau nhận lại (requeueStale)
+            if (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void signal() {
+        synchronized (wakeUp) {
+            wakeUp.notifyAll();
+        }
+    }
+
+    private void workerLoop() {
+        String worker = instanceId + "/" + Thread.currentThread().getName();
+        while (running) {
+            boolean worked = false;
+            try {
+                requeueStaleIfDue();
+                Optional<Long> claimed = claimNext(worker);
+                if (claimed.isPresent()) {
+                    worked = true;
+                    runJob(claimed.get(), worker);
+                }
+            } catch (Exception e) {
+                log.warn("TTS job worker error: {}", e.getMessage(), e);
+            }
+            if (!worked) {
+                synchronized (wakeUp) {
+                    try {
+                        wakeUp.wait(pollIntervalMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private void requeueStaleIfDue() {
+        Instant now = Instant.now();
+        if (now.isBefore(lastStaleCheck.plusSeconds(60))) {
+            return;
+        }
+        lastStaleCheck = now;
+        int n = jobRepository.requeueStale(now.minus(staleAfter), now);
+        if (n > 0) {
+            log.warn("Requeued {} stale TTS job(s)", n);
+        }
+    }
+
+    private Optional<Long> claimNext(String worker) {
+        Instant now = Instant.now();
+        for (Long id : jobRepository.findDueIds(now, PageRequest.of(0, workers * 2))) {
+            if (jobRepository.claim(id, worker, now) == 1) {
+                return Optional.of(id);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void runJob(Long jobId, String worker) {
+        TTSGenerationJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        List<String> pending = Arrays.stream(job.getPendingLanguages().split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+        log.info("TTS job {} (group {}) attempt {}/{}: {}", jobId, job.getGroupId(), job.getAttempts(),
+                job.getMaxAttempts(), pending);
+
+        List<String> failed;
+        String error;
+        try {
+            failed = ttsAudioService.generateAudiosForLanguages(job.getGroupId(), pending,
+                    lang -> jobRepository.incrementProgress(jobId, worker, Instant.now()));
+            error = failed.isEmpty() ? null : "Không tạo được audio: " + String.join(",", failed);
+        } catch (IdInvalidException e) {
+            // Group đã bị xóa → không thử lại
+            finish(jobId, worker, JobStatus.FAILED, pending, e.getMessage());
+            return;
+        } catch (Exception e) {
+            failed = pending;
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+
+        if (failed.isEmpty()) {
+            finish(jobId, worker, JobStatus.SUCCEEDED, failed, null);
+        } else {
+            finish(jobId, worker, null, failed, error);
+        }
+    }
+
+    /**
+     * @param status null → tự quyết: còn lượt thì QUEUED (backoff), hết lượt thì FAILED
+     */
+    private void finish(Long jobId, String worker, JobStatus status, List<String> pending, String error) {
+        TTSGenerationJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        JobStatus next = status;
+        if (next == null) {
+            next = job.getAttempts() >= job.getMaxAttempts() ? JobStatus.FAILED : JobStatus.QUEUED;
+        }
+        String lastError = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        Instant nextRunAt = null;
+        Instant finishedAt = null;
+        long delay = 0;
+        if (next == JobStatus.QUEUED) {
+            delay = Math.min(backoffMaxSeconds, backoffBaseSeconds << Math.min(job.getAttempts() - 1, 20));
+            nextRunAt = now.plusSeconds(delay);
+        } else {
+            finishedAt = now;
+        }
+
+        if (jobRepository.finish(jobId, worker, next, String.join(",", pending), lastError, nextRunAt,
+                finishedAt, now) == 0) {
+            // Bị coi là treo và đã được worker khác nhận lại → kết quả của worker đó là kết quả cuối
+            log.warn("TTS job {} no longer locked by {}, dropping result", jobId, worker);
+            return;
+        }
+        if (next == JobStatus.QUEUED) {
+            log.warn("TTS job {} failed ({}), retry in {}s", jobId, error, delay);
+        } else if (next == JobStatus.FAILED) {
+            log.error("TTS job {} failed permanently after {} attempt(s): {}", jobId, job.getAttempts(), error);
+        } else {
+            log.info("TTS job {} succeeded", jobId);
+        }
+    }
+}
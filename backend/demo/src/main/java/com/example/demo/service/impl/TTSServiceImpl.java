@@ -21,9 +21,11 @@ import org.springframework.web.client.RestTemplate;
 import com.example.demo.domain.request.tts.ReqTTSDTO;
 import com.example.demo.domain.response.tts.ResVoiceDTO;
 import com.example.demo.service.TTSService;
+import com.example.demo.util.MetricsUtil;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AccessLevel;
 import lombok.experimental.FieldDefaults;
 
@@ -31,6 +33,8 @@ import lombok.experimental.FieldDefaults;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class TTSServiceImpl implements TTSService {
 
+    private static final String VIETTEL_CALL = "viettel.tts.call";
+
     @Value("${viettelai.tts.api.url:https://viettelai.vn/tts/speech_synthesis}")
     private String ttsApiUrl;
 
@@ -42,11 +46,13 @@ public class TTSServiceImpl implements TTSService {
 
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
 
-    public TTSServiceImpl() {
+    public TTSServiceImpl(MeterRegistry meterRegistry) {
         this.restTemplate = new RestTemplate();
         this.restTemplate.setRequestFactory(new HttpComponentsClientHttpRequestFactory());
         this.objectMapper = new ObjectMapper();
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
@@ -95,11 +101,9 @@ public class TTSServiceImpl implements TTSService {
         HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
 
         try {
-            ResponseEntity<byte[]> response = restTemplate.exchange(
-                    ttsApiUrl,
-                    HttpMethod.POST,
-                    entity,
-                    byte[].class);
+            ResponseEntity<byte[]> response = MetricsUtil.timed(meterRegistry, VIETTEL_CALL,
+                    () -> restTemplate.exchange(ttsApiUrl, HttpMethod.POST, entity, byte[].class),
+                    "api", "synthesize");
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 return response;
@@ -115,7 +119,8 @@ public class TTSServiceImpl implements TTSService {
     @Override
     public ResVoiceDTO[] getAvailableVoices() throws IOException {
         try {
-            ResponseEntity<String> response = restTemplate.getForEntity(voicesApiUrl, String.class);
+            ResponseEntity<String> response = MetricsUtil.timed(meterRegistry, VIETTEL_CALL,
+                    () -> restTemplate.getForEntity(voicesApiUrl, String.class), "api", "voices");
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 return objectMapper.readValue(
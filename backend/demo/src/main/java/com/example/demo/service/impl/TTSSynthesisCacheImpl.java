@@ -0,0 +1,215 @@
+package com.example.demo.service.impl;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.domain.TTSSynthesisCacheEntry;
+import com.example.demo.repository.TTSSynthesisCacheRepository;
+import com.example.demo.service.LocalStorageService;
+import com.example.demo.service.TTSSynthesisCache;
+
+/**
+ * File lưu tại {@code tts-audios/cas/{2 ký tự đầu}/{sha256 nội dung}.{ext}} — cùng nội dung thì cùng file.
+ * Entry có refCount = 0 được giữ thêm {@code app.tts-cache.grace-minutes} (vẫn phục vụ lookup, tránh xóa file
+ * giữa lúc synthesize và lúc ghi bản ghi) rồi mới bị dọn cùng file.
+ */
+@Service
+public class TTSSynthesisCacheImpl implements TTSSynthesisCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TTSSynthesisCacheImpl.class);
+    private static final String CAS_PREFIX = "tts-audios/cas/";
+
+    private final TTSSynthesisCacheRepository repository;
+    private final LocalStorageService localStorageService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration grace;
+
+    public TTSSynthesisCacheImpl(
+            TTSSynthesisCacheRepository repository,
+            LocalStorageService localStorageService,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.tts-cache.grace-minutes:60}") long graceMinutes) {
+        this.repository = repository;
+        this.localStorageService = localStorageService;
+        this.transactionTemplate = transactionTemplate;
+        this.grace = Duration.ofMinutes(Math.max(1, graceMinutes));
+    }
+
+    @Override
+    public String key(String provider, String languageCode, String text, String voice, float speed, int format,
+            boolean withoutFilter) {
+        String canonical = String.join("\n",
+                provider,
+                languageCode,
+                voice != null ? voice : "",
+                String.format(Locale.ROOT, "%.3f", speed),
+                Integer.toString(format),
+                Boolean.toString(withoutFilter),
+                text != null ? text.strip() : "");
+        return sha256Hex(canonical.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public Optional<CachedAudio> lookup(String key) {
+        Optional<TTSSynthesisCacheEntry> entry = repository.findBySynthesisKey(key);
+        if (entry.isEmpty()) {
+            return Optional.empty();
+        }
+        TTSSynthesisCacheEntry e = entry.get();
+        if (!Files.isRegularFile(localStorageService.resolvePath(e.getFileName()))) {
+            // File mất (xóa tay / khác máy) → coi như miss, store() sẽ ghi lại
+            return Optional.empty();
+        }
+        transactionTemplate.executeWithoutResult(s -> repository.touch(e.getId(), Instant.now()));
+        return Optional.of(toCached(e));
+    }
+
+    @Override
+    public CachedAudio store(String key, String languageCode, byte[] audio, String mimeType, String extension)
+            throws Exception {
+        String contentSha = sha256Hex(audio);
+        String fileName = CAS_PREFIX + contentSha.substring(0, 2) + "/" + contentSha + "." + extension;
+        if (!Files.isRegularFile(localStorageService.resolvePath(fileName))) {
+            localStorageService.uploadFile(new ByteArrayInputStream(audio), fileName, mimeType, "");
+        }
+
+        Instant now = Instant.now();
+        try {
+            TTSSynthesisCacheEntry saved = transactionTemplate.execute(s -> {
+                TTSSynthesisCacheEntry e = repository.findBySynthesisKey(key).orElse(null);
+                if (e == null) {
+                    e = TTSSynthesisCacheEntry.builder()
+                            .synthesisKey(key)
+                            .languageCode(languageCode)
+                            .refCount(currentRefCount(fileName))
+                            .createdAt(now)
+                            .build();
+                } else if (!fileName.equals(e.getFileName())) {
+                    // Key cũ trỏ tới file đã mất → trỏ sang file mới, giữ nguyên số tham chiếu
+                    e.setRefCount(currentRefCount(fileName));
+                }
+                e.setFileName(fileName);
+                e.setContentSha256(contentSha);
+                e.setMimeType(mimeType);
+                e.setFileSize((long) audio.length);
+                e.setLastUsedAt(now);
+                return repository.save(e);
+            });
+            return toCached(saved);
+        } catch (DataIntegrityViolationException dup) {
+            // Instance / luồng khác vừa ghi cùng key
+            return repository.findBySynthesisKey(key).map(this::toCached).orElseThrow(() -> dup);
+        }
+    }
+
+    @Override
+    public boolean retain(String fileName) {
+        if (!isManaged(fileName)) {
+            return false;
+        }
+        repository.retain(relative(fileName), Instant.now());
+        return true;
+    }
+
+    @Override
+    public boolean release(String fileName) {
+        if (!isManaged(fileName)) {
+            return false;
+        }
+        repository.release(relative(fileName), Instant.now());
+        return true;
+    }
+
+    @Override
+    public boolean discard(String fileName) {
+        if (!isManaged(fileName)) {
+            return false;
+        }
+        String relative = relative(fileName);
+        Boolean deleteFile = transactionTemplate.execute(s -> {
+            repository.deleteUnreferencedByFileName(relative);
+            return repository.countByFileName(relative) == 0;
+        });
+        if (Boolean.TRUE.equals(deleteFile)) {
+            try {
+                localStorageService.deleteFile(relative);
+            } catch (Exception ex) {
+                log.warn("TTS cache: không xóa được {}: {}", relative, ex.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Dọn entry không còn tham chiếu quá thời gian ân hạn; file chỉ bị xóa khi không còn entry nào trỏ tới.
+     */
+    @Scheduled(fixedDelayString = "${app.tts-cache.sweep-interval-ms:3600000}", initialDelay = 60_000)
+    public void sweep() {
+        Instant before = Instant.now().minus(grace);
+        int removed = 0;
+        List<TTSSynthesisCacheEntry> batch = repository.findUnreferencedBefore(before, PageRequest.of(0, 200));
+        for (TTSSynthesisCacheEntry e : batch) {
+            Boolean deleteFile = transactionTemplate.execute(s ->
+                    repository.deleteIfUnreferenced(e.getId(), before) == 1
+                            && repository.countByFileName(e.getFileName()) == 0);
+            if (Boolean.TRUE.equals(deleteFile)) {
+                try {
+                    localStorageService.deleteFile(e.getFileName());
+                } catch (Exception ex) {
+                    log.warn("TTS cache: không xóa được {}: {}", e.getFileName(), ex.getMessage());
+                }
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            log.info("TTS cache: removed {} unreferenced file(s)", removed);
+        }
+    }
+
+    // ============= Private =============
+
+    /** Key mới trỏ vào file đã có (cùng nội dung) → nhận số tham chiếu hiện tại của file. */
+    private int currentRefCount(String fileName) {
+        return repository.maxRefCountByFileName(fileName);
+    }
+
+    private boolean isManaged(String fileName) {
+        return fileName != null && relative(fileName).startsWith(CAS_PREFIX);
+    }
+
+    /** AudioData.fileName là đường dẫn tương đối; bỏ "/" đầu nếu có. */
+    private static String relative(String fileName) {
+        return fileName.startsWith("/") ? fileName.substring(1) : fileName;
+    }
+
+    private CachedAudio toCached(TTSSynthesisCacheEntry e) {
+        return new CachedAudio(e.getFileName(), localStorageService.getFileUrl(e.getFileName()), e.getFileSize(),
+                e.getMimeType());
+    }
+
+    private static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.service.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gom các lời dịch đơn lẻ đồng thời cùng ngôn ngữ đích thành 1 request batch:
+ * request đầu tiên mở "cửa sổ" {@code windowMs}; hết cửa sổ hoặc đủ {@code maxBatch} đoạn thì gửi.
+ * Text trùng nhau trong cùng batch chỉ gửi 1 lần.
+ */
+class TranslationCoalescer {
+
+    @FunctionalInterface
+    interface BatchTranslator {
+        /** Kết quả theo đúng thứ tự {@code texts}. */
+        List<String> translate(List<String> texts, String targetLang);
+    }
+
+    private final BatchTranslator translator;
+    private final ScheduledExecutorService scheduler;
+    private final long windowMs;
+    private final int maxBatch;
+
+    /** targetLang → các text đang chờ (text → future, giữ thứ tự đến) */
+    private final Map<String, Map<String, CompletableFuture<String>>> pending = new HashMap<>();
+
+    TranslationCoalescer(BatchTranslator translator, ScheduledExecutorService scheduler, long windowMs,
+            int maxBatch) {
+        this.translator = translator;
+        this.scheduler = scheduler;
+        this.windowMs = windowMs;
+        this.maxBatch = Math.max(1, maxBatch);
+    }
+
+    CompletableFuture<String> submit(String text, String targetLang) {
+        Map<String, CompletableFuture<String>> full = null;
+        CompletableFuture<String> future;
+        synchronized (pending) {
+            Map<String, CompletableFuture<String>> batch = pending.get(targetLang);
+            if (batch == null) {
+                batch = new LinkedHashMap<>();
+                pending.put(targetLang, batch);
+                Map<String, CompletableFuture<String>> opened = batch;
+                scheduler.schedule(() -> flush(targetLang, opened), windowMs, TimeUnit.MILLISECONDS);
+            }
+            future = batch.computeIfAbsent(text, t -> new CompletableFuture<>());
+            if (batch.size() >= maxBatch) {
+                pending.remove(targetLang);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            Map<String, CompletableFuture<String>> toSend = full;
+            scheduler.execute(() -> send(targetLang, toSend));
+        }
+        return future;
+    }
+
+    /** Hết cửa sổ: gửi batch nếu nó vẫn là batch đang mở (chưa bị gửi vì đầy). */
+    private void flush(String targetLang, Map<String, CompletableFuture<String>> batch) {
+        synchronized (pending) {
+            if (pending.get(targetLang) != batch) {
+                return;
+            }
+            pending.remove(targetLang);
+        }
+        send(targetLang, batch);
+    }
+
+    private void send(String targetLang, Map<String, CompletableFuture<String>> batch) {
+        List<String> texts = new ArrayList<>(batch.keySet());
+        try {
+            List<String> results = translator.translate(texts, targetLang);
+            for (int i = 0; i < texts.size(); i++) {
+                batch.get(texts.get(i)).complete(i < results.size() ? results.get(i) : null);
+            }
+        } catch (Throwable e) {
+            batch.values().forEach(f -> f.completeExceptionally(e));
+        }
+    }
+}
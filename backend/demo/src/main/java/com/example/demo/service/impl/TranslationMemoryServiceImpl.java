@@ -0,0 +1,312 @@
+package com.example.demo.service.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.domain.TranslationTraining;
+import com.example.demo.domain.TranslationTraining.DataSource;
+import com.example.demo.domain.dto.SupportedLanguage;
+import com.example.demo.repository.TranslationTrainingRepository;
+import com.example.demo.service.TranslationMemoryService;
+import com.example.demo.service.TranslationService;
+import com.example.demo.util.TtlLruCache;
+
+/**
+ * {@link TranslationService} mặc định của ứng dụng (@Primary), bọc {@link GoogleTranslationServiceImpl}.
+ * Khóa: (SHA-256 text nguồn đã chuẩn hóa, ngôn ngữ nguồn, ngôn ngữ đích).
+ * Tạo lại audio với text không đổi → mọi bản dịch lấy từ memory, không gọi API.
+ */
+@Service
+@Primary
+public class TranslationMemoryServiceImpl implements TranslationService, TranslationMemoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(TranslationMemoryServiceImpl.class);
+
+    /** Bản đã validate hơn chưa validate; có bản sửa hơn không có; cùng mức thì bản mới hơn. */
+    private static final Comparator<TranslationTraining> BEST_FIRST = Comparator
+            .comparingInt(TranslationMemoryServiceImpl::rank).reversed()
+            .thenComparing(TranslationTraining::getId, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final TranslationService delegate;
+    private final TranslationTrainingRepository repository;
+
+    private final TtlLruCache<Key, String> entries;
+
+    public TranslationMemoryServiceImpl(
+            @Qualifier("googleTranslationServiceImpl") TranslationService delegate,
+            TranslationTrainingRepository repository,
+            @Value("${app.translation-memory.max-entries:10000}") int maxEntries,
+            @Value("${app.translation-memory.ttl-seconds:3600}") long ttlSeconds) {
+        this.delegate = delegate;
+        this.repository = repository;
+        this.entries = new TtlLruCache<>(maxEntries, ttlSeconds * 1000);
+    }
+
+    // ============= TranslationService =============
+
+    @Override
+    public String translate(String text, String targetLang) {
+        if (text == null || text.isBlank() || SupportedLanguage.VI.equals(targetLang)) {
+            return text;
+        }
+        Key key = Key.of(text, SupportedLanguage.VI, targetLang);
+
+        Optional<String> cached = entries.get(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        Optional<String> stored = lookupCorpus(key);
+        if (stored.isPresent()) {
+            entries.put(key, stored.get());
+            return stored.get();
+        }
+
+        String translated = delegate.translate(text, targetLang);
+        if (translated != null && !translated.isBlank()) {
+            record(text, targetLang, translated);
+            entries.put(key, translated);
+        }
+        return translated;
+    }
+
+    @Override
+    public List<String> translateBatch(List<String> texts, String targetLang) {
+        if (texts == null || texts.isEmpty()) {
+            return List.of();
+        }
+        if (SupportedLanguage.VI.equals(targetLang)) {
+            return new ArrayList<>(texts);
+        }
+
+        // 1. RAM
+        Map<String, String> found = new HashMap<>();
+        Map<String, Key> missing = new LinkedHashMap<>();
+        for (String t : texts) {
+            if (t == null || t.isBlank() || found.containsKey(t) || missing.containsKey(t)) {
+                continue;
+            }
+            Key key = Key.of(t, SupportedLanguage.VI, targetLang);
+            Optional<String> cached = entries.get(key);
+            if (cached.isPresent()) {
+                found.put(t, cached.get());
+            } else {
+                missing.put(t, key);
+            }
+        }
+
+        // 2. Corpus — 1 query cho mỗi lô hash
+        if (!missing.isEmpty()) {
+            Map<String, String> stored = lookupCorpus(
+                    missing.values().stream().map(Key::sourceHash).distinct().toList(), targetLang);
+            missing.entrySet().removeIf(e -> {
+                String hit = stored.get(e.getValue().sourceHash());
+                if (hit == null) {
+                    return false;
+                }
+                found.put(e.getKey(), hit);
+                entries.put(e.getValue(), hit);
+                return true;
+            });
+        }
+
+        // 3. API — các đoạn còn thiếu gửi theo batch
+        if (!missing.isEmpty()) {
+            List<String> sources = new ArrayList<>(missing.keySet());
+            List<String> translated = delegate.translateBatch(sources, targetLang);
+            List<TranslationTraining> records = new ArrayList<>();
+            for (int i = 0; i < sources.size(); i++) {
+                String result = i < translated.size() ? translated.get(i) : null;
+                if (result == null || result.isBlank()) {
+                    continue;
+                }
+                found.put(sources.get(i), result);
+                entries.put(missing.get(sources.get(i)), result);
+                records.add(machineRecord(sources.get(i), targetLang, result));
+            }
+            saveRecords(records);
+        }
+
+        List<String> results = new ArrayList<>(texts.size());
+        for (String t : texts) {
+            results.add(t == null || t.isBlank() ? t : found.get(t));
+        }
+        return results;
+    }
+
+    @Override
+    public Map<String, String> translateToMultiple(String text) {
+        if (text == null || text.isBlank()) {
+            return new HashMap<>();
+        }
+        Map<String, String> results = new HashMap<>();
+        boolean anyMiss = false;
+        for (String lang : SupportedLanguage.ALL) {
+            if (SupportedLanguage.VI.equals(lang)) {
+                continue;
+            }
+            Key key = Key.of(text, SupportedLanguage.VI, lang);
+            Optional<String> hit = entries.get(key).or(() -> lookupCorpus(key));
+            if (hit.isPresent()) {
+                entries.put(key, hit.get());
+                results.put(lang, hit.get());
+            } else {
+                anyMiss = true;
+            }
+        }
+        if (!anyMiss) {
+            return results;
+        }
+
+        // Ngôn ngữ còn thiếu: delegate gửi song song các ngôn ngữ
+        List<TranslationTraining> records = new ArrayList<>();
+        delegate.translateToMultiple(text).forEach((lang, translated) -> {
+            if (results.containsKey(lang)) {
+                return;
+            }
+            results.put(lang, translated);
+            if (translated != null && !translated.isBlank()) {
+                entries.put(Key.of(text, SupportedLanguage.VI, lang), translated);
+                records.add(machineRecord(text, lang, translated));
+            }
+        });
+        saveRecords(records);
+        return results;
+    }
+
+    // ============= TranslationMemoryService =============
+
+    @Override
+    public void evict(String sourceText, String sourceLang, String targetLang) {
+        if (sourceText == null) {
+            return;
+        }
+        Key key = Key.of(sourceText, sourceLang, targetLang);
+        entries.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Bản ghi tạo trước khi có cột {@code sourceHash} → tính bù 1 lần khi khởi động.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSourceHashes() {
+        int total = 0;
+        List<TranslationTraining> batch;
+        while (!(batch = repository.findWithoutSourceHash(PageRequest.of(0, 500))).isEmpty()) {
+            // Gán tường minh: @PreUpdate chỉ chạy khi entity có thay đổi
+            batch.forEach(t -> t.setSourceHash(TranslationTraining.hashSource(t.getSourceText())));
+            repository.saveAll(batch);
+            total += batch.size();
+        }
+        if (total > 0) {
+            log.info("Translation memory: backfilled sourceHash for {} corpus row(s)", total);
+        }
+    }
+
+    // ============= Private =============
+
+    /** Tra nhiều hash 1 lần → hash → bản dịch tốt nhất. */
+    private Map<String, String> lookupCorpus(List<String> hashes, String targetLang) {
+        Map<String, String> best = new HashMap<>();
+        try {
+            for (int from = 0; from < hashes.size(); from += 500) {
+                List<String> slice = hashes.subList(from, Math.min(from + 500, hashes.size()));
+                repository.findBySourceHashInAndSourceLangAndTargetLang(slice, SupportedLanguage.VI, targetLang)
+                        .stream()
+                        .filter(t -> t.effectiveText() != null && !t.effectiveText().isBlank())
+                        .sorted(BEST_FIRST)
+                        .forEach(t -> best.putIfAbsent(t.getSourceHash(), t.effectiveText()));
+            }
+        } catch (Exception e) {
+            log.warn("Translation memory lookup failed: {}", e.getMessage());
+        }
+        return best;
+    }
+
+    private Optional<String> lookupCorpus(Key key) {
+        try {
+            return repository.findBySourceHashAndSourceLangAndTargetLang(key.sourceHash(), key.sourceLang(),
+                    key.targetLang()).stream()
+                    .filter(t -> t.effectiveText() != null && !t.effectiveText().isBlank())
+                    .sorted(BEST_FIRST)
+                    .map(TranslationTraining::effectiveText)
+                    .findFirst();
+        } catch (Exception e) {
+            // DB lỗi không được chặn việc dịch
+            log.warn("Translation memory lookup failed: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /** Ghi kết quả API vào corpus (chưa validate) để lần sau dùng lại và admin có thể sửa. */
+    private void record(String sourceText, String targetLang, String translated) {
+        saveRecords(List.of(machineRecord(sourceText, targetLang, translated)));
+    }
+
+    private void saveRecords(List<TranslationTraining> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            repository.saveAll(records);
+        } catch (Exception e) {
+            log.warn("Translation memory write failed: {}", e.getMessage());
+        }
+    }
+
+    private static TranslationTraining machineRecord(String sourceText, String targetLang, String translated) {
+        return TranslationTraining.builder()
+                .sourceLang(SupportedLanguage.VI)
+                .targetLang(targetLang)
+                .sourceText(TranslationTraining.normalizeSource(sourceText))
+                .targetText(translated)
+                .isValidated(false)
+                .source(DataSource.MACHINE)
+                .trainedAt(Instant.now())
+                .build();
+    }
+
+    private static int rank(TranslationTraining t) {
+        boolean corrected = t.getCorrectedText() != null && !t.getCorrectedText().isBlank();
+        return (Boolean.TRUE.equals(t.getIsValidated()) ? 2 : 0) + (corrected ? 1 : 0);
+    }
+
+    /** Mọi khóa (tra cứu lẫn evict) đều dựng qua {@link #of} → cùng chuẩn hóa hash + mã ngôn ngữ. */
+    private record Key(String sourceHash, String sourceLang, String targetLang) {
+        static Key of(String sourceText, String sourceLang, String targetLang) {
+            return new Key(TranslationTraining.hashSource(sourceText), lang(sourceLang, SupportedLanguage.VI),
+                    lang(targetLang, null));
+        }
+
+        private static String lang(String code, String fallback) {
+            return code == null || code.isBlank() ? fallback : code.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+}
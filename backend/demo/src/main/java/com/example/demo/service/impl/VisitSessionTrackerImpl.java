@@ -0,0 +1,334 @@
+package com.example.demo.service.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.domain.POI;
+import com.example.demo.service.DashboardCounterService;
+import com.example.demo.service.GeofenceService;
+import com.example.demo.service.POISpatialIndex;
+import com.example.demo.service.VisitSessionTracker;
+import com.example.demo.util.JdbcBatchUtil;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Trạng thái phiên nằm trong {@code ConcurrentHashMap<deviceId, Visit>}; mọi thay đổi của 1 thiết bị đi qua
+ * {@code compute} nên không cần khóa riêng.
+ * <ul>
+ * <li>Vào vùng theo GPS: phiên "ứng viên", chỉ được tính khi ở lại đủ {@code min-dwell-seconds};
+ * bắt đầu nghe audio thì tính ngay.</li>
+ * <li>Ra khỏi mọi vùng: chưa đóng ngay (GPS nhảy) — {@link #sweep()} đóng khi quá {@code exit-timeout-seconds}
+ * không thấy thiết bị trong vùng / không phát audio. Vào vùng POI khác thì đóng phiên cũ ngay.</li>
+ * <li>Thời gian nghe = từ lúc bắt đầu tới lúc kết thúc audio, tối đa tới thời điểm dự kiến kết thúc
+ * (audio kết thúc theo id / hết hạn không báo về đây).</li>
+ * </ul>
+ * Phiên đã đóng được ghi bằng {@code INSERT ... VALUES (...), (...)} mỗi lần sweep; bộ đếm "phiên hôm nay"
+ * chỉ cộng sau khi ghi xong, nên khớp với số dựng lại từ DB ({@code created_at} = lúc đóng phiên).
+ */
+@Service
+public class VisitSessionTrackerImpl implements VisitSessionTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(VisitSessionTrackerImpl.class);
+
+    private static final String TABLE = "queue_sessions";
+    private static final String[] COLUMNS = { "device_id", "poi_id", "entered_at", "exited_at",
+            "total_listening_time", "audio_count", "is_paid", "created_at" };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final POISpatialIndex poiSpatialIndex;
+    private final GeofenceService geofenceService;
+    private final DashboardCounterService dashboardCounterService;
+    private final Duration minDwell;
+    private final Duration exitTimeout;
+    private final int batchSize;
+
+    private final ConcurrentHashMap<String, Visit> visits = new ConcurrentHashMap<>();
+    private final Queue<Closed> closed = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger confirmedCount = new AtomicInteger();
+
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+
+    public VisitSessionTrackerImpl(
+            JdbcTemplate jdbcTemplate,
+            POISpatialIndex poiSpatialIndex,
+            GeofenceService geofenceService,
+            DashboardCounterService dashboardCounterService,
+            MeterRegistry meterRegistry,
+            @Value("${app.visit-session.min-dwell-seconds:30}") long minDwellSeconds,
+            @Value("${app.visit-session.exit-timeout-seconds:180}") long exitTimeoutSeconds,
+            @Value("${app.visit-session.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.poiSpatialIndex = poiSpatialIndex;
+        this.geofenceService = geofenceService;
+        this.dashboardCounterService = dashboardCounterService;
+        this.minDwell = Duration.ofSeconds(Math.max(0, minDwellSeconds));
+        this.exitTimeout = Duration.ofSeconds(Math.max(1, exitTimeoutSeconds));
+        this.batchSize = Math.max(1, batchSize);
+
+        Gauge.builder("visit.session.open", confirmedCount, AtomicInteger::get).register(meterRegistry);
+        this.writtenCounter = Counter.builder("visit.session.written").register(meterRegistry);
+        this.droppedCounter = Counter.builder("visit.session.dropped").register(meterRegistry);
+    }
+
+    @Override
+    public void onNarrationStart(String deviceId, Long poiId, Instant startedAt, Instant estimatedEndAt) {
+        if (deviceId == null || poiId == null) {
+            return;
+        }
+        visits.compute(deviceId, (id, v) -> {
+            if (v != null && !v.poiId.equals(poiId)) {
+                close(id, v, startedAt);
+                v = null;
+            }
+            if (v == null) {
+                v = new Visit(poiId, startedAt);
+            }
+            v.stopPlaying(startedAt);
+            v.playingSince = startedAt;
+            v.playingUntil = estimatedEndAt;
+            v.audioCount++;
+            v.seen(startedAt);
+            // Đang nghe thuyết minh của POI → chắc chắn là 1 lượt ghé, không cần chờ đủ thời gian dừng
+            confirm(v);
+            return v;
+        });
+    }
+
+    @Override
+    public void onNarrationEnd(String deviceId, Instant endedAt) {
+        if (deviceId == null) {
+            return;
+        }
+        visits.computeIfPresent(deviceId, (id, v) -> {
+            v.stopPlaying(endedAt);
+            v.seen(endedAt);
+            return v;
+        });
+    }
+
+    @Override
+    public void onLocation(String deviceId, double lat, double lng, Instant at) {
+        if (deviceId == null) {
+            return;
+        }
+        List<POI> containing = poiSpatialIndex.findContaining(lat, lng);
+        visits.compute(deviceId, (id, v) -> {
+            if (v != null && containsPoi(containing, v.poiId)) {
+                v.seen(at);
+                if (Duration.between(v.enteredAt, v.lastInsideAt).compareTo(minDwell) >= 0) {
+                    confirm(v);
+                }
+                return v;
+            }
+            if (containing.isEmpty()) {
+                // Ngoài mọi vùng: giữ phiên, để exit timeout quyết định
+                return v;
+            }
+            GeofenceService.RankedPOI best = geofenceService.findBestPOI(lat, lng, containing);
+            if (best == null) {
+                return v;
+            }
+            if (v != null) {
+                close(id, v, at);
+            }
+            Visit entered = new Visit(best.poi().getId(), at);
+            if (minDwell.isZero()) {
+                confirm(entered);
+            }
+            return entered;
+        });
+    }
+
+    @Override
+    public int activeCount() {
+        return confirmedCount.get();
+    }
+
+    @Override
+    public void discardDevices(String deviceIdPrefix) {
+        for (String deviceId : visits.keySet()) {
+            if (!deviceId.startsWith(deviceIdPrefix)) {
+                continue;
+            }
+            visits.computeIfPresent(deviceId, (id, v) -> {
+                if (v.confirmed) {
+                    confirmedCount.decrementAndGet();
+                }
+                return null;
+            });
+        }
+        closed.removeIf(c -> c.deviceId().startsWith(deviceIdPrefix));
+    }
+
+    /** Đóng phiên quá hạn rồi ghi các phiên đã đóng xuống DB. */
+    @Scheduled(fixedDelayString = "${app.visit-session.sweep-interval-ms:15000}", initialDelay = 15_000)
+    public void sweep() {
+        sweep(Instant.now());
+    }
+
+    void sweep(Instant now) {
+        for (String deviceId : visits.keySet()) {
+            visits.computeIfPresent(deviceId, (id, v) -> {
+                if (Duration.between(v.lastActivity(now), now).compareTo(exitTimeout) < 0) {
+                    return v;
+                }
+                close(id, v, now);
+                return null;
+            });
+        }
+        flushClosed();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Instant now = Instant.now();
+        for (String deviceId : visits.keySet()) {
+            visits.computeIfPresent(deviceId, (id, v) -> {
+                close(id, v, now);
+                return null;
+            });
+        }
+        flushClosed();
+    }
+
+    // ============= Private =============
+
+    private void confirm(Visit v) {
+        if (!v.confirmed) {
+            v.confirmed = true;
+            confirmedCount.incrementAndGet();
+        }
+    }
+
+    /** Gọi trong {@code compute} của thiết bị. Phiên ứng viên (chưa đủ thời gian dừng) bị bỏ. */
+    private void close(String deviceId, Visit v, Instant now) {
+        Instant exitedAt = v.lastActivity(now);
+        v.stopPlaying(exitedAt);
+        if (!v.confirmed) {
+            return;
+        }
+        confirmedCount.decrementAndGet();
+        closed.add(new Closed(deviceId, v.poiId, v.enteredAt, exitedAt,
+                Math.round(v.listeningMs / 1000.0), v.audioCount, now));
+    }
+
+    private void flushClosed() {
+        List<Closed> batch = new ArrayList<>(batchSize);
+        Closed next;
+        while ((next = closed.poll()) != null) {
+            batch.add(next);
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        write(batch);
+    }
+
+    private void write(List<Closed> batch) {
+        JdbcBatchUtil.insertOrRetryRows(jdbcTemplate, TABLE, COLUMNS, batch, VisitSessionTrackerImpl::bind,
+                rows -> {
+                    writtenCounter.increment(rows.size());
+                    rows.forEach(c -> dashboardCounterService.recordSession(c.poiId()));
+                },
+                (c, e) -> {
+                    // Thường do POI vừa bị xóa (khóa ngoại)
+                    droppedCounter.increment();
+                    log.warn("Visit session dropped (device={}, poi={}): {}", c.deviceId(), c.poiId(),
+                            e.getMessage());
+                });
+    }
+
+    private static void bind(PreparedStatement ps, int p, Closed c, Calendar utc) throws SQLException {
+        ps.setString(p++, c.deviceId());
+        ps.setLong(p++, c.poiId());
+        ps.setTimestamp(p++, Timestamp.from(c.enteredAt()), utc);
+        ps.setTimestamp(p++, Timestamp.from(c.exitedAt()), utc);
+        ps.setLong(p++, c.listeningSeconds());
+        ps.setInt(p++, c.audioCount());
+        ps.setBoolean(p++, false);
+        ps.setTimestamp(p, Timestamp.from(c.createdAt()), utc);
+    }
+
+    private static boolean containsPoi(List<POI> pois, Long poiId) {
+        for (POI p : pois) {
+            if (poiId.equals(p.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Trạng thái phiên mở của 1 thiết bị; chỉ sửa trong {@code compute} của map. */
+    private static final class Visit {
+
+        final Long poiId;
+        final Instant enteredAt;
+        Instant lastInsideAt;
+        boolean confirmed;
+        long listeningMs;
+        int audioCount;
+        /** Audio đang phát (null = không phát). */
+        Instant playingSince;
+        Instant playingUntil;
+
+        Visit(Long poiId, Instant enteredAt) {
+            this.poiId = poiId;
+            this.enteredAt = enteredAt;
+            this.lastInsideAt = enteredAt;
+        }
+
+        void seen(Instant at) {
+            if (at.isAfter(lastInsideAt)) {
+                lastInsideAt = at;
+            }
+        }
+
+        void stopPlaying(Instant at) {
+            if (playingSince == null) {
+                return;
+            }
+            Instant end = playingUntil != null && playingUntil.isBefore(at) ? playingUntil : at;
+            if (end.isAfter(playingSince)) {
+                listeningMs += Duration.between(playingSince, end).toMillis();
+            }
+            playingSince = null;
+            playingUntil = null;
+        }
+
+        /** Lần cuối còn ở trong vùng — tính cả audio đang phát (tới lúc dự kiến kết thúc). */
+        Instant lastActivity(Instant now) {
+            if (playingSince == null) {
+                return lastInsideAt;
+            }
+            Instant playEnd = playingUntil != null && playingUntil.isBefore(now) ? playingUntil : now;
+            return playEnd.isAfter(lastInsideAt) ? playEnd : lastInsideAt;
+        }
+    }
+
+    private record Closed(String deviceId, Long poiId, Instant enteredAt, Instant exitedAt, long listeningSeconds,
+            int audioCount, Instant createdAt) {
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.demo.util;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Trả file tĩnh trên đĩa thẳng ra response: ETag / Last-Modified (304), 1 khoảng {@code Range} (206/416),
+ * {@code If-Range}, HEAD.
+ * Body đi qua sendfile của Tomcat khi connector hỗ trợ (kernel copy, không qua heap);
+ * nếu không thì {@link FileChannel#transferTo} ra output stream.
+ */
+public final class FileStreamUtil {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /** File nhỏ hơn ngưỡng này ghi thẳng (giống ngưỡng sendfile mặc định của Tomcat). */
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private FileStreamUtil() {
+    }
+
+    /**
+     * @param path               File cần trả
+     * @param length             Kích thước file (bytes)
+     * @param lastModifiedMillis Thời điểm sửa đổi file
+     * @param etag               ETag mạnh (có dấu nháy kép)
+     * @param contentType        MIME type
+     * @param contentDisposition Giá trị header Content-Disposition (null → không gửi)
+     * @param cacheControl       Giá trị header Cache-Control (null → không gửi)
+     */
+    public static void serve(HttpServletRequest request, HttpServletResponse response, Path path,
+            long length, long lastModifiedMillis, String etag, String contentType,
+            String contentDisposition, String cacheControl) throws IOException {
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModifiedMillis);
+        if (cacheControl != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+
+        if (isNotModified(request, etag, lastModifiedMillis)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        response.setContentType(contentType);
+        if (contentDisposition != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, etag, lastModifiedMillis)) {
+            long[] parsed = parseRange(range, length);
+            if (parsed == null) {
+                // Không hiểu / nhiều khoảng → bỏ qua Range, trả cả file (RFC 9110 cho phép)
+            } else if (parsed.length == 0) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            } else {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        if (count >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModifiedMillis) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return etagListContains(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = parseDateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModifiedMillis / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /** Không có If-Range, hoặc If-Range khớp ETag / Last-Modified → được phép trả 206. */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModifiedMillis) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null || ifRange.isBlank()) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            return value.equals(etag);
+        }
+        long date = parseDateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModifiedMillis / 1000 == date / 1000;
+    }
+
+    private static boolean etagListContains(String header, String etag) {
+        for (String tag : header.split(",")) {
+            String t = tag.trim();
+            if (t.equals("*") || t.equals(etag) || t.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long parseDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * {@code bytes=a-b}, {@code bytes=a-}, {@code bytes=-n}.
+     * Sai cú pháp (kể cả {@code b < a}) → null: RFC 9110 yêu cầu bỏ qua header, trả 200 cả file.
+     * Chỉ khoảng hợp lệ nhưng không thỏa được (bắt đầu từ ngoài file, {@code -0}) mới là 416.
+     * @return {start, end} (end tính cả); mảng rỗng nếu không thỏa được; null nếu sai cú pháp / không hỗ trợ
+     */
+    static long[] parseRange(String header, long length) {
+        String h = header.trim();
+        if (!h.startsWith("bytes=") || h.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = h.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        if ((!first.isEmpty() && !isDigits(first)) || (!last.isEmpty() && !isDigits(last))) {
+            return null;
+        }
+        try {
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix == 0) {
+                    return new long[0];
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                if (last.isEmpty()) {
+                    end = length - 1;
+                } else {
+                    long lastPos = Long.parseLong(last);
+                    if (lastPos < start) {
+                        return null;
+                    }
+                    end = Math.min(lastPos, length - 1);
+                }
+            }
+            if (start >= length) {
+                return new long[0];
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            // Số vượt long
+            return null;
+        }
+    }
+
+    private static boolean isDigits(String s) {
+        if (s.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) < '0' || s.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.demo.util;
 
+import java.util.Collection;
+
 import org.springframework.core.MethodParameter;
 import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.server.ServerHttpRequest;
@@ -57,6 +60,11 @@ public class FormarRestResponse implements ResponseBodyAdvice {
             return body;
         }
 
+        // Resource trả về kèm header Range → Spring đã chuyển thành ResourceRegion (206)
+        if (body instanceof ResourceRegion || isResourceRegionList(body)) {
+            return body;
+        }
+
         if (status >= 400) {
             return body;
         } else {
@@ -68,4 +76,8 @@ public class FormarRestResponse implements ResponseBodyAdvice {
         return res;
     }
 
+    private static boolean isResourceRegionList(Object body) {
+        return body instanceof Collection<?> c && !c.isEmpty() && c.iterator().next() instanceof ResourceRegion;
+    }
+
 }
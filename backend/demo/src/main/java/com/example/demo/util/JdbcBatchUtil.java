@@ -0,0 +1,96 @@
+package com.example.demo.util;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Ghi nhiều dòng bằng 1 câu {@code INSERT ... VALUES (...), (...)} qua JDBC — dùng cho bảng có id IDENTITY
+ * (Hibernate không batch được). Mọi timestamp ghi thẳng qua JDBC đều gán kèm {@link #utcCalendar()}.
+ */
+public final class JdbcBatchUtil {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcBatchUtil.class);
+
+    /** Hibernate 6 lưu Instant theo UTC (TIMESTAMP_UTC) — ghi JDBC phải cùng quy ước. */
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private JdbcBatchUtil() {
+    }
+
+    @FunctionalInterface
+    public interface RowBinder<T> {
+
+        /** Gán tham số của {@code row} bắt đầu từ vị trí {@code index}; timestamp gán kèm {@code utc}. */
+        void bind(PreparedStatement ps, int index, T row, Calendar utc) throws SQLException;
+    }
+
+    /** Calendar để truyền vào {@code setTimestamp} — không dùng chung giữa các luồng. */
+    public static Calendar utcCalendar() {
+        return Calendar.getInstance(UTC);
+    }
+
+    /** 1 câu INSERT cho mọi dòng của {@code rows}; lỗi được ném ra nguyên vẹn. */
+    public static <T> void insertRows(JdbcTemplate jdbcTemplate, String table, String[] columns, List<T> rows,
+            RowBinder<T> binder) {
+        String row = "(" + "?, ".repeat(columns.length - 1) + "?)";
+        String prefix = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ";
+        StringBuilder sql = new StringBuilder(prefix.length() + rows.size() * (row.length() + 2));
+        sql.append(prefix);
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? row : ", " + row);
+        }
+        jdbcTemplate.update(sql.toString(), ps -> {
+            Calendar utc = utcCalendar();
+            int index = 1;
+            for (T r : rows) {
+                binder.bind(ps, index, r, utc);
+                index += columns.length;
+            }
+        });
+    }
+
+    /**
+     * Như {@link #insertRows}, nhưng lô lỗi (vd. khóa ngoại tới bản ghi vừa bị xóa) được ghi lại từng dòng
+     * để chỉ bỏ dòng hỏng. {@code onWritten} nhận các dòng đã ghi (cả lô hoặc từng dòng),
+     * {@code onDropped} nhận dòng bị bỏ cùng lỗi của nó.
+     */
+    public static <T> void insertOrRetryRows(JdbcTemplate jdbcTemplate, String table, String[] columns,
+            List<T> rows, RowBinder<T> binder, Consumer<List<T>> onWritten, BiConsumer<T, Exception> onDropped) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            insertRows(jdbcTemplate, table, columns, rows, binder);
+        } catch (Exception e) {
+            log.warn("INSERT of {} row(s) into {} failed, retrying row by row: {}", rows.size(), table,
+                    e.getMessage());
+            retryRowByRow(jdbcTemplate, table, columns, rows, binder, onWritten, onDropped);
+            return;
+        }
+        // Ngoài try: lỗi của callback không được khiến lô đã ghi bị ghi lại lần nữa
+        onWritten.accept(rows);
+    }
+
+    private static <T> void retryRowByRow(JdbcTemplate jdbcTemplate, String table, String[] columns,
+            List<T> rows, RowBinder<T> binder, Consumer<List<T>> onWritten, BiConsumer<T, Exception> onDropped) {
+        for (T r : rows) {
+            List<T> single = List.of(r);
+            try {
+                insertRows(jdbcTemplate, table, columns, single, binder);
+            } catch (Exception rowError) {
+                onDropped.accept(r, rowError);
+                continue;
+            }
+            onWritten.accept(single);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Đo thời gian lời gọi ra ngoài (provider TTS / dịch / thanh toán, storage) thành {@link Timer}
+ * có histogram (cho p95/p99 phía Prometheus) và tag {@code outcome} = success / error.
+ */
+public final class MetricsUtil {
+
+    private MetricsUtil() {
+    }
+
+    @FunctionalInterface
+    public interface TimedCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * @param name Tên timer, vd. {@code viettel.tts.call}
+     * @param tags Cặp key/value xen kẽ, vd. {@code "api", "synthesize"}
+     */
+    public static <T, E extends Exception> T timed(MeterRegistry registry, String name, TimedCall<T, E> call,
+            String... tags) throws E {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            T result = call.call();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder(name)
+                    .tags(tags)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+}
@@ -22,6 +22,7 @@ import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.stereotype.Service;
 
 import com.example.demo.domain.response.ResLoginDTO;
+import com.example.demo.util.error.PermissionException;
 import com.nimbusds.jose.util.Base64;
 
 @Service
@@ -223,4 +224,31 @@ public class SecurityUtil {
                 .flatMap(j -> getCurrentUserId())
                 .orElse(null);
     }
+
+    /**
+     * Route admin đang permitAll ở filter chain → endpoint nhạy cảm tự gọi hàm này để bắt buộc có JWT.
+     */
+    public static Jwt requireJwt() throws PermissionException {
+        return getCurrentJwt().orElseThrow(() -> new PermissionException("Bạn cần đăng nhập để truy cập"));
+    }
+
+    /**
+     * Bắt buộc JWT của full admin (không nhận chủ quán, không nhận request không đăng nhập).
+     */
+    public static void requireFullAdmin() throws PermissionException {
+        if (!isFullAdminJwt(requireJwt())) {
+            throw new PermissionException("Chỉ admin được thực hiện thao tác này");
+        }
+    }
+
+    /**
+     * Như {@link #getPoiOwnerScopeUserIdOrNull()} nhưng bắt buộc đăng nhập: full admin → {@code null};
+     * còn lại → {@code user_id} trong token (token không có user_id bị từ chối thay vì thấy toàn bộ).
+     */
+    public static Long requirePoiOwnerScopeUserIdOrNull() throws PermissionException {
+        if (isFullAdminJwt(requireJwt())) {
+            return null;
+        }
+        return getCurrentUserId().orElseThrow(() -> new PermissionException("Không có quyền truy cập"));
+    }
 }
@@ -0,0 +1,28 @@
+package com.example.demo.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public final class TransactionUtil {
+
+    private TransactionUtil() {
+    }
+
+    /**
+     * Chạy {@code action} sau khi transaction hiện tại commit thành công (rollback → bỏ qua).
+     * Không có transaction đang chạy → chạy ngay.
+     * Dùng để cập nhật cache/index trong RAM chỉ khi dữ liệu đã thực sự xuống DB.
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
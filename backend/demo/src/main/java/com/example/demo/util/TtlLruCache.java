@@ -0,0 +1,76 @@
+package com.example.demo.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Cache trong RAM: LinkedHashMap theo thứ tự truy cập (LRU) dưới 1 lock, mỗi phần tử có TTL
+ * tính từ lúc {@link #put}. Mỗi thao tác chỉ là vài phép map nên lock không thành nút cổ chai.
+ */
+public final class TtlLruCache<K, V> {
+
+    private final long ttlMillis;
+    private final Map<K, Entry<V>> entries;
+
+    public TtlLruCache(int maxEntries, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** Phần tử quá TTL bị xóa ngay khi đọc trúng. */
+    public Optional<V> get(K key) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry<V> e = entries.get(key);
+            if (e == null) {
+                return Optional.empty();
+            }
+            if (now - e.loadedAt() > ttlMillis) {
+                entries.remove(key);
+                return Optional.empty();
+            }
+            return Optional.of(e.value());
+        }
+    }
+
+    public void put(K key, V value) {
+        Entry<V> e = new Entry<>(value, System.currentTimeMillis());
+        synchronized (entries) {
+            entries.put(key, e);
+        }
+    }
+
+    public void remove(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public void removeIf(Predicate<? super K> filter) {
+        synchronized (entries) {
+            entries.keySet().removeIf(filter);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private record Entry<V>(V value, long loadedAt) {
+    }
+}
@@ -0,0 +1,23 @@
+-- V005__create_tts_generation_jobs.sql
+-- Hàng đợi job tạo audio TTS chạy nền (POST /api/v1/tts/groups/async, /groups/regenerate-async).
+CREATE TABLE IF NOT EXISTS tts_generation_jobs (
+    id                  BIGINT AUTO_INCREMENT PRIMARY KEY,
+    group_id            BIGINT       NOT NULL,
+    pending_languages   VARCHAR(100) NOT NULL,
+    status              VARCHAR(20)  NOT NULL,
+    total_languages     INT,
+    completed_languages INT,
+    attempts            INT,
+    max_attempts        INT,
+    next_run_at         DATETIME(6)  NOT NULL,
+    locked_by           VARCHAR(100),
+    locked_at           DATETIME(6),
+    last_error          VARCHAR(1000),
+    requested_by        VARCHAR(100),
+    created_at          DATETIME(6)  NOT NULL,
+    started_at          DATETIME(6),
+    finished_at         DATETIME(6),
+    updated_at          DATETIME(6),
+    INDEX idx_tts_jobs_status_next_run (status, next_run_at),
+    INDEX idx_tts_jobs_group (group_id)
+);
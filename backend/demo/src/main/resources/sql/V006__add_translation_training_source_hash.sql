@@ -0,0 +1,8 @@
+-- V006__add_translation_training_source_hash.sql
+-- Translation memory: tra cứu theo SHA-256 của text nguồn đã chuẩn hóa (cột TEXT không index được).
+-- Các dòng cũ được tính sourceHash khi ứng dụng khởi động (TranslationMemoryServiceImpl.backfillSourceHashes).
+ALTER TABLE translation_training
+    ADD COLUMN source_hash VARCHAR(64) NULL;
+
+CREATE INDEX idx_translation_lookup
+    ON translation_training (source_hash, source_lang, target_lang);
@@ -0,0 +1,16 @@
+-- V007__create_tts_synthesis_cache.sql
+-- Cache kết quả TTS: hash tham số synthesize → file audio lưu theo nội dung (tts-audios/cas/..), dùng chung giữa các group.
+CREATE TABLE IF NOT EXISTS tts_synthesis_cache (
+    id              BIGINT AUTO_INCREMENT PRIMARY KEY,
+    synthesis_key   VARCHAR(64)  NOT NULL,
+    language_code   VARCHAR(10),
+    file_name       VARCHAR(255) NOT NULL,
+    content_sha256  VARCHAR(64)  NOT NULL,
+    mime_type       VARCHAR(255) NOT NULL,
+    file_size       BIGINT       NOT NULL,
+    ref_count       INT,
+    created_at      DATETIME(6),
+    last_used_at    DATETIME(6),
+    UNIQUE KEY uk_tts_synthesis_key (synthesis_key),
+    INDEX idx_tts_synthesis_file (file_name)
+);
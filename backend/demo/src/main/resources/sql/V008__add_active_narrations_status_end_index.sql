@@ -0,0 +1,4 @@
+-- V008__add_active_narrations_status_end_index.sql
+-- Quét phiên PLAYING quá hạn (ActiveNarrationRegistryImpl.sweepExpired) theo (status, estimated_end_at).
+CREATE INDEX idx_active_narration_status_end
+    ON active_narrations (status, estimated_end_at);
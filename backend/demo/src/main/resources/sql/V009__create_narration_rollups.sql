@@ -0,0 +1,18 @@
+-- V009__create_narration_rollups.sql
+-- Số lượt nghe gộp theo giờ / ngày cho dashboard (NarrationRollupServiceImpl).
+-- Điền dữ liệu cũ: POST /api/v1/admin/dashboard/rollups/backfill?from=yyyy-MM-dd&to=yyyy-MM-dd
+CREATE TABLE IF NOT EXISTS narration_rollups (
+    id                BIGINT AUTO_INCREMENT PRIMARY KEY,
+    granularity       VARCHAR(10) NOT NULL,
+    bucket_start      DATETIME(6) NOT NULL,
+    poi_id            BIGINT      NOT NULL,
+    language_code     VARCHAR(10) NOT NULL,
+    narration_count   BIGINT      NOT NULL,
+    duration_seconds  BIGINT      NOT NULL,
+    updated_at        DATETIME(6) NOT NULL,
+    UNIQUE KEY uk_narration_rollup_bucket (granularity, bucket_start, poi_id, language_code),
+    INDEX idx_narration_rollup_poi (granularity, poi_id, bucket_start)
+);
+
+-- Tính lại 1 giờ chỉ quét log của giờ đó
+CREATE INDEX idx_narration_log_played_at ON narration_logs (played_at);
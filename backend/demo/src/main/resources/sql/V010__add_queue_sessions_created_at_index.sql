@@ -0,0 +1,4 @@
+-- V010__add_queue_sessions_created_at_index.sql
+-- Đếm phiên trong ngày theo POI (DashboardCounterServiceImpl.loadDay → countByPoiSince) theo (created_at, poi_id).
+CREATE INDEX idx_queue_session_created_poi
+    ON queue_sessions (created_at, poi_id);
@@ -0,0 +1,229 @@
+package com.example.demo.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.domain.ActiveNarration;
+import com.example.demo.domain.ActiveNarration.NarrationStatus;
+import com.example.demo.repository.ActiveNarrationRepository;
+import com.example.demo.repository.POIRepository;
+import com.example.demo.repository.TTSAudioRepository;
+import com.example.demo.service.ActiveNarrationRegistry.Playing;
+import com.example.demo.service.DashboardStreamService;
+
+class ActiveNarrationRegistryImplTest {
+
+    private static final String DEVICE = "device-1";
+
+    private final Instant now = Instant.now();
+    private ActiveNarrationRepository repository;
+    private QueuedWriter writer;
+    private ActiveNarrationRegistryImpl registry;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ActiveNarrationRepository.class);
+        AtomicLong ids = new AtomicLong();
+        when(repository.save(any(ActiveNarration.class))).thenAnswer(inv -> {
+            ActiveNarration an = inv.getArgument(0);
+            an.setId(ids.incrementAndGet());
+            return an;
+        });
+        when(repository.findById(any())).thenReturn(Optional.empty());
+
+        TransactionTemplate tx = mock(TransactionTemplate.class);
+        when(tx.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        writer = new QueuedWriter();
+        registry = new ActiveNarrationRegistryImpl(repository, mock(POIRepository.class),
+                mock(TTSAudioRepository.class), tx, mock(DashboardStreamService.class), writer, 100, 30);
+    }
+
+    @Test
+    void replacedSessionIsCountedOnceAndNewSessionExpiresById() {
+        Playing first = playing(DEVICE, 1L, now.minusSeconds(20), now.plusSeconds(600));
+        assertThat(registry.start(first)).isEmpty();
+        writer.runPending();
+
+        Playing second = playing(DEVICE, 2L, now.minusSeconds(5), now.minusSeconds(1));
+        assertThat(registry.start(second)).map(Playing::id).contains(1L);
+        writer.runPending();
+
+        assertThat(registry.listenerCount(1L)).isZero();
+        assertThat(registry.listenerCount(2L)).isEqualTo(1);
+        assertThat(registry.get(DEVICE)).map(Playing::id).contains(2L);
+        assertCountersMatchPlaying();
+
+        registry.expireDueNow();
+        writer.runPending();
+
+        verify(repository).expirePlaying(List.of(2L));
+        assertThat(registry.get(DEVICE)).isEmpty();
+        assertThat(registry.totalPlaying()).isZero();
+        assertCountersMatchPlaying();
+    }
+
+    @Test
+    void dueDeadlineOfSupersededSessionIsIgnored() {
+        registry.start(playing(DEVICE, 1L, now.minusSeconds(20), now.minusSeconds(1)));
+        writer.runPending();
+        Playing current = playing(DEVICE, 2L, now.minusSeconds(5), now.plusSeconds(600));
+        registry.start(current);
+        writer.runPending();
+
+        registry.expireDueNow();
+        writer.runPending();
+
+        verify(repository, never()).expirePlaying(anyCollection());
+        // Chỉ 2 lần EXPIRED phiên cũ trước khi INSERT (persistStart), không có lệnh hết hạn nào
+        verify(repository, times(2)).endPlayingByDevice(eq(DEVICE), eq(NarrationStatus.EXPIRED), any());
+        assertThat(registry.get(DEVICE)).map(Playing::poiId).contains(2L);
+        assertThat(registry.listenerCount(2L)).isEqualTo(1);
+        assertCountersMatchPlaying();
+    }
+
+    @Test
+    void endBeforePersistIsWrittenAfterInsertAndLeavesNoStaleId() {
+        Playing p = playing(DEVICE, 1L, now, now.plusSeconds(600));
+        registry.start(p);
+
+        assertThat(registry.endByDevice(DEVICE, NarrationStatus.SKIPPED)).contains(p);
+        assertThat(registry.totalPlaying()).isZero();
+        writer.runPending();
+
+        InOrder order = inOrder(repository);
+        order.verify(repository).save(any(ActiveNarration.class));
+        order.verify(repository).endPlayingByDevice(DEVICE, NarrationStatus.SKIPPED, p.estimatedEndAt());
+        assertThat(registry.get(DEVICE)).isEmpty();
+
+        // id 1 không được gắn vào RAM → endById đi thẳng xuống DB
+        assertThat(registry.endById(1L, NarrationStatus.COMPLETED)).isFalse();
+        verify(repository).findById(1L);
+        assertCountersMatchPlaying();
+    }
+
+    @Test
+    void expiryBeforePersistEndsByDeviceAfterInsert() {
+        Playing p = playing(DEVICE, 1L, now.minusSeconds(20), now.minusSeconds(1));
+        registry.start(p);
+
+        registry.expireDueNow();
+        writer.runPending();
+
+        InOrder order = inOrder(repository);
+        order.verify(repository).save(any(ActiveNarration.class));
+        order.verify(repository).endPlayingByDevice(DEVICE, NarrationStatus.EXPIRED, p.estimatedEndAt());
+        verify(repository, never()).expirePlaying(anyCollection());
+        assertThat(registry.get(DEVICE)).isEmpty();
+        assertCountersMatchPlaying();
+    }
+
+    @Test
+    void countersNeverGoBelowZero() {
+        registry.start(playing("a", 1L, now.minusSeconds(30), now.minusSeconds(1)));
+        registry.start(playing("a", 1L, now.minusSeconds(10), now.plusSeconds(600)));
+        registry.start(playing("b", 1L, now.minusSeconds(10), now.minusSeconds(1)));
+        registry.endByDevice("a", NarrationStatus.COMPLETED);
+        registry.endByDevice("a", NarrationStatus.COMPLETED);
+        registry.endByDevice("unknown", NarrationStatus.SKIPPED);
+        registry.expireDueNow();
+        registry.expireDueNow();
+        writer.runPending();
+        assertThat(registry.totalPlaying()).isZero();
+
+        // Bộ đếm đã âm sẽ lộ ra khi thêm phiên mới (giá trị đọc bị kẹp về 0)
+        registry.start(playing("c", 1L, now, now.plusSeconds(600)));
+        registry.start(playing("d", 2L, now, now.plusSeconds(600)));
+        writer.runPending();
+
+        assertThat(registry.listenerCount(1L)).isEqualTo(1);
+        assertThat(registry.listenerCount(2L)).isEqualTo(1);
+        assertThat(registry.totalPlaying()).isEqualTo(2);
+        assertCountersMatchPlaying();
+    }
+
+    private void assertCountersMatchPlaying() {
+        List<Playing> playing = registry.playing(null);
+        assertThat(registry.totalPlaying()).isEqualTo(playing.size());
+        Map<Long, Integer> counts = registry.listenerCounts();
+        assertThat(counts.values().stream().mapToInt(Integer::intValue).sum()).isEqualTo(playing.size());
+        counts.forEach((poiId, count) -> assertThat(count)
+                .isEqualTo((int) playing.stream().filter(p -> poiId.equals(p.poiId())).count()));
+    }
+
+    private static Playing playing(String deviceId, Long poiId, Instant startedAt, Instant endAt) {
+        return new Playing(null, deviceId, poiId, "POI " + poiId, null, 10L + poiId, "vi", startedAt, endAt,
+                null, null);
+    }
+
+    /** Giữ các lệnh ghi tới khi test gọi {@link #runPending()} rồi chạy tuần tự trên luồng test. */
+    private static final class QueuedWriter extends AbstractExecutorService {
+
+        private final Queue<Runnable> pending = new ArrayDeque<>();
+        private boolean shutdown;
+
+        void runPending() {
+            Runnable r;
+            while ((r = pending.poll()) != null) {
+                r.run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            pending.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            List<Runnable> dropped = List.copyOf(pending);
+            pending.clear();
+            return dropped;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown && pending.isEmpty();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return isTerminated();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.domain.DeviceConfig;
+import com.example.demo.domain.response.app.ResDeviceConfigDTO;
+import com.example.demo.repository.DeviceConfigRepository;
+import com.example.demo.repository.POIRepository;
+import com.example.demo.repository.PaymentRepository;
+import com.example.demo.repository.TTSAudioGroupRepository;
+import com.example.demo.repository.TTSAudioRepository;
+import com.example.demo.service.ActiveNarrationRegistry;
+import com.example.demo.service.DashboardCounterService;
+import com.example.demo.service.DashboardStreamService;
+import com.example.demo.service.GeofenceDecisionLog;
+import com.example.demo.service.GeofenceService;
+import com.example.demo.service.NarrationLogIngestor;
+import com.example.demo.service.POISpatialIndex;
+import com.example.demo.service.PayOSService;
+import com.example.demo.service.VisitSessionTracker;
+
+class AppClientServiceImplSyncTest {
+
+    private static final String DEVICE_ID = "device-1";
+
+    private POIRepository poiRepository;
+    private POISpatialIndex poiSpatialIndex;
+    private DeviceConfig device;
+    private AppClientServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        poiRepository = mock(POIRepository.class);
+        poiSpatialIndex = mock(POISpatialIndex.class);
+        DeviceConfigRepository deviceConfigRepository = mock(DeviceConfigRepository.class);
+
+        device = DeviceConfig.builder().deviceId(DEVICE_ID).ramMB(8192).storageFreeMB(4096).build();
+        when(deviceConfigRepository.findByDeviceId(DEVICE_ID)).thenAnswer(inv -> Optional.of(device));
+        when(deviceConfigRepository.save(any(DeviceConfig.class))).thenAnswer(inv -> inv.getArgument(0));
+        indexVersions(Map.of(1L, 1, 2L, 3), "w1");
+
+        service = new AppClientServiceImpl(poiRepository, deviceConfigRepository, mock(PaymentRepository.class),
+                mock(TTSAudioRepository.class), mock(TTSAudioGroupRepository.class), mock(GeofenceService.class),
+                mock(NarrationLogIngestor.class), mock(PayOSService.class), poiSpatialIndex,
+                mock(ActiveNarrationRegistry.class), mock(DashboardStreamService.class),
+                mock(DashboardCounterService.class), mock(GeofenceDecisionLog.class), mock(VisitSessionTracker.class));
+    }
+
+    @Test
+    void streamingDeviceGetsNoCursor() throws Exception {
+        device.setRamMB(2048);
+
+        ResDeviceConfigDTO res = service.syncDevice(DEVICE_ID, null, null, null, null);
+
+        assertThat(res.getSyncCursor()).isNull();
+        assertThat(res.getPoisNeedingSync()).isEmpty();
+        verify(poiRepository, never()).findAllWithRestaurantByIdIn(anyCollection());
+    }
+
+    @Test
+    void deviceSwitchingToOfflineGetsFullDeltaDespiteOldCursor() throws Exception {
+        // Cursor cũ chỉ là watermark (không kèm version vector) — không được coi là đã đồng bộ
+        ResDeviceConfigDTO res = service.syncDevice(DEVICE_ID, null, null, null, "w1");
+
+        assertThat(res.getPoisNeedingSync()).isEqualTo(Map.of(1L, 1, 2L, 3));
+        assertThat(res.getSyncCursor()).isNotNull();
+    }
+
+    @Test
+    void fullyAppliedDeltaWithMatchingCursorIsSkipped() throws Exception {
+        String cursor = service.syncDevice(DEVICE_ID, null, null, null, null).getSyncCursor();
+
+        ResDeviceConfigDTO res = service.syncDevice(DEVICE_ID, null, null, "{\"1\":1,\"2\":3}", cursor);
+
+        assertThat(res.getPoisNeedingSync()).isEmpty();
+        assertThat(res.getRemovedPoiIds()).isEmpty();
+        assertThat(res.getSyncCursor()).isEqualTo(cursor);
+        verify(poiSpatialIndex).versionSnapshot();
+    }
+
+    @Test
+    void partiallyAppliedDeltaIsSentAgain() throws Exception {
+        String cursor = service.syncDevice(DEVICE_ID, null, null, null, null).getSyncCursor();
+
+        ResDeviceConfigDTO res = service.syncDevice(DEVICE_ID, null, null, "{\"1\":1}", cursor);
+
+        assertThat(res.getPoisNeedingSync()).isEqualTo(Map.of(2L, 3));
+        assertThat(res.getSyncCursor()).isEqualTo(cursor);
+    }
+
+    @Test
+    void indexChangeInvalidatesCursor() throws Exception {
+        String cursor = service.syncDevice(DEVICE_ID, null, null, null, null).getSyncCursor();
+        indexVersions(Map.of(2L, 4), "w2");
+
+        ResDeviceConfigDTO res = service.syncDevice(DEVICE_ID, null, null, "{\"1\":1,\"2\":3}", cursor);
+
+        assertThat(res.getPoisNeedingSync()).isEqualTo(Map.of(2L, 4));
+        assertThat(res.getRemovedPoiIds()).isEqualTo(List.of(1L));
+        assertThat(res.getSyncCursor()).isNotEqualTo(cursor);
+    }
+
+    private void indexVersions(Map<Long, Integer> versions, String watermark) {
+        when(poiSpatialIndex.versionSnapshot()).thenReturn(versions);
+        when(poiSpatialIndex.versionDigest()).thenReturn(watermark);
+    }
+}
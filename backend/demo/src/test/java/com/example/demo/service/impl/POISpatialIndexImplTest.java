@@ -0,0 +1,140 @@
+package com.example.demo.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+
+import com.example.demo.domain.POI;
+import com.example.demo.repository.POIRepository;
+import com.example.demo.service.POISpatialIndex.NearbyHit;
+
+class POISpatialIndexImplTest {
+
+    private POIRepository poiRepository;
+    private POISpatialIndexImpl index;
+
+    @BeforeEach
+    void setUp() {
+        poiRepository = mock(POIRepository.class);
+        index = new POISpatialIndexImpl(poiRepository, new GeofenceServiceImpl());
+    }
+
+    @Test
+    void findsPoiAcrossCellBoundary() {
+        fillFarCells();
+        // 10.0049 và 10.0051 nằm ở 2 hàng ô khác nhau, cách nhau ~22m
+        index.upsert(poi(1L, 10.0049, 106.7001, 50f));
+
+        assertThat(ids(index.findWithinRadius(10.0051, 106.7001, 50))).containsExactly(1L);
+        assertThat(index.findContaining(10.0051, 106.7001)).extracting(POI::getId).containsExactly(1L);
+    }
+
+    @Test
+    void handlesNegativeCoordinatesAroundZero() {
+        fillFarCells();
+        // floor(-0.02) = -1 → POI và điểm truy vấn ở 2 ô khác nhau dù cách ~31m
+        index.upsert(poi(1L, -0.0001, -0.0001, 50f));
+
+        assertThat(ids(index.findWithinRadius(0.0001, 0.0001, 50))).containsExactly(1L);
+        assertThat(ids(index.findWithinRadius(0.0001, 0.0001, 20))).isEmpty();
+    }
+
+    @Test
+    void widensLongitudeSpanAtHighLatitude() {
+        fillFarCells();
+        // Ở vĩ độ 60, 0.009 độ kinh ≈ 501m (≈ 1000m ở xích đạo) và trải qua nhiều cột ô
+        index.upsert(poi(1L, 60.0, 10.010, 50f));
+
+        assertThat(ids(index.findWithinRadius(60.0, 10.001, 600))).containsExactly(1L);
+        assertThat(ids(index.findWithinRadius(60.0, 10.001, 400))).isEmpty();
+    }
+
+    @Test
+    void findContainingUsesEachPoiTriggerRadius() {
+        fillFarCells();
+        // ~700m về phía bắc, bán kính 800m → chứa điểm dù cách hơn 1 hàng ô
+        index.upsert(poi(1L, 21.0063, 105.8, 800f));
+        // ~100m, bán kính 30m → không chứa
+        index.upsert(poi(2L, 21.0009, 105.8, 30f));
+
+        assertThat(index.findContaining(21.0, 105.8)).extracting(POI::getId).containsExactly(1L);
+    }
+
+    @Test
+    void scansAllPoisWhenRadiusCoversMoreCellsThanExist() {
+        index.upsert(poi(1L, 10.0, 106.0, 50f));
+        index.upsert(poi(2L, 10.5, 106.0, 50f));
+
+        assertThat(ids(index.findWithinRadius(10.0, 106.0, 100_000))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void upsertOfInactivePoiRemovesIt() {
+        index.upsert(poi(1L, 10.0, 106.0, 50f));
+        POI inactive = poi(1L, 10.0, 106.0, 50f);
+        inactive.setIsActive(false);
+        index.upsert(inactive);
+
+        assertThat(index.size()).isZero();
+        assertThat(index.findContaining(10.0, 106.0)).isEmpty();
+    }
+
+    @Test
+    void reconcileRebuildsOnlyWhenFingerprintChanges() {
+        when(poiRepository.catalogueFingerprint()).thenReturn(fingerprint(1L));
+        when(poiRepository.findAllActiveWithLocation(any()))
+                .thenReturn(new PageImpl<>(List.of(poi(1L, 10.0, 106.0, 50f))));
+        index.rebuild();
+
+        index.reconcile();
+        verify(poiRepository, times(1)).findAllActiveWithLocation(any());
+
+        // POI thêm ở instance khác
+        when(poiRepository.catalogueFingerprint()).thenReturn(fingerprint(2L));
+        when(poiRepository.findAllActiveWithLocation(any()))
+                .thenReturn(new PageImpl<>(List.of(poi(1L, 10.0, 106.0, 50f), poi(2L, 10.001, 106.0, 50f))));
+        index.reconcile();
+
+        verify(poiRepository, times(2)).findAllActiveWithLocation(any());
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.versionSnapshot()).containsKeys(1L, 2L);
+    }
+
+    // ============= Private =============
+
+    /** Nhiều ô có dữ liệu ở xa → truy vấn nhỏ đi qua nhánh quét theo ô thay vì quét toàn bộ. */
+    private void fillFarCells() {
+        for (int i = 0; i < 200; i++) {
+            index.upsert(poi(1000L + i, -40.0 + i * 0.01, -70.0, 50f));
+        }
+    }
+
+    private static POI poi(Long id, double lat, double lng, float radius) {
+        return POI.builder()
+                .id(id)
+                .latitude(lat)
+                .longitude(lng)
+                .triggerRadiusMeters(radius)
+                .isActive(true)
+                .version(1)
+                .build();
+    }
+
+    private static List<Long> ids(List<NearbyHit> hits) {
+        return hits.stream().map(h -> h.poi().getId()).toList();
+    }
+
+    private static List<Object[]> fingerprint(long count) {
+        return Collections.singletonList(new Object[] { count, count, null, count });
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.demo.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TranslationCoalescerTest {
+
+    private ScheduledExecutorService scheduler;
+    private List<List<String>> calls;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        calls = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void flushesAsSoonAsBatchIsFull() throws Exception {
+        // Cửa sổ rất dài → chỉ có thể xong nhờ đủ maxBatch
+        TranslationCoalescer coalescer = new TranslationCoalescer(this::upperCase, scheduler, 60_000, 3);
+
+        CompletableFuture<String> a = coalescer.submit("a", "en");
+        CompletableFuture<String> b = coalescer.submit("b", "en");
+        CompletableFuture<String> c = coalescer.submit("c", "en");
+
+        assertThat(c.get(2, TimeUnit.SECONDS)).isEqualTo("C");
+        assertThat(a.get(2, TimeUnit.SECONDS)).isEqualTo("A");
+        assertThat(b.get(2, TimeUnit.SECONDS)).isEqualTo("B");
+        assertThat(calls).containsExactly(List.of("a", "b", "c"));
+    }
+
+    @Test
+    void flushesPartialBatchWhenWindowCloses() throws Exception {
+        TranslationCoalescer coalescer = new TranslationCoalescer(this::upperCase, scheduler, 200, 100);
+
+        CompletableFuture<String> a = coalescer.submit("a", "en");
+        CompletableFuture<String> b = coalescer.submit("b", "en");
+        assertThat(a).isNotDone();
+
+        assertThat(a.get(2, TimeUnit.SECONDS)).isEqualTo("A");
+        assertThat(b.get(2, TimeUnit.SECONDS)).isEqualTo("B");
+        assertThat(calls).containsExactly(List.of("a", "b"));
+    }
+
+    @Test
+    void windowDoesNotResendBatchAlreadyFlushedBySize() throws Exception {
+        TranslationCoalescer coalescer = new TranslationCoalescer(this::upperCase, scheduler, 50, 2);
+
+        coalescer.submit("a", "en");
+        coalescer.submit("b", "en").get(2, TimeUnit.SECONDS);
+        Thread.sleep(200);
+
+        assertThat(calls).containsExactly(List.of("a", "b"));
+    }
+
+    @Test
+    void deduplicatesTextAndSeparatesTargetLanguages() throws Exception {
+        TranslationCoalescer coalescer = new TranslationCoalescer(this::upperCase, scheduler, 50, 100);
+
+        CompletableFuture<String> first = coalescer.submit("a", "en");
+        CompletableFuture<String> again = coalescer.submit("a", "en");
+        CompletableFuture<String> other = coalescer.submit("a", "ja");
+
+        assertThat(again).isSameAs(first);
+        assertThat(first.get(2, TimeUnit.SECONDS)).isEqualTo("A");
+        assertThat(other.get(2, TimeUnit.SECONDS)).isEqualTo("A");
+        assertThat(calls).containsExactlyInAnyOrder(List.of("a"), List.of("a"));
+    }
+
+    @Test
+    void propagatesTranslatorErrorToEveryWaiter() {
+        IllegalStateException boom = new IllegalStateException("quota exceeded");
+        TranslationCoalescer coalescer = new TranslationCoalescer((texts, lang) -> {
+            throw boom;
+        }, scheduler, 50, 100);
+
+        CompletableFuture<String> a = coalescer.submit("a", "en");
+        CompletableFuture<String> b = coalescer.submit("b", "en");
+
+        assertThatThrownBy(() -> a.get(2, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasCause(boom);
+        assertThatThrownBy(() -> b.get(2, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasCause(boom);
+    }
+
+    @Test
+    void completesMissingResultsWithNull() throws Exception {
+        TranslationCoalescer coalescer = new TranslationCoalescer((texts, lang) -> List.of("A"), scheduler, 50, 2);
+
+        CompletableFuture<String> a = coalescer.submit("a", "en");
+        CompletableFuture<String> b = coalescer.submit("b", "en");
+
+        assertThat(a.get(2, TimeUnit.SECONDS)).isEqualTo("A");
+        assertThat(b.get(2, TimeUnit.SECONDS)).isNull();
+    }
+
+    private List<String> upperCase(List<String> texts, String targetLang) {
+        calls.add(List.copyOf(texts));
+        return texts.stream().map(String::toUpperCase).toList();
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.demo.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+
+import com.example.demo.domain.POI;
+import com.example.demo.service.DashboardCounterService;
+import com.example.demo.service.GeofenceService;
+import com.example.demo.service.POISpatialIndex;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class VisitSessionTrackerImplTest {
+
+    private static final String DEVICE = "device-1";
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    private static final POI POI_A = POI.builder().id(1L).latitude(10.0).longitude(106.0).build();
+    private static final POI POI_B = POI.builder().id(2L).latitude(10.1).longitude(106.1).build();
+
+    private JdbcTemplate jdbcTemplate;
+    private DashboardCounterService dashboardCounterService;
+    private VisitSessionTrackerImpl tracker;
+
+    @BeforeEach
+    void setUp() {
+        POISpatialIndex index = mock(POISpatialIndex.class);
+        when(index.findContaining(anyDouble(), anyDouble())).thenReturn(List.of());
+        when(index.findContaining(10.0, 106.0)).thenReturn(List.of(POI_A));
+        when(index.findContaining(10.1, 106.1)).thenReturn(List.of(POI_B));
+
+        GeofenceService geofenceService = mock(GeofenceService.class);
+        when(geofenceService.findBestPOI(anyDouble(), anyDouble(), anyList())).thenAnswer(inv -> {
+            List<POI> pois = inv.getArgument(2);
+            return new GeofenceService.RankedPOI(pois.get(0), 0, 0, 0);
+        });
+
+        jdbcTemplate = mock(JdbcTemplate.class);
+        dashboardCounterService = mock(DashboardCounterService.class);
+        tracker = new VisitSessionTrackerImpl(jdbcTemplate, index, geofenceService, dashboardCounterService,
+                new SimpleMeterRegistry(), 30, 180, 500);
+    }
+
+    @Test
+    void visitIsConfirmedOnlyAfterMinDwell() {
+        tracker.onLocation(DEVICE, 10.0, 106.0, T0);
+        tracker.onLocation(DEVICE, 10.0, 106.0, T0.plusSeconds(29));
+        assertThat(tracker.activeCount()).isZero();
+
+        tracker.onLocation(DEVICE, 10.0, 106.0, T0.plusSeconds(30));
+        assertThat(tracker.activeCount()).isEqualTo(1);
+    }
+
+    @Test
+    void unconfirmedCandidateIsDroppedWithoutWriting() {
+        tracker.onLocation(DEVICE, 10.0, 106.0, T0);
+        tracker.onLocation(DEVICE, 10.0, 106.0, T0.plusSeconds(10));
+
+        tracker.sweep(T0.plusSeconds(10 + 180));
+
+        verify(jdbcTemplate, never()).update(anyString(), any(PreparedStatementSetter.class));
+        verify(dashboardCounterService, never()).recordSession(any());
+    }
+
+    @Test
+    void sweepClosesVisitOnlyAfterExitTimeout() throws Exception {
+        tracker.onLocation(DEVICE, 10.0, 106.0, T0);
+        tracker.onLocation(DEVICE, 10.0, 106.0, T0.plusSeconds(60));
+        // GPS nhảy ra ngoài mọi vùng: chưa đóng
+        tracker.onLocation(DEVICE, 11.0, 107.0, T0.plusSeconds(90));
+
+        tracker.sweep(T0.plusSeconds(60 + 179));
+        assertThat(tracker.activeCount()).isEqualTo(1);
+        verify(jdbcTemplate, never()).update(anyString(), any(PreparedStatementSetter.class));
+
+        tracker.sweep(T0.plusSeconds(60 + 180));
+        assertThat(tracker.activeCount()).isZero();
+        verify(dashboardCounterService).recordSession(1L);
+
+        PreparedStatement ps = writtenRow();
+        verify(ps).setLong(2, 1L);
+        assertThat(timestampAt(ps, 3)).isEqualTo(Timestamp.from(T0));
+        assertThat(timestampAt(ps, 4)).isEqualTo(Timestamp.from(T0.plusSeconds(60)));
+    }
+
+    @Test
+    void enteringAnotherPoiClosesPreviousVisitImmediately() throws Exception {
+        tracker.onLocation(DEVICE, 10.0, 106.0, T0);
+        tracker.onLocation(DEVICE, 10.0, 106.0, T0.plusSeconds(40));
+
+        tracker.onLocation(DEVICE, 10.1, 106.1, T0.plusSeconds(50));
+        // Phiên B mới là ứng viên; phiên A đã đóng dù còn xa mới tới exit timeout
+        assertThat(tracker.activeCount()).isZero();
+
+        tracker.sweep(T0.plusSeconds(51));
+        verify(dashboardCounterService).recordSession(1L);
+        PreparedStatement ps = writtenRow();
+        verify(ps).setLong(2, 1L);
+        assertThat(timestampAt(ps, 4)).isEqualTo(Timestamp.from(T0.plusSeconds(40)));
+
+        tracker.onLocation(DEVICE, 10.1, 106.1, T0.plusSeconds(80));
+        assertThat(tracker.activeCount()).isEqualTo(1);
+    }
+
+    @Test
+    void listeningTimeIsCappedAtEstimatedEnd() throws Exception {
+        tracker.onNarrationStart(DEVICE, 1L, T0, T0.plusSeconds(60));
+        // Nghe thuyết minh → tính ngay, không chờ min dwell
+        assertThat(tracker.activeCount()).isEqualTo(1);
+
+        // Không có sự kiện kết thúc audio: phiên kết thúc tại playingUntil, không phải lúc sweep
+        tracker.sweep(T0.plusSeconds(1_000));
+
+        PreparedStatement ps = writtenRow();
+        assertThat(timestampAt(ps, 4)).isEqualTo(Timestamp.from(T0.plusSeconds(60)));
+        verify(ps).setLong(5, 60L);
+        verify(ps).setInt(6, 1);
+    }
+
+    @Test
+    void lateNarrationEndDoesNotExtendListeningTime() throws Exception {
+        tracker.onNarrationStart(DEVICE, 1L, T0, T0.plusSeconds(60));
+        tracker.onNarrationEnd(DEVICE, T0.plusSeconds(90));
+
+        tracker.sweep(T0.plusSeconds(90 + 180));
+
+        verify(writtenRow()).setLong(5, 60L);
+    }
+
+    /** Chạy setter của câu INSERT (đúng 1 lần ghi, 1 dòng) trên PreparedStatement giả. */
+    private PreparedStatement writtenRow() throws Exception {
+        ArgumentCaptor<PreparedStatementSetter> setter = ArgumentCaptor.forClass(PreparedStatementSetter.class);
+        verify(jdbcTemplate).update(anyString(), setter.capture());
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps);
+        return ps;
+    }
+
+    /** Timestamp đã gán ở vị trí {@code index} — luôn phải kèm Calendar UTC. */
+    private static Timestamp timestampAt(PreparedStatement ps, int index) throws Exception {
+        ArgumentCaptor<Timestamp> timestamp = ArgumentCaptor.forClass(Timestamp.class);
+        ArgumentCaptor<Calendar> calendar = ArgumentCaptor.forClass(Calendar.class);
+        verify(ps).setTimestamp(eq(index), timestamp.capture(), calendar.capture());
+        assertThat(calendar.getValue().getTimeZone().getID()).isEqualTo("UTC");
+        return timestamp.getValue();
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.demo.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class FileStreamUtilTest {
+
+    private static final String BODY = "0123456789";
+    private static final String ETAG = "\"abc\"";
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = Files.writeString(tempDir.resolve("audio.mp3"), BODY);
+    }
+
+    // ============= parseRange =============
+
+    @Test
+    void parsesClosedOpenAndSuffixRanges() {
+        assertThat(FileStreamUtil.parseRange("bytes=2-5", 10)).containsExactly(2, 5);
+        assertThat(FileStreamUtil.parseRange("bytes=7-", 10)).containsExactly(7, 9);
+        assertThat(FileStreamUtil.parseRange("bytes=-3", 10)).containsExactly(7, 9);
+        assertThat(FileStreamUtil.parseRange(" bytes= 4 - 4 ", 10)).containsExactly(4, 4);
+    }
+
+    @Test
+    void clampsEndAndSuffixToLength() {
+        assertThat(FileStreamUtil.parseRange("bytes=5-100", 10)).containsExactly(5, 9);
+        assertThat(FileStreamUtil.parseRange("bytes=-100", 10)).containsExactly(0, 9);
+    }
+
+    @Test
+    void invalidSyntaxIsIgnored() {
+        assertThat(FileStreamUtil.parseRange("bytes=5-3", 10)).isNull();
+        assertThat(FileStreamUtil.parseRange("bytes=-", 10)).isNull();
+        assertThat(FileStreamUtil.parseRange("bytes=abc-", 10)).isNull();
+        assertThat(FileStreamUtil.parseRange("bytes=5--3", 10)).isNull();
+        assertThat(FileStreamUtil.parseRange("bytes=+1-2", 10)).isNull();
+        assertThat(FileStreamUtil.parseRange("bytes=99999999999999999999-", 10)).isNull();
+        assertThat(FileStreamUtil.parseRange("items=0-1", 10)).isNull();
+        assertThat(FileStreamUtil.parseRange("bytes=0-1,3-4", 10)).isNull();
+    }
+
+    @Test
+    void validButUnsatisfiableRangeIsEmpty() {
+        assertThat(FileStreamUtil.parseRange("bytes=10-", 10)).isEmpty();
+        assertThat(FileStreamUtil.parseRange("bytes=10-20", 10)).isEmpty();
+        assertThat(FileStreamUtil.parseRange("bytes=-0", 10)).isEmpty();
+        assertThat(FileStreamUtil.parseRange("bytes=0-", 0)).isEmpty();
+    }
+
+    // ============= serve =============
+
+    @Test
+    void servesFullFile() throws Exception {
+        MockHttpServletResponse res = serve(get());
+
+        assertThat(res.getStatus()).isEqualTo(200);
+        assertThat(res.getContentAsString()).isEqualTo(BODY);
+        assertThat(res.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+    }
+
+    @Test
+    void servesPartialContent() throws Exception {
+        MockHttpServletRequest req = get();
+        req.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        MockHttpServletResponse res = serve(req);
+
+        assertThat(res.getStatus()).isEqualTo(206);
+        assertThat(res.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+        assertThat(res.getContentAsString()).isEqualTo("2345");
+    }
+
+    @Test
+    void invalidRangeServesFullFile() throws Exception {
+        MockHttpServletRequest req = get();
+        req.addHeader(HttpHeaders.RANGE, "bytes=5-3");
+
+        MockHttpServletResponse res = serve(req);
+
+        assertThat(res.getStatus()).isEqualTo(200);
+        assertThat(res.getContentAsString()).isEqualTo(BODY);
+    }
+
+    @Test
+    void unsatisfiableRangeIs416() throws Exception {
+        MockHttpServletRequest req = get();
+        req.addHeader(HttpHeaders.RANGE, "bytes=20-");
+
+        MockHttpServletResponse res = serve(req);
+
+        assertThat(res.getStatus()).isEqualTo(416);
+        assertThat(res.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+    }
+
+    @Test
+    void ifNoneMatchReturns304() throws Exception {
+        MockHttpServletRequest req = get();
+        req.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", " + ETAG);
+
+        MockHttpServletResponse res = serve(req);
+
+        assertThat(res.getStatus()).isEqualTo(304);
+        assertThat(res.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void ifNoneMatchMismatchIgnoresIfModifiedSince() throws Exception {
+        MockHttpServletRequest req = get();
+        req.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\"");
+        req.addHeader(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED + 60_000);
+
+        assertThat(serve(req).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void ifModifiedSinceReturns304WhenUnchanged() throws Exception {
+        MockHttpServletRequest req = get();
+        req.addHeader(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED);
+
+        assertThat(serve(req).getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void ifRangeWithMatchingEtagServesRange() throws Exception {
+        MockHttpServletRequest req = get();
+        req.addHeader(HttpHeaders.RANGE, "bytes=8-");
+        req.addHeader(HttpHeaders.IF_RANGE, ETAG);
+
+        MockHttpServletResponse res = serve(req);
+
+        assertThat(res.getStatus()).isEqualTo(206);
+        assertThat(res.getContentAsString()).isEqualTo("89");
+    }
+
+    @Test
+    void ifRangeWithStaleEtagServesFullFile() throws Exception {
+        MockHttpServletRequest req = get();
+        req.addHeader(HttpHeaders.RANGE, "bytes=8-");
+        req.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+
+        MockHttpServletResponse res = serve(req);
+
+        assertThat(res.getStatus()).isEqualTo(200);
+        assertThat(res.getContentAsString()).isEqualTo(BODY);
+    }
+
+    @Test
+    void ifRangeWithDateComparesLastModified() throws Exception {
+        MockHttpServletRequest matching = get();
+        matching.addHeader(HttpHeaders.RANGE, "bytes=8-");
+        matching.addHeader(HttpHeaders.IF_RANGE, LAST_MODIFIED);
+        assertThat(serve(matching).getStatus()).isEqualTo(206);
+
+        MockHttpServletRequest older = get();
+        older.addHeader(HttpHeaders.RANGE, "bytes=8-");
+        older.addHeader(HttpHeaders.IF_RANGE, LAST_MODIFIED - 60_000);
+        assertThat(serve(older).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void headSendsHeadersOnly() throws Exception {
+        MockHttpServletRequest req = new MockHttpServletRequest("HEAD", "/audio.mp3");
+
+        MockHttpServletResponse res = serve(req);
+
+        assertThat(res.getStatus()).isEqualTo(200);
+        assertThat(res.getContentLengthLong()).isEqualTo(BODY.length());
+        assertThat(res.getContentAsByteArray()).isEmpty();
+    }
+
+    private static MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/audio.mp3");
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest req) throws Exception {
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        FileStreamUtil.serve(req, res, file, BODY.getBytes(StandardCharsets.UTF_8).length, LAST_MODIFIED, ETAG,
+                "audio/mpeg", null, null);
+        return res;
+    }
+}